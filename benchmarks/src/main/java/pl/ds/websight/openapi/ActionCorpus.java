@@ -0,0 +1,265 @@
+package pl.ds.websight.openapi;
+
+import pl.ds.websight.rest.framework.RestAction;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Synthetic corpus of action classes, generated as sources and compiled once per size and DTO graph shape. Compiled
+ * corpora are kept in {@code target/corpora}, so they are reused by following benchmark runs.
+ * <p>
+ * Every action has its own response DTO. Request models are shared by groups of actions. Response DTOs refer to
+ * other DTOs according to the {@link Graph} shape.
+ */
+final class ActionCorpus {
+
+    static final String PACKAGE_NAME = "pl.ds.websight.openapi.corpus";
+
+    private static final Path CORPORA_DIRECTORY = Paths.get("target", "corpora");
+    private static final int MODELS = 10;
+    private static final int WIDE_FIELDS = 30;
+    private static final int DEEP_LEVELS = 20;
+
+    /**
+     * Shape of the graph of DTOs returned by the actions.
+     */
+    enum Graph {
+        /**
+         * Response DTOs with many fields of simple, collection and map types.
+         */
+        WIDE,
+        /**
+         * Response DTOs referring to a long chain of nested DTOs shared by all actions.
+         */
+        DEEP,
+        /**
+         * Response DTOs referring to DTOs with cycles, including a self-referencing tree node.
+         */
+        CYCLIC
+    }
+
+    private final Path classesDirectory;
+    private final URLClassLoader classLoader;
+    private final List<Class<?>> actionClasses;
+
+    private ActionCorpus(Path classesDirectory, URLClassLoader classLoader, List<Class<?>> actionClasses) {
+        this.classesDirectory = classesDirectory;
+        this.classLoader = classLoader;
+        this.actionClasses = actionClasses;
+    }
+
+    /**
+     * Returns corpus of the given number of actions, compiling it if it was not compiled before.
+     */
+    static ActionCorpus load(int actions, Graph graph) throws IOException, ClassNotFoundException {
+        Path corpusDirectory = CORPORA_DIRECTORY.resolve(graph.name().toLowerCase() + "-" + actions).toAbsolutePath();
+        Path classesDirectory = corpusDirectory.resolve("classes");
+        if (!Files.isDirectory(classesDirectory)) {
+            compile(corpusDirectory, classesDirectory, actions, graph);
+        }
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDirectory.toUri().toURL()},
+                ActionCorpus.class.getClassLoader());
+        List<Class<?>> actionClasses = new ArrayList<>(actions);
+        for (int i = 0; i < actions; i++) {
+            actionClasses.add(Class.forName(PACKAGE_NAME + "." + actionName(i), false, classLoader));
+        }
+        return new ActionCorpus(classesDirectory, classLoader, Collections.unmodifiableList(actionClasses));
+    }
+
+    Path getClassesDirectory() {
+        return classesDirectory;
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    List<Class<?>> getActionClasses() {
+        return actionClasses;
+    }
+
+    /**
+     * Returns response types of all actions.
+     */
+    List<Type> getResponseTypes() {
+        return actionClasses.stream()
+                .map(actionClass -> ((ParameterizedType) actionClass.getGenericInterfaces()[0]).getActualTypeArguments()[1])
+                .collect(toList());
+    }
+
+    /**
+     * Returns generic types of all fields of the request models.
+     */
+    List<Type> getRequestFieldTypes() {
+        return actionClasses.stream()
+                .map(actionClass -> ((ParameterizedType) actionClass.getGenericInterfaces()[0]).getActualTypeArguments()[0])
+                .distinct()
+                .flatMap(modelClass -> Arrays.stream(((Class<?>) modelClass).getDeclaredFields()))
+                .map(Field::getGenericType)
+                .collect(toList());
+    }
+
+    void close() throws IOException {
+        classLoader.close();
+    }
+
+    private static void compile(Path corpusDirectory, Path classesDirectory, int actions, Graph graph) throws IOException {
+        Path sourcesDirectory = corpusDirectory.resolve("sources");
+        Path packageDirectory = sourcesDirectory.resolve(PACKAGE_NAME.replace('.', File.separatorChar));
+        Files.createDirectories(packageDirectory);
+        List<File> sources = new ArrayList<>();
+        for (int i = 0; i < MODELS; i++) {
+            sources.add(write(packageDirectory, modelName(i), modelSource(i)));
+        }
+        switch (graph) {
+            case WIDE:
+                sources.add(write(packageDirectory, "Status", "public enum Status { ACTIVE, INACTIVE, DELETED }\n"));
+                break;
+            case DEEP:
+                for (int level = 0; level < DEEP_LEVELS; level++) {
+                    sources.add(write(packageDirectory, levelName(level), levelSource(level)));
+                }
+                break;
+            case CYCLIC:
+                sources.add(write(packageDirectory, "TreeNode", beanSource("TreeNode",
+                        "String", "name", "java.util.List<TreeNode>", "children", "TreeNode", "parent")));
+                sources.add(write(packageDirectory, "Author", beanSource("Author",
+                        "String", "name", "java.util.List<Article>", "articles")));
+                sources.add(write(packageDirectory, "Article", beanSource("Article",
+                        "String", "title", "Author", "author", "java.util.Map<String, Article>", "related")));
+                break;
+        }
+        for (int i = 0; i < actions; i++) {
+            sources.add(write(packageDirectory, responseName(i), responseSource(i, graph)));
+            sources.add(write(packageDirectory, actionName(i), actionSource(i)));
+        }
+        Path compilingDirectory = corpusDirectory.resolve("classes.tmp");
+        Files.createDirectories(compilingDirectory);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Benchmarks have to be run on JDK to compile the action corpus");
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList("-proc:none", "-nowarn", "-d", compilingDirectory.toString(),
+                    "-classpath", System.getProperty("java.class.path"));
+            boolean compiled = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            if (!compiled) {
+                throw new IllegalStateException("Could not compile the action corpus in " + sourcesDirectory);
+            }
+        }
+        Files.move(compilingDirectory, classesDirectory);
+    }
+
+    private static File write(Path directory, String className, String body) {
+        Path file = directory.resolve(className + ".java");
+        try {
+            Files.write(file, ("package " + PACKAGE_NAME + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file.toFile();
+    }
+
+    private static String actionName(int index) {
+        return String.format("Action%05dRestAction", index);
+    }
+
+    private static String modelName(int index) {
+        return "Model" + index;
+    }
+
+    private static String responseName(int index) {
+        return String.format("Response%05d", index);
+    }
+
+    private static String levelName(int level) {
+        return "Level" + level;
+    }
+
+    private static String actionSource(int index) {
+        return "@pl.ds.websight.rest.framework.annotations.SlingAction(" +
+                "pl.ds.websight.rest.framework.annotations.SlingAction.HttpMethod." + (index % 2 == 0 ? "GET" : "POST") + ")\n" +
+                "public abstract class " + actionName(index) + " implements " + RestAction.class.getName() +
+                "<" + modelName(index % MODELS) + ", " + responseName(index) + "> {\n}\n";
+    }
+
+    private static String modelSource(int index) {
+        String parameter = "@pl.ds.websight.request.parameters.support.annotations.RequestParameter";
+        return "public class " + modelName(index) + " {\n" +
+                "    " + parameter + " @javax.validation.constraints.NotBlank private String path;\n" +
+                "    " + parameter + "(name = \"limit\") private Integer maxResults;\n" +
+                "    " + parameter + " private Boolean recursive;\n" +
+                "    " + parameter + " private java.util.List<String> names;\n" +
+                "    " + parameter + " private double threshold;\n" +
+                "    private org.apache.sling.api.request.RequestParameter file;\n" +
+                "}\n";
+    }
+
+    private static String responseSource(int index, Graph graph) {
+        switch (graph) {
+            case WIDE:
+                List<String> fields = new ArrayList<>();
+                String[] types = {"String", "int", "Long", "boolean", "Double", "Status", "java.util.List<String>",
+                        "java.util.Map<String, Integer>", "java.util.Set<Status>", "java.util.Date"};
+                for (int field = 0; field < WIDE_FIELDS; field++) {
+                    fields.add(types[field % types.length]);
+                    fields.add("field" + field);
+                }
+                return beanSource(responseName(index), fields.toArray(new String[0]));
+            case DEEP:
+                return beanSource(responseName(index), "String", "id", levelName(index % DEEP_LEVELS), "root");
+            case CYCLIC:
+                return beanSource(responseName(index), "String", "id", "TreeNode", "tree",
+                        "java.util.List<Article>", "articles");
+            default:
+                throw new IllegalArgumentException(graph.name());
+        }
+    }
+
+    private static String levelSource(int level) {
+        return level == DEEP_LEVELS - 1 ?
+                beanSource(levelName(level), "String", "name", "int", "depth") :
+                beanSource(levelName(level), "String", "name", "int", "depth", levelName(level + 1), "next",
+                        "java.util.List<" + levelName(level + 1) + ">", "children");
+    }
+
+    /**
+     * Returns source of a class with private fields and getters, given as pairs of type and name.
+     */
+    private static String beanSource(String className, String... typesAndNames) {
+        StringBuilder source = new StringBuilder("public class ").append(className).append(" {\n");
+        for (int i = 0; i < typesAndNames.length; i += 2) {
+            source.append("    private ").append(typesAndNames[i]).append(' ').append(typesAndNames[i + 1]).append(";\n");
+        }
+        for (int i = 0; i < typesAndNames.length; i += 2) {
+            String name = typesAndNames[i + 1];
+            String prefix = "boolean".equals(typesAndNames[i]) ? "is" : "get";
+            source.append("    public ").append(typesAndNames[i]).append(' ').append(prefix)
+                    .append(Character.toUpperCase(name.charAt(0))).append(name.substring(1))
+                    .append("() { return ").append(name).append("; }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+}
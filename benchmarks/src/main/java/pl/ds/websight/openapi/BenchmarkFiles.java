@@ -0,0 +1,52 @@
+package pl.ds.websight.openapi;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Helpers for files written by the benchmarks.
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+        // no instances
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        }
+    }
+
+    /**
+     * Compiles sources generated from the corpus classes, e.g. binders of its models, into the classes directory.
+     */
+    static void compile(List<File> sources, Path corpusClassesDirectory, Path classesDirectory) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Benchmarks have to be run on JDK to compile the generated sources");
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList("-proc:none", "-nowarn", "-d", classesDirectory.toString(),
+                    "-classpath", corpusClassesDirectory + File.pathSeparator + System.getProperty("java.class.path"));
+            boolean compiled = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            if (!compiled) {
+                throw new IllegalStateException("Could not compile the generated sources " + sources);
+            }
+        }
+    }
+
+}
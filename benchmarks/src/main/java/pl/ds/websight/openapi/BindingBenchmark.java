@@ -0,0 +1,235 @@
+package pl.ds.websight.openapi;
+
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestParameterMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.ds.websight.openapi.runtime.binding.RequestModelBinder;
+import pl.ds.websight.openapi.runtime.binding.RequestModelBindingException;
+
+import javax.validation.constraints.NotBlank;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding of request parameters to a request model of the corpus by the generated binder, compared with reflective
+ * binding looking up the annotated fields in each request, as the reflective binder does, and with cached fields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BindingBenchmark {
+
+    private ActionCorpus corpus;
+    private Path binderDirectory;
+    private URLClassLoader binderClassLoader;
+    private Class<?> modelClass;
+    private RequestModelBinder<?> binder;
+    private List<ClassMetadataCache.RequestField> requestFields;
+    private RequestParameterMap parameters;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ReflectiveOperationException {
+        corpus = ActionCorpus.load(10, ActionCorpus.Graph.WIDE);
+        modelClass = Class.forName(ActionCorpus.PACKAGE_NAME + ".Model0", false, corpus.getClassLoader());
+        binderDirectory = Files.createTempDirectory("openapi-binder");
+        String binderClassName = RequestModelBinderGenerator.getBinderClassName(modelClass);
+        Path source = binderDirectory.resolve(binderClassName.substring(binderClassName.lastIndexOf('.') + 1) + ".java");
+        Files.write(source, new RequestModelBinderGenerator(new ClassMetadataCache()).generate(modelClass)
+                .getBytes(StandardCharsets.UTF_8));
+        BenchmarkFiles.compile(Collections.singletonList(source.toFile()), corpus.getClassesDirectory(), binderDirectory);
+        binderClassLoader = new URLClassLoader(new URL[]{binderDirectory.toUri().toURL()}, corpus.getClassLoader());
+        binder = (RequestModelBinder<?>) binderClassLoader.loadClass(binderClassName).getConstructor().newInstance();
+        requestFields = new ClassMetadataCache().getRequestFields(modelClass);
+        parameters = new BenchmarkParameterMap()
+                .add("path", "/content/site/page")
+                .add("limit", "25")
+                .add("recursive", "true")
+                .add("names", "title", "description", "tags")
+                .add("threshold", "0.75");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        binderClassLoader.close();
+        corpus.close();
+        BenchmarkFiles.deleteDirectory(binderDirectory);
+    }
+
+    @Benchmark
+    public Object generated() throws RequestModelBindingException {
+        return binder.bind(parameters);
+    }
+
+    @Benchmark
+    public Object reflective() throws ReflectiveOperationException, RequestModelBindingException {
+        return bindReflectively(new ClassMetadataCache().getRequestFields(modelClass), modelClass, parameters);
+    }
+
+    @Benchmark
+    public Object reflectiveCachedFields() throws ReflectiveOperationException, RequestModelBindingException {
+        return bindReflectively(requestFields, modelClass, parameters);
+    }
+
+    private static Object bindReflectively(List<ClassMetadataCache.RequestField> fields, Class<?> modelClass,
+            RequestParameterMap parameters) throws ReflectiveOperationException, RequestModelBindingException {
+        Object model = modelClass.getDeclaredConstructor().newInstance();
+        Map<String, String> violations = new LinkedHashMap<>();
+        for (ClassMetadataCache.RequestField requestField : fields) {
+            Field field = requestField.getField();
+            field.setAccessible(true);
+            String name = requestField.getParameterName();
+            if (requestField.isFile()) {
+                field.set(model, parameters.getValue(name));
+                continue;
+            }
+            RequestParameter[] values = parameters.getValues(name);
+            if (values == null || values.length == 0 || values[0].getString().trim().isEmpty()) {
+                if (field.isAnnotationPresent(NotBlank.class)) {
+                    violations.put(name, "must not be blank");
+                }
+                continue;
+            }
+            try {
+                if (List.class.isAssignableFrom(field.getType())) {
+                    List<String> strings = new ArrayList<>(values.length);
+                    for (RequestParameter value : values) {
+                        strings.add(value.getString());
+                    }
+                    field.set(model, strings);
+                } else {
+                    field.set(model, convert(field.getType(), values[0].getString().trim()));
+                }
+            } catch (IllegalArgumentException e) {
+                violations.put(name, "has invalid value");
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new RequestModelBindingException(violations);
+        }
+        return model;
+    }
+
+    private static Object convert(Class<?> type, String value) {
+        if (type == String.class) {
+            return value;
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(value);
+        } else if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        }
+        throw new IllegalArgumentException("Unsupported type " + type.getName());
+    }
+
+    /**
+     * Parameters of a form request, without uploaded files.
+     */
+    private static final class BenchmarkParameterMap extends HashMap<String, RequestParameter[]>
+            implements RequestParameterMap {
+
+        private static final long serialVersionUID = 1L;
+
+        BenchmarkParameterMap add(String name, String... values) {
+            put(name, Arrays.stream(values).map(BenchmarkParameter::new).toArray(RequestParameter[]::new));
+            return this;
+        }
+
+        @Override
+        public RequestParameter[] getValues(String name) {
+            return get(name);
+        }
+
+        @Override
+        public RequestParameter getValue(String name) {
+            RequestParameter[] values = get(name);
+            return values != null && values.length > 0 ? values[0] : null;
+        }
+
+    }
+
+    private static final class BenchmarkParameter implements RequestParameter {
+
+        private final String value;
+
+        BenchmarkParameter(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getName() {
+            return null;
+        }
+
+        @Override
+        public String getString() {
+            return value;
+        }
+
+        @Override
+        public String getString(String encoding) {
+            return value;
+        }
+
+        @Override
+        public byte[] get() {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(get());
+        }
+
+        @Override
+        public boolean isFormField() {
+            return true;
+        }
+
+        @Override
+        public String getFileName() {
+            return null;
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public long getSize() {
+            return value.length();
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package pl.ds.websight.openapi;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+
+/**
+ * Action corpus shared by all invocations of a benchmark, for each combination of size and DTO graph shape.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+    @Param({"10", "1000", "10000"})
+    private int actions;
+
+    @Param({"WIDE", "DEEP", "CYCLIC"})
+    private String graph;
+
+    private ActionCorpus corpus;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        corpus = ActionCorpus.load(actions, ActionCorpus.Graph.valueOf(graph));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        corpus.close();
+    }
+
+    ActionCorpus getCorpus() {
+        return corpus;
+    }
+
+}
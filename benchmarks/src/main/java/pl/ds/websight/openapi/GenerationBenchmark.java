@@ -0,0 +1,79 @@
+package pl.ds.websight.openapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end generation of the YAML specification of the corpus: discovery, loading of the action classes by a new
+ * class loader, conversion and writing, the same steps as in a run of the {@code generate} goal.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+
+    @Param({"1", "4"})
+    private int conversionParallelism;
+
+    private Path outputDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        outputDirectory = Files.createTempDirectory("openapi-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public Object generate(CorpusState state) throws IOException, ClassNotFoundException, InterruptedException,
+            ExecutionException {
+        Path classesDirectory = state.getCorpus().getClassesDirectory();
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDirectory.toUri().toURL()},
+                GenerationBenchmark.class.getClassLoader());
+             OpenApiStreamWriter writer = new OpenApiStreamWriter(outputDirectory, "api",
+                     Collections.singletonList(OutputFormat.YAML))) {
+            List<Class<?>> actionClasses = new ArrayList<>();
+            for (String className : result.getClassNames()) {
+                actionClasses.add(Class.forName(className, false, classLoader));
+            }
+            ComponentsRegistry registry = new ComponentsRegistry();
+            RestActionToOpenApiPathConverter converter =
+                    new RestActionToOpenApiPathConverter(SilentLog.INSTANCE, "benchmark", registry, new ClassMetadataCache(), false);
+            writer.writeStart(SpecificationGenerator.createOpenApi("benchmark", "1.0"));
+            new RestActionsToOpenApiPathsConverter(converter, SilentLog.INSTANCE, conversionParallelism, classLoader)
+                    .convert(actionClasses, (actionClass, path, pathItem) -> writer.writePath(path, pathItem));
+            writer.writeEnd(registry.toComponents());
+            return writer.commit();
+        }
+    }
+
+}
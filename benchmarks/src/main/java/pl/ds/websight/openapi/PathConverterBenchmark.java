@@ -0,0 +1,36 @@
+package pl.ds.websight.openapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of all actions of the corpus to paths by a single converter, with a new registry and metadata cache in
+ * each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathConverterBenchmark {
+
+    @Benchmark
+    public Object convert(CorpusState state, Blackhole blackhole) {
+        ComponentsRegistry registry = new ComponentsRegistry();
+        RestActionToOpenApiPathConverter converter =
+                new RestActionToOpenApiPathConverter(SilentLog.INSTANCE, "benchmark", registry, new ClassMetadataCache(), false);
+        for (Class<?> actionClass : state.getCorpus().getActionClasses()) {
+            blackhole.consume(converter.convert(actionClass));
+        }
+        return registry.toComponents();
+    }
+
+}
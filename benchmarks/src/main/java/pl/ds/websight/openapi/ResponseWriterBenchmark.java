@@ -0,0 +1,180 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.ds.websight.openapi.runtime.serialization.ResponseEntityWriters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of a listing response, an action result with a list of response DTOs of the corpus, by the generated writers
+ * and by Jackson. Writers are generated and compiled before the benchmark. That they write the same JSON as Jackson is
+ * tested by the unit tests of the plugin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseWriterBenchmark {
+
+    private static final int ACTIONS = 10;
+    private static final int DEPTH = 4;
+
+    @Param({"WIDE", "DEEP", "CYCLIC"})
+    private String graph;
+
+    @Param({"100"})
+    private int listSize;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ActionCorpus corpus;
+    private Path writersDirectory;
+    private URLClassLoader classLoader;
+    private List<Object> entities;
+    private ByteArrayOutputStream output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ReflectiveOperationException {
+        corpus = ActionCorpus.load(ACTIONS, ActionCorpus.Graph.valueOf(graph));
+        writersDirectory = Files.createTempDirectory("openapi-response-writers");
+        ResponseEntityWriterGenerator generator = new ResponseEntityWriterGenerator(new ClassMetadataCache(),
+                clazz -> clazz.getName().startsWith(ActionCorpus.PACKAGE_NAME + "."));
+        List<File> sources = new ArrayList<>();
+        StringBuilder index = new StringBuilder();
+        for (Class<?> entityClass : generator.getEntityClasses(corpus.getResponseTypes())) {
+            String writerClassName = ResponseEntityWriterGenerator.getWriterClassName(entityClass);
+            Path source = writersDirectory.resolve(writerClassName.substring(writerClassName.lastIndexOf('.') + 1) + ".java");
+            Files.write(source, generator.generate(entityClass).getBytes(StandardCharsets.UTF_8));
+            sources.add(source.toFile());
+            index.append(entityClass.getName()).append('=').append(writerClassName).append('\n');
+        }
+        BenchmarkFiles.compile(sources, corpus.getClassesDirectory(), writersDirectory);
+        Path indexFile = writersDirectory.resolve(ResponseEntityWriterGenerator.INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+        Files.write(indexFile, index.toString().getBytes(StandardCharsets.UTF_8));
+        // entity classes are loaded together with the writers, so their class loader finds the index
+        classLoader = new URLClassLoader(new URL[]{corpus.getClassesDirectory().toUri().toURL(),
+                writersDirectory.toUri().toURL()}, ResponseWriterBenchmark.class.getClassLoader());
+        entities = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Type responseType = corpus.getResponseTypes().get(i % ACTIONS);
+            entities.add(createSample(classLoader.loadClass(((Class<?>) responseType).getName()), 0));
+        }
+        output = new ByteArrayOutputStream(1 << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        classLoader.close();
+        corpus.close();
+        BenchmarkFiles.deleteDirectory(writersDirectory);
+    }
+
+    @Benchmark
+    public int generated() throws IOException {
+        output.reset();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            ResponseEntityWriters.writeResult(generator, "SUCCESS", "Listed", null, entities);
+        }
+        return output.size();
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        output.reset();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeStringField("status", "SUCCESS");
+            generator.writeStringField("message", "Listed");
+            generator.writeStringField("messageDetails", null);
+            generator.writeFieldName("entity");
+            generator.writeObject(entities);
+            generator.writeEndObject();
+        }
+        return output.size();
+    }
+
+    /**
+     * Returns instance of the corpus class with all fields set, nested DTOs down to the maximum depth.
+     */
+    private static Object createSample(Class<?> clazz, int depth) throws ReflectiveOperationException {
+        Object sample = clazz.getConstructor().newInstance();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                field.set(sample, createValue(field.getGenericType(), field.getName(), depth));
+            }
+        }
+        return sample;
+    }
+
+    private static Object createValue(Type type, String name, int depth) throws ReflectiveOperationException {
+        if (type instanceof ParameterizedType) {
+            Class<?> rawClass = (Class<?>) ((ParameterizedType) type).getRawType();
+            Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (rawClass == Map.class) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < 2; i++) {
+                    map.put(name + i, createValue(typeArguments[1], name, depth));
+                }
+                return map;
+            }
+            List<Object> elements = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                elements.add(createValue(typeArguments[0], name, depth));
+            }
+            return rawClass == List.class ? elements : new LinkedHashSet<>(elements);
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == String.class) {
+            return name + "-value";
+        } else if (clazz == int.class || clazz == Integer.class) {
+            return depth + 42;
+        } else if (clazz == Long.class) {
+            return 1L << 40;
+        } else if (clazz == boolean.class) {
+            return true;
+        } else if (clazz == Double.class) {
+            return 0.25;
+        } else if (clazz == Date.class) {
+            return new Date(0);
+        } else if (clazz.isEnum()) {
+            return clazz.getEnumConstants()[depth % clazz.getEnumConstants().length];
+        }
+        return depth < DEPTH ? createSample(clazz, depth + 1) : null;
+    }
+
+}
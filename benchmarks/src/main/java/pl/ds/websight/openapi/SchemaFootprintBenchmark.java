@@ -0,0 +1,140 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.PathItem;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by the paths and components of the 10000 actions corpus, converted with and without interning of the
+ * schemas. The retained size is measured by JOL and reported as the {@code retainedBytes} and {@code retainedObjects}
+ * counters next to the time of the conversion. Without interning, every schema is created anew, the result envelope of
+ * each action and its status, message and auth context included, so the difference comes from the envelopes as well as
+ * from the converted request and response types. The YAML specification of both modes is checked to be the same before
+ * the benchmark.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaFootprintBenchmark {
+
+    private static final int ACTIONS = 10000;
+
+    @Param({"WIDE", "DEEP", "CYCLIC"})
+    private String graph;
+
+    @Param({"true", "false"})
+    private boolean interning;
+
+    private ActionCorpus corpus;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        corpus = ActionCorpus.load(ACTIONS, ActionCorpus.Graph.valueOf(graph));
+        byte[] interned = writeSpecification(convert(true));
+        byte[] notInterned = writeSpecification(convert(false));
+        if (!Arrays.equals(interned, notInterned)) {
+            throw new IllegalStateException("Specification with interned schemas differs from the one without interning");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        corpus.close();
+    }
+
+    @Benchmark
+    public Object convert(Footprint footprint) {
+        Specification specification = convert(interning);
+        GraphLayout layout = GraphLayout.parseInstance(specification.paths, specification.components);
+        footprint.retainedBytes = layout.totalSize();
+        footprint.retainedObjects = layout.totalCount();
+        return specification;
+    }
+
+    private Specification convert(boolean interning) {
+        ComponentsRegistry registry = new ComponentsRegistry(interning);
+        RestActionToOpenApiPathConverter converter =
+                new RestActionToOpenApiPathConverter(SilentLog.INSTANCE, "benchmark", registry, new ClassMetadataCache(), false);
+        Map<String, PathItem> paths = new LinkedHashMap<>();
+        for (Class<?> actionClass : corpus.getActionClasses()) {
+            Pair<String, PathItem> path = converter.convert(actionClass);
+            if (path != null) {
+                paths.put(path.getKey(), path.getValue());
+            }
+        }
+        return new Specification(paths, registry.toComponents());
+    }
+
+    private static byte[] writeSpecification(Specification specification) throws IOException {
+        Path directory = Files.createTempDirectory("openapi-footprint");
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(directory, "api",
+                Collections.singletonList(OutputFormat.YAML))) {
+            writer.writeStart(SpecificationGenerator.createOpenApi("benchmark", "1.0"));
+            for (Map.Entry<String, PathItem> path : specification.paths.entrySet()) {
+                writer.writePath(path.getKey(), path.getValue());
+            }
+            writer.writeEnd(specification.components);
+            return Files.readAllBytes(writer.commit().get(0));
+        } finally {
+            BenchmarkFiles.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Size of the converted paths and components in the last iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long retainedBytes;
+        public long retainedObjects;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+            retainedObjects = 0;
+        }
+
+    }
+
+    private static final class Specification {
+
+        private final Map<String, PathItem> paths;
+        private final Components components;
+
+        private Specification(Map<String, PathItem> paths, Components components) {
+            this.paths = paths;
+            this.components = components;
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.Paths;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of the specification converted from the corpus to a file. Actions are converted once, before the benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"yaml", "json"})
+    private String outputFormat;
+
+    private List<OutputFormat> formats;
+    private Paths paths;
+    private Components components;
+    private Path outputDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState state) throws IOException, InterruptedException, ExecutionException {
+        formats = Collections.singletonList(OutputFormat.of(outputFormat));
+        ComponentsRegistry registry = new ComponentsRegistry();
+        RestActionToOpenApiPathConverter converter =
+                new RestActionToOpenApiPathConverter(SilentLog.INSTANCE, "benchmark", registry, new ClassMetadataCache(), false);
+        ActionCorpus corpus = state.getCorpus();
+        paths = new RestActionsToOpenApiPathsConverter(converter, SilentLog.INSTANCE, 1, corpus.getClassLoader())
+                .convert(corpus.getActionClasses());
+        components = registry.toComponents();
+        outputDirectory = Files.createTempDirectory("openapi-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public Object write() throws IOException {
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(outputDirectory, "api", formats)) {
+            writer.writeStart(SpecificationGenerator.createOpenApi("benchmark", "1.0"));
+            for (String path : paths.keySet()) {
+                writer.writePath(path, paths.get(path));
+            }
+            writer.writeEnd(components);
+            return writer.commit();
+        }
+    }
+
+}
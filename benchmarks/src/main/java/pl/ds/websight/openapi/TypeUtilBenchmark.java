@@ -0,0 +1,44 @@
+package pl.ds.websight.openapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of request model field types and response types to schemas. Response types are converted with a new
+ * registry and metadata cache in each invocation, the same as in a generation run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeUtilBenchmark {
+
+    @Benchmark
+    public void javaTypeToSchema(CorpusState state, Blackhole blackhole) {
+        SchemaInterner interner = new ComponentsRegistry().getInterner();
+        for (Type type : state.getCorpus().getRequestFieldTypes()) {
+            blackhole.consume(TypeUtil.javaTypeToSchema(interner, type, null));
+        }
+    }
+
+    @Benchmark
+    public Object javaResponseTypeToSchema(CorpusState state, Blackhole blackhole) {
+        ComponentsRegistry registry = new ComponentsRegistry();
+        ClassMetadataCache metadata = new ClassMetadataCache();
+        for (Type type : state.getCorpus().getResponseTypes()) {
+            blackhole.consume(TypeUtil.javaResponseTypeToSchema(registry, metadata, type));
+        }
+        return registry.toComponents();
+    }
+
+}
@@ -0,0 +1,141 @@
+package pl.ds.websight.openapi.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor recording all classes annotated with {@code @SlingAction} together with their HTTP methods in
+ * {@value #INDEX_FILE_PATH}. The index is read by the plugin instead of scanning the classpath.
+ * <p>
+ * Each line of the index contains binary name of the action class and its HTTP method separated by a space. Subclasses of
+ * actions are listed with the method of their nearest annotated superclass, as the plugin treats them as actions. The index is
+ * written also when there are no actions, so the plugin knows there is nothing to scan for. That is why the processor is
+ * registered for all annotations, it never claims any of them.
+ * <p>
+ * The index lists also binary names of all top level classes of the compilation, one per line without a method. A
+ * compilation of only some sources of a module, e.g. an incremental one, writes an index missing actions of the other
+ * sources, so the plugin uses the index only when all classes next to it are listed.
+ */
+@SupportedAnnotationTypes("*")
+public class SlingActionIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_FILE_PATH = "META-INF/websight/sling-actions.index";
+
+    private static final String SLING_ACTION_ANNOTATION = "pl.ds.websight.rest.framework.annotations.SlingAction";
+
+    private final SortedMap<String, String> actions = new TreeMap<>();
+    private final SortedSet<String> compiledClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                compiledClasses.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+            }
+        }
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(SLING_ACTION_ANNOTATION);
+        if (annotation == null) {
+            return false; // not on the classpath, so there are no actions
+        }
+        for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addActions(typeElement, annotation);
+        }
+        return false;
+    }
+
+    private void addActions(TypeElement typeElement, TypeElement annotation) {
+        TypeElement actionElement = findAnnotatedClass(typeElement, annotation);
+        if (actionElement != null) {
+            actions.put(processingEnv.getElementUtils().getBinaryName(typeElement).toString(),
+                    getHttpMethod(actionElement, annotation));
+        }
+        for (TypeElement nestedElement : ElementFilter.typesIn(typeElement.getEnclosedElements())) {
+            addActions(nestedElement, annotation);
+        }
+    }
+
+    /**
+     * Returns the class or its nearest superclass annotated with the annotation, {@code null} if there is none.
+     */
+    private static TypeElement findAnnotatedClass(TypeElement typeElement, TypeElement annotation) {
+        TypeElement current = typeElement;
+        while (current != null) {
+            for (AnnotationMirror mirror : current.getAnnotationMirrors()) {
+                if (mirror.getAnnotationType().asElement().equals(annotation)) {
+                    return current;
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return null;
+    }
+
+    private String getHttpMethod(TypeElement actionElement, TypeElement annotation) {
+        for (AnnotationMirror mirror : actionElement.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(annotation)) {
+                continue;
+            }
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                Object value = entry.getValue().getValue();
+                if ("value".contentEquals(entry.getKey().getSimpleName()) && value instanceof VariableElement) {
+                    return ((VariableElement) value).getSimpleName().toString();
+                }
+            }
+        }
+        return "";
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE_PATH);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> action : actions.entrySet()) {
+                    writer.write(action.getKey() + " " + action.getValue() + "\n");
+                }
+                for (String compiledClass : compiledClasses) {
+                    writer.write(compiledClass + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + INDEX_FILE_PATH + ": " + e);
+        }
+    }
+
+}
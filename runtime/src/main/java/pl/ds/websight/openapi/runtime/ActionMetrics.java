@@ -0,0 +1,86 @@
+package pl.ds.websight.openapi.runtime;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency and response sizes of an action, recorded separately for each of its HTTP methods. Histograms of a method
+ * are created by its first request.
+ */
+final class ActionMetrics {
+
+    /**
+     * Methods of the actions, indexed as returned by {@link #getMethodIndex(String)}.
+     */
+    static final String[] METHODS = {"GET", "POST"};
+
+    private final String path;
+    private final int stripes;
+    private final AtomicReferenceArray<MethodMetrics> methods = new AtomicReferenceArray<>(METHODS.length);
+
+    ActionMetrics(String path, int stripes) {
+        this.path = path;
+        this.stripes = stripes;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns index of the method in {@link #METHODS}, {@code -1} if actions do not support it.
+     */
+    static int getMethodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns memory used by metrics of an action with all methods requested, in bytes.
+     */
+    static long getFootprint(int stripes) {
+        return METHODS.length * 2 * StripedHistogram.getFootprint(stripes);
+    }
+
+    void record(int methodIndex, long latencyMicros, long responseBytes) {
+        MethodMetrics metrics = methods.get(methodIndex);
+        if (metrics == null) {
+            methods.compareAndSet(methodIndex, null, new MethodMetrics(stripes));
+            metrics = methods.get(methodIndex);
+        }
+        metrics.latencyMicros.record(latencyMicros);
+        metrics.responseBytes.record(responseBytes);
+    }
+
+    /**
+     * Returns latency in microseconds of the method, {@code null} if it was not requested.
+     */
+    StripedHistogram.Snapshot getLatencyMicros(int methodIndex) {
+        MethodMetrics metrics = methods.get(methodIndex);
+        return metrics != null ? metrics.latencyMicros.snapshot() : null;
+    }
+
+    /**
+     * Returns response sizes in bytes of the method, {@code null} if it was not requested.
+     */
+    StripedHistogram.Snapshot getResponseBytes(int methodIndex) {
+        MethodMetrics metrics = methods.get(methodIndex);
+        return metrics != null ? metrics.responseBytes.snapshot() : null;
+    }
+
+    private static final class MethodMetrics {
+
+        private final StripedHistogram latencyMicros;
+        private final StripedHistogram responseBytes;
+
+        private MethodMetrics(int stripes) {
+            this.latencyMicros = new StripedHistogram(stripes);
+            this.responseBytes = new StripedHistogram(stripes);
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sling request filter recording latency and response size of requests to the actions, with paths following the
+ * {@code /apps/<artifactId>/bin/<action>.action} convention of the generated specification. The filter is ranked high,
+ * so the latency includes the other filters of the request.
+ */
+@Component(
+        service = Filter.class,
+        property = {
+                "sling.filter.scope=REQUEST",
+                "sling.filter.pattern=/apps/[^/]+/bin/[^/.]+\\.action(/.*)?",
+                "service.ranking:Integer=10000"
+        }
+)
+public class ActionMetricsFilter implements Filter {
+
+    @Reference
+    private ActionMetricsRegistry registry;
+
+    public ActionMetricsFilter() {
+        // used by the OSGi runtime
+    }
+
+    ActionMetricsFilter(ActionMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof SlingHttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String uri = httpRequest.getRequestURI();
+        int start = httpRequest.getContextPath().length();
+        int end = ActionMetricsRegistry.findActionPathEnd(uri, start);
+        int methodIndex = ActionMetrics.getMethodIndex(httpRequest.getMethod());
+        ActionMetrics metrics = end < 0 || methodIndex < 0 ? null : registry.get(uri, start, end);
+        if (metrics == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        SizeCountingResponse countingResponse = SizeCountingResponse.acquire((SlingHttpServletResponse) response);
+        long startNanos = System.nanoTime();
+        try {
+            chain.doFilter(request, countingResponse);
+        } finally {
+            metrics.record(methodIndex, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos),
+                    countingResponse.getSize());
+            countingResponse.release();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // nothing to release
+    }
+
+}
@@ -0,0 +1,184 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Metrics of the actions requested since the bundle was activated, kept in an open addressing table of fixed capacity.
+ * Actions are looked up by a region of the request URI, so requests of known actions are recorded without allocation.
+ * Actions requested after the configured maximum is reached are not recorded, which bounds the memory used by metrics
+ * to {@code maxActions * ActionMetrics.getFootprint(stripes)} bytes. Reconfiguration resets the metrics.
+ */
+@Component(service = ActionMetricsRegistry.class)
+@Designate(ocd = ActionMetricsRegistry.Config.class)
+public final class ActionMetricsRegistry {
+
+    private static final int DEFAULT_MAX_ACTIONS = 512;
+    private static final int DEFAULT_STRIPES = 4;
+
+    private static final String APPS_PREFIX = "/apps/";
+    private static final String BIN_SEGMENT = "/bin/";
+    private static final String ACTION_EXTENSION = ".action";
+
+    private volatile Table table;
+
+    public ActionMetricsRegistry() {
+        this(DEFAULT_MAX_ACTIONS, DEFAULT_STRIPES);
+    }
+
+    ActionMetricsRegistry(int maxActions, int stripes) {
+        this.table = new Table(maxActions, stripes);
+    }
+
+    @Activate
+    @Modified
+    void activate(Config config) {
+        table = new Table(config.max_actions(), config.stripes());
+    }
+
+    /**
+     * Returns metrics of the action with path of the region of the URI, creating them for the first request of the
+     * action, or {@code null} if the maximum number of actions is reached.
+     */
+    ActionMetrics get(String uri, int start, int end) {
+        return table.get(uri, start, end, true);
+    }
+
+    /**
+     * Returns metrics of the action with the path, {@code null} if it was not requested.
+     */
+    ActionMetrics find(String path) {
+        return table.get(path, 0, path.length(), false);
+    }
+
+    List<ActionMetrics> getActions() {
+        return table.getActions();
+    }
+
+    /**
+     * Returns number of requests not recorded because the maximum number of actions was reached.
+     */
+    long getDropped() {
+        return table.dropped.get();
+    }
+
+    /**
+     * Returns end of the action path starting at the given index of the URI, {@code /apps/<artifactId>/bin/<action>.action}
+     * optionally followed by a suffix, or {@code -1} if the URI is not a path of an action.
+     */
+    static int findActionPathEnd(String uri, int start) {
+        if (!uri.startsWith(APPS_PREFIX, start)) {
+            return -1;
+        }
+        int artifactIdStart = start + APPS_PREFIX.length();
+        int artifactIdEnd = uri.indexOf('/', artifactIdStart);
+        if (artifactIdEnd <= artifactIdStart || !uri.startsWith(BIN_SEGMENT, artifactIdEnd)) {
+            return -1;
+        }
+        int actionNameStart = artifactIdEnd + BIN_SEGMENT.length();
+        int extensionStart = uri.indexOf('.', actionNameStart);
+        if (extensionStart <= actionNameStart || uri.lastIndexOf('/', extensionStart) >= actionNameStart ||
+                !uri.startsWith(ACTION_EXTENSION, extensionStart)) {
+            return -1;
+        }
+        int end = extensionStart + ACTION_EXTENSION.length();
+        return end == uri.length() || uri.charAt(end) == '/' ? end : -1;
+    }
+
+    private static final class Table {
+
+        private final int maxActions;
+        private final int stripes;
+        private final AtomicReferenceArray<ActionMetrics> slots;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+
+        private Table(int maxActions, int stripes) {
+            this.maxActions = Math.max(1, maxActions);
+            this.stripes = stripes;
+            // at most half of the slots are used, so probing is short and always finds an empty slot
+            this.slots = new AtomicReferenceArray<>(Integer.highestOneBit(this.maxActions * 2 - 1) * 2);
+        }
+
+        private ActionMetrics get(String path, int start, int end, boolean create) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int mask = slots.length() - 1;
+            int index = (hash ^ (hash >>> 16)) & mask;
+            while (true) {
+                ActionMetrics metrics = slots.get(index);
+                if (metrics == null) {
+                    if (!create) {
+                        return null;
+                    }
+                    if (!reserve()) {
+                        dropped.incrementAndGet();
+                        return null;
+                    }
+                    ActionMetrics created = new ActionMetrics(path.substring(start, end), stripes);
+                    if (slots.compareAndSet(index, null, created)) {
+                        return created;
+                    }
+                    // another thread filled the slot, it is checked again
+                    size.decrementAndGet();
+                    continue;
+                }
+                String metricsPath = metrics.getPath();
+                if (metricsPath.length() == end - start && path.regionMatches(start, metricsPath, 0, end - start)) {
+                    return metrics;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private boolean reserve() {
+            int current = size.get();
+            while (current < maxActions) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                current = size.get();
+            }
+            return false;
+        }
+
+        private List<ActionMetrics> getActions() {
+            List<ActionMetrics> actions = new ArrayList<>();
+            for (int i = 0; i < slots.length(); i++) {
+                ActionMetrics metrics = slots.get(i);
+                if (metrics != null) {
+                    actions.add(metrics);
+                }
+            }
+            return actions;
+        }
+
+    }
+
+    @ObjectClassDefinition(name = "WebSight Swagger Runtime: Action Metrics",
+            description = "Latency and response sizes of WebSight Rest actions")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum actions",
+                description = "Number of actions recorded, requests of further actions are not recorded")
+        int max_actions() default DEFAULT_MAX_ACTIONS;
+
+        @AttributeDefinition(name = "Stripes",
+                description = "Stripes of each histogram, more of them lower contention of concurrent requests at the cost of memory")
+        int stripes() default DEFAULT_STRIPES;
+
+    }
+
+}
@@ -0,0 +1,172 @@
+package pl.ds.websight.openapi.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the OpenAPI specification generated for a module, {@code /apps/<module>/docs/api.json} or {@code api.yaml},
+ * with {@code x-websight-latency} extension of each operation requested since the bundle was activated: number of
+ * requests, latency percentiles in milliseconds and response sizes in bytes. Summaries of the operations show their
+ * 99th percentile, prefixed with {@code Slow} when it exceeds the configured threshold, so the API HTML page configured
+ * with {@code latencyOverlayUrl} shows which actions are slow, e.g.
+ * {@code /bin/websight/openapi/latency?module=websight-rest-swagger-example}.
+ */
+@Component(
+        service = Servlet.class,
+        property = {
+                "sling.servlet.paths=" + LatencySpecificationServlet.PATH,
+                "sling.servlet.methods=GET"
+        }
+)
+@Designate(ocd = LatencySpecificationServlet.Config.class)
+public class LatencySpecificationServlet extends SlingSafeMethodsServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String PATH = "/bin/websight/openapi/latency";
+    static final String EXTENSION = "x-websight-latency";
+
+    private static final Pattern MODULE = Pattern.compile("[\\w.-]+");
+    private static final String[] SPECIFICATION_FILE_NAMES = {"api.json", "api.yaml"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    @Reference
+    private transient ActionMetricsRegistry registry;
+
+    private long slowThresholdMicros;
+
+    public LatencySpecificationServlet() {
+        // used by the OSGi runtime
+    }
+
+    LatencySpecificationServlet(ActionMetricsRegistry registry, long slowThresholdMillis) {
+        this.registry = registry;
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+    }
+
+    @Activate
+    @Modified
+    void activate(Config config) {
+        slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(config.slow_threshold_millis());
+    }
+
+    @Override
+    protected void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response) throws IOException {
+        String module = request.getParameter("module");
+        if (module == null || !MODULE.matcher(module).matches()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parameter 'module' has to be artifact id of a module");
+            return;
+        }
+        JsonNode specification = readSpecification(request.getResourceResolver(), "/apps/" + module + "/docs/");
+        if (specification == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "OpenAPI specification of module " + module + " not found");
+            return;
+        }
+        overlay(specification, registry, slowThresholdMicros);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        JSON_MAPPER.writeValue(response.getWriter(), specification);
+    }
+
+    private static JsonNode readSpecification(ResourceResolver resolver, String directory) throws IOException {
+        for (String fileName : SPECIFICATION_FILE_NAMES) {
+            Resource resource = resolver.getResource(directory + fileName);
+            InputStream input = resource != null ? resource.adaptTo(InputStream.class) : null;
+            if (input != null) {
+                try (InputStream specification = input) {
+                    return (fileName.endsWith(".json") ? JSON_MAPPER : YAML_MAPPER).readTree(specification);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds latency of the recorded actions to their operations in the specification.
+     */
+    static void overlay(JsonNode specification, ActionMetricsRegistry registry, long slowThresholdMicros) {
+        Iterator<Map.Entry<String, JsonNode>> paths = specification.path("paths").fields();
+        while (paths.hasNext()) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            ActionMetrics metrics = registry.find(path.getKey());
+            if (metrics == null) {
+                continue;
+            }
+            for (int methodIndex = 0; methodIndex < ActionMetrics.METHODS.length; methodIndex++) {
+                JsonNode operation = path.getValue().path(ActionMetrics.METHODS[methodIndex].toLowerCase(Locale.ROOT));
+                StripedHistogram.Snapshot latency = metrics.getLatencyMicros(methodIndex);
+                if (operation.isObject() && latency != null && latency.getCount() > 0) {
+                    overlay((ObjectNode) operation, latency, metrics.getResponseBytes(methodIndex), slowThresholdMicros);
+                }
+            }
+        }
+    }
+
+    private static void overlay(ObjectNode operation, StripedHistogram.Snapshot latency,
+            StripedHistogram.Snapshot responseBytes, long slowThresholdMicros) {
+        long p99 = latency.getValueAtPercentile(99);
+        boolean slow = p99 > slowThresholdMicros;
+        ObjectNode extension = operation.putObject(EXTENSION)
+                .put("requests", latency.getCount())
+                .put("slow", slow);
+        ObjectNode millis = extension.putObject("millis");
+        for (double percentile : PERCENTILES) {
+            millis.put(getPercentileName(percentile), toMillis(latency.getValueAtPercentile(percentile)));
+        }
+        millis.put("mean", toMillis(latency.getMean()));
+        millis.put("max", toMillis(latency.getMax()));
+        extension.putObject("responseBytes")
+                .put("mean", Math.round(responseBytes.getMean()))
+                .put("p99", responseBytes.getValueAtPercentile(99))
+                .put("max", responseBytes.getMax());
+        String measured = (slow ? "Slow, p99 " : "p99 ") + toMillis(p99) + " ms";
+        String summary = operation.path("summary").asText();
+        operation.put("summary", summary.isEmpty() ? measured : summary + " (" + measured + ")");
+    }
+
+    private static String getPercentileName(double percentile) {
+        return "p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile));
+    }
+
+    private static double toMillis(double micros) {
+        return Math.round(micros / 100) / 10.0;
+    }
+
+    @ObjectClassDefinition(name = "WebSight Swagger Runtime: Latency Specification",
+            description = "OpenAPI specification of a module with latency of its actions")
+    @interface Config {
+
+        @AttributeDefinition(name = "Slow threshold",
+                description = "99th percentile of latency in milliseconds above which operations are marked as slow")
+        long slow_threshold_millis() default 500;
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.wrappers.SlingHttpServletResponseWrapper;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+
+/**
+ * Response counting the bytes written to its output stream and the characters written to its writer, equal to bytes
+ * of ASCII JSON. Each thread reuses its instance, together with the counting stream and writer, so requests are counted
+ * without allocation. Between requests the instance wraps a placeholder, so it does not keep the last response.
+ */
+final class SizeCountingResponse extends SlingHttpServletResponseWrapper {
+
+    private static final SlingHttpServletResponse RELEASED = (SlingHttpServletResponse) Proxy.newProxyInstance(
+            SizeCountingResponse.class.getClassLoader(), new Class<?>[]{SlingHttpServletResponse.class},
+            (proxy, method, args) -> {
+                throw new IllegalStateException("Response was released");
+            });
+    private static final ThreadLocal<SizeCountingResponse> REUSED = new ThreadLocal<>();
+
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+    private final CountingWriter writer = new CountingWriter();
+    private boolean acquired;
+
+    private SizeCountingResponse(SlingHttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Returns counting wrapper of the response, the instance of the current thread unless it is already acquired by
+     * a request being processed.
+     */
+    static SizeCountingResponse acquire(SlingHttpServletResponse response) {
+        SizeCountingResponse reused = REUSED.get();
+        if (reused == null) {
+            reused = new SizeCountingResponse(response);
+            REUSED.set(reused);
+        } else if (reused.acquired) {
+            return new SizeCountingResponse(response);
+        } else {
+            reused.setResponse(response);
+        }
+        reused.acquired = true;
+        return reused;
+    }
+
+    void release() {
+        acquired = false;
+        outputStream.delegate = null;
+        outputStream.count = 0;
+        writer.setDelegate(null);
+        writer.count = 0;
+        setResponse(RELEASED);
+    }
+
+    /**
+     * Returns number of bytes and characters written since the response was acquired.
+     */
+    long getSize() {
+        return outputStream.count + writer.count;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        ServletOutputStream delegate = super.getOutputStream();
+        outputStream.delegate = delegate;
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        PrintWriter delegate = super.getWriter();
+        if (writer.delegate != delegate) {
+            writer.setDelegate(delegate);
+        }
+        return writer;
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private ServletOutputStream delegate;
+        private long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+    }
+
+    /**
+     * Writer counting characters written through all {@link PrintWriter} methods except line separators of
+     * {@code println}, which write to the underlying writer directly.
+     */
+    private static final class CountingWriter extends PrintWriter {
+
+        private Writer delegate;
+        private long count;
+
+        private CountingWriter() {
+            // the writer synchronizes on its own lock, not shared by writers of other threads
+            super(new CharArrayWriter(0));
+        }
+
+        private void setDelegate(Writer delegate) {
+            this.delegate = delegate;
+            this.out = delegate;
+            clearError();
+        }
+
+        @Override
+        public void write(int c) {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            super.write(buf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            super.write(s, off, len);
+            count += len;
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package pl.ds.websight.openapi.runtime;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with fixed memory, recorded concurrently by request threads. Values are
+ * counted in log-linear buckets, eight per power of two, so percentiles are accurate to 12.5%. Each thread records to
+ * one of the stripes chosen by its id, so threads of different stripes do not contend for the same cache lines.
+ * Recording does not allocate; snapshots sum the stripes.
+ */
+final class StripedHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Buckets of values up to 2^37, larger values are counted in the last one.
+     */
+    static final int BUCKETS = (37 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    /**
+     * Slots of a stripe rounded up to the 64 bytes of a cache line, with a line of padding between stripes.
+     */
+    private static final int STRIDE = ((MAX + 1 + 7) & ~7) + 8;
+
+    private final AtomicLongArray slots;
+    private final int stripeMask;
+
+    /**
+     * @param stripes number of stripes, rounded up to a power of two
+     */
+    StripedHistogram(int stripes) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        this.slots = new AtomicLongArray(stripeCount * STRIDE);
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Returns memory used by a histogram with the given number of stripes, in bytes.
+     */
+    static long getFootprint(int stripes) {
+        return (long) Integer.highestOneBit(Math.max(1, stripes) * 2 - 1) * STRIDE * Long.BYTES;
+    }
+
+    void record(long value) {
+        long recorded = Math.max(0, value);
+        int base = getStripe() * STRIDE;
+        slots.incrementAndGet(base + getBucket(recorded));
+        slots.addAndGet(base + SUM, recorded);
+        int maxSlot = base + MAX;
+        long max = slots.get(maxSlot);
+        while (recorded > max && !slots.compareAndSet(maxSlot, max, recorded)) {
+            max = slots.get(maxSlot);
+        }
+    }
+
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (int base = 0; base < slots.length(); base += STRIDE) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                long bucketCount = slots.get(base + bucket);
+                counts[bucket] += bucketCount;
+                count += bucketCount;
+            }
+            sum += slots.get(base + SUM);
+            max = Math.max(max, slots.get(base + MAX));
+        }
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    private int getStripe() {
+        // Fibonacci hashing spreads consecutive thread ids over the stripes
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+
+    static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int bucket = (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * Returns the largest value counted in the bucket.
+     */
+    static long getBucketMaxValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Values recorded until the snapshot was taken. Stripes are read one by one while recording continues, so counts
+     * may miss values recorded meanwhile.
+     */
+    static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        /**
+         * Returns the value the given percent of the recorded values do not exceed, {@code 0} if there are no values.
+         */
+        long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long counted = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                counted += counts[bucket];
+                if (counted >= rank) {
+                    return Math.min(getBucketMaxValue(bucket), max);
+                }
+            }
+            return max;
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package pl.ds.websight.openapi.runtime.binding;
+
+import org.apache.sling.api.request.RequestParameterMap;
+
+/**
+ * Binder of request parameters to a request model of actions, generated at build time by the {@code generate-binders}
+ * goal of WebSight Swagger Maven Plugin. It assigns fields directly, without reflection, and checks the parameters
+ * required by {@code @NotNull}, {@code @NotBlank} and {@code @NotEmpty} annotations of the fields. Binders are found
+ * with {@link RequestModelBinders#find(Class)}.
+ *
+ * @param <T> type of the model
+ */
+public interface RequestModelBinder<T> {
+
+    Class<T> getModelClass();
+
+    /**
+     * Creates model with fields bound from the parameters.
+     *
+     * @throws RequestModelBindingException if required parameters are missing or values cannot be converted to types
+     *                                      of the fields
+     */
+    T bind(RequestParameterMap parameters) throws RequestModelBindingException;
+
+}
@@ -0,0 +1,182 @@
+package pl.ds.websight.openapi.runtime.binding;
+
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestParameterMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lookup of the generated binders, listed in {@value #INDEX_RESOURCE} index of the bundle with the model classes, and
+ * helpers used by the generated code. Binders are looked up once per model class and kept as long as the class.
+ */
+public final class RequestModelBinders {
+
+    /**
+     * Index of the generated binders, with lines {@code <model class name>=<binder class name>}.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/websight/request-model-binders";
+
+    private static final ClassValue<Optional<RequestModelBinder<?>>> BINDERS =
+            new ClassValue<Optional<RequestModelBinder<?>>>() {
+                @Override
+                protected Optional<RequestModelBinder<?>> computeValue(Class<?> modelClass) {
+                    return Optional.ofNullable(loadBinder(modelClass));
+                }
+            };
+
+    private RequestModelBinders() {
+        // no instances
+    }
+
+    /**
+     * Returns generated binder of the model class, {@code null} if there is none, so the model has to be bound
+     * reflectively.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RequestModelBinder<T> find(Class<T> modelClass) {
+        return (RequestModelBinder<T>) BINDERS.get(modelClass).orElse(null);
+    }
+
+    private static RequestModelBinder<?> loadBinder(Class<?> modelClass) {
+        ClassLoader classLoader = modelClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        String binderClassName = findBinderClassName(classLoader, modelClass.getName());
+        if (binderClassName == null) {
+            return null;
+        }
+        try {
+            RequestModelBinder<?> binder = (RequestModelBinder<?>) Class.forName(binderClassName, true, classLoader)
+                    .getConstructor().newInstance();
+            return binder.getModelClass() == modelClass ? binder : null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            throw new IllegalStateException("Could not create binder " + binderClassName + " of " + modelClass.getName(), e);
+        }
+    }
+
+    private static String findBinderClassName(ClassLoader classLoader, String modelClassName) {
+        String prefix = modelClassName + "=";
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+            while (indexes.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith(prefix)) {
+                            return line.substring(prefix.length()).trim();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + INDEX_RESOURCE, e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns setter of the field not accessible to the generated binder, of type {@code (model, value)void}.
+     */
+    public static MethodHandle fieldSetter(Class<?> modelClass, String fieldName) {
+        for (Class<?> clazz = modelClass; clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, modelClass, field.getType()));
+            } catch (NoSuchFieldException e) {
+                // declared by a superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not access field " + fieldName + " of " + modelClass.getName(), e);
+            }
+        }
+        throw new IllegalStateException("Field " + fieldName + " not found in " + modelClass.getName());
+    }
+
+    /**
+     * Returns no-argument constructor of the model not accessible to the generated binder, of type {@code ()model}.
+     */
+    public static MethodHandle constructor(Class<?> modelClass) {
+        try {
+            Constructor<?> constructor = modelClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(modelClass));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Could not access constructor of " + modelClass.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the first value of the parameter, {@code null} if it is missing.
+     */
+    public static String getString(RequestParameterMap parameters, String name) {
+        RequestParameter parameter = parameters.getValue(name);
+        return parameter != null ? parameter.getString() : null;
+    }
+
+    /**
+     * Returns all values of the parameter, {@code null} if it is missing.
+     */
+    public static String[] getStrings(RequestParameterMap parameters, String name) {
+        RequestParameter[] values = parameters.getValues(name);
+        if (values == null) {
+            return null;
+        }
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            strings[i] = values[i].getString();
+        }
+        return strings;
+    }
+
+    /**
+     * Adds message of the invalid parameter to the violations, which are created by the first of them.
+     */
+    public static Map<String, String> addViolation(Map<String, String> violations, String parameterName, String message) {
+        Map<String, String> result = violations != null ? violations : new LinkedHashMap<>();
+        result.putIfAbsent(parameterName, message);
+        return result;
+    }
+
+    /**
+     * Converts the value of a {@code char} field.
+     *
+     * @throws IllegalArgumentException if the value is not a single character
+     */
+    public static char toChar(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Not a single character: " + value);
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Rethrows exception of a method handle invocation, which cannot throw checked exceptions.
+     */
+    public static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new IllegalStateException(throwable);
+    }
+
+}
@@ -0,0 +1,28 @@
+package pl.ds.websight.openapi.runtime.binding;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown when request parameters cannot be bound to a model, with messages of all invalid parameters.
+ */
+public class RequestModelBindingException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, String> violations;
+
+    public RequestModelBindingException(Map<String, String> violations) {
+        super("Invalid request parameters: " + violations);
+        this.violations = Collections.unmodifiableMap(new LinkedHashMap<>(violations));
+    }
+
+    /**
+     * Returns messages of the invalid parameters by their names, in order of the model fields.
+     */
+    public Map<String, String> getViolations() {
+        return violations;
+    }
+
+}
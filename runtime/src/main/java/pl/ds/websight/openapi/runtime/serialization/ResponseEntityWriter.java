@@ -0,0 +1,24 @@
+package pl.ds.websight.openapi.runtime.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writer of a response entity class of actions, generated at build time by the {@code generate-response-writers} goal
+ * of WebSight Swagger Maven Plugin. It writes properties read by the getters straight to the generator, without
+ * reflective bean lookup, producing the same JSON as {@code ObjectMapper} with default configuration. Writers are
+ * found with {@link ResponseEntityWriters#find(Class)}.
+ *
+ * @param <T> type of the entity
+ */
+public interface ResponseEntityWriter<T> {
+
+    Class<T> getEntityClass();
+
+    /**
+     * Writes the entity, or {@code null}, as a JSON value.
+     */
+    void write(JsonGenerator generator, T entity) throws IOException;
+
+}
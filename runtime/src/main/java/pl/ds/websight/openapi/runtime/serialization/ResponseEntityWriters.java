@@ -0,0 +1,167 @@
+package pl.ds.websight.openapi.runtime.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Optional;
+
+/**
+ * Lookup of the generated writers, listed in {@value #INDEX_RESOURCE} index of the bundle with the entity classes, and
+ * writing of action results with them. Writers are looked up once per entity class and kept as long as the class.
+ * Values of types without writers are written by the codec of the generator, so it should be created by
+ * {@code ObjectMapper}.
+ */
+public final class ResponseEntityWriters {
+
+    /**
+     * Index of the generated writers, with lines {@code <entity class name>=<writer class name>}.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/websight/response-entity-writers";
+
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString MESSAGE_DETAILS = new SerializedString("messageDetails");
+    private static final SerializableString AUTH_CONTEXT = new SerializedString("authContext");
+    private static final SerializableString USER_ID = new SerializedString("userId");
+    private static final SerializableString ENTITY = new SerializedString("entity");
+
+    private static final ClassValue<Optional<ResponseEntityWriter<?>>> WRITERS =
+            new ClassValue<Optional<ResponseEntityWriter<?>>>() {
+                @Override
+                protected Optional<ResponseEntityWriter<?>> computeValue(Class<?> entityClass) {
+                    return Optional.ofNullable(loadWriter(entityClass));
+                }
+            };
+
+    private ResponseEntityWriters() {
+        // no instances
+    }
+
+    /**
+     * Returns generated writer of the entity class, {@code null} if there is none, so the entity has to be written
+     * reflectively.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ResponseEntityWriter<T> find(Class<T> entityClass) {
+        return (ResponseEntityWriter<T>) WRITERS.get(entityClass).orElse(null);
+    }
+
+    /**
+     * Writes result of an action, with {@code status}, {@code message}, {@code messageDetails} and {@code entity}
+     * properties, without {@code authContext}.
+     */
+    public static void writeResult(JsonGenerator generator, String status, String message, String messageDetails,
+            Object entity) throws IOException {
+        writeResult(generator, status, message, messageDetails, null, entity);
+    }
+
+    /**
+     * Writes result of an action, with {@code status}, {@code message}, {@code messageDetails}, {@code authContext} and
+     * {@code entity} properties, the same as the result schema of the generated specification. The
+     * {@code authContext} is written only if the user id is not {@code null}.
+     */
+    public static void writeResult(JsonGenerator generator, String status, String message, String messageDetails,
+            String userId, Object entity) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(STATUS);
+        generator.writeString(status);
+        generator.writeFieldName(MESSAGE);
+        generator.writeString(message);
+        generator.writeFieldName(MESSAGE_DETAILS);
+        generator.writeString(messageDetails);
+        if (userId != null) {
+            generator.writeFieldName(AUTH_CONTEXT);
+            generator.writeStartObject();
+            generator.writeFieldName(USER_ID);
+            generator.writeString(userId);
+            generator.writeEndObject();
+        }
+        generator.writeFieldName(ENTITY);
+        writeEntity(generator, entity);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the entity with the writer of its class. Elements of collections, e.g. of listing responses, are written
+     * with writers of their classes. Other values are written by the codec of the generator.
+     */
+    public static void writeEntity(JsonGenerator generator, Object entity) throws IOException {
+        if (entity == null) {
+            generator.writeNull();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        ResponseEntityWriter<Object> writer = (ResponseEntityWriter<Object>) find(entity.getClass());
+        if (writer != null) {
+            writer.write(generator, entity);
+        } else if (entity instanceof Collection) {
+            generator.writeStartArray();
+            for (Object element : (Collection<?>) entity) {
+                writeEntity(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            writeObject(generator, entity);
+        }
+    }
+
+    /**
+     * Writes value of a type without generated writer by the codec of the generator.
+     */
+    public static void writeObject(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    private static ResponseEntityWriter<?> loadWriter(Class<?> entityClass) {
+        ClassLoader classLoader = entityClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        String writerClassName = findWriterClassName(classLoader, entityClass.getName());
+        if (writerClassName == null) {
+            return null;
+        }
+        try {
+            ResponseEntityWriter<?> writer = (ResponseEntityWriter<?>) Class.forName(writerClassName, true, classLoader)
+                    .getConstructor().newInstance();
+            return writer.getEntityClass() == entityClass ? writer : null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            throw new IllegalStateException("Could not create writer " + writerClassName + " of " + entityClass.getName(), e);
+        }
+    }
+
+    private static String findWriterClassName(ClassLoader classLoader, String entityClassName) {
+        String prefix = entityClassName + "=";
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+            while (indexes.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith(prefix)) {
+                            return line.substring(prefix.length()).trim();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + INDEX_RESOURCE, e);
+        }
+        return null;
+    }
+
+}
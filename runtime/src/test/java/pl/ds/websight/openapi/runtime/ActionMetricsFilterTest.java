@@ -0,0 +1,95 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ActionMetricsFilterTest {
+
+    private static final String GET_ACTION = "/apps/module/bin/get-item.action";
+    private static final String SAVE_ACTION = "/apps/module/bin/save-item.action";
+    private static final int GET = ActionMetrics.getMethodIndex("GET");
+    private static final int POST = ActionMetrics.getMethodIndex("POST");
+
+    private final ActionMetricsRegistry registry = new ActionMetricsRegistry(8, 2);
+    private final ActionMetricsFilter filter = new ActionMetricsFilter(registry);
+
+    @Test
+    public void recordsLatencyAndCharactersWrittenToWriter() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        filter.doFilter(ServletStandIns.request("GET", GET_ACTION), response.get(), (request, chainResponse) -> {
+            chainResponse.getWriter().write("{\"status\":");
+            chainResponse.getWriter().print("\"SUCCESS\"}");
+        });
+
+        assertEquals("{\"status\":\"SUCCESS\"}", response.getBody());
+        StripedHistogram.Snapshot latency = registry.find(GET_ACTION).getLatencyMicros(GET);
+        assertEquals(1, latency.getCount());
+        assertEquals(20, registry.find(GET_ACTION).getResponseBytes(GET).getMax());
+        assertNull(registry.find(GET_ACTION).getLatencyMicros(POST));
+    }
+
+    @Test
+    public void recordsBytesWrittenToOutputStreamOfActionWithSuffix() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+        FilterChain chain = (request, chainResponse) -> {
+            chainResponse.getOutputStream().write(new byte[100], 0, 100);
+            chainResponse.getOutputStream().write(1);
+        };
+
+        filter.doFilter(ServletStandIns.request("POST", "/ctx", "/ctx" + SAVE_ACTION + "/suffix",
+                Collections.emptyMap(), null), response.get(), chain);
+        filter.doFilter(ServletStandIns.request("POST", SAVE_ACTION), response.get(), chain);
+
+        StripedHistogram.Snapshot responseBytes = registry.find(SAVE_ACTION).getResponseBytes(POST);
+        assertEquals(2, responseBytes.getCount());
+        assertEquals(101, responseBytes.getMax());
+        assertEquals(202, response.getBody().length());
+    }
+
+    @Test
+    public void passesOtherRequestsThroughWithoutRecording() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+        FilterChain chain = (request, chainResponse) -> assertTrue(chainResponse == response.get());
+
+        filter.doFilter(ServletStandIns.request("GET", "/content/page.html"), response.get(), chain);
+        filter.doFilter(ServletStandIns.request("DELETE", GET_ACTION), response.get(), chain);
+
+        assertTrue(registry.getActions().isEmpty());
+    }
+
+    @Test
+    public void recordsRequestsFailedByChain() {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        assertThrows(ServletException.class, () -> filter.doFilter(ServletStandIns.request("GET", GET_ACTION),
+                response.get(), (request, chainResponse) -> {
+                    throw new ServletException("failed");
+                }));
+
+        assertEquals(1, registry.find(GET_ACTION).getLatencyMicros(GET).getCount());
+    }
+
+    @Test
+    public void countsNestedRequestsSeparately() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        filter.doFilter(ServletStandIns.request("GET", GET_ACTION), response.get(), (request, chainResponse) -> {
+            chainResponse.getWriter().write("outer");
+            filter.doFilter(ServletStandIns.request("POST", SAVE_ACTION), response.get(),
+                    (nestedRequest, nestedResponse) -> nestedResponse.getWriter().write("nested"));
+        });
+
+        assertEquals(5, registry.find(GET_ACTION).getResponseBytes(GET).getMax());
+        assertEquals(6, registry.find(SAVE_ACTION).getResponseBytes(POST).getMax());
+    }
+
+}
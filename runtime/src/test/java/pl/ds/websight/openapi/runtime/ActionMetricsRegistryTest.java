@@ -0,0 +1,58 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ActionMetricsRegistryTest {
+
+    @Test
+    public void findsEndOfActionPaths() {
+        String path = "/apps/a-b.c/bin/get-x.action";
+
+        assertEquals(path.length(), ActionMetricsRegistry.findActionPathEnd(path, 0));
+        assertEquals(path.length(), ActionMetricsRegistry.findActionPathEnd(path + "/suffix.json", 0));
+        assertEquals(path.length() + 4, ActionMetricsRegistry.findActionPathEnd("/ctx" + path, 4));
+    }
+
+    @Test
+    public void rejectsPathsWhichAreNotActions() {
+        String[] paths = {"/apps/a/bin/x.json", "/apps//bin/x.action", "/apps/a/bin/.action", "/apps/a/bin/x/y.action",
+                "/apps/a/bin/x.actions", "/apps/a/x.action", "/content/a", "/ctx/apps/a/bin/x.action"};
+        for (String path : paths) {
+            assertEquals(path, -1, ActionMetricsRegistry.findActionPathEnd(path, 0));
+        }
+    }
+
+    @Test
+    public void returnsTheSameMetricsForRegionsOfTheSamePath() {
+        ActionMetricsRegistry registry = new ActionMetricsRegistry(4, 1);
+        String uri = "/apps/a/bin/x.action/suffix";
+
+        ActionMetrics metrics = registry.get(uri, 0, 20);
+
+        assertEquals("/apps/a/bin/x.action", metrics.getPath());
+        assertSame(metrics, registry.get("/ctx/apps/a/bin/x.action", 4, 24));
+        assertSame(metrics, registry.find("/apps/a/bin/x.action"));
+        assertNull(registry.find("/apps/a/bin/y.action"));
+    }
+
+    @Test
+    public void dropsRequestsOfActionsAboveMaximum() {
+        ActionMetricsRegistry registry = new ActionMetricsRegistry(3, 1);
+
+        for (int i = 0; i < 10; i++) {
+            String path = "/apps/a/bin/x" + i + ".action";
+            registry.get(path, 0, path.length());
+        }
+
+        assertEquals(3, registry.getActions().size());
+        assertEquals(7, registry.getDropped());
+        assertNotNull(registry.find("/apps/a/bin/x0.action"));
+        assertNull(registry.find("/apps/a/bin/x3.action"));
+    }
+
+}
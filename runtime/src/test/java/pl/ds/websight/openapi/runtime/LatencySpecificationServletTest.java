@@ -0,0 +1,98 @@
+package pl.ds.websight.openapi.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LatencySpecificationServletTest {
+
+    private static final String GET_ACTION = "/apps/module/bin/get-item.action";
+    private static final String SAVE_ACTION = "/apps/module/bin/save-item.action";
+    private static final String SPECIFICATION = "{\"paths\":{" +
+            "\"" + GET_ACTION + "\":{\"get\":{\"summary\":\"Gets item\"}}," +
+            "\"" + SAVE_ACTION + "\":{\"post\":{}}," +
+            "\"/apps/module/bin/delete-item.action\":{\"post\":{}}}}";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ActionMetricsRegistry registry = new ActionMetricsRegistry(8, 1);
+
+    @Test
+    public void servesSpecificationWithLatencyOfRequestedOperations() throws Exception {
+        record(GET_ACTION, "GET", 1_000, 100);
+        record(SAVE_ACTION, "POST", 900_000, 10);
+        LatencySpecificationServlet servlet = new LatencySpecificationServlet(registry, 500);
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        servlet.doGet(request("module", Collections.singletonMap("/apps/module/docs/api.json", SPECIFICATION)),
+                response.get());
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals("no-store", response.getHeader("Cache-Control"));
+        JsonNode paths = MAPPER.readTree(response.getBody()).path("paths");
+        JsonNode get = paths.path(GET_ACTION).path("get");
+        JsonNode getLatency = get.path(LatencySpecificationServlet.EXTENSION);
+        assertEquals(1, getLatency.path("requests").asLong());
+        assertFalse(getLatency.path("slow").asBoolean());
+        assertEquals(1.0, getLatency.path("millis").path("p99").asDouble(), 0.125);
+        assertEquals(100, getLatency.path("responseBytes").path("max").asLong());
+        assertTrue(get.path("summary").asText(), get.path("summary").asText().startsWith("Gets item (p99 "));
+        JsonNode save = paths.path(SAVE_ACTION).path("post");
+        assertTrue(save.path(LatencySpecificationServlet.EXTENSION).path("slow").asBoolean());
+        assertTrue(save.path("summary").asText(), save.path("summary").asText().startsWith("Slow, p99 "));
+        assertFalse(paths.path("/apps/module/bin/delete-item.action").path("post")
+                .has(LatencySpecificationServlet.EXTENSION));
+    }
+
+    @Test
+    public void readsYamlSpecification() throws Exception {
+        record(GET_ACTION, "GET", 1_000, 100);
+        ServletStandIns.Response response = new ServletStandIns.Response();
+        String yaml = "paths:\n  " + GET_ACTION + ":\n    get:\n      summary: Gets item\n";
+
+        new LatencySpecificationServlet(registry, 500).doGet(
+                request("module", Collections.singletonMap("/apps/module/docs/api.yaml", yaml)), response.get());
+
+        assertEquals(1, MAPPER.readTree(response.getBody()).path("paths").path(GET_ACTION).path("get")
+                .path(LatencySpecificationServlet.EXTENSION).path("requests").asLong());
+    }
+
+    @Test
+    public void rejectsInvalidModule() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        new LatencySpecificationServlet(registry, 500).doGet(request("../module", Collections.emptyMap()),
+                response.get());
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void answersNotFoundWithoutSpecification() throws Exception {
+        ServletStandIns.Response response = new ServletStandIns.Response();
+
+        new LatencySpecificationServlet(registry, 500).doGet(request("other", Collections.emptyMap()), response.get());
+
+        assertEquals(404, response.getStatus());
+    }
+
+    private void record(String path, String method, long latencyMicros, long responseBytes) {
+        registry.get(path, 0, path.length()).record(ActionMetrics.getMethodIndex(method), latencyMicros, responseBytes);
+    }
+
+    private static org.apache.sling.api.SlingHttpServletRequest request(String module, Map<String, String> files) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("module", module);
+        return ServletStandIns.request("GET", "", LatencySpecificationServlet.PATH, parameters,
+                ServletStandIns.resolver(files));
+    }
+
+}
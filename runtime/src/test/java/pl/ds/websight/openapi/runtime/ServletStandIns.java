@@ -0,0 +1,192 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local stand-ins of the Sling requests, responses and resources used by the runtime, implementing only the methods it
+ * calls, so filters and servlets are tested without a running Sling instance. Other methods throw
+ * {@link UnsupportedOperationException}.
+ */
+final class ServletStandIns {
+
+    private ServletStandIns() {
+        // no instances
+    }
+
+    static SlingHttpServletRequest request(String method, String uri) {
+        return request(method, "", uri, Collections.emptyMap(), null);
+    }
+
+    static SlingHttpServletRequest request(String method, String contextPath, String uri, Map<String, String> parameters,
+            ResourceResolver resolver) {
+        return proxy(SlingHttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getMethod":
+                    return method;
+                case "getContextPath":
+                    return contextPath;
+                case "getRequestURI":
+                    return uri;
+                case "getParameter":
+                    return parameters.get((String) args[0]);
+                case "getResourceResolver":
+                    return resolver;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    /**
+     * Returns resolver of resources with the given paths, adaptable to input streams of their contents.
+     */
+    static ResourceResolver resolver(Map<String, String> files) {
+        return proxy(ResourceResolver.class, (name, args) -> {
+            if (!"getResource".equals(name)) {
+                throw new UnsupportedOperationException(name);
+            }
+            String content = files.get((String) args[0]);
+            return content == null ? null : proxy(Resource.class, (resourceMethod, resourceArgs) -> {
+                if (!"adaptTo".equals(resourceMethod)) {
+                    throw new UnsupportedOperationException(resourceMethod);
+                }
+                return resourceArgs[0] == InputStream.class ?
+                        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)) : null;
+            });
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, StandInMethods methods) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return handleObjectMethod(proxy, method, args);
+            }
+            return methods.invoke(method.getName(), args);
+        };
+        return type.cast(Proxy.newProxyInstance(ServletStandIns.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object handleObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + " stand-in";
+        }
+    }
+
+    @FunctionalInterface
+    private interface StandInMethods {
+
+        Object invoke(String name, Object[] args) throws Exception;
+
+    }
+
+    /**
+     * Response keeping its status, headers and body in memory.
+     */
+    static final class Response {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final StringWriter characters = new StringWriter();
+        private final PrintWriter writer = new PrintWriter(characters);
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("setWriteListener");
+            }
+
+        };
+        private final Map<String, String> headers = new HashMap<>();
+        private final SlingHttpServletResponse response;
+        private int status = 200;
+        private String contentType;
+
+        Response() {
+            this.response = proxy(SlingHttpServletResponse.class, (name, args) -> {
+                switch (name) {
+                    case "getOutputStream":
+                        return outputStream;
+                    case "getWriter":
+                        return writer;
+                    case "setContentType":
+                        contentType = (String) args[0];
+                        return null;
+                    case "setCharacterEncoding":
+                        return null;
+                    case "setHeader":
+                        headers.put((String) args[0], (String) args[1]);
+                        return null;
+                    case "sendError":
+                        status = (Integer) args[0];
+                        writer.write((String) args[1]);
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(name);
+                }
+            });
+        }
+
+        SlingHttpServletResponse get() {
+            return response;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        /**
+         * Returns bytes written to the output stream followed by characters written to the writer.
+         */
+        String getBody() {
+            writer.flush();
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8) + characters;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package pl.ds.websight.openapi.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedHistogramTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    @Test
+    public void bucketsCoverConsecutiveRanges() {
+        for (int bucket = 0; bucket < StripedHistogram.BUCKETS - 1; bucket++) {
+            long maxValue = StripedHistogram.getBucketMaxValue(bucket);
+            assertEquals(bucket, StripedHistogram.getBucket(maxValue));
+            assertEquals(bucket + 1, StripedHistogram.getBucket(maxValue + 1));
+        }
+        assertEquals(StripedHistogram.BUCKETS - 1, StripedHistogram.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesAreAccurateToOneEighth() {
+        StripedHistogram histogram = new StripedHistogram(4);
+        long[] values = new long[100_000];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.abs(random.nextGaussian() * 20_000) + 100;
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        StripedHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals(Arrays.stream(values).average().getAsDouble(), snapshot.getMean(), 0.001);
+        for (double percentile : PERCENTILES) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimated = snapshot.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + " " + estimated + " of " + exact,
+                    estimated >= exact && estimated <= exact + exact / 8);
+        }
+    }
+
+    @Test
+    public void countsValuesRecordedConcurrently() throws Exception {
+        StripedHistogram histogram = new StripedHistogram(4);
+        int threadCount = 8;
+        int valuesPerThread = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            long value = i + 1;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < valuesPerThread; j++) {
+                    histogram.record(value);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        StripedHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(threadCount * valuesPerThread, snapshot.getCount());
+        assertEquals(threadCount, snapshot.getMax());
+        assertEquals((threadCount + 1) / 2.0, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    public void recordsNegativeValuesAsZero() {
+        StripedHistogram histogram = new StripedHistogram(1);
+
+        histogram.record(-5);
+
+        StripedHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+        assertEquals(0, new StripedHistogram(1).snapshot().getValueAtPercentile(50));
+    }
+
+}
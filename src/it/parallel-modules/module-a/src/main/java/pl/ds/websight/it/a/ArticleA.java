@@ -0,0 +1,25 @@
+package pl.ds.websight.it.a;
+
+import pl.ds.websight.it.common.Author;
+
+import java.util.Map;
+
+public class ArticleA {
+
+    private String title;
+    private Author author;
+    private Map<String, ArticleA> related;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public Map<String, ArticleA> getRelated() {
+        return related;
+    }
+
+}
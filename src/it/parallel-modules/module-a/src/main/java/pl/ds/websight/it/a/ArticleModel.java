@@ -0,0 +1,8 @@
+package pl.ds.websight.it.a;
+
+public class ArticleModel {
+
+    private String path;
+    private Integer limit;
+
+}
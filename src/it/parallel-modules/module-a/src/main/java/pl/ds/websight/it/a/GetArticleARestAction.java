@@ -0,0 +1,8 @@
+package pl.ds.websight.it.a;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+@SlingAction(SlingAction.HttpMethod.GET)
+public abstract class GetArticleARestAction implements RestAction<ArticleModel, ArticleA> {
+}
@@ -0,0 +1,25 @@
+package pl.ds.websight.it.b;
+
+import pl.ds.websight.it.common.Author;
+
+import java.util.Map;
+
+public class ArticleB {
+
+    private String title;
+    private Author author;
+    private Map<String, ArticleB> related;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public Map<String, ArticleB> getRelated() {
+        return related;
+    }
+
+}
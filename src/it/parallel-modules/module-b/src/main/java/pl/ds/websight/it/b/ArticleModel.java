@@ -0,0 +1,8 @@
+package pl.ds.websight.it.b;
+
+public class ArticleModel {
+
+    private String path;
+    private Integer limit;
+
+}
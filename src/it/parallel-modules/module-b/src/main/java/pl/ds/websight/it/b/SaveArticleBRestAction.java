@@ -0,0 +1,8 @@
+package pl.ds.websight.it.b;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+@SlingAction(SlingAction.HttpMethod.POST)
+public abstract class SaveArticleBRestAction implements RestAction<ArticleModel, ArticleB> {
+}
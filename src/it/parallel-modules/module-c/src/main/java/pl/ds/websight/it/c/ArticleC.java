@@ -0,0 +1,25 @@
+package pl.ds.websight.it.c;
+
+import pl.ds.websight.it.common.Author;
+
+import java.util.Map;
+
+public class ArticleC {
+
+    private String title;
+    private Author author;
+    private Map<String, ArticleC> related;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public Map<String, ArticleC> getRelated() {
+        return related;
+    }
+
+}
@@ -0,0 +1,8 @@
+package pl.ds.websight.it.c;
+
+public class ArticleModel {
+
+    private String path;
+    private Integer limit;
+
+}
@@ -0,0 +1,8 @@
+package pl.ds.websight.it.c;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+@SlingAction(SlingAction.HttpMethod.POST)
+public abstract class SaveArticleCRestAction implements RestAction<ArticleModel, ArticleC> {
+}
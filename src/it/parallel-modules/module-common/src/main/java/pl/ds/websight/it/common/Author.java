@@ -0,0 +1,18 @@
+package pl.ds.websight.it.common;
+
+import java.util.List;
+
+public class Author {
+
+    private String name;
+    private List<Author> coAuthors;
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Author> getCoAuthors() {
+        return coAuthors;
+    }
+
+}
@@ -0,0 +1,22 @@
+def modules = ['a', 'b', 'c']
+
+def buildLog = new File(basedir, 'build.log').text
+assert !buildLog.contains('@threadSafe') : 'Plugin reported as not thread safe'
+
+modules.each { module ->
+    def docs = new File(basedir, "module-${module}/target/classes/apps/module-${module}/docs")
+    def specification = new File(docs, 'api.yaml')
+    assert specification.isFile() : "Specification of module-${module} not generated"
+    def content = specification.text
+    assert content.contains("/apps/module-${module}/bin/get-article-${module}.action")
+    assert content.contains("/apps/module-${module}/bin/save-article-${module}.action")
+    assert content.contains("Article${module.toUpperCase()}:")
+    assert content.contains('Author:')
+    assert content.contains('x-websight-cost:')
+    assert new File(docs, 'api-payload-cost.json').isFile()
+    (modules - module).each { other ->
+        assert !content.contains("/apps/module-${other}/") : "Specification of module-${module} contains paths of module-${other}"
+    }
+    assert new File(docs, 'api.html').isFile()
+}
+return true
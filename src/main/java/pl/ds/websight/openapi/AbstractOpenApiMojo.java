@@ -0,0 +1,333 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import pl.ds.websight.openapi.RestActionsToOpenApiPathsConverter.PathItemConsumer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Base of the mojos generating OpenAPI specification, with configuration and steps shared by all of them. The steps are
+ * done by {@link SpecificationGenerator}, configured by the parameters of the mojo.
+ */
+public abstract class AbstractOpenApiMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project.artifactId}")
+    protected String title;
+
+    @Parameter(defaultValue = "${project.version}")
+    protected String version;
+
+    @Parameter
+    protected Set<String> actionPackages;
+
+    /**
+     * Comma separated formats of the specification files: {@code yaml}, {@code json}, {@code smile} and {@code cbor}.
+     * The API HTML page uses the first of the {@code yaml} and {@code json} files, so at least one of them is required.
+     */
+    @Parameter(property = "openapi.outputFormats", defaultValue = "yaml")
+    protected String outputFormats;
+
+    /**
+     * Number of threads converting actions to OpenAPI paths. The result is the same for every value.
+     */
+    @Parameter(property = "openapi.conversionParallelism", defaultValue = "1")
+    protected int conversionParallelism;
+
+    /**
+     * Writes gzip variants of the specification files, next to their content hashed copies and manifest, which are
+     * always written.
+     */
+    @Parameter(property = "openapi.gzip", defaultValue = "true")
+    protected boolean gzip;
+
+    /**
+     * Logs request model and response types of each converted action. Switching it off saves a lot of output in builds
+     * with many actions, the types are then logged on debug level only.
+     */
+    @Parameter(property = "openapi.verbose", defaultValue = "true")
+    protected boolean verbose;
+
+    /**
+     * Makes the generated files identical for identical inputs, so they can be cached by build caches. No files with
+     * timing information are written next to the specification then.
+     */
+    @Parameter(property = "openapi.reproducible", defaultValue = "false")
+    protected boolean reproducible;
+
+    /**
+     * Adds cost profile of the response payload to each operation as {@code x-websight-cost} vendor extension: depth of
+     * nesting, number of fields, unbounded collections and estimated maximum size.
+     */
+    @Parameter(property = "openapi.payloadCost", defaultValue = "true")
+    protected boolean payloadCost;
+
+    /**
+     * Number of elements assumed for collections, arrays and maps without maximum size declared by {@code @Size} when
+     * the maximum size of payloads is estimated.
+     */
+    @Parameter(property = "openapi.assumedCollectionSize", defaultValue = "100")
+    protected int assumedCollectionSize;
+
+    /**
+     * Number of project class loaders kept for following executions in the same JVM, which is useful in Maven daemon
+     * builds and when more goals of the plugin run in a module. Class loaders are not shared between modules, as the
+     * classpath of each module contains its own classes, so the limit should not be lower than the number of modules
+     * using the plugin. The least recently used class loaders are closed when the limit is exceeded. With {@code 0} each
+     * execution creates and closes its own class loader.
+     */
+    @Parameter(property = "openapi.classLoaderCacheSize", defaultValue = "4")
+    protected int classLoaderCacheSize;
+
+    /**
+     * Way the API HTML page loads Swagger UI: {@code cdn} from public CDNs, {@code bundled} from the distribution shipped
+     * with the plugin, written to {@code swagger-ui} directory next to the specification, or {@code inlined} with the
+     * distribution embedded in the page. The last two work without access to the internet.
+     */
+    @Parameter(property = "openapi.swaggerUi", defaultValue = "cdn")
+    protected String swaggerUi;
+
+    /**
+     * Embeds the specification in the API HTML page, so with inlined Swagger UI the page is the only request needed to
+     * view the documentation. It does not apply to the sharded page.
+     */
+    @Parameter(property = "openapi.inlineSpecification", defaultValue = "false")
+    protected boolean inlineSpecification;
+
+    /**
+     * URL of the specification loaded by the API HTML page instead of the generated file, e.g. the specification with
+     * latency of the actions served by the runtime bundle: {@code /bin/websight/openapi/latency?module=<artifactId>}.
+     * It does not apply to the sharded page.
+     */
+    @Parameter(property = "openapi.latencyOverlayUrl")
+    protected String latencyOverlayUrl;
+
+    private SpecificationGenerator generator;
+
+    protected List<OutputFormat> getOutputFormats() throws MojoExecutionException {
+        try {
+            return SpecificationGenerator.parseOutputFormats(outputFormats);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    /**
+     * Returns generator of this execution, created by {@link #createGenerator()} on the first call.
+     */
+    protected SpecificationGenerator getGenerator() throws MojoExecutionException {
+        if (generator == null) {
+            generator = createGenerator();
+        }
+        return generator;
+    }
+
+    /**
+     * Returns generator configured by the parameters of the mojo. It is created once per execution, mojos use
+     * {@link #getGenerator()}.
+     */
+    protected SpecificationGenerator createGenerator() throws MojoExecutionException {
+        return new SpecificationGenerator(new MavenGenerationLog(getLog()))
+                .actionPackages(actionPackages)
+                .outputFormats(getOutputFormats())
+                .conversionParallelism(conversionParallelism)
+                .gzip(gzip)
+                .verbose(verbose)
+                .payloadCost(payloadCost)
+                .assumedCollectionSize(assumedCollectionSize)
+                .swaggerUi(getSwaggerUiMode())
+                .inlineSpecification(inlineSpecification)
+                .latencyOverlayUrl(latencyOverlayUrl);
+    }
+
+    /**
+     * Writes content hashed copies, gzip variants and manifest of the specification files.
+     *
+     * @return name of the content hashed specification file loaded by the API HTML page
+     */
+    protected String saveSpecificationArtifacts(File outputDirectory) throws MojoExecutionException {
+        try {
+            return getGenerator().saveSpecificationArtifacts(outputDirectory);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    protected static void createDirectory(File directory) throws MojoExecutionException {
+        try {
+            SpecificationGenerator.createDirectory(directory);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    protected Set<Class<?>> loadRestActionClasses(Collection<String> classNames, ClassLoader classLoader)
+            throws MojoExecutionException {
+        try {
+            return getGenerator().loadRestActionClasses(classNames, classLoader);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    /**
+     * Converts actions of the module with the given artifact ID, passing converted paths to the consumer in path order.
+     *
+     * @param report report to which conversion time of each action is added, may be {@code null}
+     */
+    protected void convertRestActions(Set<Class<?>> restActionClasses, String artifactId, ComponentsRegistry registry,
+            ClassMetadataCache metadata, ClassLoader classLoader, GenerationReport report, PathItemConsumer consumer)
+            throws MojoExecutionException, IOException {
+        try {
+            getGenerator().convertRestActions(restActionClasses, artifactId, registry, metadata, classLoader, report,
+                    consumer);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    /**
+     * Finishes the specification files of the writer and logs which of them changed.
+     */
+    protected void commitSpecification(OpenApiStreamWriter writer, File outputDirectory)
+            throws MojoExecutionException, IOException {
+        getGenerator().commitSpecification(writer, outputDirectory);
+    }
+
+    /**
+     * Returns class loader of the projects from the shared cache. It has to be released with
+     * {@link #releaseClassLoader(ClassLoaderCache.Lease)}.
+     */
+    protected ClassLoaderCache.Lease acquireClassLoader(Collection<MavenProject> projects, ClassLoader parent)
+            throws MojoExecutionException {
+        try {
+            return getClassLoaderProvider(projects, parent).acquire();
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    /**
+     * Returns directories in the classes of the projects to which the plugin writes, so the class loaders of the
+     * projects are not replaced because of its output.
+     */
+    protected Collection<Path> getOutputDirectories(Collection<MavenProject> projects) {
+        List<Path> directories = new ArrayList<>();
+        for (MavenProject project : projects) {
+            directories.add(Paths.get(project.getBuild().getOutputDirectory(), "apps", project.getArtifactId(), "docs"));
+        }
+        return directories;
+    }
+
+    /**
+     * Returns provider of class loaders of the projects from the shared cache, for the generator.
+     */
+    protected SpecificationGenerator.ClassLoaderProvider getClassLoaderProvider(Collection<MavenProject> projects,
+            ClassLoader parent) {
+        return () -> {
+            try {
+                ClassLoaderCache cache = ClassLoaderCache.getInstance();
+                ClassLoaderCache.Lease lease = cache.acquire(projects, parent, classLoaderCacheSize,
+                        getOutputDirectories(projects));
+                getLog().debug("Class loader cache size: " + cache.size());
+                return lease;
+            } catch (Exception e) {
+                throw new GenerationException("Could not extend class loader", e);
+            }
+        };
+    }
+
+    protected void releaseClassLoader(ClassLoaderCache.Lease lease) {
+        try {
+            lease.release();
+        } catch (IOException e) {
+            getLog().debug("Could not close class loader", e);
+        }
+    }
+
+    protected SwaggerUi.Mode getSwaggerUiMode() throws MojoExecutionException {
+        try {
+            return SwaggerUi.Mode.of(swaggerUi);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saves the API HTML page from the template, together with Swagger UI files if they are loaded from the output
+     * directory.
+     *
+     * @param specificationFileName name of the file loaded by the page, the specification or the index of its shards
+     */
+    protected void saveApiHtmlPage(File outputDirectory, String template, String title, String specificationFileName)
+            throws MojoExecutionException {
+        try {
+            getGenerator().saveApiHtmlPage(outputDirectory, template, title, specificationFileName);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
+
+    protected static MojoExecutionException toMojoExecutionException(GenerationException e) {
+        return new MojoExecutionException(e.getMessage(), e.getCause() != null ? e.getCause() : e);
+    }
+
+    /**
+     * Log of the generation writing to the log of the mojo.
+     */
+    private static final class MavenGenerationLog implements GenerationLog {
+
+        private final Log log;
+
+        private MavenGenerationLog(Log log) {
+            this.log = log;
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return log.isDebugEnabled();
+        }
+
+        @Override
+        public void debug(String message) {
+            log.debug(message);
+        }
+
+        @Override
+        public void debug(String message, Throwable error) {
+            log.debug(message, error);
+        }
+
+        @Override
+        public void info(String message) {
+            log.info(message);
+        }
+
+        @Override
+        public void warn(String message) {
+            log.warn(message);
+        }
+
+        @Override
+        public void error(String message) {
+            log.error(message);
+        }
+
+        @Override
+        public void error(String message, Throwable error) {
+            log.error(message, error);
+        }
+
+    }
+
+}
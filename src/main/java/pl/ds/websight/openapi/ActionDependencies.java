@@ -0,0 +1,142 @@
+package pl.ds.websight.openapi;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map from project classes back to the actions using them: the action class itself, its request model and response
+ * types, and all project classes reachable from them through supertypes, fields and getters. Classes from outside the
+ * project classes directory are not followed, as they do not change while the project is being developed.
+ */
+class ActionDependencies {
+
+    private final Path classesDirectory;
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependentActions = new HashMap<>();
+
+    /**
+     * @param classesDirectory directory of the project classes
+     */
+    ActionDependencies(Path classesDirectory) {
+        this.classesDirectory = classesDirectory;
+    }
+
+    /**
+     * Collects project classes used by the action, replacing the ones collected before.
+     */
+    void update(Class<?> actionClass) {
+        remove(actionClass.getName());
+        Set<String> classNames = collectProjectClasses(actionClass);
+        dependencies.put(actionClass.getName(), classNames);
+        for (String className : classNames) {
+            dependentActions.computeIfAbsent(className, key -> new HashSet<>()).add(actionClass.getName());
+        }
+    }
+
+    void remove(String actionClassName) {
+        Set<String> classNames = dependencies.remove(actionClassName);
+        if (classNames != null) {
+            for (String className : classNames) {
+                Set<String> actions = dependentActions.get(className);
+                actions.remove(actionClassName);
+                if (actions.isEmpty()) {
+                    dependentActions.remove(className);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns names of the project classes used by the action, including the action class.
+     */
+    Set<String> getDependencies(String actionClassName) {
+        return dependencies.getOrDefault(actionClassName, Collections.emptySet());
+    }
+
+    /**
+     * Returns names of the actions using any of the given classes.
+     */
+    Set<String> getDependentActions(Collection<String> classNames) {
+        Set<String> actions = new HashSet<>();
+        for (String className : classNames) {
+            actions.addAll(dependentActions.getOrDefault(className, Collections.emptySet()));
+        }
+        return actions;
+    }
+
+    private Set<String> collectProjectClasses(Class<?> actionClass) {
+        Set<String> classNames = new HashSet<>();
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        pending.add(actionClass);
+        while (!pending.isEmpty()) {
+            Class<?> clazz = pending.remove();
+            if (!visited.add(clazz) || !isProjectClass(clazz)) {
+                continue;
+            }
+            classNames.add(clazz.getName());
+            Set<Type> usedTypes = new HashSet<>();
+            if (clazz.getGenericSuperclass() != null) {
+                usedTypes.add(clazz.getGenericSuperclass());
+            }
+            Collections.addAll(usedTypes, clazz.getGenericInterfaces());
+            for (Field field : clazz.getDeclaredFields()) {
+                usedTypes.add(field.getGenericType());
+            }
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getParameterCount() == 0) {
+                    usedTypes.add(method.getGenericReturnType());
+                }
+            }
+            if (clazz.getEnclosingClass() != null) {
+                usedTypes.add(clazz.getEnclosingClass());
+            }
+            for (Type type : usedTypes) {
+                addClasses(type, pending);
+            }
+        }
+        return classNames;
+    }
+
+    private boolean isProjectClass(Class<?> clazz) {
+        return Files.isRegularFile(classesDirectory.resolve(clazz.getName().replace('.', '/') + ".class"));
+    }
+
+    private static void addClasses(Type type, Deque<Class<?>> pending) {
+        if (type instanceof Class<?>) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            if (!clazz.isPrimitive()) {
+                pending.add(clazz);
+            }
+        } else if (type instanceof ParameterizedType) {
+            addClasses(((ParameterizedType) type).getRawType(), pending);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                addClasses(argument, pending);
+            }
+        } else if (type instanceof GenericArrayType) {
+            addClasses(((GenericArrayType) type).getGenericComponentType(), pending);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                addClasses(bound, pending);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package pl.ds.websight.openapi;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maven mojo to generate OpenAPI documentation of all modules of the reactor at once. It is meant to be run once per
+ * build, after the modules are compiled, e.g. {@code mvn package websight-rest-swagger:aggregate}.
+ * <p>
+ * Actions of all modules which use the plugin are discovered and loaded by one class loader and converted together,
+ * so schemas of classes shared by the modules are converted only once. Each module gets its own specification and API
+ * HTML page in the same place as the {@code generate} goal writes them, titled by the {@code title} and {@code version}
+ * configured for the plugin in the module, and all paths are also written to a single merged specification. Paths of
+ * each module stay prefixed by its artifact ID.
+ * <p>
+ * The module specifications are not the full output of the {@code generate} goal: no timing report
+ * ({@code api-report.json}), no payload cost report ({@code api-payload-cost.json}) and no shards are written, payload
+ * budgets are not checked and the modules are always generated again, without comparing fingerprints. Parameters other
+ * than the title and version, e.g. output formats, action packages and payload cost, are taken from the configuration
+ * of the {@code aggregate} goal, not of the modules.
+ * <p>
+ * Sharing the class loader and the components has two limitations. Classes are loaded from the joined classpath of all
+ * modules, so a library used by the modules in different versions is loaded in the version of the first module listing
+ * it, and schemas of its classes follow that version in the specifications of all modules. Component names are unique
+ * across all modules, so a class whose simple name is also used by a class of another module is named by its fully
+ * qualified name, also in the specification of its own module, which then differs from the one written by the
+ * {@code generate} goal. Modules which need exactly their own specifications should use the {@code generate} goal.
+ */
+@Mojo(
+        name = "aggregate",
+        aggregator = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
+)
+public class AggregateMojo extends AbstractOpenApiMojo {
+
+    /**
+     * Directory of the merged specification and its API HTML page.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/openapi")
+    private File aggregateOutputDirectory;
+
+    /**
+     * Writes specification of each module to its classes, the same as the {@code generate} goal does.
+     */
+    @Parameter(property = "openapi.moduleSpecifications", defaultValue = "true")
+    private boolean moduleSpecifications;
+
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true)
+    private List<MavenProject> reactorProjects;
+
+    @Parameter(defaultValue = "${plugin.groupId}:${plugin.artifactId}", readonly = true)
+    private String pluginKey;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<OutputFormat> formats = getOutputFormats();
+        List<Module> modules = discoverModules();
+        if (modules.isEmpty()) {
+            getLog().info("No modules using the plugin found in the reactor");
+        }
+        createDirectory(aggregateOutputDirectory);
+        List<MavenProject> projects = new ArrayList<>();
+        modules.forEach(module -> projects.add(module.project));
+        ClassLoaderCache.Lease classLoaderLease = acquireClassLoader(projects, getClass().getClassLoader());
+        ClassLoader classLoader = classLoaderLease.getClassLoader();
+        ComponentsRegistry registry = new ComponentsRegistry();
+        ClassMetadataCache metadata = new ClassMetadataCache();
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(aggregateOutputDirectory.toPath(),
+                SpecificationGenerator.API_SPECIFICATION_FILE_BASE_NAME, formats)) {
+            writer.writeStart(SpecificationGenerator.createOpenApi(title, version));
+            for (Module module : modules) {
+                getLog().info("Generating OpenAPI specification of " + module.project.getArtifactId());
+                if (moduleSpecifications) {
+                    generateModuleSpecification(module, formats, registry, metadata, classLoader, writer);
+                } else {
+                    convertRestActions(loadRestActionClasses(module.classNames, classLoader),
+                            module.project.getArtifactId(), registry, metadata, classLoader, null,
+                            (actionClass, path, pathItem) -> writer.writePath(path, pathItem));
+                }
+            }
+            writer.writeEnd(registry.toComponents());
+            commitSpecification(writer, aggregateOutputDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while saving OpenAPI specification file", e);
+        } finally {
+            releaseClassLoader(classLoaderLease);
+        }
+        saveApiHtmlPage(aggregateOutputDirectory, SpecificationGenerator.API_HTML_PAGE_TEMPLATE, title,
+                saveSpecificationArtifacts(aggregateOutputDirectory));
+        getLog().debug("Class metadata cache: " + metadata.getHits() + " hits, " + metadata.getMisses() + " misses");
+    }
+
+    /**
+     * Finds modules using the plugin and discovers their actions. Modules are sorted by the path prefix of their actions,
+     * so the merged specification is sorted by path too.
+     */
+    private List<Module> discoverModules() throws MojoExecutionException {
+        List<Module> modules = new ArrayList<>();
+        for (MavenProject project : reactorProjects) {
+            File classesDirectory = new File(project.getBuild().getOutputDirectory());
+            if (!usesPlugin(project) || !classesDirectory.isDirectory()) {
+                continue;
+            }
+            RestActionDiscovery.Result result;
+            try {
+                result = new RestActionDiscovery(actionPackages).discover(classesDirectory.toPath(), Collections.emptyList());
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not scan classes of " + project.getArtifactId() + " for actions", e);
+            }
+            getLog().info("Actions discovery of " + project.getArtifactId() + ": " + result.getReport());
+            for (String index : result.getReport().getIgnoredIndexes()) {
+                getLog().warn("Action index " + index + " does not list all classes next to it, they were scanned instead.");
+            }
+            modules.add(new Module(project, result.getClassNames()));
+        }
+        modules.sort(Comparator.comparing(module -> module.project.getArtifactId() + "/"));
+        return modules;
+    }
+
+    private boolean usesPlugin(MavenProject project) {
+        @SuppressWarnings("unchecked") List<Plugin> plugins = project.getBuildPlugins();
+        return plugins.stream().anyMatch(plugin -> pluginKey.equals(plugin.getKey()));
+    }
+
+    /**
+     * Writes specification and API HTML page of the module, passing its paths also to the merged specification writer.
+     * Components of the module specification are limited to the ones its paths refer to.
+     */
+    private void generateModuleSpecification(Module module, List<OutputFormat> formats, ComponentsRegistry registry,
+            ClassMetadataCache metadata, ClassLoader classLoader, OpenApiStreamWriter mergedWriter)
+            throws MojoExecutionException, IOException {
+        MavenProject project = module.project;
+        String moduleTitle = getModuleParameter(project, "title", project.getArtifactId());
+        File outputDirectory = Paths.get(project.getBuild().getOutputDirectory(), "apps", project.getArtifactId(), "docs").toFile();
+        createDirectory(outputDirectory);
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(outputDirectory.toPath(),
+                SpecificationGenerator.API_SPECIFICATION_FILE_BASE_NAME, formats)) {
+            writer.writeStart(SpecificationGenerator.createOpenApi(moduleTitle, getModuleParameter(project, "version",
+                    project.getVersion())));
+            Set<String> references = new HashSet<>();
+            convertRestActions(loadRestActionClasses(module.classNames, classLoader), project.getArtifactId(), registry,
+                    metadata, classLoader, null, (actionClass, path, pathItem) -> {
+                        writer.writePath(path, pathItem);
+                        mergedWriter.writePath(path, pathItem);
+                        references.addAll(ComponentsRegistry.findReferences(pathItem));
+                    });
+            writer.writeEnd(registry.toComponents(references));
+            commitSpecification(writer, outputDirectory);
+        }
+        saveApiHtmlPage(outputDirectory, SpecificationGenerator.API_HTML_PAGE_TEMPLATE, moduleTitle,
+                saveSpecificationArtifacts(outputDirectory));
+    }
+
+    /**
+     * Returns value of the parameter configured for the plugin in the module, in an execution of the {@code generate}
+     * goal or for the whole plugin, or the default value if the module does not configure it.
+     */
+    private String getModuleParameter(MavenProject project, String name, String defaultValue) {
+        Plugin plugin = project.getPlugin(pluginKey);
+        if (plugin == null) {
+            return defaultValue;
+        }
+        List<Object> configurations = new ArrayList<>();
+        for (PluginExecution execution : plugin.getExecutions()) {
+            if (execution.getGoals().contains("generate")) {
+                configurations.add(execution.getConfiguration());
+            }
+        }
+        configurations.add(plugin.getConfiguration());
+        for (Object configuration : configurations) {
+            Xpp3Dom parameter = configuration instanceof Xpp3Dom ? ((Xpp3Dom) configuration).getChild(name) : null;
+            if (parameter != null && StringUtils.isNotBlank(parameter.getValue())) {
+                return parameter.getValue().trim();
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Module {
+
+        private final MavenProject project;
+        private final Set<String> classNames;
+
+        private Module(MavenProject project, Set<String> classNames) {
+            this.project = project;
+            this.classNames = classNames;
+        }
+
+    }
+
+}
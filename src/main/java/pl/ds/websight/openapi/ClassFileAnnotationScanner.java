@@ -0,0 +1,270 @@
+package pl.ds.websight.openapi;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads class files directly to check if a class is annotated with a given annotation, without loading the class.
+ * Only the constant pool, names of the class and its superclass and class level annotation attributes are parsed. Classes
+ * which do not reference the annotation in their constant pool are rejected before their members are read.
+ */
+class ClassFileAnnotationScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] annotationDescriptor;
+
+    ClassFileAnnotationScanner(Class<?> annotationClass) {
+        this.annotationDescriptor = ("L" + annotationClass.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns binary name of the class if it is annotated with the scanned annotation, {@code null} otherwise
+     * (also for data which is not a valid class file).
+     */
+    String getAnnotatedClassName(byte[] classFile) {
+        ScannedClass scannedClass = scan(classFile);
+        return scannedClass != null && scannedClass.isAnnotated() ? scannedClass.getName() : null;
+    }
+
+    /**
+     * Returns names of the class and its superclass and whether the class is annotated with the scanned annotation,
+     * {@code null} for data which is not a valid class file.
+     */
+    ScannedClass scan(byte[] classFile) {
+        try {
+            return new Parser(classFile).parse();
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    static final class ScannedClass {
+
+        private final String name;
+        private final String superClassName;
+        private final boolean annotated;
+
+        private ScannedClass(String name, String superClassName, boolean annotated) {
+            this.name = name;
+            this.superClassName = superClassName;
+            this.annotated = annotated;
+        }
+
+        /**
+         * Binary name of the class.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Binary name of the superclass, {@code null} for {@link Object} and modules.
+         */
+        String getSuperClassName() {
+            return superClassName;
+        }
+
+        boolean isAnnotated() {
+            return annotated;
+        }
+
+    }
+
+    private final class Parser {
+
+        private final byte[] data;
+        private int position;
+        private int[] utf8Offsets;
+        private int[] classNameIndexes;
+
+        private Parser(byte[] data) {
+            this.data = data;
+        }
+
+        private ScannedClass parse() {
+            if (readInt() != MAGIC) {
+                return null;
+            }
+            position += 4; // minor and major version
+            boolean annotationReferenced = readConstantPool();
+            position += 2; // access flags
+            String name = getClassName(readUnsignedShort());
+            int superClassIndex = readUnsignedShort();
+            String superClassName = superClassIndex == 0 ? null : getClassName(superClassIndex);
+            if (!annotationReferenced) {
+                return new ScannedClass(name, superClassName, false);
+            }
+            int interfacesCount = readUnsignedShort();
+            position += 2 * interfacesCount; // interfaces
+            skipMembers(); // fields
+            skipMembers(); // methods
+            int attributesCount = readUnsignedShort();
+            for (int i = 0; i < attributesCount; i++) {
+                int nameIndex = readUnsignedShort();
+                int length = readInt();
+                int end = position + length;
+                if ((utf8Equals(nameIndex, RUNTIME_VISIBLE_ANNOTATIONS) || utf8Equals(nameIndex, RUNTIME_INVISIBLE_ANNOTATIONS)) &&
+                        containsAnnotation()) {
+                    return new ScannedClass(name, superClassName, true);
+                }
+                position = end;
+            }
+            return new ScannedClass(name, superClassName, false);
+        }
+
+        /**
+         * Reads the constant pool remembering offsets of UTF-8 entries.
+         *
+         * @return {@code false} if the constant pool does not reference the annotation, so the class cannot be annotated with it
+         */
+        private boolean readConstantPool() {
+            int count = readUnsignedShort();
+            utf8Offsets = new int[count];
+            classNameIndexes = new int[count];
+            boolean annotationReferenced = false;
+            for (int i = 1; i < count; i++) {
+                int tag = data[position++];
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8Offsets[i] = position;
+                        int length = readUnsignedShort();
+                        annotationReferenced = annotationReferenced || regionEquals(position, length, annotationDescriptor);
+                        position += length;
+                        break;
+                    case 7: // Class
+                        classNameIndexes[i] = readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        position += 2;
+                        break;
+                    case 15: // MethodHandle
+                        position += 3;
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        position += 4;
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        position += 8;
+                        i++; // takes two entries
+                        break;
+                    default:
+                        throw new IndexOutOfBoundsException("Unknown constant pool tag: " + tag);
+                }
+            }
+            return annotationReferenced;
+        }
+
+        private void skipMembers() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                position += 6; // access flags, name and descriptor
+                skipAttributes();
+            }
+        }
+
+        private void skipAttributes() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                position += 2; // name
+                int length = readInt();
+                position += length;
+            }
+        }
+
+        private boolean containsAnnotation() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int typeIndex = readUnsignedShort();
+                if (utf8Equals(typeIndex, annotationDescriptor)) {
+                    return true;
+                }
+                skipElementValuePairs();
+            }
+            return false;
+        }
+
+        private void skipElementValuePairs() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                position += 2; // element name
+                skipElementValue();
+            }
+        }
+
+        private void skipElementValue() {
+            char tag = (char) data[position++];
+            switch (tag) {
+                case 'e':
+                    position += 4;
+                    break;
+                case '@':
+                    position += 2;
+                    skipElementValuePairs();
+                    break;
+                case '[':
+                    int count = readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        skipElementValue();
+                    }
+                    break;
+                default: // constants and classes
+                    position += 2;
+            }
+        }
+
+        private String getClassName(int classIndex) {
+            int offset = utf8Offsets[classNameIndexes[classIndex]];
+            int length = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+            return new String(data, offset + 2, length, StandardCharsets.UTF_8).replace('/', '.');
+        }
+
+        private boolean utf8Equals(int index, byte[] expected) {
+            int offset = utf8Offsets[index];
+            if (offset == 0) {
+                return false;
+            }
+            int length = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+            return regionEquals(offset + 2, length, expected);
+        }
+
+        private boolean regionEquals(int offset, int length, byte[] expected) {
+            if (length != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (data[offset + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int readUnsignedShort() {
+            int value = ((data[position] & 0xFF) << 8) | (data[position + 1] & 0xFF);
+            position += 2;
+            return value;
+        }
+
+        private int readInt() {
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16) |
+                    ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+    }
+
+}
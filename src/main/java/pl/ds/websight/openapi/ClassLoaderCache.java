@@ -0,0 +1,275 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Class loaders of projects shared by executions in the same JVM, which avoids opening the same jars again in every
+ * execution and keeps the number of open files and loaded classes bounded in long living (e.g. Maven daemon) builds.
+ * <p>
+ * Class loaders are cached by classpath and parent class loader. The classpath of a project contains its own classes, so
+ * each module has class loaders of its own, they are not shared between modules. Each entry stores a digest of the
+ * classpath state, made of size and modification time of the jars and of the class and resource files in directories,
+ * so a class loader is replaced once any of them changes, e.g. when the project is recompiled. Directories to which the
+ * plugin writes its output are left out, so writing the specification does not invalidate the class loader. The least
+ * recently used class loaders are closed when the cache exceeds its size. Class loaders in use are closed only when
+ * released by the last user.
+ */
+final class ClassLoaderCache {
+
+    private static final ClassLoaderCache INSTANCE = new ClassLoaderCache();
+    private static final byte[] SEPARATOR = {0};
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ClassLoaderCache() {
+        // single instance
+    }
+
+    static ClassLoaderCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns class loader of the projects, reusing the cached one if their classpath did not change since it was created.
+     * The lease has to be released when the class loader is no longer used.
+     *
+     * @param maxSize              maximum number of class loaders kept in the cache, with {@code 0} a new class loader is
+     *                             created and closed on release
+     * @param excludedDirectories directories of the classpath to which the plugin writes, left out of its state
+     */
+    Lease acquire(Collection<MavenProject> projects, ClassLoader parent, int maxSize, Collection<Path> excludedDirectories)
+            throws DependencyResolutionRequiredException, IOException {
+        return acquire(ExtendedClassLoader.getDependenciesUrls(projects), parent, maxSize, excludedDirectories);
+    }
+
+    /**
+     * Returns class loader of the classpath, e.g. of a bundle jar outside of Maven build, the same as
+     * {@link #acquire(Collection, ClassLoader, int, Collection)} does for projects.
+     */
+    Lease acquire(URL[] urls, ClassLoader parent, int maxSize) throws IOException {
+        return acquire(urls, parent, maxSize, Collections.emptySet());
+    }
+
+    private Lease acquire(URL[] urls, ClassLoader parent, int maxSize, Collection<Path> excludedDirectories)
+            throws IOException {
+        if (maxSize <= 0) {
+            Entry entry = new Entry(new ExtendedClassLoader(urls, parent), null);
+            entry.users = 1;
+            entry.evicted = true;
+            return new Lease(entry);
+        }
+        Key key = new Key(urls, parent);
+        String digest = digest(urls, excludedDirectories);
+        List<Entry> evicted = new ArrayList<>();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !entry.digest.equals(digest)) {
+                entries.remove(key);
+                evicted.add(entry);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(new ExtendedClassLoader(urls, parent), digest);
+                entries.put(key, entry);
+            }
+            entry.users++;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                if (eldest != entry) {
+                    iterator.remove();
+                    evicted.add(eldest);
+                }
+            }
+            evicted.forEach(evictedEntry -> evictedEntry.evicted = true);
+        }
+        for (Entry evictedEntry : evicted) {
+            closeIfUnused(evictedEntry);
+        }
+        return new Lease(entry);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void release(Entry entry) throws IOException {
+        synchronized (this) {
+            entry.users--;
+        }
+        closeIfUnused(entry);
+    }
+
+    private void closeIfUnused(Entry entry) throws IOException {
+        synchronized (this) {
+            if (!entry.evicted || entry.users > 0 || entry.closed) {
+                return;
+            }
+            entry.closed = true;
+        }
+        entry.classLoader.close();
+    }
+
+    private static String digest(URL[] urls, Collection<Path> excludedDirectories) throws IOException {
+        MessageDigest digest = newDigest();
+        for (URL url : urls) {
+            Path path;
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                update(digest, url.toString());
+                continue;
+            }
+            update(digest, path.toString());
+            if (Files.isDirectory(path)) {
+                updateWithDirectory(digest, path, excludedDirectories);
+            } else if (Files.isRegularFile(path)) {
+                update(digest, Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    private static void updateWithDirectory(MessageDigest digest, Path directory, Collection<Path> excludedDirectories)
+            throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        List<Path> absoluteExcludedDirectories = excludedDirectories.stream()
+                .map(excludedDirectory -> excludedDirectory.toAbsolutePath().normalize())
+                .collect(toList());
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths
+                    .filter(file -> absoluteExcludedDirectories.stream().noneMatch(file::startsWith))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(toList());
+        }
+        try {
+            files.forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    update(digest, root.relativize(file).toString().replace(File.separatorChar, '/') + ":" +
+                            attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Class loader acquired from the cache.
+     */
+    final class Lease {
+
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        ExtendedClassLoader getClassLoader() {
+            return entry.classLoader;
+        }
+
+        /**
+         * Releases the class loader, closing it if it was evicted from the cache in the meantime.
+         */
+        void release() throws IOException {
+            if (!released) {
+                released = true;
+                ClassLoaderCache.this.release(entry);
+            }
+        }
+
+    }
+
+    private static final class Key {
+
+        private final List<String> urls;
+        private final ClassLoader parent;
+
+        private Key(URL[] urls, ClassLoader parent) {
+            this.urls = Arrays.stream(urls).map(URL::toString).collect(toList());
+            this.parent = parent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return urls.equals(key.urls) && parent == key.parent;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(urls, System.identityHashCode(parent));
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final ExtendedClassLoader classLoader;
+        private final String digest;
+        private int users;
+        private boolean evicted;
+        private boolean closed;
+
+        private Entry(ExtendedClassLoader classLoader, String digest) {
+            this.classLoader = classLoader;
+            this.digest = digest;
+        }
+
+    }
+
+}
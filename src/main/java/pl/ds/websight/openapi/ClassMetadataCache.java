@@ -0,0 +1,256 @@
+package pl.ds.websight.openapi;
+
+import org.apache.commons.lang3.StringUtils;
+import org.reflections.ReflectionUtils;
+import pl.ds.websight.request.parameters.support.annotations.RequestParameter;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Cache of reflective metadata of request model and response classes, so classes shared by many actions are inspected
+ * only once. An instance is created for each generation run and dropped together with the run's class loader, so it
+ * never holds classes of other runs. It can be used by many threads at once.
+ * <p>
+ * Generic types are resolved by {@link GenericTypeResolver} of the run, so bean properties of each parameterization of a
+ * class, e.g. {@code Page<UserDto>}, have their type variables replaced by the type arguments.
+ */
+class ClassMetadataCache {
+
+    private static final Set<Class<?>> JAVA_LANG_CLASSES = Stream.of(Object.class, Enum.class).collect(toSet());
+    private static final Set<Class<? extends Annotation>> REQUIRED_REQUEST_PARAM_ANNOTATIONS =
+            Stream.of(NotBlank.class, NotEmpty.class, NotNull.class).collect(toSet());
+
+    private final Map<Class<?>, List<RequestField>> requestFields = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<BeanProperty>> beanProperties = new ConcurrentHashMap<>();
+    private final Map<Type, List<BeanProperty>> resolvedBeanProperties = new ConcurrentHashMap<>();
+    private final GenericTypeResolver typeResolver = new GenericTypeResolver();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns fields of the request model class which are bound from request parameters, sorted by parameter name.
+     */
+    List<RequestField> getRequestFields(Class<?> modelClass) {
+        return get(requestFields, modelClass, ClassMetadataCache::readRequestFields);
+    }
+
+    /**
+     * Returns readable bean properties of the class, without properties of {@link Object} and {@link Enum}, sorted by name.
+     */
+    List<BeanProperty> getBeanProperties(Class<?> clazz) {
+        return get(beanProperties, clazz, ClassMetadataCache::readBeanProperties);
+    }
+
+    /**
+     * Returns readable bean properties of the class or parameterized type, the same as
+     * {@link #getBeanProperties(Class)}, with type variables bound by the type or by superclasses of its class replaced
+     * by their types.
+     */
+    List<BeanProperty> getResolvedBeanProperties(Type beanType) {
+        return get(resolvedBeanProperties, beanType, this::readResolvedBeanProperties);
+    }
+
+    /**
+     * Returns type arguments of the generic supertype, e.g. {@code RestAction}, as implemented by the class, with type
+     * variables which are not bound replaced by their bounds.
+     */
+    List<Type> getTypeArguments(Class<?> clazz, Class<?> supertype) {
+        return Arrays.asList(typeResolver.getTypeArguments(clazz, supertype));
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    private <K, T> T get(Map<K, T> cache, K key, Function<K, T> reader) {
+        T value = cache.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        return cache.computeIfAbsent(key, reader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RequestField> readRequestFields(Class<?> modelClass) {
+        return Collections.unmodifiableList(ReflectionUtils.getAllFields(modelClass).stream()
+                .filter(field -> field.isAnnotationPresent(RequestParameter.class) ||
+                        field.getType() == org.apache.sling.api.request.RequestParameter.class)
+                .map(RequestField::new)
+                .sorted(Comparator.comparing(RequestField::getParameterName))
+                .collect(toList()));
+    }
+
+    private static List<BeanProperty> readBeanProperties(Class<?> clazz) {
+        List<BeanProperty> properties = new ArrayList<>();
+        try {
+            // bypasses the JVM wide bean info cache, which would keep classes of the project beyond the execution
+            for (PropertyDescriptor property : Introspector.getBeanInfo(clazz, Introspector.IGNORE_ALL_BEANINFO)
+                    .getPropertyDescriptors()) {
+                Method readMethod = property.getReadMethod();
+                if (readMethod == null || JAVA_LANG_CLASSES.contains(readMethod.getDeclaringClass())) {
+                    continue;
+                }
+                properties.add(new BeanProperty(property.getName(), readMethod, readMaxSize(readMethod, property.getName())));
+            }
+        } catch (IntrospectionException e) {
+            // thrown out of the cache, so the failure is reported with the action and not cached as a bean without properties
+            throw new IllegalStateException("Could not read bean properties of " + clazz.getName(), e);
+        }
+        return Collections.unmodifiableList(properties);
+    }
+
+    private List<BeanProperty> readResolvedBeanProperties(Type beanType) {
+        Class<?> clazz = (Class<?>) (beanType instanceof ParameterizedType ? ((ParameterizedType) beanType).getRawType() : beanType);
+        List<BeanProperty> properties = new ArrayList<>();
+        for (BeanProperty property : getBeanProperties(clazz)) {
+            properties.add(property.withType(typeResolver.resolve(property.getType(), beanType)));
+        }
+        return Collections.unmodifiableList(properties);
+    }
+
+    /**
+     * Returns maximum size declared by {@link Size} on the getter or on the field of the property, {@code null} if the
+     * size is not limited.
+     */
+    private static Integer readMaxSize(Method readMethod, String propertyName) {
+        Size size = readMethod.getAnnotation(Size.class);
+        for (Class<?> clazz = readMethod.getDeclaringClass(); size == null && clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                size = clazz.getDeclaredField(propertyName).getAnnotation(Size.class);
+            } catch (NoSuchFieldException e) {
+                // declared by a superclass or computed by the getter
+            }
+        }
+        return size != null && size.max() != Integer.MAX_VALUE ? size.max() : null;
+    }
+
+    /**
+     * Field of a request model bound from a request parameter.
+     */
+    static final class RequestField {
+
+        private final Field field;
+        private final String parameterName;
+        private final Boolean required;
+        private final boolean file;
+
+        private RequestField(Field field) {
+            this.field = field;
+            this.file = field.getType() == org.apache.sling.api.request.RequestParameter.class;
+            this.parameterName = Optional.ofNullable(field.getAnnotation(RequestParameter.class))
+                    .map(RequestParameter::name)
+                    .filter(StringUtils::isNotBlank)
+                    .orElseGet(field::getName);
+            this.required = REQUIRED_REQUEST_PARAM_ANNOTATIONS.stream().anyMatch(field::isAnnotationPresent) ?
+                    Boolean.TRUE :
+                    null; // NOSONAR: we don't want 'false' here to not serialize it to YAML result file
+        }
+
+        String getName() {
+            return field.getName();
+        }
+
+        Field getField() {
+            return field;
+        }
+
+        Type getGenericType() {
+            return field.getGenericType();
+        }
+
+        String getParameterName() {
+            return parameterName;
+        }
+
+        Boolean getRequired() {
+            return required;
+        }
+
+        /**
+         * Returns {@code true} for fields holding uploaded files.
+         */
+        boolean isFile() {
+            return file;
+        }
+
+    }
+
+    /**
+     * Readable bean property.
+     */
+    static final class BeanProperty {
+
+        private final String name;
+        private final Method readMethod;
+        private final Type type;
+        private final Integer maxSize;
+
+        private BeanProperty(String name, Method readMethod, Integer maxSize) {
+            this(name, readMethod, readMethod.getGenericReturnType(), maxSize);
+        }
+
+        private BeanProperty(String name, Method readMethod, Type type, Integer maxSize) {
+            this.name = name;
+            this.readMethod = readMethod;
+            this.type = type;
+            this.maxSize = maxSize;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Method getReadMethod() {
+            return readMethod;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        private BeanProperty withType(Type resolvedType) {
+            return resolvedType.equals(type) ? this : new BeanProperty(name, readMethod, resolvedType, maxSize);
+        }
+
+        /**
+         * Returns maximum number of elements of the collection, array or map property, {@code null} if it is unbounded.
+         */
+        Integer getMaxSize() {
+            return maxSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,344 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Registry of components shared by all paths of the specification. Each class is converted to a schema only once and
+ * referenced by {@code $ref} everywhere it is used. Classes are registered while they are converted, so references
+ * between classes, including cyclic ones, always end up as {@code $ref}. A class whose conversion fails is not
+ * registered, so it is converted again when referenced next time.
+ * <p>
+ * Component name of a class is its simple name (prefixed with names of enclosing classes). Each parameterization of a
+ * generic class is a component of its own, named after the class and its type arguments joined by {@code _}, e.g.
+ * {@code Page_UserDto}. If the name is already taken by another type, fully qualified names are used. Names are not
+ * given when types are converted, as the order of conversion depends on scheduling of the conversion threads. References
+ * stay unnamed until the paths using them are {@linkplain #nameReferences(Object) named} in the order they are written,
+ * and the remaining types, used only by other components, are named in order of their fully qualified names when the
+ * components are taken, so the names are the same for every parallelism. Types are identified by names of their
+ * classes, so schemas of a class loaded again by another class loader, including schemas of its parameterizations, can
+ * be {@linkplain #invalidate(Collection) invalidated} and converted again under the same name. The registry can be used
+ * by many threads at once.
+ * <p>
+ * The registry owns the {@link SchemaInterner} of the run, so references and other schemas converted for the paths and
+ * components sharing the registry are kept in memory only once.
+ */
+class ComponentsRegistry {
+
+    private static final String SCHEMAS_REF_PREFIX = "#/components/schemas/";
+    private static final String RESPONSES_REF_PREFIX = "#/components/responses/";
+    private static final String REF_PROPERTY = "$ref";
+    // names are never enclosed in angle brackets, so unnamed references are not mistaken for named ones
+    private static final String UNNAMED_SCHEMAS_REF_PREFIX = SCHEMAS_REF_PREFIX + "<";
+    private static final String UNNAMED_SCHEMAS_REF_SUFFIX = ">";
+    private static final String TYPE_ARGUMENT_SEPARATOR = "_";
+    private static final Pattern TYPE_NAME_DELIMITERS = Pattern.compile("[<>,\\[\\] ]+");
+    private static final ObjectMapper REFERENCES_MAPPER = new ObjectMapper();
+
+    private final Map<String, SchemaRegistration> schemaRegistrations = new HashMap<>();
+    private final Map<String, SchemaRegistration> unnamedSchemaRegistrations = new HashMap<>();
+    private final Set<String> usedSchemaNames = new HashSet<>();
+    private final Map<String, SchemaRegistration> namedSchemaRegistrations = new ConcurrentHashMap<>();
+    private final Map<String, ApiResponse> responses = new ConcurrentHashMap<>();
+    private final boolean interning;
+    private final SchemaInterner interner;
+
+    ComponentsRegistry() {
+        this(true);
+    }
+
+    /**
+     * Creates registry interning the converted schemas or, if interning is disabled, creating new schemas every time,
+     * e.g. to compare the heap footprint of both.
+     */
+    ComponentsRegistry(boolean interning) {
+        this.interning = interning;
+        interner = new SchemaInterner(interning);
+    }
+
+    SchemaInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Returns reference to the schema of the class or parameterized type, converting the type with the given converter
+     * if it is not registered yet. The reference is named later, if the type is not named yet.
+     */
+    Schema<?> schemaReference(Type type, Supplier<Schema<?>> converter) {
+        String key = getTypeKey(type);
+        SchemaRegistration registration;
+        boolean registered;
+        synchronized (this) {
+            registration = schemaRegistrations.get(key);
+            if (registration == null) {
+                registration = new SchemaRegistration(key, getSchemaName(type, false), getSchemaName(type, true));
+                schemaRegistrations.put(key, registration);
+                unnamedSchemaRegistrations.put(registration.unnamedReference, registration);
+                registered = true;
+            } else {
+                registered = registration.outdated;
+                registration.outdated = false;
+            }
+        }
+        if (registered) {
+            try {
+                registration.schema = converter.get();
+            } catch (RuntimeException | Error e) {
+                unregister(registration);
+                throw e;
+            }
+        }
+        return createReference(registration);
+    }
+
+    /**
+     * Forgets type whose conversion failed, unless it was converted before and only its new conversion failed.
+     */
+    private synchronized void unregister(SchemaRegistration registration) {
+        if (registration.schema != null) {
+            registration.outdated = true;
+        } else if (registration.name == null) {
+            schemaRegistrations.remove(registration.key);
+            unnamedSchemaRegistrations.remove(registration.unnamedReference);
+        }
+    }
+
+    private synchronized Schema<?> createReference(SchemaRegistration registration) {
+        if (interning && registration.sharedReference != null) {
+            return registration.sharedReference;
+        }
+        Schema<?> reference = new Schema<>().$ref(registration.name != null
+                ? SCHEMAS_REF_PREFIX + registration.name : registration.unnamedReference);
+        if (interning) {
+            registration.sharedReference = reference;
+        } else if (registration.name == null) {
+            registration.unnamedReferences.add(reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Names types referenced by the given model object, e.g. a path item, which are not named yet, in order of their
+     * references. It has to be called before the model object is written, for paths in the order they are written.
+     */
+    void nameReferences(Object model) {
+        List<String> references = REFERENCES_MAPPER.valueToTree(model).findValuesAsText(REF_PROPERTY);
+        synchronized (this) {
+            for (String reference : references) {
+                SchemaRegistration registration = unnamedSchemaRegistrations.get(reference);
+                if (registration != null) {
+                    name(registration);
+                }
+            }
+        }
+    }
+
+    /**
+     * Names types referenced only by other components, in order of their keys.
+     */
+    private synchronized void nameRemainingReferences() {
+        new TreeMap<>(unnamedSchemaRegistrations).values().forEach(this::name);
+    }
+
+    private void name(SchemaRegistration registration) {
+        String name = registration.simpleName;
+        if (!usedSchemaNames.add(name)) {
+            name = registration.qualifiedName;
+            usedSchemaNames.add(name);
+        }
+        registration.name = name;
+        unnamedSchemaRegistrations.remove(registration.unnamedReference);
+        namedSchemaRegistrations.put(name, registration);
+        if (registration.sharedReference != null) {
+            registration.sharedReference.set$ref(SCHEMAS_REF_PREFIX + name);
+        }
+        for (Schema<?> reference : registration.unnamedReferences) {
+            reference.set$ref(SCHEMAS_REF_PREFIX + name);
+        }
+        registration.unnamedReferences.clear();
+    }
+
+    /**
+     * Marks schemas of the given classes and of their parameterizations, also as type arguments, as outdated, so they
+     * are converted again when referenced next time, keeping their names. Schemas which are not referenced again stay
+     * as they are.
+     */
+    synchronized void invalidate(Collection<String> classNames) {
+        Set<String> outdatedClassNames = new HashSet<>(classNames);
+        schemaRegistrations.forEach((key, registration) -> {
+            if (TYPE_NAME_DELIMITERS.splitAsStream(key).anyMatch(outdatedClassNames::contains)) {
+                registration.outdated = true;
+            }
+        });
+    }
+
+    /**
+     * Returns reference to the shared response with the given name, creating it if it is not registered yet.
+     */
+    ApiResponse responseReference(String name, Supplier<ApiResponse> factory) {
+        responses.computeIfAbsent(name, key -> factory.get());
+        return new ApiResponse().$ref(RESPONSES_REF_PREFIX + name);
+    }
+
+    /**
+     * Returns registered components sorted by name or {@code null} if there are none.
+     */
+    Components toComponents() {
+        nameRemainingReferences();
+        return toComponents(name -> true, name -> true);
+    }
+
+    /**
+     * Returns registered components which are reachable from the given references, directly or through other
+     * components, sorted by name, or {@code null} if there are none. It allows to write a specification of a part of
+     * the paths sharing the registry with others.
+     */
+    Components toComponents(Collection<String> references) {
+        nameRemainingReferences();
+        Set<String> reachableReferences = new HashSet<>();
+        Deque<String> pendingReferences = new ArrayDeque<>(references);
+        while (!pendingReferences.isEmpty()) {
+            String reference = pendingReferences.remove();
+            if (reachableReferences.add(reference)) {
+                Object component = getComponent(reference);
+                if (component != null) {
+                    pendingReferences.addAll(findReferences(component));
+                }
+            }
+        }
+        return toComponents(name -> reachableReferences.contains(SCHEMAS_REF_PREFIX + name),
+                name -> reachableReferences.contains(RESPONSES_REF_PREFIX + name));
+    }
+
+    /**
+     * Returns all {@code $ref} values found in the given model object, e.g. a path item.
+     */
+    static Set<String> findReferences(Object model) {
+        return new HashSet<>(REFERENCES_MAPPER.valueToTree(model).findValuesAsText(REF_PROPERTY));
+    }
+
+    /**
+     * Returns schema or response referenced by the given {@code $ref} value or {@code null} if it is not registered.
+     */
+    Object getComponent(String reference) {
+        if (reference.startsWith(SCHEMAS_REF_PREFIX)) {
+            SchemaRegistration registration = namedSchemaRegistrations.get(reference.substring(SCHEMAS_REF_PREFIX.length()));
+            return registration != null ? registration.schema : null;
+        }
+        if (reference.startsWith(RESPONSES_REF_PREFIX)) {
+            return responses.get(reference.substring(RESPONSES_REF_PREFIX.length()));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Components toComponents(Predicate<String> schemaFilter, Predicate<String> responseFilter) {
+        SortedMap<String, Schema> sortedSchemas = new TreeMap<>();
+        namedSchemaRegistrations.forEach((name, registration) -> {
+            if (registration.schema != null && schemaFilter.test(name)) {
+                sortedSchemas.put(name, registration.schema);
+            }
+        });
+        SortedMap<String, ApiResponse> sortedResponses = new TreeMap<>();
+        responses.forEach((name, response) -> {
+            if (responseFilter.test(name)) {
+                sortedResponses.put(name, response);
+            }
+        });
+        if (sortedSchemas.isEmpty() && sortedResponses.isEmpty()) {
+            return null;
+        }
+        Components components = new Components();
+        if (!sortedSchemas.isEmpty()) {
+            components.setSchemas(sortedSchemas);
+        }
+        if (!sortedResponses.isEmpty()) {
+            components.setResponses(sortedResponses);
+        }
+        return components;
+    }
+
+    private static String getSchemaName(Type type, boolean qualified) {
+        if (type instanceof ParameterizedType) {
+            StringBuilder name = new StringBuilder(getSchemaName(((ParameterizedType) type).getRawType(), qualified));
+            for (Type typeArgument : ((ParameterizedType) type).getActualTypeArguments()) {
+                name.append(TYPE_ARGUMENT_SEPARATOR).append(getSchemaName(typeArgument, qualified));
+            }
+            return name.toString();
+        }
+        if (!(type instanceof Class)) {
+            // type variables and wildcards are converted to objects of unknown structure
+            return "Object";
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz.isArray()) {
+            return getSchemaName(clazz.getComponentType(), qualified) + "Array";
+        }
+        if (qualified) {
+            return clazz.getName().replace('$', '.');
+        }
+        String packageName = clazz.getPackage() != null ? clazz.getPackage().getName() : "";
+        return clazz.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '.');
+    }
+
+    /**
+     * Returns name identifying the type, the name of the class, followed by keys of type arguments for a parameterized
+     * type, e.g. {@code com.example.Page<com.example.UserDto>}.
+     */
+    private static String getTypeKey(Type type) {
+        if (type instanceof ParameterizedType) {
+            return Arrays.stream(((ParameterizedType) type).getActualTypeArguments())
+                    .map(ComponentsRegistry::getTypeKey)
+                    .collect(joining(",", getTypeKey(((ParameterizedType) type).getRawType()) + "<", ">"));
+        }
+        return type.getTypeName();
+    }
+
+    /**
+     * Registered type with its schema and references, named or not yet.
+     */
+    private static final class SchemaRegistration {
+
+        private final String key;
+        private final String simpleName;
+        private final String qualifiedName;
+        private final String unnamedReference;
+        private final List<Schema<?>> unnamedReferences = new ArrayList<>();
+        private Schema<?> sharedReference;
+        private volatile Schema<?> schema;
+        private String name;
+        private boolean outdated;
+
+        private SchemaRegistration(String key, String simpleName, String qualifiedName) {
+            this.key = key;
+            this.simpleName = simpleName;
+            this.qualifiedName = qualifiedName;
+            this.unnamedReference = UNNAMED_SCHEMAS_REF_PREFIX + key + UNNAMED_SCHEMAS_REF_SUFFIX;
+        }
+
+    }
+
+}
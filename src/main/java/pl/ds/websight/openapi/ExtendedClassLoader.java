@@ -7,29 +7,51 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
- * Class loader extended by classes from the project that the plugin is executed for.
+ * Class loader extended by classes from the project that the plugin is executed for. It may also be created for many
+ * projects at once, in which case classpath elements shared by the projects are added only once and the first project
+ * wins if they use different versions of the same classes.
  */
 class ExtendedClassLoader extends URLClassLoader {
 
     public ExtendedClassLoader(MavenProject project, ClassLoader parent) throws DependencyResolutionRequiredException {
-        super(getDependenciesUrls(project), parent);
+        this(Collections.singletonList(project), parent);
     }
 
-    private static URL[] getDependenciesUrls(MavenProject project) throws DependencyResolutionRequiredException {
-        List<String> dependencies = new ArrayList<>();
-        dependencies.add(project.getBuild().getOutputDirectory());
-        @SuppressWarnings("unchecked") List<String> compileClasspathElements = project.getCompileClasspathElements();
-        if (compileClasspathElements != null) {
-            dependencies.addAll(compileClasspathElements);
+    public ExtendedClassLoader(Collection<MavenProject> projects, ClassLoader parent)
+            throws DependencyResolutionRequiredException {
+        this(getDependenciesUrls(projects), parent);
+    }
+
+    ExtendedClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    /**
+     * Returns classpath of the projects: their output directories followed by their compile and runtime classpath
+     * elements, without duplicates.
+     */
+    static URL[] getDependenciesUrls(Collection<MavenProject> projects) throws DependencyResolutionRequiredException {
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (MavenProject project : projects) {
+            dependencies.add(project.getBuild().getOutputDirectory());
         }
-        @SuppressWarnings("unchecked") List<String> runtimeClasspathElements = project.getRuntimeClasspathElements();
-        if (runtimeClasspathElements != null) {
-            dependencies.addAll(runtimeClasspathElements);
+        for (MavenProject project : projects) {
+            @SuppressWarnings("unchecked") List<String> compileClasspathElements = project.getCompileClasspathElements();
+            if (compileClasspathElements != null) {
+                dependencies.addAll(compileClasspathElements);
+            }
+            @SuppressWarnings("unchecked") List<String> runtimeClasspathElements = project.getRuntimeClasspathElements();
+            if (runtimeClasspathElements != null) {
+                dependencies.addAll(runtimeClasspathElements);
+            }
         }
         return dependencies.stream()
                 .map(ExtendedClassLoader::pathToUrl)
@@ -0,0 +1,114 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import pl.ds.websight.rest.framework.RestAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Maven mojo to generate binders of request models of the actions, which bind request parameters without reflection.
+ * Sources of the binders are generated from the compiled models, compiled into the project classes and listed in
+ * {@value RequestModelBinderGenerator#INDEX_RESOURCE} index, where {@code RequestModelBinders} of the runtime bundle
+ * finds them. The project needs {@code websight-rest-swagger-runtime} dependency to compile the binders.
+ */
+@Mojo(
+        name = "generate-binders",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
+)
+public class GenerateBindersMojo extends AbstractOpenApiMojo {
+
+    /**
+     * Directory of the generated sources of the binders.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/openapi-binders")
+    private File bindersSourceDirectory;
+
+    /**
+     * Java version the binders are compiled for.
+     */
+    @Parameter(property = "openapi.binders.release", defaultValue = "8")
+    private String bindersRelease;
+
+    @Component
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        GeneratedClasses binders = new GeneratedClasses(project, bindersSourceDirectory,
+                RequestModelBinderGenerator.INDEX_RESOURCE);
+        Path classesDirectory = binders.getClassesDirectory();
+        if (!Files.isDirectory(classesDirectory)) {
+            throw new MojoExecutionException("Project classes not found, compile the project first: " + classesDirectory);
+        }
+        binders.deletePrevious();
+        Set<String> actionClassNames;
+        try {
+            actionClassNames = new RestActionDiscovery(actionPackages)
+                    .discover(classesDirectory, Collections.emptyList()).getClassNames();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not scan classes for actions", e);
+        }
+        ClassLoaderCache.Lease classLoaderLease =
+                acquireClassLoader(Collections.singletonList(project), getClass().getClassLoader());
+        try {
+            ClassMetadataCache metadata = new ClassMetadataCache();
+            RequestModelBinderGenerator generator = new RequestModelBinderGenerator(metadata);
+            for (Class<?> modelClass : getModelClasses(loadRestActionClasses(actionClassNames, classLoaderLease.getClassLoader()),
+                    metadata, classesDirectory)) {
+                String source;
+                try {
+                    source = generator.generate(modelClass);
+                } catch (IllegalArgumentException e) {
+                    getLog().warn("Binder of " + modelClass.getName() + " not generated, " + e.getMessage() +
+                            ". The model will be bound reflectively.");
+                    continue;
+                }
+                binders.add(modelClass.getName(), RequestModelBinderGenerator.getBinderClassName(modelClass), source);
+            }
+        } finally {
+            releaseClassLoader(classLoaderLease);
+        }
+        if (binders.size() == 0) {
+            getLog().info("No request models to generate binders of");
+            return;
+        }
+        binders.compile(bindersRelease);
+        getLog().info("Binders of " + binders.size() + " request models generated to " + bindersSourceDirectory);
+    }
+
+    /**
+     * Returns request model classes of the actions, sorted by name. Models of dependencies are left out, as binders
+     * compiled into the project would split their packages and could not be found through their class loaders.
+     */
+    private static List<Class<?>> getModelClasses(Set<Class<?>> actionClasses, ClassMetadataCache metadata,
+            Path classesDirectory) {
+        return actionClasses.stream()
+                .map(actionClass -> metadata.getTypeArguments(actionClass, RestAction.class))
+                .filter(actionTypes -> actionTypes.size() == 2 && actionTypes.get(0) instanceof Class &&
+                        actionTypes.get(0) != Void.class)
+                .map(actionTypes -> (Class<?>) actionTypes.get(0))
+                .filter(modelClass -> Files.isRegularFile(
+                        classesDirectory.resolve(modelClass.getName().replace('.', File.separatorChar) + ".class")))
+                .distinct()
+                .sorted(Comparator.comparing(Class::getName))
+                .collect(toList());
+    }
+
+}
@@ -1,42 +1,28 @@
 package pl.ds.websight.openapi;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.Paths;
-import io.swagger.v3.oas.models.info.Info;
-import io.swagger.v3.oas.models.media.Schema;
-import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
-import org.jetbrains.annotations.NotNull;
-import org.reflections.Reflections;
-import org.reflections.scanners.ResourcesScanner;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ConfigurationBuilder;
-import pl.ds.websight.rest.framework.annotations.SlingAction;
-
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Maven mojo to generate OpenAPI documentation document based on Swagger.
@@ -44,119 +30,256 @@ import static java.util.stream.Collectors.joining;
 @Mojo(
         name = "generate",
         defaultPhase = LifecyclePhase.PREPARE_PACKAGE,
-        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
 )
-public class GenerateMojo extends AbstractMojo {
+public class GenerateMojo extends AbstractOpenApiMojo {
 
-    private final Log log = getLog();
+    @Parameter(defaultValue = "${project.build.directory}/classes/apps/${project.artifactId}/docs")
+    private File outputDirectory;
 
-    @Parameter(defaultValue = "${project.artifactId}")
-    private String title;
+    /**
+     * Dependencies, given as {@code groupId:artifactId}, which are scanned for actions in addition to the project classes.
+     */
+    @Parameter
+    private Set<String> scannedDependencies;
 
-    @Parameter(defaultValue = "${project.version}")
-    private String version;
+    /**
+     * File storing fingerprint of the inputs of the last successful generation.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/openapi-fingerprint.properties")
+    private File fingerprintFile;
 
-    @Parameter
-    private Set<String> actionPackages;
+    /**
+     * Regenerates the specification even if project classes, classpath and configuration did not change.
+     */
+    @Parameter(property = "openapi.force", defaultValue = "false")
+    private boolean force;
 
-    @Parameter(defaultValue = "${project.build.directory}/classes/apps/${project.artifactId}/docs")
-    private File outputDirectory;
+    /**
+     * Writes timing report of the generation, {@code api-report.json}, next to the specification. The report is not
+     * written in the reproducible mode, as timing differs between runs.
+     */
+    @Parameter(property = "openapi.report", defaultValue = "true")
+    private boolean report;
+
+    /**
+     * Number of the slowest actions listed in the generation summary.
+     */
+    @Parameter(property = "openapi.reportSlowestActions", defaultValue = "10")
+    private int reportSlowestActions;
+
+    /**
+     * Splits the specification into shards loaded by the API HTML page when their sections are opened: {@code none},
+     * {@code prefix} to group actions by the first word of their names or {@code package} to group them by the last
+     * segment of their packages. The complete specification files are written in every mode.
+     */
+    @Parameter(property = "openapi.sharding", defaultValue = "none")
+    private String sharding;
+
+    /**
+     * Maximum depth of nesting of the response payload of each action. Recursive payloads always exceed it.
+     */
+    @Parameter(property = "openapi.budget.maxDepth")
+    private Integer maxPayloadDepth;
+
+    /**
+     * Maximum number of fields of the response payload of each action.
+     */
+    @Parameter(property = "openapi.budget.maxFields")
+    private Long maxPayloadFields;
+
+    /**
+     * Maximum number of collections, arrays and maps without maximum size declared by {@code @Size} in the response
+     * payload of each {@code GET} action. With {@code 0} every listing has to be paginated or limited.
+     */
+    @Parameter(property = "openapi.budget.maxUnboundedCollections")
+    private Integer maxUnboundedCollections;
+
+    /**
+     * Maximum estimated size of the response payload of each action, in bytes.
+     */
+    @Parameter(property = "openapi.budget.maxBytes")
+    private Long maxPayloadBytes;
+
+    /**
+     * Fails the build when an action exceeds the payload budget, otherwise the violations are logged as warnings.
+     */
+    @Parameter(property = "openapi.budget.fail", defaultValue = "false")
+    private boolean failOnBudgetViolation;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
 
     @Component
     private MavenProject project;
 
     @Override
     public void execute() throws MojoExecutionException {
-        log.info("Generating OpenAPI specification file");
-        if (actionPackages.isEmpty()) {
-            log.warn("The 'actionPackages' configuration is not specified. Processing all compile and runtime classpath classes.");
+        List<OutputFormat> formats = getOutputFormats();
+        GenerationFingerprint fingerprint = computeFingerprint(formats);
+        if (isUpToDate(fingerprint, formats)) {
+            getLog().info("OpenAPI specification is up to date");
+            return;
         }
-        ClassLoader originalClassLoader = extendClassLoaderByProjectDependencies();
+        getLog().info("Generating OpenAPI specification file");
+        deleteFingerprint();
+        GenerationReport generationReport = generate(outputDirectory);
+        if (report && !reproducible) {
+            saveReport(generationReport);
+        }
+        saveFingerprint(fingerprint);
+    }
+
+    /**
+     * Generates the specification and its API HTML page to the directory, together with the payload cost report checked
+     * against the budget.
+     *
+     * @return report of the generation
+     */
+    protected GenerationReport generate(File directory) throws MojoExecutionException {
+        SpecificationGenerator.Module module = new SpecificationGenerator.Module(project.getArtifactId(), title, version,
+                Paths.get(project.getBuild().getOutputDirectory()), getScannedDependencyJars(),
+                getClassLoaderProvider(Collections.singletonList(project), getClass().getClassLoader()));
         try {
-            Set<Class<?>> restActionClasses = getRestActionClasses();
-            log.debug("Found " + restActionClasses.size() + " actions");
-            RestActionToOpenApiPathConverter converter = new RestActionToOpenApiPathConverter(log, project.getArtifactId());
-            Paths paths = new Paths();
-            restActionClasses.stream()
-                    .map(converter::convert)
-                    .forEach(path -> paths.addPathItem(path.getLeft(), path.getRight()));
-            OpenAPI openAPI = new OpenAPI()
-                    .info(new Info().title(title).version(version))
-                    .paths(paths);
-            writeOpenApiToYaml(openAPI);
-        } finally {
-            Thread.currentThread().setContextClassLoader(originalClassLoader);
+            return getGenerator().generate(module, directory);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
         }
     }
 
-    private ClassLoader extendClassLoaderByProjectDependencies() throws MojoExecutionException {
+    @Override
+    protected SpecificationGenerator createGenerator() throws MojoExecutionException {
+        return super.createGenerator()
+                .sharding(getSharding())
+                .payloadBudget(new PayloadBudget(maxPayloadDepth, maxPayloadFields, maxUnboundedCollections, maxPayloadBytes),
+                        failOnBudgetViolation)
+                .reportSlowestActions(reportSlowestActions);
+    }
+
+    @Override
+    protected Collection<Path> getOutputDirectories(Collection<MavenProject> projects) {
+        Collection<Path> directories = super.getOutputDirectories(projects);
+        directories.add(outputDirectory.toPath());
+        return directories;
+    }
+
+    private SpecificationShards.Grouping getSharding() throws MojoExecutionException {
+        if ("none".equalsIgnoreCase(sharding)) {
+            return null;
+        }
         try {
-            log.debug("Extending class loader by Maven project dependencies classes");
-            ClassLoader currentClassLoader = Thread.currentThread().getContextClassLoader();
-            Thread.currentThread().setContextClassLoader(new ExtendedClassLoader(project, currentClassLoader));
-            return currentClassLoader;
-        } catch (Exception e) {
-            throw new MojoExecutionException("Could not extend class loader", e);
+            return SpecificationShards.Grouping.of(sharding);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
         }
     }
 
-    private Set<Class<?>> getRestActionClasses() {
-        ConfigurationBuilder config = ConfigurationBuilder.build(actionPackages)
-                .setScanners(new ResourcesScanner(), new TypeAnnotationsScanner(), new SubTypesScanner());
-        return new Reflections(config).getTypesAnnotatedWith(SlingAction.class);
+    private GenerationFingerprint computeFingerprint(List<OutputFormat> formats) throws MojoExecutionException {
+        Map<String, String> parameters = new TreeMap<>();
+        parameters.put("title", title);
+        parameters.put("version", version);
+        parameters.put("actionPackages", actionPackages == null ? "" : String.join(",", new TreeSet<>(actionPackages)));
+        parameters.put("scannedDependencies", scannedDependencies == null ? "" : String.join(",", new TreeSet<>(scannedDependencies)));
+        parameters.put("outputDirectory", outputDirectory.getAbsolutePath());
+        parameters.put("outputFormats", formats.stream().map(OutputFormat::getExtension).collect(joining(",")));
+        parameters.put("gzip", String.valueOf(gzip));
+        parameters.put("sharding", sharding);
+        parameters.put("swaggerUi", swaggerUi);
+        parameters.put("inlineSpecification", String.valueOf(inlineSpecification));
+        parameters.put("latencyOverlayUrl", String.valueOf(latencyOverlayUrl));
+        parameters.put("reproducible", String.valueOf(reproducible));
+        parameters.put("payloadCost", String.valueOf(payloadCost));
+        parameters.put("assumedCollectionSize", String.valueOf(assumedCollectionSize));
+        parameters.put("payloadBudget", maxPayloadDepth + "," + maxPayloadFields + "," + maxUnboundedCollections + "," +
+                maxPayloadBytes + "," + failOnBudgetViolation);
+        parameters.put("pluginVersion", pluginVersion);
+        try {
+            return GenerationFingerprint.of(project, parameters);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Could not compute fingerprint of the project", e);
+        }
     }
 
-    private void writeOpenApiToYaml(OpenAPI openApi) throws MojoExecutionException {
-        String outputDirectoryPath = createOutputDirectory();
-        generateAndSaveApiSpecification(openApi, outputDirectoryPath);
-        saveApiHtmlPage(outputDirectoryPath);
+    private boolean isUpToDate(GenerationFingerprint fingerprint, List<OutputFormat> formats) throws MojoExecutionException {
+        boolean outputsExist = new File(outputDirectory, SpecificationGenerator.API_HTML_PAGE_FILE_NAME).isFile() &&
+                new File(outputDirectory, SpecificationArtifacts.MANIFEST_FILE_NAME).isFile() &&
+                ("none".equalsIgnoreCase(sharding) || new File(outputDirectory, SpecificationShards.INDEX_FILE_NAME).isFile()) &&
+                (getSwaggerUiMode() != SwaggerUi.Mode.BUNDLED ||
+                        new File(outputDirectory, SwaggerUi.ASSETS_DIRECTORY_NAME).isDirectory()) &&
+                formats.stream()
+                .allMatch(format -> new File(outputDirectory, SpecificationGenerator.getSpecificationFileName(format)).isFile());
+        if (force || !outputsExist) {
+            return false;
+        }
+        List<String> missingFiles = getMissingManifestFiles();
+        if (!missingFiles.isEmpty()) {
+            getLog().debug("Files listed in the manifest are missing: " + missingFiles);
+            return false;
+        }
+        try {
+            List<String> differences = fingerprint.differences(GenerationFingerprint.load(fingerprintFile));
+            if (!differences.isEmpty()) {
+                getLog().debug("Inputs changed since the last generation: " + differences);
+            }
+            return differences.isEmpty();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read fingerprint file: " + fingerprintFile, e);
+        }
     }
 
-    @NotNull
-    private String createOutputDirectory() throws MojoExecutionException {
-        String outputDirectoryPath = outputDirectory.getPath();
+    /**
+     * Returns names of the files listed in the manifest, e.g. content hashed copies of the specification, which do not
+     * exist in the output directory.
+     */
+    private List<String> getMissingManifestFiles() throws MojoExecutionException {
         try {
-            Files.createDirectories(java.nio.file.Paths.get(outputDirectoryPath));
+            return SpecificationArtifacts.readManifestFileNames(outputDirectory.toPath()).stream()
+                    .filter(fileName -> !new File(outputDirectory, fileName).isFile())
+                    .collect(toList());
         } catch (IOException e) {
-            throw new MojoExecutionException("Could not create output directory: " + outputDirectoryPath, e);
+            throw new MojoExecutionException("Could not read manifest file of " + outputDirectory, e);
         }
-        return outputDirectoryPath;
     }
 
-    private void generateAndSaveApiSpecification(OpenAPI openApi, String outputDirectoryPath) throws MojoExecutionException {
-        File file = new File(outputDirectoryPath + "/api.yaml");
-        try (PrintWriter writer = new PrintWriter(file)) {
-            ObjectMapper mapper = new ObjectMapper(new YAMLFactory()).enable(SerializationFeature.INDENT_OUTPUT);
-            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            mapper.addMixIn(Schema.class, ExcludeUnnecessaryPropertiesMixin.class);
-            mapper.writeValue(writer, openApi);
-            log.info("OpenAPI specification saved to " + file.getAbsolutePath());
+    private void deleteFingerprint() throws MojoExecutionException {
+        try {
+            GenerationFingerprint.delete(fingerprintFile);
         } catch (IOException e) {
-            throw new MojoExecutionException("Error while saving OpenAPI specification file", e);
+            throw new MojoExecutionException("Could not delete fingerprint file: " + fingerprintFile, e);
         }
     }
 
-    private void saveApiHtmlPage(String outputDirectoryPath) throws MojoExecutionException {
+    private void saveFingerprint(GenerationFingerprint fingerprint) throws MojoExecutionException {
         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream("/api.html")));
-            String pageHtml = reader.lines()
-                    .map(line -> line.contains("${title}") ? line.replace("${title}", title) : line)
-                    .collect(joining());
-            Files.copy(new ByteArrayInputStream(pageHtml.getBytes()), java.nio.file.Paths.get(outputDirectoryPath + "/api.html"),
-                    StandardCopyOption.REPLACE_EXISTING);
+            fingerprint.save(fingerprintFile);
         } catch (IOException e) {
-            throw new MojoExecutionException("Could not save API HTML file", e);
+            throw new MojoExecutionException("Could not save fingerprint file: " + fingerprintFile, e);
         }
     }
 
-}
+    private List<File> getScannedDependencyJars() {
+        if (scannedDependencies == null || scannedDependencies.isEmpty()) {
+            return Collections.emptyList();
+        }
+        @SuppressWarnings("unchecked") Set<Artifact> artifacts = project.getArtifacts();
+        List<File> jars = artifacts.stream()
+                .filter(artifact -> scannedDependencies.contains(artifact.getGroupId() + ":" + artifact.getArtifactId()))
+                .map(Artifact::getFile)
+                .filter(file -> file != null && file.isFile())
+                .collect(toList());
+        if (jars.size() < scannedDependencies.size()) {
+            getLog().warn("Not all of the scanned dependencies were resolved to jars: " + scannedDependencies);
+        }
+        return jars;
+    }
+
+    private void saveReport(GenerationReport generationReport) throws MojoExecutionException {
+        try {
+            getGenerator().saveReport(outputDirectory, generationReport);
+        } catch (GenerationException e) {
+            throw toMojoExecutionException(e);
+        }
+    }
 
-/**
- * Needed to get rid of redundant `exampleSetFlag` values from Schema class.
- * This mixin allows to ignore it during serialization to YAML.
- */
-interface ExcludeUnnecessaryPropertiesMixin {
-    @JsonIgnore
-    @SuppressWarnings("unused")
-    boolean getExampleSetFlag();
 }
@@ -0,0 +1,95 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import pl.ds.websight.rest.framework.RestAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Maven mojo to generate writers of response entities of the actions, which write entities to Jackson
+ * {@code JsonGenerator} without reflective bean lookup. Sources of the writers are generated for the classes of the
+ * project reachable from the response types, compiled into the project classes and listed in
+ * {@value ResponseEntityWriterGenerator#INDEX_RESOURCE} index, where {@code ResponseEntityWriters} of the runtime
+ * bundle finds them. The project needs {@code websight-rest-swagger-runtime} dependency to compile the writers.
+ */
+@Mojo(
+        name = "generate-response-writers",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
+)
+public class GenerateResponseWritersMojo extends AbstractOpenApiMojo {
+
+    /**
+     * Directory of the generated sources of the writers.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/openapi-response-writers")
+    private File responseWritersSourceDirectory;
+
+    /**
+     * Java version the writers are compiled for.
+     */
+    @Parameter(property = "openapi.responseWriters.release", defaultValue = "8")
+    private String responseWritersRelease;
+
+    @Component
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        GeneratedClasses writers = new GeneratedClasses(project, responseWritersSourceDirectory,
+                ResponseEntityWriterGenerator.INDEX_RESOURCE);
+        Path classesDirectory = writers.getClassesDirectory();
+        if (!Files.isDirectory(classesDirectory)) {
+            throw new MojoExecutionException("Project classes not found, compile the project first: " + classesDirectory);
+        }
+        writers.deletePrevious();
+        Set<String> actionClassNames;
+        try {
+            actionClassNames = new RestActionDiscovery(actionPackages)
+                    .discover(classesDirectory, Collections.emptyList()).getClassNames();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not scan classes for actions", e);
+        }
+        ClassLoaderCache.Lease classLoaderLease =
+                acquireClassLoader(Collections.singletonList(project), getClass().getClassLoader());
+        try {
+            ClassMetadataCache metadata = new ClassMetadataCache();
+            ResponseEntityWriterGenerator generator = new ResponseEntityWriterGenerator(metadata,
+                    clazz -> Files.isRegularFile(classesDirectory.resolve(clazz.getName().replace('.', File.separatorChar) + ".class")));
+            List<Type> responseTypes = loadRestActionClasses(actionClassNames, classLoaderLease.getClassLoader()).stream()
+                    .map(actionClass -> metadata.getTypeArguments(actionClass, RestAction.class))
+                    .filter(actionTypes -> actionTypes.size() == 2)
+                    .map(actionTypes -> actionTypes.get(1))
+                    .collect(toList());
+            for (Class<?> entityClass : generator.getEntityClasses(responseTypes)) {
+                writers.add(entityClass.getName(), ResponseEntityWriterGenerator.getWriterClassName(entityClass),
+                        generator.generate(entityClass));
+            }
+        } finally {
+            releaseClassLoader(classLoaderLease);
+        }
+        if (writers.size() == 0) {
+            getLog().info("No response entities to generate writers of");
+            return;
+        }
+        writers.compile(responseWritersRelease);
+        getLog().info("Writers of " + writers.size() + " response entities generated to " + responseWritersSourceDirectory);
+    }
+
+}
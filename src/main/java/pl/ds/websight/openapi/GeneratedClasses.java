@@ -0,0 +1,155 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Classes generated from the compiled classes of a project, e.g. binders of request models, compiled into the project
+ * classes and listed in an index resource with lines {@code <class name>=<generated class name>}, where the runtime
+ * bundle finds them. Classes generated by the previous execution are deleted first, so the ones of removed classes do
+ * not remain.
+ */
+final class GeneratedClasses {
+
+    private final MavenProject project;
+    private final Path classesDirectory;
+    private final File sourcesDirectory;
+    private final Path indexFile;
+    private final Map<String, String> index = new TreeMap<>();
+    private final List<File> sources = new ArrayList<>();
+
+    GeneratedClasses(MavenProject project, File sourcesDirectory, String indexResource) {
+        this.project = project;
+        this.classesDirectory = Paths.get(project.getBuild().getOutputDirectory());
+        this.sourcesDirectory = sourcesDirectory;
+        this.indexFile = classesDirectory.resolve(indexResource);
+    }
+
+    Path getClassesDirectory() {
+        return classesDirectory;
+    }
+
+    /**
+     * Deletes sources and classes generated by the previous execution.
+     */
+    void deletePrevious() throws MojoExecutionException {
+        try {
+            if (Files.isRegularFile(indexFile)) {
+                for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                    int separator = line.indexOf('=');
+                    if (separator > 0) {
+                        Files.deleteIfExists(classesDirectory.resolve(
+                                line.substring(separator + 1).replace('.', File.separatorChar) + ".class"));
+                    }
+                }
+                Files.delete(indexFile);
+            }
+            if (sourcesDirectory.isDirectory()) {
+                try (Stream<Path> files = Files.walk(sourcesDirectory.toPath())) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).collect(toList())) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not delete previously generated classes", e);
+        }
+    }
+
+    /**
+     * Writes source of the class generated for the indexed class.
+     */
+    void add(String className, String generatedClassName, String source) throws MojoExecutionException {
+        File file = new File(sourcesDirectory, generatedClassName.replace('.', File.separatorChar) + ".java");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write generated source: " + file, e);
+        }
+        sources.add(file);
+        index.put(className, generatedClassName);
+    }
+
+    int size() {
+        return sources.size();
+    }
+
+    /**
+     * Compiles the generated sources into the project classes for the Java release and writes the index.
+     */
+    void compile(String release) throws MojoExecutionException {
+        if (sources.isEmpty()) {
+            return;
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new MojoExecutionException("Generated classes can be compiled only when Maven runs on JDK");
+        }
+        List<String> classpath = new ArrayList<>();
+        classpath.add(classesDirectory.toString());
+        try {
+            @SuppressWarnings("unchecked") List<String> compileClasspathElements = project.getCompileClasspathElements();
+            classpath.addAll(compileClasspathElements);
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Could not resolve classpath of the project", e);
+        }
+        List<String> options = new ArrayList<>(Arrays.asList("-proc:none", "-g", "-encoding", "UTF-8", "-nowarn",
+                "-d", classesDirectory.toString(), "-classpath", String.join(File.pathSeparator, classpath)));
+        if (compiler.isSupportedOption("--release") >= 0) {
+            options.addAll(Arrays.asList("--release", release));
+        } else {
+            options.addAll(Arrays.asList("-source", release, "-target", release));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            if (!compiled) {
+                String errors = diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> diagnostic.getSource() + ":" + diagnostic.getLineNumber() + ": " +
+                                diagnostic.getMessage(null))
+                        .collect(joining("\n"));
+                throw new MojoExecutionException("Could not compile generated classes, check that the project " +
+                        "depends on websight-rest-swagger-runtime:\n" + errors);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not compile generated classes", e);
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            OutputFiles.writeIfChanged(indexFile, index.entrySet().stream()
+                    .map(entry -> entry.getKey() + "=" + entry.getValue() + "\n")
+                    .collect(joining())
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write index of generated classes: " + indexFile, e);
+        }
+    }
+
+}
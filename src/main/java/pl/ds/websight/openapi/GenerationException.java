@@ -0,0 +1,19 @@
+package pl.ds.websight.openapi;
+
+/**
+ * Failure of the generation of a specification, reported by the mojos as {@code MojoExecutionException} and by the
+ * command line generator as failure of the bundle.
+ */
+class GenerationException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    GenerationException(String message) {
+        super(message);
+    }
+
+    GenerationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,167 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Fingerprint of all inputs of a generation run: project classes, resolved classpath and mojo parameters.
+ * When the fingerprint persisted by the previous run matches the current one, generation can be skipped.
+ */
+class GenerationFingerprint {
+
+    private static final String CLASSES_KEY = "classes";
+    private static final String CLASSPATH_KEY = "classpath";
+    private static final String PARAMETER_KEY_PREFIX = "parameter.";
+    private static final byte[] SEPARATOR = {0};
+
+    private final SortedMap<String, String> entries;
+
+    private GenerationFingerprint(SortedMap<String, String> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Computes fingerprint of the project. Class files from the project output directory (and from other directories on the
+     * classpath, e.g. reactor modules) are hashed by content, while jars are hashed by path, size and modification time,
+     * which is enough for artifacts resolved from a repository and much cheaper than reading them.
+     */
+    static GenerationFingerprint of(MavenProject project, Map<String, String> parameters)
+            throws IOException, DependencyResolutionRequiredException {
+        SortedMap<String, String> entries = new TreeMap<>();
+        Path outputDirectory = Paths.get(project.getBuild().getOutputDirectory());
+        entries.put(CLASSES_KEY, hashClassesDirectory(outputDirectory));
+        entries.put(CLASSPATH_KEY, hashClasspath(project, outputDirectory));
+        parameters.forEach((key, value) -> entries.put(PARAMETER_KEY_PREFIX + key, Objects.toString(value, "")));
+        return new GenerationFingerprint(entries);
+    }
+
+    static GenerationFingerprint load(File file) throws IOException {
+        SortedMap<String, String> entries = new TreeMap<>();
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                int separatorIndex = line.indexOf('=');
+                if (separatorIndex > 0) {
+                    entries.put(line.substring(0, separatorIndex), line.substring(separatorIndex + 1));
+                }
+            }
+        }
+        return new GenerationFingerprint(entries);
+    }
+
+    static void delete(File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    void save(File file) throws IOException {
+        StringBuilder content = new StringBuilder();
+        entries.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        Files.createDirectories(file.toPath().getParent());
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns names of the entries which differ between this and the other fingerprint.
+     */
+    List<String> differences(GenerationFingerprint other) {
+        Set<String> keys = new LinkedHashSet<>(entries.keySet());
+        keys.addAll(other.entries.keySet());
+        return keys.stream()
+                .filter(key -> !Objects.equals(entries.get(key), other.entries.get(key)))
+                .collect(toList());
+    }
+
+    private static String hashClassesDirectory(Path directory) throws IOException {
+        MessageDigest digest = newDigest();
+        updateWithClassesDirectory(digest, directory);
+        return toHex(digest);
+    }
+
+    private static String hashClasspath(MavenProject project, Path outputDirectory)
+            throws IOException, DependencyResolutionRequiredException {
+        Set<String> elements = new LinkedHashSet<>();
+        @SuppressWarnings("unchecked") List<String> compileClasspathElements = project.getCompileClasspathElements();
+        if (compileClasspathElements != null) {
+            elements.addAll(compileClasspathElements);
+        }
+        @SuppressWarnings("unchecked") List<String> runtimeClasspathElements = project.getRuntimeClasspathElements();
+        if (runtimeClasspathElements != null) {
+            elements.addAll(runtimeClasspathElements);
+        }
+        MessageDigest digest = newDigest();
+        for (String element : elements) {
+            Path path = Paths.get(element);
+            if (path.equals(outputDirectory)) {
+                continue; // already covered by the classes entry
+            }
+            update(digest, element);
+            if (Files.isDirectory(path)) {
+                updateWithClassesDirectory(digest, path);
+            } else if (Files.isRegularFile(path)) {
+                update(digest, Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return toHex(digest);
+    }
+
+    private static void updateWithClassesDirectory(MessageDigest digest, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classFiles = files
+                    .filter(file -> file.toString().endsWith(".class") && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(toList());
+        }
+        byte[] buffer = new byte[8192];
+        for (Path classFile : classFiles) {
+            update(digest, directory.relativize(classFile).toString().replace(File.separatorChar, '/'));
+            try (InputStream input = Files.newInputStream(classFile)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static String toHex(MessageDigest digest) {
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+}
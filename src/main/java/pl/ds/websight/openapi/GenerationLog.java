@@ -0,0 +1,24 @@
+package pl.ds.websight.openapi;
+
+/**
+ * Log of the generation, so {@link SpecificationGenerator} and the converters do not depend on the logging of Maven.
+ * Mojos pass the log of Maven adapted to it, {@link OpenApiCli} writes to the standard streams. Implementations can be
+ * used by many threads at once.
+ */
+interface GenerationLog {
+
+    boolean isDebugEnabled();
+
+    void debug(String message);
+
+    void debug(String message, Throwable error);
+
+    void info(String message);
+
+    void warn(String message);
+
+    void error(String message);
+
+    void error(String message, Throwable error);
+
+}
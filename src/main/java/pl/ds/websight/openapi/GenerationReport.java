@@ -0,0 +1,137 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.PathItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Timing of a generation run: duration of each phase and conversion time, number of schemas and depth of schema nesting
+ * of each action. Actions are added in path order by the thread consuming converted paths.
+ */
+class GenerationReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Phases of a generation run.
+     */
+    enum Phase {
+
+        CLASS_LOADER("classLoader"),
+        DISCOVERY("discovery"),
+        CONVERSION("conversion"),
+        SERIALIZATION("serialization"),
+        HTML_PAGE("htmlPage");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+    }
+
+    private final long start = System.nanoTime();
+    private final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+    private final List<ActionTiming> actions = new ArrayList<>();
+    private long totalNanos;
+
+    void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    long getPhaseTime(Phase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    void addAction(Class<?> actionClass, String path, PathItem pathItem, long conversionNanos) {
+        actions.add(new ActionTiming(actionClass.getName(), path, conversionNanos, SchemaStatistics.measure(pathItem)));
+    }
+
+    /**
+     * Completes the report when all actions are converted.
+     */
+    void complete(ComponentsRegistry registry) {
+        totalNanos = System.nanoTime() - start;
+        SchemaStatistics statistics = new SchemaStatistics(registry);
+        actions.forEach(action -> statistics.complete(action.schemas));
+    }
+
+    void save(Path file) throws IOException {
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("totalMillis", toMillis(totalNanos));
+        ObjectNode phases = report.putObject("phases");
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.name, toMillis(getPhaseTime(phase)));
+        }
+        ArrayNode actionsNode = report.putArray("actions");
+        for (ActionTiming action : actions) {
+            actionsNode.addObject()
+                    .put("class", action.className)
+                    .put("path", action.path)
+                    .put("conversionMillis", toMillis(action.conversionNanos))
+                    .put("schemas", action.schemas.getSchemas())
+                    .put("maxSchemaDepth", action.schemas.getDepth());
+        }
+        Files.write(file, MAPPER.writeValueAsBytes(report));
+    }
+
+    /**
+     * Returns short summary of the run listing the given number of slowest actions.
+     */
+    String getSummary(int slowestActions) {
+        StringBuilder summary = new StringBuilder("Generation of ").append(actions.size()).append(" actions took ")
+                .append(toMillis(totalNanos)).append(" ms:");
+        for (Phase phase : Phase.values()) {
+            summary.append("\n  ").append(phase.name).append(": ").append(toMillis(getPhaseTime(phase))).append(" ms");
+        }
+        List<ActionTiming> slowest = actions.stream()
+                .sorted(Comparator.comparingLong((ActionTiming action) -> action.conversionNanos).reversed())
+                .limit(slowestActions)
+                .collect(toList());
+        if (!slowest.isEmpty()) {
+            summary.append("\nSlowest actions:");
+            for (ActionTiming action : slowest) {
+                summary.append("\n  ").append(toMillis(action.conversionNanos)).append(" ms ").append(action.className)
+                        .append(" (").append(action.schemas.getSchemas()).append(" schemas, depth ")
+                        .append(action.schemas.getDepth()).append(')');
+            }
+        }
+        return summary.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+
+    private static final class ActionTiming {
+
+        private final String className;
+        private final String path;
+        private final long conversionNanos;
+        private final SchemaStatistics.Measurement schemas;
+
+        private ActionTiming(String className, String path, long conversionNanos, SchemaStatistics.Measurement schemas) {
+            this.className = className;
+            this.path = path;
+            this.conversionNanos = conversionNanos;
+            this.schemas = schemas;
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package pl.ds.websight.openapi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Resolution of type variables of generic classes, so types of bean properties and type arguments of implemented
+ * generic interfaces are known for each class and for each parameterization of a class, e.g. {@code Page<UserDto>}.
+ * <p>
+ * Bindings of the type variables of all supertypes of a class are computed once and reused by its subclasses, so
+ * classes sharing generic base classes, e.g. actions, are resolved only once per run. Bindings of a parameterization are
+ * the bindings of its class with its type arguments substituted, cached per parameterization. Type variables which are
+ * not bound stay as they are. The resolver can be used by many threads at once.
+ */
+final class GenericTypeResolver {
+
+    private final Map<Class<?>, Map<TypeVariable<?>, Type>> classBindings = new ConcurrentHashMap<>();
+    private final Map<ParameterizedType, Map<TypeVariable<?>, Type>> parameterizationBindings = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the type with type variables bound in the context of the given class or parameterization replaced by
+     * their types.
+     */
+    Type resolve(Type type, Type context) {
+        return substitute(type, getBindings(context));
+    }
+
+    /**
+     * Returns type arguments of the generic supertype as implemented by the class. Type variables which are not bound
+     * are replaced by their bounds, e.g. {@code Object}.
+     */
+    Type[] getTypeArguments(Class<?> clazz, Class<?> supertype) {
+        Map<TypeVariable<?>, Type> bindings = getBindings(clazz);
+        TypeVariable<?>[] variables = supertype.getTypeParameters();
+        Type[] arguments = new Type[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Type argument = bindings.getOrDefault(variables[i], variables[i]);
+            while (argument instanceof TypeVariable) {
+                argument = ((TypeVariable<?>) argument).getBounds()[0];
+            }
+            arguments[i] = argument;
+        }
+        return arguments;
+    }
+
+    private Map<TypeVariable<?>, Type> getBindings(Type type) {
+        if (type instanceof Class) {
+            return get(classBindings, (Class<?>) type, this::readClassBindings);
+        }
+        if (type instanceof ParameterizedType) {
+            return get(parameterizationBindings, (ParameterizedType) type, this::readParameterizationBindings);
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns cached value, reading it without holding a lock of the map, as bindings of supertypes are read
+     * recursively.
+     */
+    private static <K> Map<TypeVariable<?>, Type> get(Map<K, Map<TypeVariable<?>, Type>> cache, K key,
+            Function<K, Map<TypeVariable<?>, Type>> reader) {
+        Map<TypeVariable<?>, Type> bindings = cache.get(key);
+        if (bindings == null) {
+            bindings = reader.apply(key);
+            Map<TypeVariable<?>, Type> previous = cache.putIfAbsent(key, bindings);
+            if (previous != null) {
+                bindings = previous;
+            }
+        }
+        return bindings;
+    }
+
+    private Map<TypeVariable<?>, Type> readClassBindings(Class<?> clazz) {
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        if (clazz.getGenericSuperclass() != null) {
+            bindings.putAll(getBindings(clazz.getGenericSuperclass()));
+        }
+        for (Type genericInterface : clazz.getGenericInterfaces()) {
+            bindings.putAll(getBindings(genericInterface));
+        }
+        return bindings.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(bindings);
+    }
+
+    private Map<TypeVariable<?>, Type> readParameterizationBindings(ParameterizedType type) {
+        Class<?> rawClass = (Class<?>) type.getRawType();
+        TypeVariable<?>[] variables = rawClass.getTypeParameters();
+        Type[] arguments = type.getActualTypeArguments();
+        Map<TypeVariable<?>, Type> ownBindings = new HashMap<>();
+        for (int i = 0; i < variables.length && i < arguments.length; i++) {
+            ownBindings.put(variables[i], arguments[i]);
+        }
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>(ownBindings);
+        getBindings(rawClass).forEach((variable, boundType) -> bindings.put(variable, substitute(boundType, ownBindings)));
+        return Collections.unmodifiableMap(bindings);
+    }
+
+    private static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (bindings.isEmpty() || type instanceof Class) {
+            return type;
+        }
+        if (type instanceof TypeVariable) {
+            return bindings.getOrDefault(type, type);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            Type[] resolvedArguments = new Type[arguments.length];
+            boolean resolved = false;
+            for (int i = 0; i < arguments.length; i++) {
+                resolvedArguments[i] = substitute(arguments[i], bindings);
+                resolved |= resolvedArguments[i] != arguments[i];
+            }
+            return resolved ? new ResolvedParameterizedType((Class<?>) parameterizedType.getRawType(),
+                    resolvedArguments, parameterizedType.getOwnerType()) : type;
+        }
+        if (type instanceof GenericArrayType) {
+            Type componentType = substitute(((GenericArrayType) type).getGenericComponentType(), bindings);
+            // arrays of parameterized types stay generic, they are rare in responses
+            return componentType instanceof Class ? Array.newInstance((Class<?>) componentType, 0).getClass() : type;
+        }
+        return type;
+    }
+
+    /**
+     * Parameterized type with resolved type arguments, equal to the parameterized types of the JDK with the same raw type
+     * and arguments.
+     */
+    private static final class ResolvedParameterizedType implements ParameterizedType {
+
+        private final Class<?> rawType;
+        private final Type[] actualTypeArguments;
+        private final Type ownerType;
+
+        private ResolvedParameterizedType(Class<?> rawType, Type[] actualTypeArguments, Type ownerType) {
+            this.rawType = rawType;
+            this.actualTypeArguments = actualTypeArguments;
+            this.ownerType = ownerType;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType other = (ParameterizedType) object;
+            return rawType.equals(other.getRawType()) && Objects.equals(ownerType, other.getOwnerType()) &&
+                    Arrays.equals(actualTypeArguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(actualTypeArguments)
+                    .map(Type::getTypeName)
+                    .collect(joining(", ", rawType.getName() + "<", ">"));
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Generates load test harness of the actions described by OpenAPI specification: a Maven project sending synthetic
+ * requests, valid against the schemas of query parameters of {@code GET} actions and multipart form fields of
+ * {@code POST} actions, and recording latency of each action with HdrHistogram. The project contains a stub server
+ * answering with responses generated from the response schemas, so the harness can be run without the real server.
+ * <p>
+ * Sources of the harness are the same for every specification, the actions are described in {@code actions.json}
+ * resource with all schema references resolved.
+ */
+class LoadTestHarnessGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String TEMPLATES_DIRECTORY = "/load-test/";
+    private static final String TEMPLATE_EXTENSION = ".template";
+    private static final String[] SOURCE_FILE_NAMES = {"LoadTest.java", "Action.java", "StubServer.java"};
+    private static final String ACTIONS_FILE_NAME = "actions.json";
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final String REF_PROPERTY = "$ref";
+
+    private final JsonNode specification;
+
+    LoadTestHarnessGenerator(JsonNode specification) {
+        this.specification = specification;
+    }
+
+    /**
+     * Writes the harness project to the directory.
+     *
+     * @return number of actions in the harness
+     */
+    int write(Path directory, String groupId, String artifactId, String version, String packageName) throws IOException {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("groupId", groupId);
+        variables.put("artifactId", artifactId);
+        variables.put("version", version);
+        variables.put("title", specification.path("info").path("title").asText(artifactId));
+        variables.put("package", packageName);
+        Files.createDirectories(directory);
+        writeTemplate(directory.resolve("pom.xml"), "pom.xml", variables);
+        Path sourcesDirectory = directory.resolve("src/main/java").resolve(packageName.replace('.', '/'));
+        Files.createDirectories(sourcesDirectory);
+        for (String sourceFileName : SOURCE_FILE_NAMES) {
+            writeTemplate(sourcesDirectory.resolve(sourceFileName), sourceFileName, variables);
+        }
+        Path resourcesDirectory = directory.resolve("src/main/resources");
+        Files.createDirectories(resourcesDirectory);
+        ObjectNode actions = createActions();
+        OutputFiles.writeIfChanged(resourcesDirectory.resolve(ACTIONS_FILE_NAME), MAPPER.writeValueAsBytes(actions));
+        return actions.path("actions").size();
+    }
+
+    private static void writeTemplate(Path file, String templateName, Map<String, String> variables) throws IOException {
+        String template;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(LoadTestHarnessGenerator.class
+                .getResourceAsStream(TEMPLATES_DIRECTORY + templateName + TEMPLATE_EXTENSION), StandardCharsets.UTF_8))) {
+            template = reader.lines().collect(joining("\n", "", "\n"));
+        }
+        OutputFiles.writeIfChanged(file, SpecificationGenerator.replaceVariables(template, variables)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ObjectNode createActions() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("title", specification.path("info").path("title").asText());
+        root.put("version", specification.path("info").path("version").asText());
+        ArrayNode actions = root.putArray("actions");
+        Iterator<Map.Entry<String, JsonNode>> paths = specification.path("paths").fields();
+        while (paths.hasNext()) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            Iterator<Map.Entry<String, JsonNode>> operations = path.getValue().fields();
+            while (operations.hasNext()) {
+                Map.Entry<String, JsonNode> operation = operations.next();
+                String method = operation.getKey().toUpperCase(Locale.ROOT);
+                if ("GET".equals(method) || "POST".equals(method)) {
+                    actions.add(createAction(method, path.getKey(), operation.getValue()));
+                }
+            }
+        }
+        return root;
+    }
+
+    private ObjectNode createAction(String method, String path, JsonNode operation) {
+        ObjectNode action = MAPPER.createObjectNode()
+                .put("method", method)
+                .put("path", path);
+        ArrayNode parameters = action.putArray("parameters");
+        for (JsonNode parameter : operation.path("parameters")) {
+            parameter = resolve(parameter);
+            if ("query".equals(parameter.path("in").asText())) {
+                parameters.addObject()
+                        .put("name", parameter.path("name").asText())
+                        .put("required", parameter.path("required").asBoolean())
+                        .set("schema", inline(parameter.path("schema"), new HashSet<>()));
+            }
+        }
+        JsonNode formSchema = resolve(resolve(operation.path("requestBody"))
+                .path("content").path(MULTIPART_FORM_DATA).path("schema"));
+        ArrayNode formFields = action.putArray("formFields");
+        Set<String> requiredFields = new HashSet<>();
+        formSchema.path("required").forEach(field -> requiredFields.add(field.asText()));
+        Iterator<Map.Entry<String, JsonNode>> properties = formSchema.path("properties").fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            JsonNode schema = inline(property.getValue(), new HashSet<>());
+            formFields.addObject()
+                    .put("name", property.getKey())
+                    .put("required", requiredFields.contains(property.getKey()))
+                    .put("file", "binary".equals(schema.path("format").asText()))
+                    .set("schema", schema);
+        }
+        JsonNode responseSchema = resolve(operation.path("responses").path("200"))
+                .path("content").path(APPLICATION_JSON).path("schema");
+        if (!responseSchema.isMissingNode()) {
+            action.set("response", sample(responseSchema, new HashSet<>()));
+        }
+        return action;
+    }
+
+    /**
+     * Returns the schema with references replaced by the referenced schemas. References closing cycles are replaced
+     * by empty schemas.
+     */
+    private JsonNode inline(JsonNode schema, Set<String> references) {
+        if (schema.has(REF_PROPERTY)) {
+            String reference = schema.get(REF_PROPERTY).asText();
+            if (!references.add(reference)) {
+                return MAPPER.createObjectNode();
+            }
+            JsonNode inlined = inline(resolve(schema), references);
+            references.remove(reference);
+            return inlined;
+        }
+        if (schema.isObject()) {
+            ObjectNode inlined = MAPPER.createObjectNode();
+            schema.fields().forEachRemaining(field -> inlined.set(field.getKey(), inline(field.getValue(), references)));
+            return inlined;
+        }
+        if (schema.isArray()) {
+            ArrayNode inlined = MAPPER.createArrayNode();
+            schema.forEach(element -> inlined.add(inline(element, references)));
+            return inlined;
+        }
+        return schema;
+    }
+
+    /**
+     * Returns sample value valid against the schema, with a single element in each array and map. References closing
+     * cycles are replaced by {@code null}, or by no element in arrays.
+     */
+    private JsonNode sample(JsonNode schema, Set<String> references) {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        if (schema.has(REF_PROPERTY)) {
+            String reference = schema.get(REF_PROPERTY).asText();
+            if (!references.add(reference)) {
+                return nodes.nullNode();
+            }
+            JsonNode sample = sample(resolve(schema), references);
+            references.remove(reference);
+            return sample;
+        }
+        if (schema.path("enum").size() > 0) {
+            return schema.path("enum").get(0);
+        }
+        switch (schema.path("type").asText()) {
+            case "array":
+                JsonNode item = sample(schema.path("items"), references);
+                return item.isNull() ? nodes.arrayNode() : nodes.arrayNode().add(item);
+            case "string":
+                return nodes.textNode("date-time".equals(schema.path("format").asText()) ? "1970-01-01T00:00:00Z" : "string");
+            case "integer":
+                return nodes.numberNode(0);
+            case "number":
+                return nodes.numberNode(0.0);
+            case "boolean":
+                return nodes.booleanNode(true);
+            default:
+                ObjectNode object = nodes.objectNode();
+                schema.path("properties").fields().forEachRemaining(property ->
+                        object.set(property.getKey(), sample(property.getValue(), references)));
+                if (schema.path("additionalProperties").isObject()) {
+                    object.set("key", sample(schema.path("additionalProperties"), references));
+                }
+                return object;
+        }
+    }
+
+    /**
+     * Returns the component the node refers to, or the node itself if it is not a reference.
+     */
+    private JsonNode resolve(JsonNode node) {
+        JsonNode reference = node.path(REF_PROPERTY);
+        if (reference.isTextual() && reference.asText().startsWith("#/")) {
+            return specification.at(reference.asText().substring(1));
+        }
+        return node;
+    }
+
+}
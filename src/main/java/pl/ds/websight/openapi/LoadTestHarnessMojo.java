@@ -0,0 +1,89 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Maven mojo to generate load test harness of the actions from the OpenAPI specification generated by the
+ * {@code generate} goal, e.g. {@code mvn package websight-rest-swagger:load-test-harness}. The harness is a Maven
+ * project, built and run with:
+ * <pre>
+ * mvn -f target/openapi-load-test package
+ * java -jar target/openapi-load-test/target/load-test.jar --target http://localhost:8080 --user admin:admin
+ * </pre>
+ * Run with {@code --stub} it tests a local stub server generated from the same specification.
+ */
+@Mojo(
+        name = "load-test-harness",
+        threadSafe = true
+)
+public class LoadTestHarnessMojo extends AbstractMojo {
+
+    /**
+     * Directory of the specification generated by the {@code generate} goal. The {@code json} specification is used if
+     * it exists, the {@code yaml} one otherwise.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/classes/apps/${project.artifactId}/docs")
+    private File specificationDirectory;
+
+    /**
+     * Directory of the generated harness project.
+     */
+    @Parameter(property = "openapi.loadTest.directory", defaultValue = "${project.build.directory}/openapi-load-test")
+    private File harnessDirectory;
+
+    /**
+     * Package of the harness classes.
+     */
+    @Parameter(property = "openapi.loadTest.package", defaultValue = "pl.ds.websight.loadtest")
+    private String harnessPackage;
+
+    @Component
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        File specificationFile = findSpecificationFile();
+        JsonNode specification;
+        try {
+            specification = new ObjectMapper(OutputFormat.of(getExtension(specificationFile)).createFactory())
+                    .readTree(specificationFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read OpenAPI specification: " + specificationFile, e);
+        }
+        int actions;
+        try {
+            actions = new LoadTestHarnessGenerator(specification).write(harnessDirectory.toPath(), project.getGroupId(),
+                    project.getArtifactId(), project.getVersion(), harnessPackage);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write load test harness to " + harnessDirectory, e);
+        }
+        getLog().info("Load test harness of " + actions + " actions saved to " + harnessDirectory.getAbsolutePath());
+    }
+
+    private File findSpecificationFile() throws MojoExecutionException {
+        for (OutputFormat format : new OutputFormat[]{OutputFormat.JSON, OutputFormat.YAML}) {
+            File file = new File(specificationDirectory, SpecificationGenerator.getSpecificationFileName(format));
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        throw new MojoExecutionException("OpenAPI specification not found in " + specificationDirectory +
+                ", run the generate goal first");
+    }
+
+    private static String getExtension(File file) {
+        String fileName = file.getName();
+        return fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+
+}
@@ -0,0 +1,440 @@
+package pl.ds.websight.openapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Command line generator of OpenAPI specifications of built bundle jars, e.g. of already released modules, without
+ * Maven. All bundles are generated in one JVM and many of them at once, classes of the shared classpath are loaded only
+ * once for all of them:
+ * <pre>
+ * websight-openapi [options] &lt;bundle jar or directory of jars&gt;...
+ * </pre>
+ * Each bundle gets the same files as written by the {@code generate} goal, in {@code <output>/<artifactId>} directory.
+ * Artifact ID and version of a bundle are read from Maven metadata of the jar, or from its OSGi headers if there is
+ * none. Actions are discovered in the bundle jar only and loaded by a class loader of the jar, which delegates to the
+ * class loader of the shared classpath.
+ */
+public final class OpenApiCli {
+
+    private static final String USAGE = "Usage: websight-openapi [options] <bundle jar or directory of jars>...\n" +
+            "Options:\n" +
+            "  --output <directory>           output directory, specification of each bundle is written to its\n" +
+            "                                 <artifactId> subdirectory (default: openapi)\n" +
+            "  --classpath <path>             dependencies of the bundles: jars, directories and <directory>/*\n" +
+            "                                 for all jars of a directory, separated by " + File.pathSeparator + "\n" +
+            "  --threads <count>              number of bundles generated at once (default: number of processors)\n" +
+            "  --action-packages <packages>   comma separated packages to which discovery of actions is limited\n" +
+            "  --output-formats <formats>     comma separated yaml, json, smile and cbor (default: yaml)\n" +
+            "  --swagger-ui <mode>            cdn, bundled or inlined (default: cdn)\n" +
+            "  --sharding <grouping>          none, prefix or package (default: none)\n" +
+            "  --reproducible                 identical files for identical bundles, without timing report\n" +
+            "  --no-gzip                      do not write gzip variants of the files\n" +
+            "  --no-payload-cost              do not add payload cost profiles to the operations\n" +
+            "  --verbose                      log model and response types of each action\n" +
+            "  --help                         print this help";
+
+    private static final String POM_PROPERTIES_PREFIX = "META-INF/maven/";
+    private static final String POM_PROPERTIES_SUFFIX = "/pom.properties";
+    private static final String JAR_EXTENSION = ".jar";
+
+    private final GenerationLog log = new StreamLog("");
+    private final List<File> bundles = new ArrayList<>();
+    private final List<File> classpath = new ArrayList<>();
+    private File outputDirectory = new File("openapi");
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Set<String> actionPackages;
+    private String outputFormats = "yaml";
+    private String swaggerUi = "cdn";
+    private String sharding = "none";
+    private boolean reproducible;
+    private boolean gzip = true;
+    private boolean payloadCost = true;
+    private boolean verbose;
+
+    private OpenApiCli() {
+        // created by main
+    }
+
+    public static void main(String[] args) {
+        OpenApiCli cli = new OpenApiCli();
+        int status;
+        try {
+            if (!cli.parse(args)) {
+                System.out.println(USAGE);
+                status = 0;
+            } else {
+                status = cli.run() ? 0 : 1;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            status = 2;
+        } catch (GenerationException e) {
+            if (e.getCause() != null) {
+                cli.log.error(e.getMessage(), e.getCause());
+            } else {
+                cli.log.error(e.getMessage());
+            }
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * @return {@code false} if only help was requested
+     */
+    private boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--help":
+                case "-h":
+                    return false;
+                case "--output":
+                    outputDirectory = new File(getValue(args, ++i, arg));
+                    break;
+                case "--classpath":
+                    for (String element : getValue(args, ++i, arg).split(File.pathSeparator)) {
+                        classpath.addAll(expandClasspathElement(element));
+                    }
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(getValue(args, ++i, arg));
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+                    }
+                    break;
+                case "--action-packages":
+                    actionPackages = new LinkedHashSet<>(Arrays.asList(getValue(args, ++i, arg).split(",")));
+                    break;
+                case "--output-formats":
+                    outputFormats = getValue(args, ++i, arg);
+                    break;
+                case "--swagger-ui":
+                    swaggerUi = getValue(args, ++i, arg);
+                    break;
+                case "--sharding":
+                    sharding = getValue(args, ++i, arg);
+                    break;
+                case "--reproducible":
+                    reproducible = true;
+                    break;
+                case "--no-gzip":
+                    gzip = false;
+                    break;
+                case "--no-payload-cost":
+                    payloadCost = false;
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    bundles.addAll(expandBundle(new File(arg)));
+            }
+        }
+        if (bundles.isEmpty()) {
+            throw new IllegalArgumentException("No bundle jars given");
+        }
+        return true;
+    }
+
+    private static String getValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+        return args[index];
+    }
+
+    private static List<File> expandClasspathElement(String element) {
+        if (element.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (element.endsWith("*")) {
+            return listJars(new File(element.substring(0, element.length() - 1)));
+        }
+        return Collections.singletonList(new File(element));
+    }
+
+    private static List<File> expandBundle(File file) {
+        if (file.isDirectory()) {
+            return listJars(file);
+        }
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("Bundle jar not found: " + file);
+        }
+        return Collections.singletonList(file);
+    }
+
+    private static List<File> listJars(File directory) {
+        File[] jars = directory.listFiles(file -> file.isFile() && file.getName().endsWith(JAR_EXTENSION));
+        if (jars == null) {
+            throw new IllegalArgumentException("Directory not found: " + directory);
+        }
+        Arrays.sort(jars);
+        return Arrays.asList(jars);
+    }
+
+    /**
+     * Generates specifications of all bundles, logging failures of the ones which could not be generated.
+     *
+     * @return {@code true} if specifications of all bundles were generated
+     */
+    private boolean run() throws GenerationException {
+        long start = System.nanoTime();
+        List<OutputFormat> formats = SpecificationGenerator.parseOutputFormats(outputFormats);
+        SwaggerUi.Mode swaggerUiMode;
+        SpecificationShards.Grouping grouping;
+        try {
+            swaggerUiMode = SwaggerUi.Mode.of(swaggerUi);
+            grouping = "none".equalsIgnoreCase(sharding) ? null : SpecificationShards.Grouping.of(sharding);
+        } catch (IllegalArgumentException e) {
+            throw new GenerationException(e.getMessage(), e);
+        }
+        List<Bundle> bundleList = readBundles();
+        SpecificationGenerator.createDirectory(outputDirectory);
+        int failures = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, bundleList.size()));
+        try (URLClassLoader sharedClassLoader = new URLClassLoader(toUrls(classpath), getClass().getClassLoader())) {
+            List<Future<?>> results = new ArrayList<>();
+            for (Bundle bundle : bundleList) {
+                SpecificationGenerator generator = new SpecificationGenerator(StreamLog.ofBundle(bundle.artifactId))
+                        .actionPackages(actionPackages)
+                        .outputFormats(formats)
+                        .gzip(gzip)
+                        .verbose(verbose)
+                        .payloadCost(payloadCost)
+                        .swaggerUi(swaggerUiMode)
+                        .sharding(grouping);
+                results.add(executor.submit(() -> generate(generator, bundle, sharedClassLoader)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    Throwable cause = e.getCause();
+                    log.error("Could not generate OpenAPI specification of " + bundleList.get(i).jar + ": " +
+                            cause.getMessage(), cause.getCause() != null ? cause.getCause() : cause);
+                }
+            }
+        } catch (IOException e) {
+            throw new GenerationException("Could not close class loader of the classpath", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenerationException("Generation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("OpenAPI specifications of " + (bundleList.size() - failures) + " of " + bundleList.size() +
+                " bundles generated in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        return failures == 0;
+    }
+
+    private Void generate(SpecificationGenerator generator, Bundle bundle, ClassLoader sharedClassLoader)
+            throws GenerationException {
+        SpecificationGenerator.Module module = new SpecificationGenerator.Module(bundle.artifactId, bundle.artifactId,
+                bundle.version, null, Collections.singletonList(bundle.jar), () -> {
+                    try {
+                        return ClassLoaderCache.getInstance().acquire(toUrls(Collections.singletonList(bundle.jar)),
+                                sharedClassLoader, 0);
+                    } catch (IOException e) {
+                        throw new GenerationException("Could not create class loader of " + bundle.jar, e);
+                    }
+                });
+        File directory = new File(outputDirectory, bundle.artifactId);
+        GenerationReport report = generator.generate(module, directory);
+        if (!reproducible) {
+            generator.saveReport(directory, report);
+        }
+        return null;
+    }
+
+    /**
+     * Reads artifact IDs and versions of the bundles. Bundles with the same artifact ID are rejected, as they would be
+     * written to the same directory.
+     */
+    private List<Bundle> readBundles() throws GenerationException {
+        List<Bundle> bundleList = new ArrayList<>();
+        Map<String, File> jarsByArtifactId = new HashMap<>();
+        for (File jar : new LinkedHashSet<>(bundles)) {
+            Bundle bundle;
+            try {
+                bundle = Bundle.read(jar);
+            } catch (IOException e) {
+                throw new GenerationException("Could not read bundle jar: " + jar, e);
+            }
+            File previousJar = jarsByArtifactId.put(bundle.artifactId, jar);
+            if (previousJar != null) {
+                throw new GenerationException("Bundles " + previousJar + " and " + jar + " have the same artifact ID: " +
+                        bundle.artifactId);
+            }
+            bundleList.add(bundle);
+        }
+        return bundleList;
+    }
+
+    private static URL[] toUrls(List<File> files) throws MalformedURLException {
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = files.get(i).toURI().toURL();
+        }
+        return urls;
+    }
+
+    private static final class Bundle {
+
+        private final File jar;
+        private final String artifactId;
+        private final String version;
+
+        private Bundle(File jar, String artifactId, String version) {
+            this.jar = jar;
+            this.artifactId = artifactId;
+            this.version = version;
+        }
+
+        /**
+         * Reads artifact ID and version from {@code pom.properties} of the bundle, which matches its symbolic name if
+         * the bundle embeds other artifacts, or from {@code Bundle-SymbolicName} and {@code Bundle-Version} headers.
+         * The name of the jar is used if there are none of them.
+         */
+        private static Bundle read(File jar) throws IOException {
+            try (JarFile jarFile = new JarFile(jar)) {
+                Manifest manifest = jarFile.getManifest();
+                Attributes attributes = manifest != null ? manifest.getMainAttributes() : new Attributes();
+                String symbolicName = attributes.getValue("Bundle-SymbolicName");
+                if (symbolicName != null) {
+                    symbolicName = symbolicName.split(";", 2)[0].trim();
+                }
+                List<Properties> poms = new ArrayList<>();
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (entry.getName().startsWith(POM_PROPERTIES_PREFIX) && entry.getName().endsWith(POM_PROPERTIES_SUFFIX)) {
+                        Properties pom = new Properties();
+                        try (InputStream input = jarFile.getInputStream(entry)) {
+                            pom.load(input);
+                        }
+                        poms.add(pom);
+                    }
+                }
+                Properties pom = findPom(poms, symbolicName);
+                if (pom != null) {
+                    return new Bundle(jar, pom.getProperty("artifactId"), pom.getProperty("version", ""));
+                }
+                String version = attributes.getValue("Bundle-Version");
+                if (symbolicName != null) {
+                    return new Bundle(jar, symbolicName, version != null ? version : "");
+                }
+                String fileName = jar.getName();
+                return new Bundle(jar, fileName.substring(0, fileName.length() - JAR_EXTENSION.length()),
+                        version != null ? version : "");
+            }
+        }
+
+        private static Properties findPom(List<Properties> poms, String symbolicName) {
+            if (symbolicName != null) {
+                for (Properties pom : poms) {
+                    String artifactId = pom.getProperty("artifactId");
+                    if (symbolicName.equals(artifactId) || symbolicName.endsWith("." + artifactId)) {
+                        return pom;
+                    }
+                }
+            }
+            return poms.size() == 1 && poms.get(0).getProperty("artifactId") != null ? poms.get(0) : null;
+        }
+
+    }
+
+    /**
+     * Log writing to the standard streams in the format of Maven, errors to the standard error. Messages of a bundle are
+     * prefixed with its artifact ID, as bundles are generated at once. Debug messages are not written.
+     */
+    private static final class StreamLog implements GenerationLog {
+
+        private final String prefix;
+
+        private StreamLog(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private static StreamLog ofBundle(String artifactId) {
+            return new StreamLog("[" + artifactId + "] ");
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void debug(String message) {
+            // not written
+        }
+
+        @Override
+        public void debug(String message, Throwable error) {
+            // not written
+        }
+
+        @Override
+        public void info(String message) {
+            print(System.out, "INFO", message, null);
+        }
+
+        @Override
+        public void warn(String message) {
+            print(System.out, "WARNING", message, null);
+        }
+
+        @Override
+        public void error(String message) {
+            print(System.err, "ERROR", message, null);
+        }
+
+        @Override
+        public void error(String message, Throwable error) {
+            print(System.err, "ERROR", message, error);
+        }
+
+        private void print(PrintStream stream, String level, String message, Throwable error) {
+            // messages of concurrently generated bundles are not interleaved with stack traces
+            synchronized (stream) {
+                stream.println("[" + level + "] " + prefix + message);
+                if (error != null) {
+                    error.printStackTrace(stream);
+                }
+            }
+        }
+
+    }
+
+}
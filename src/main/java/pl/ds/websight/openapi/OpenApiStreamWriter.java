@@ -0,0 +1,209 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes OpenAPI specification to files in one or more formats at once. Paths are written one by one as soon as they
+ * are converted, so the whole specification never has to be kept in memory.
+ * <p>
+ * Files are written to temporary files first. When all of them are finished, each replaces its target file unless
+ * the target already has the same content.
+ */
+class OpenApiStreamWriter implements Closeable {
+
+    private final List<Output> outputs = new ArrayList<>();
+
+    /**
+     * @param directory directory of the specification files
+     * @param baseName  name of the specification files, without extension
+     */
+    OpenApiStreamWriter(Path directory, String baseName, Collection<OutputFormat> formats) throws IOException {
+        try {
+            for (OutputFormat format : formats) {
+                outputs.add(new Output(format, directory.resolve(baseName + "." + format.getExtension())));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes beginning of the specification, with everything that precedes the paths.
+     */
+    void writeStart(OpenAPI openApi) throws IOException {
+        for (Output output : outputs) {
+            output.generator.writeStartObject();
+            output.generator.writeStringField("openapi", openApi.getOpenapi());
+            output.generator.writeFieldName("info");
+            output.mapper.writeValue(output.generator, openApi.getInfo());
+            output.generator.writeFieldName("paths");
+            output.generator.writeStartObject();
+        }
+    }
+
+    void writePath(String path, PathItem pathItem) throws IOException {
+        for (Output output : outputs) {
+            output.generator.writeFieldName(path);
+            output.mapper.writeValue(output.generator, pathItem);
+        }
+    }
+
+    /**
+     * Writes end of the specification, with everything that follows the paths.
+     */
+    void writeEnd(Components components) throws IOException {
+        for (Output output : outputs) {
+            output.generator.writeEndObject();
+            if (components != null) {
+                output.generator.writeFieldName("components");
+                output.mapper.writeValue(output.generator, components);
+            }
+            output.generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Finishes writing and replaces target files which content changed.
+     *
+     * @return target files which were replaced
+     */
+    List<Path> commit() throws IOException {
+        List<Path> replacedFiles = new ArrayList<>();
+        for (Output output : outputs) {
+            output.generator.close();
+        }
+        for (Output output : outputs) {
+            if (OutputFiles.replaceIfChanged(output.temporaryFile, output.targetFile)) {
+                replacedFiles.add(output.targetFile);
+            }
+        }
+        return replacedFiles;
+    }
+
+    /**
+     * Closes the writer, removing temporary files which were not committed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (Output output : outputs) {
+            try {
+                output.generator.close();
+                Files.deleteIfExists(output.temporaryFile);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private static ObjectMapper createMapper(OutputFormat format) {
+        ObjectMapper mapper = new ObjectMapper(format.createFactory())
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        if (format.isIndented()) {
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        }
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.addMixIn(Schema.class, ExcludeUnnecessaryPropertiesMixin.class);
+        mapper.addMixIn(Operation.class, InlineExtensionsMixin.class);
+        return mapper;
+    }
+
+    /**
+     * Drops carriage returns written by generators using platform line separator, so textual files have the same
+     * content on every platform. Carriage returns in values are always escaped by the generators.
+     */
+    private static final class LineFeedOutputStream extends FilterOutputStream {
+
+        private LineFeedOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (b != '\r') {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (bytes[i] == '\r') {
+                    out.write(bytes, start, i - start);
+                    start = i + 1;
+                }
+            }
+            out.write(bytes, start, end - start);
+        }
+
+    }
+
+    private static final class Output {
+
+        private final ObjectMapper mapper;
+        private final Path targetFile;
+        private final Path temporaryFile;
+        private final JsonGenerator generator;
+
+        private Output(OutputFormat format, Path targetFile) throws IOException {
+            this.mapper = createMapper(format);
+            this.targetFile = targetFile;
+            this.temporaryFile = Files.createTempFile(targetFile.getParent(), "." + targetFile.getFileName(), ".tmp");
+            OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporaryFile));
+            this.generator = mapper.getFactory().createGenerator(format.isTextual() ? new LineFeedOutputStream(output) : output);
+            if (format.isIndented()) {
+                generator.useDefaultPrettyPrinter();
+            }
+        }
+
+    }
+
+}
+
+/**
+ * Needed to get rid of redundant `exampleSetFlag` values from Schema class.
+ * This mixin allows to ignore it during serialization.
+ */
+interface ExcludeUnnecessaryPropertiesMixin {
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    boolean getExampleSetFlag();
+}
+
+/**
+ * Writes vendor extensions of operations as their own properties, as required by OpenAPI, instead of an
+ * {@code extensions} object.
+ */
+interface InlineExtensionsMixin {
+    @JsonAnyGetter
+    @SuppressWarnings("unused")
+    Map<String, Object> getExtensions();
+}
@@ -0,0 +1,81 @@
+package pl.ds.websight.openapi;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helpers for writing generated files.
+ */
+final class OutputFiles {
+
+    private OutputFiles() {
+        // no instances
+    }
+
+    /**
+     * Writes content to the file unless the file already has exactly the same content. Leaving unchanged files untouched
+     * keeps their modification time, so plugins running later in the build do not see them as changed.
+     *
+     * @return {@code true} if the file was written
+     */
+    static boolean writeIfChanged(Path file, byte[] content) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == content.length && Arrays.equals(Files.readAllBytes(file), content)) {
+            return false;
+        }
+        Files.write(file, content);
+        return true;
+    }
+
+    /**
+     * Moves the source file to the target unless the target already has exactly the same content, in which case
+     * the source file is deleted and the target is left untouched.
+     *
+     * @return {@code true} if the target file was replaced
+     */
+    static boolean replaceIfChanged(Path source, Path target) throws IOException {
+        if (Files.isRegularFile(target) && Files.size(target) == Files.size(source) && contentEquals(source, target)) {
+            Files.delete(source);
+            return false;
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    /**
+     * Compresses the content with gzip. The result has no modification time, so it is the same for the same content.
+     */
+    static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(content);
+        }
+        return output.toByteArray();
+    }
+
+    private static boolean contentEquals(Path first, Path second) throws IOException {
+        try (InputStream firstInput = new BufferedInputStream(Files.newInputStream(first));
+             InputStream secondInput = new BufferedInputStream(Files.newInputStream(second))) {
+            int read;
+            do {
+                read = firstInput.read();
+                if (read != secondInput.read()) {
+                    return false;
+                }
+            } while (read != -1);
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Formats in which the OpenAPI specification can be saved.
+ */
+enum OutputFormat {
+
+    YAML("yaml", YAMLFactory::new, true),
+    JSON("json", JsonFactory::new, false),
+    SMILE("smile", SmileFactory::new, false),
+    CBOR("cbor", CBORFactory::new, false);
+
+    private final String extension;
+    private final Supplier<JsonFactory> factorySupplier;
+    private final boolean indented;
+
+    OutputFormat(String extension, Supplier<JsonFactory> factorySupplier, boolean indented) {
+        this.extension = extension;
+        this.factorySupplier = factorySupplier;
+        this.indented = indented;
+    }
+
+    String getExtension() {
+        return extension;
+    }
+
+    JsonFactory createFactory() {
+        return factorySupplier.get();
+    }
+
+    boolean isIndented() {
+        return indented;
+    }
+
+    /**
+     * Returns {@code true} for formats which can be loaded by the API HTML page.
+     */
+    boolean isTextual() {
+        return this == YAML || this == JSON;
+    }
+
+    static OutputFormat of(String name) {
+        for (OutputFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+
+}
@@ -0,0 +1,53 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.PathItem.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits of the payload cost of each action. Limits which are {@code null} are not checked. Unbounded collections are
+ * limited only in responses of {@code GET} actions, which are the ones listing content.
+ */
+final class PayloadBudget {
+
+    private final Integer maxDepth;
+    private final Long maxFields;
+    private final Integer maxUnboundedCollections;
+    private final Long maxEstimatedBytes;
+
+    PayloadBudget(Integer maxDepth, Long maxFields, Integer maxUnboundedCollections, Long maxEstimatedBytes) {
+        this.maxDepth = maxDepth;
+        this.maxFields = maxFields;
+        this.maxUnboundedCollections = maxUnboundedCollections;
+        this.maxEstimatedBytes = maxEstimatedBytes;
+    }
+
+    /**
+     * Returns descriptions of the limits exceeded by the cost of the operation.
+     */
+    List<String> check(HttpMethod method, PayloadCost cost) {
+        List<String> violations = new ArrayList<>();
+        if (maxDepth != null) {
+            if (cost.isRecursive()) {
+                violations.add("recursive payload exceeds depth limit " + maxDepth);
+            } else if (cost.getMaxDepth() > maxDepth) {
+                violations.add("depth " + cost.getMaxDepth() + " exceeds limit " + maxDepth);
+            }
+        }
+        if (maxFields != null && cost.getFields() > maxFields) {
+            violations.add(cost.getFields() + " fields exceed limit " + maxFields);
+        }
+        if (maxUnboundedCollections != null && method == HttpMethod.GET &&
+                cost.getUnboundedCollections().size() > maxUnboundedCollections) {
+            violations.add(cost.getUnboundedCollections().size() + " unbounded collections " +
+                    cost.getUnboundedCollections() + " exceed limit " + maxUnboundedCollections);
+        }
+        if (maxEstimatedBytes != null && cost.getEstimatedMaxBytes() > maxEstimatedBytes) {
+            violations.add("estimated size of " + cost.getEstimatedMaxBytes() + " bytes exceeds limit " +
+                    maxEstimatedBytes);
+        }
+        return violations;
+    }
+
+}
@@ -0,0 +1,80 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.models.Operation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cost profile of the payload returned by an action, added to its operation as {@value #EXTENSION} vendor extension.
+ * Depth is measured like in {@link SchemaStatistics}: the response entity has depth 1, each property, array item and
+ * map value adds one level.
+ */
+@JsonPropertyOrder({"maxDepth", "fields", "unboundedCollections", "estimatedMaxBytes", "recursive"})
+final class PayloadCost {
+
+    static final String EXTENSION = "x-websight-cost";
+
+    private final int maxDepth;
+    private final long fields;
+    private final List<String> unboundedCollections;
+    private final long estimatedMaxBytes;
+    private final boolean recursive;
+
+    PayloadCost(int maxDepth, long fields, List<String> unboundedCollections, long estimatedMaxBytes, boolean recursive) {
+        this.maxDepth = maxDepth;
+        this.fields = fields;
+        this.unboundedCollections = Collections.unmodifiableList(unboundedCollections);
+        this.estimatedMaxBytes = estimatedMaxBytes;
+        this.recursive = recursive;
+    }
+
+    /**
+     * Returns cost profile of the operation, {@code null} if it has none.
+     */
+    static PayloadCost of(Operation operation) {
+        Map<String, Object> extensions = operation.getExtensions();
+        Object cost = extensions != null ? extensions.get(EXTENSION) : null;
+        return cost instanceof PayloadCost ? (PayloadCost) cost : null;
+    }
+
+    /**
+     * Returns the deepest level of nesting of the payload, cut where the payload refers to itself.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns number of properties in the payload, counting properties of collection elements once.
+     */
+    public long getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns paths of collections, arrays and maps without maximum size declared by {@code @Size}, e.g.
+     * {@code $.items} or {@code $.groups[].members}.
+     */
+    public List<String> getUnboundedCollections() {
+        return unboundedCollections;
+    }
+
+    /**
+     * Returns estimated size of the largest serialized payload, with unbounded collections assumed to have the
+     * configured number of elements.
+     */
+    public long getEstimatedMaxBytes() {
+        return estimatedMaxBytes;
+    }
+
+    /**
+     * Returns {@code true} if the payload refers to itself, so its depth and size are not really bounded.
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+}
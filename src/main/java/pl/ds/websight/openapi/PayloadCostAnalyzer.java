@@ -0,0 +1,219 @@
+package pl.ds.websight.openapi;
+
+import pl.ds.websight.openapi.ClassMetadataCache.BeanProperty;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Computes {@link PayloadCost} of response types. Types are walked the same way {@link TypeUtil} converts them to
+ * schemas, but schemas of classes are referenced from components, while the cost has to follow every property. Costs
+ * of classes and parameterizations of generic classes are cached, so types shared by many actions are walked once. It
+ * can be used by many threads at once.
+ * <p>
+ * Sizes are estimated for compact JSON: strings and values of unknown types are assumed to have
+ * {@value #ASSUMED_STRING_LENGTH} characters, collections, arrays and maps without maximum size declared by
+ * {@code @Size} are assumed to have the configured number of elements.
+ */
+class PayloadCostAnalyzer {
+
+    private static final int ASSUMED_STRING_LENGTH = 64;
+    private static final int BOOLEAN_BYTES = 5;
+    private static final int INTEGER_BYTES = 11;
+    private static final int LONG_BYTES = 20;
+    private static final int DECIMAL_BYTES = 24;
+    private static final int DATE_BYTES = 30;
+
+    private static final Set<Class<?>> INTEGER_CLASSES =
+            Stream.of(Byte.class, byte.class, Short.class, short.class, Integer.class, int.class).collect(toSet());
+    private static final Set<Class<?>> DECIMAL_CLASSES =
+            Stream.of(Double.class, double.class, Float.class, float.class).collect(toSet());
+
+    private final ClassMetadataCache metadata;
+    private final int assumedCollectionSize;
+    private final Map<Type, Cost> beanCosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param assumedCollectionSize number of elements assumed for unbounded collections, arrays and maps
+     */
+    PayloadCostAnalyzer(ClassMetadataCache metadata, int assumedCollectionSize) {
+        this.metadata = metadata;
+        this.assumedCollectionSize = assumedCollectionSize;
+    }
+
+    PayloadCost analyze(Type responseType) {
+        Cost cost = walk(responseType, null, new HashSet<>());
+        List<String> unboundedCollections = new ArrayList<>();
+        for (String path : cost.unboundedCollections) {
+            unboundedCollections.add("$" + path);
+        }
+        return new PayloadCost(cost.depth, cost.fields, unboundedCollections, cost.bytes, cost.recursive);
+    }
+
+    /**
+     * @param maxSize    maximum number of elements declared for the property of the type, {@code null} if unknown
+     * @param inProgress beans which are being walked, used to cut cycles
+     */
+    private Cost walk(Type type, Integer maxSize, Set<Type> inProgress) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type rawType = parameterizedType.getRawType();
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            if (rawType instanceof Class && Collection.class.isAssignableFrom((Class<?>) rawType)) {
+                return collection(arguments.length == 1 ? walk(arguments[0], null, inProgress) : Cost.UNKNOWN, "[]",
+                        0, maxSize);
+            } else if (rawType instanceof Class && Map.class.isAssignableFrom((Class<?>) rawType)) {
+                return collection(arguments.length == 2 ? walk(arguments[1], null, inProgress) : Cost.UNKNOWN, ".*",
+                        ASSUMED_STRING_LENGTH + 3, maxSize);
+            } else if (rawType instanceof Class) {
+                return object(type, inProgress);
+            }
+            return Cost.UNKNOWN;
+        }
+        if (!(type instanceof Class)) {
+            return Cost.UNKNOWN;
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == String.class || clazz == char.class) {
+            return Cost.STRING;
+        } else if (clazz == Boolean.class || clazz == boolean.class) {
+            return Cost.leaf(BOOLEAN_BYTES);
+        } else if (clazz.isEnum()) {
+            int longestConstant = Arrays.stream(clazz.getEnumConstants())
+                    .mapToInt(constant -> ((Enum<?>) constant).name().length())
+                    .max()
+                    .orElse(0);
+            return Cost.leaf(longestConstant + 2);
+        } else if (DECIMAL_CLASSES.contains(clazz)) {
+            return Cost.leaf(DECIMAL_BYTES);
+        } else if (INTEGER_CLASSES.contains(clazz)) {
+            return Cost.leaf(INTEGER_BYTES);
+        } else if (Number.class.isAssignableFrom(clazz) || clazz == long.class) {
+            return Cost.leaf(LONG_BYTES);
+        } else if (Date.class.isAssignableFrom(clazz) || Calendar.class.isAssignableFrom(clazz)) {
+            return Cost.leaf(DATE_BYTES);
+        } else if (Collection.class.isAssignableFrom(clazz)) {
+            return collection(Cost.UNKNOWN, "[]", 0, maxSize);
+        } else if (clazz.isArray()) {
+            return collection(walk(clazz.getComponentType(), null, inProgress), "[]", 0, maxSize);
+        } else if (Map.class.isAssignableFrom(clazz)) {
+            return collection(Cost.UNKNOWN, ".*", ASSUMED_STRING_LENGTH + 3, maxSize);
+        } else if (clazz.isPrimitive() || clazz == Object.class) {
+            return Cost.UNKNOWN;
+        }
+        return object(clazz, inProgress);
+    }
+
+    private Cost object(Type beanType, Set<Type> inProgress) {
+        Cost cached = beanCosts.get(beanType);
+        if (cached != null) {
+            return cached;
+        }
+        if (!inProgress.add(beanType)) {
+            return Cost.CYCLE;
+        }
+        Cost cost = new Cost();
+        cost.depth = 1;
+        cost.bytes = 2;
+        List<BeanProperty> properties = metadata.getResolvedBeanProperties(beanType);
+        for (BeanProperty property : properties) {
+            Cost propertyCost = walk(property.getType(), property.getMaxSize(), inProgress);
+            cost.depth = Math.max(cost.depth, propertyCost.depth + 1);
+            cost.fields = add(cost.fields, add(propertyCost.fields, 1));
+            cost.bytes = add(cost.bytes, add(propertyCost.bytes, property.getName().length() + 4));
+            cost.recursive |= propertyCost.recursive;
+            for (String path : propertyCost.unboundedCollections) {
+                cost.unboundedCollections.add("." + property.getName() + path);
+            }
+        }
+        if (!properties.isEmpty()) {
+            cost.bytes--; // no comma after the last property
+        }
+        inProgress.remove(beanType);
+        if (!cost.recursive) {
+            // costs cut by a cycle depend on the class the walk started from
+            beanCosts.putIfAbsent(beanType, cost);
+        }
+        return cost;
+    }
+
+    /**
+     * @param pathSegment segment added to paths of the elements
+     * @param keyBytes    size of the key of each element, including the separator
+     * @param maxSize     maximum number of elements, {@code null} if unbounded
+     */
+    private Cost collection(Cost element, String pathSegment, int keyBytes, Integer maxSize) {
+        long size = maxSize != null ? maxSize : assumedCollectionSize;
+        Cost cost = new Cost();
+        cost.depth = element.depth + 1;
+        cost.fields = element.fields;
+        cost.bytes = add(2, multiply(add(add(element.bytes, keyBytes), 1), size));
+        if (size > 0) {
+            cost.bytes--; // no comma after the last element
+        }
+        cost.recursive = element.recursive;
+        if (maxSize == null) {
+            cost.unboundedCollections.add("");
+        }
+        for (String path : element.unboundedCollections) {
+            cost.unboundedCollections.add(pathSegment + path);
+        }
+        return cost;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        if (a != 0 && b > Long.MAX_VALUE / a) {
+            return Long.MAX_VALUE;
+        }
+        return a * b;
+    }
+
+    /**
+     * Cost of a type, with paths of unbounded collections relative to the type.
+     */
+    private static final class Cost {
+
+        private static final Cost STRING = leaf(ASSUMED_STRING_LENGTH + 2);
+        private static final Cost UNKNOWN = STRING;
+        private static final Cost CYCLE = cycle();
+
+        private final List<String> unboundedCollections = new ArrayList<>();
+        private int depth;
+        private long fields;
+        private long bytes;
+        private boolean recursive;
+
+        private static Cost leaf(long bytes) {
+            Cost cost = new Cost();
+            cost.depth = 1;
+            cost.bytes = bytes;
+            return cost;
+        }
+
+        private static Cost cycle() {
+            Cost cost = new Cost();
+            cost.recursive = true;
+            return cost;
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.PathItem.HttpMethod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payload costs of the actions of a generation run checked against the budget. Actions are added in path order by the
+ * thread consuming converted paths. The report has no timing information, so it is the same for the same actions.
+ */
+class PayloadCostReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final PayloadBudget budget;
+    private final List<ActionCost> actions = new ArrayList<>();
+
+    PayloadCostReport(PayloadBudget budget) {
+        this.budget = budget;
+    }
+
+    void addAction(Class<?> actionClass, String path, PathItem pathItem) {
+        for (Map.Entry<HttpMethod, Operation> operation : pathItem.readOperationsMap().entrySet()) {
+            PayloadCost cost = PayloadCost.of(operation.getValue());
+            if (cost != null) {
+                actions.add(new ActionCost(actionClass.getName(), path, operation.getKey(), cost,
+                        budget.check(operation.getKey(), cost)));
+            }
+        }
+    }
+
+    /**
+     * Returns descriptions of the budget violations, prefixed with method and path of the action.
+     */
+    List<String> getViolations() {
+        List<String> violations = new ArrayList<>();
+        for (ActionCost action : actions) {
+            for (String violation : action.violations) {
+                violations.add(action.method + " " + action.path + ": " + violation);
+            }
+        }
+        return violations;
+    }
+
+    void save(Path file) throws IOException {
+        ObjectNode report = MAPPER.createObjectNode();
+        ArrayNode actionsNode = report.putArray("actions");
+        for (ActionCost action : actions) {
+            ObjectNode actionNode = actionsNode.addObject()
+                    .put("class", action.className)
+                    .put("path", action.path)
+                    .put("method", action.method.name());
+            actionNode.set("cost", MAPPER.valueToTree(action.cost));
+            ArrayNode violationsNode = actionNode.putArray("violations");
+            action.violations.forEach(violationsNode::add);
+        }
+        OutputFiles.writeIfChanged(file, MAPPER.writeValueAsBytes(report));
+    }
+
+    private static final class ActionCost {
+
+        private final String className;
+        private final String path;
+        private final HttpMethod method;
+        private final PayloadCost cost;
+        private final List<String> violations;
+
+        private ActionCost(String className, String path, HttpMethod method, PayloadCost cost, List<String> violations) {
+            this.className = className;
+            this.path = path;
+            this.method = method;
+            this.cost = cost;
+            this.violations = violations;
+        }
+
+    }
+
+}
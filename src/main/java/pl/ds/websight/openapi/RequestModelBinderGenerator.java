@@ -0,0 +1,408 @@
+package pl.ds.websight.openapi;
+
+import com.google.common.base.CaseFormat;
+import pl.ds.websight.openapi.ClassMetadataCache.RequestField;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates sources of binders of request models, implementing {@code RequestModelBinder} of the runtime bundle. The
+ * binders read the fields found by {@link ClassMetadataCache#getRequestFields(Class)}, with parameter names and
+ * required checks known at build time, and assign them directly. Binders are generated in the packages of their models,
+ * so fields and constructors which are not private are accessed without reflection. Private fields are assigned by
+ * their setters or, if there are none, by method handles created once per binder class.
+ */
+class RequestModelBinderGenerator {
+
+    static final String INDEX_RESOURCE = "META-INF/websight/request-model-binders";
+
+    private static final String BINDER_CLASS_SUFFIX = "RequestModelBinder";
+    private static final String BINDERS = "RequestModelBinders";
+    private static final String INDENT = "        ";
+
+    private static final Map<Class<?>, String> PRIMITIVE_PARSERS = new HashMap<>();
+    private static final Set<Class<?>> WRAPPERS = new HashSet<>();
+
+    static {
+        PRIMITIVE_PARSERS.put(byte.class, "Byte.parseByte");
+        PRIMITIVE_PARSERS.put(short.class, "Short.parseShort");
+        PRIMITIVE_PARSERS.put(int.class, "Integer.parseInt");
+        PRIMITIVE_PARSERS.put(long.class, "Long.parseLong");
+        PRIMITIVE_PARSERS.put(float.class, "Float.parseFloat");
+        PRIMITIVE_PARSERS.put(double.class, "Double.parseDouble");
+        WRAPPERS.add(Byte.class);
+        WRAPPERS.add(Short.class);
+        WRAPPERS.add(Integer.class);
+        WRAPPERS.add(Long.class);
+        WRAPPERS.add(Float.class);
+        WRAPPERS.add(Double.class);
+    }
+
+    private final ClassMetadataCache metadata;
+
+    RequestModelBinderGenerator(ClassMetadataCache metadata) {
+        this.metadata = metadata;
+    }
+
+    /**
+     * Returns binary name of the binder of the model class.
+     */
+    static String getBinderClassName(Class<?> modelClass) {
+        String packageName = getPackageName(modelClass);
+        String nestedName = modelClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + nestedName.replace('$', '_') + BINDER_CLASS_SUFFIX;
+    }
+
+    /**
+     * Returns source of the binder of the model class.
+     *
+     * @throws IllegalArgumentException if the model cannot be bound by a generated binder, with the reason
+     */
+    String generate(Class<?> modelClass) {
+        String packageName = getPackageName(modelClass);
+        String modelName = modelClass.getCanonicalName();
+        if (modelName == null || modelClass.isInterface() || Modifier.isAbstract(modelClass.getModifiers()) ||
+                (modelClass.isMemberClass() && !Modifier.isStatic(modelClass.getModifiers())) ||
+                !isAccessible(modelClass, packageName)) {
+            throw new IllegalArgumentException("it is not an accessible, concrete top level or static nested class");
+        }
+        List<RequestField> fields = metadata.getRequestFields(modelClass);
+        Set<String> fieldNames = new HashSet<>();
+        StringBuilder constants = new StringBuilder();
+        StringBuilder statements = new StringBuilder();
+        for (RequestField field : fields) {
+            if (!fieldNames.add(field.getName())) {
+                throw new IllegalArgumentException("field " + field.getName() + " is declared by more than one class");
+            }
+            appendField(statements, constants, modelClass, packageName, field);
+        }
+        String binderClassName = getBinderClassName(modelClass);
+        String binderSimpleName = binderClassName.substring(binderClassName.lastIndexOf('.') + 1);
+        String instantiation;
+        if (hasAccessibleConstructor(modelClass)) {
+            instantiation = "new " + modelName + "()";
+        } else {
+            constants.append("    private static final MethodHandle CONSTRUCTOR = ").append(BINDERS)
+                    .append(".constructor(").append(modelName).append(".class);\n\n");
+            instantiation = "construct()";
+        }
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import org.apache.sling.api.request.RequestParameter;\n")
+                .append("import org.apache.sling.api.request.RequestParameterMap;\n")
+                .append("import pl.ds.websight.openapi.runtime.binding.RequestModelBinder;\n")
+                .append("import pl.ds.websight.openapi.runtime.binding.RequestModelBinders;\n")
+                .append("import pl.ds.websight.openapi.runtime.binding.RequestModelBindingException;\n\n")
+                .append("import java.lang.invoke.MethodHandle;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * Binder of {@link ").append(modelName).append("} generated by websight-rest-swagger-maven-plugin.\n")
+                .append(" */\n")
+                .append("public final class ").append(binderSimpleName).append(" implements RequestModelBinder<")
+                .append(modelName).append("> {\n\n")
+                .append(constants)
+                .append("    @Override\n")
+                .append("    public Class<").append(modelName).append("> getModelClass() {\n")
+                .append("        return ").append(modelName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(modelName).append(" bind(RequestParameterMap parameters) throws RequestModelBindingException {\n")
+                .append("        ").append(modelName).append(" model = ").append(instantiation).append(";\n")
+                .append("        Map<String, String> violations = null;\n")
+                .append(statements)
+                .append("\n")
+                .append("        if (violations != null) {\n")
+                .append("            throw new RequestModelBindingException(violations);\n")
+                .append("        }\n")
+                .append("        return model;\n")
+                .append("    }\n");
+        if (instantiation.equals("construct()")) {
+            source.append("\n    private static ").append(modelName).append(" construct() {\n")
+                    .append("        try {\n")
+                    .append("            return (").append(modelName).append(") CONSTRUCTOR.invokeExact();\n")
+                    .append("        } catch (Throwable e) {\n")
+                    .append("            throw ").append(BINDERS).append(".propagate(e);\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        return source.append("\n}\n").toString();
+    }
+
+    private void appendField(StringBuilder statements, StringBuilder constants, Class<?> modelClass, String packageName,
+            RequestField requestField) {
+        Field field = requestField.getField();
+        String name = field.getName();
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+            throw new IllegalArgumentException("field " + name + " is static or final");
+        }
+        String parameterName = javaString(requestField.getParameterName());
+        String parameter = name + "Parameter";
+        String value = name + "Value";
+        String fieldType = typeName(field.getGenericType(), packageName, name);
+        String violation = INDENT + "    violations = " + BINDERS + ".addViolation(violations, " + parameterName + ", ";
+        statements.append('\n');
+        if (requestField.isFile()) {
+            statements.append(INDENT).append("RequestParameter ").append(parameter).append(" = parameters.getValue(")
+                    .append(parameterName).append(");\n")
+                    .append(INDENT).append("if (").append(parameter).append(" != null) {\n")
+                    .append(assignment(constants, modelClass, packageName, field, parameter))
+                    .append(INDENT).append('}');
+            appendRequiredViolation(statements, field, violation, "must not be null");
+            return;
+        }
+        Class<?> elementClass = getElementClass(field.getGenericType());
+        if (elementClass == null) {
+            Class<?> type = field.getType();
+            checkScalar(type, packageName, name);
+            statements.append(INDENT).append("String ").append(parameter).append(" = ").append(BINDERS)
+                    .append(".getString(parameters, ").append(parameterName).append(");\n");
+            if (type == String.class) {
+                if (field.isAnnotationPresent(NotBlank.class)) {
+                    statements.append(INDENT).append("if (").append(parameter).append(" != null && !").append(parameter)
+                            .append(".trim().isEmpty()) {\n");
+                } else if (field.isAnnotationPresent(NotEmpty.class)) {
+                    statements.append(INDENT).append("if (").append(parameter).append(" != null && !").append(parameter)
+                            .append(".isEmpty()) {\n");
+                } else {
+                    statements.append(INDENT).append("if (").append(parameter).append(" != null) {\n");
+                }
+                statements.append(assignment(constants, modelClass, packageName, field, parameter)).append(INDENT).append('}');
+            } else {
+                // empty values of other types are treated as missing
+                statements.append(INDENT).append("if (").append(parameter).append(" != null && !").append(parameter)
+                        .append(".isEmpty()) {\n")
+                        .append(INDENT).append("    try {\n")
+                        .append(INDENT).append("        ").append(fieldType).append(' ').append(value).append(" = ")
+                        .append(conversion(type, parameter)).append(";\n")
+                        .append(indent(assignment(constants, modelClass, packageName, field, value)))
+                        .append(INDENT).append("    } catch (IllegalArgumentException e) {\n")
+                        .append("    ").append(violation).append("\"has invalid value\");\n")
+                        .append(INDENT).append("    }\n")
+                        .append(INDENT).append('}');
+            }
+        } else {
+            checkScalar(elementClass, packageName, name);
+            String elementType = typeName(elementClass, packageName, name);
+            statements.append(INDENT).append("String[] ").append(parameter).append(" = ").append(BINDERS)
+                    .append(".getStrings(parameters, ").append(parameterName).append(");\n")
+                    .append(INDENT).append("if (").append(parameter).append(" != null && ").append(parameter)
+                    .append(".length > 0) {\n")
+                    .append(INDENT).append("    try {\n");
+            if (field.getType().isArray()) {
+                statements.append(INDENT).append("        ").append(fieldType).append(' ').append(value).append(" = new ")
+                        .append(elementType).append('[').append(parameter).append(".length];\n")
+                        .append(INDENT).append("        for (int i = 0; i < ").append(parameter).append(".length; i++) {\n")
+                        .append(INDENT).append("            ").append(value).append("[i] = ")
+                        .append(conversion(elementClass, parameter + "[i]")).append(";\n");
+            } else {
+                String implementation = Set.class.isAssignableFrom(field.getType()) ? "java.util.LinkedHashSet" :
+                        "java.util.ArrayList";
+                statements.append(INDENT).append("        ").append(fieldType).append(' ').append(value).append(" = new ")
+                        .append(implementation).append("<>(").append(parameter).append(".length);\n")
+                        .append(INDENT).append("        for (String element : ").append(parameter).append(") {\n")
+                        .append(INDENT).append("            ").append(value).append(".add(")
+                        .append(conversion(elementClass, "element")).append(");\n");
+            }
+            statements.append(INDENT).append("        }\n")
+                    .append(indent(assignment(constants, modelClass, packageName, field, value)))
+                    .append(INDENT).append("    } catch (IllegalArgumentException e) {\n")
+                    .append("    ").append(violation).append("\"has invalid value\");\n")
+                    .append(INDENT).append("    }\n")
+                    .append(INDENT).append('}');
+        }
+        String message = field.isAnnotationPresent(NotBlank.class) && field.getType() == String.class ? "must not be blank" :
+                field.isAnnotationPresent(NotBlank.class) || field.isAnnotationPresent(NotEmpty.class) ?
+                        "must not be empty" :
+                        "must not be null";
+        appendRequiredViolation(statements, field, violation, message);
+    }
+
+    /**
+     * Closes the {@code if} block of the present parameter, adding violation of the missing one if it is required.
+     */
+    private static void appendRequiredViolation(StringBuilder statements, Field field, String violation, String message) {
+        if (field.isAnnotationPresent(NotNull.class) || field.isAnnotationPresent(NotBlank.class) ||
+                field.isAnnotationPresent(NotEmpty.class)) {
+            statements.append(" else {\n").append(violation).append('"').append(message).append("\");\n")
+                    .append(INDENT).append("}\n");
+        } else {
+            statements.append('\n');
+        }
+    }
+
+    /**
+     * Returns statement assigning the value to the field, directly, by its setter or by a method handle.
+     */
+    private static String assignment(StringBuilder constants, Class<?> modelClass, String packageName, Field field,
+            String value) {
+        String name = field.getName();
+        if (!Modifier.isPrivate(field.getModifiers()) && isAccessible(field, packageName)) {
+            return INDENT + "    model." + name + " = " + value + ";\n";
+        }
+        String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        try {
+            Method setter = modelClass.getMethod(setterName, field.getType());
+            if (!Modifier.isStatic(setter.getModifiers()) && isAccessible(setter, packageName)) {
+                return INDENT + "    model." + setterName + "(" + value + ");\n";
+            }
+        } catch (NoSuchMethodException e) {
+            // assigned by the method handle
+        }
+        String constant = "SET_" + CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, name);
+        constants.append("    private static final MethodHandle ").append(constant).append(" = ").append(BINDERS)
+                .append(".fieldSetter(").append(modelClass.getCanonicalName()).append(".class, ")
+                .append(javaString(name)).append(");\n\n");
+        return INDENT + "    try {\n" +
+                INDENT + "        " + constant + ".invokeExact(model, " + value + ");\n" +
+                INDENT + "    } catch (Throwable e) {\n" +
+                INDENT + "        throw " + BINDERS + ".propagate(e);\n" +
+                INDENT + "    }\n";
+    }
+
+    /**
+     * Returns element class of array, list or set fields, {@code null} for other fields.
+     */
+    private static Class<?> getElementClass(Type type) {
+        if (type instanceof Class && ((Class<?>) type).isArray()) {
+            return ((Class<?>) type).getComponentType();
+        }
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() instanceof Class) {
+            Class<?> rawClass = (Class<?>) ((ParameterizedType) type).getRawType();
+            if (rawClass.isAssignableFrom(ArrayList.class) || rawClass.isAssignableFrom(LinkedHashSet.class)) {
+                Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (elementType instanceof Class) {
+                    return (Class<?>) elementType;
+                }
+            }
+        }
+        if (type instanceof Class && Collection.class.isAssignableFrom((Class<?>) type)) {
+            throw new IllegalArgumentException("raw collection of field of type " + type.getTypeName());
+        }
+        return null;
+    }
+
+    private static void checkScalar(Class<?> type, String packageName, String fieldName) {
+        boolean scalar = type == String.class || type == char.class || type == Character.class || type == boolean.class ||
+                type == Boolean.class || PRIMITIVE_PARSERS.containsKey(type) || WRAPPERS.contains(type) ||
+                type == BigDecimal.class || type == BigInteger.class || (type.isEnum() && isAccessible(type, packageName));
+        if (!scalar) {
+            throw new IllegalArgumentException("field " + fieldName + " of type " + type.getTypeName() + " is not supported");
+        }
+    }
+
+    /**
+     * Returns expression converting the string expression to the type.
+     */
+    private static String conversion(Class<?> type, String string) {
+        if (type == String.class) {
+            return string;
+        } else if (type == char.class || type == Character.class) {
+            return BINDERS + ".toChar(" + string + ")";
+        } else if (type == boolean.class || type == Boolean.class) {
+            return "Boolean.parseBoolean(" + string + ".trim())";
+        } else if (PRIMITIVE_PARSERS.containsKey(type)) {
+            return PRIMITIVE_PARSERS.get(type) + "(" + string + ".trim())";
+        } else if (WRAPPERS.contains(type)) {
+            return type.getSimpleName() + ".valueOf(" + string + ".trim())";
+        } else if (type.isEnum()) {
+            return type.getCanonicalName() + ".valueOf(" + string + ".trim())";
+        }
+        return "new " + type.getName() + "(" + string + ".trim())";
+    }
+
+    private static String typeName(Type type, String packageName, String fieldName) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.getCanonicalName() == null || !isAccessible(clazz, packageName)) {
+                throw new IllegalArgumentException("type of field " + fieldName + " is not accessible");
+            }
+            return clazz.getCanonicalName();
+        }
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        return typeName(parameterizedType.getRawType(), packageName, fieldName) + "<" +
+                typeName(parameterizedType.getActualTypeArguments()[0], packageName, fieldName) + ">";
+    }
+
+    private static boolean hasAccessibleConstructor(Class<?> modelClass) {
+        try {
+            Constructor<?> constructor = modelClass.getDeclaredConstructor();
+            return !Modifier.isPrivate(constructor.getModifiers());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("it has no constructor without arguments");
+        }
+    }
+
+    /**
+     * Returns {@code true} if the class and the classes it is nested in can be used by code in the package.
+     */
+    private static boolean isAccessible(Class<?> clazz, String packageName) {
+        Class<?> type = clazz.isArray() ? clazz.getComponentType() : clazz;
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> enclosing = type; enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+            int modifiers = enclosing.getModifiers();
+            if (Modifier.isPrivate(modifiers) || (!Modifier.isPublic(modifiers) && !getPackageName(enclosing).equals(packageName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the member can be used by code in the package through the model class.
+     */
+    private static boolean isAccessible(Member member, String packageName) {
+        int modifiers = member.getModifiers();
+        Class<?> declaringClass = member.getDeclaringClass();
+        boolean samePackage = getPackageName(declaringClass).equals(packageName);
+        return !Modifier.isPrivate(modifiers) && (Modifier.isPublic(modifiers) || samePackage) &&
+                (samePackage || isAccessible(declaringClass, packageName));
+    }
+
+    private static String getPackageName(Class<?> clazz) {
+        String name = clazz.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    private static String indent(String statements) {
+        return statements.replaceAll("(?m)^(?=.)", "    ");
+    }
+
+    private static String javaString(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+}
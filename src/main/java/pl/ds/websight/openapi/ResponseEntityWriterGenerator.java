@@ -0,0 +1,532 @@
+package pl.ds.websight.openapi;
+
+import com.google.common.base.CaseFormat;
+import pl.ds.websight.openapi.ClassMetadataCache.BeanProperty;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Generates sources of writers of response entities, implementing {@code ResponseEntityWriter} of the runtime bundle.
+ * Writers are generated for the bean classes reachable from the response types, the same ones
+ * {@link TypeUtil#javaResponseTypeToSchema} converts to schemas, and write the properties found by
+ * {@link ClassMetadataCache#getBeanProperties(Class)} with getters called directly and property names serialized
+ * once. Values of bean classes call writers of their classes, values of other types without a fixed JSON form are
+ * written by Jackson, dates are written as timestamps. Classes whose serialization Jackson would customize, e.g. by
+ * annotations or public fields, do not get writers, so the output is the same as the one of {@code ObjectMapper} with
+ * default configuration.
+ */
+class ResponseEntityWriterGenerator {
+
+    static final String INDEX_RESOURCE = "META-INF/websight/response-entity-writers";
+
+    private static final String WRITER_CLASS_SUFFIX = "ResponseEntityWriter";
+    private static final String WRITERS = "ResponseEntityWriters";
+    private static final String JACKSON_PACKAGE = "com.fasterxml.jackson.";
+
+    private static final Map<Class<?>, String> NUMBER_VALUES = new HashMap<>();
+    private static final Set<Class<?>> NOT_BEAN_CLASSES = new HashSet<>();
+
+    static {
+        NUMBER_VALUES.put(Byte.class, "byteValue()");
+        NUMBER_VALUES.put(Short.class, "shortValue()");
+        NUMBER_VALUES.put(Integer.class, "intValue()");
+        NUMBER_VALUES.put(Long.class, "longValue()");
+        NUMBER_VALUES.put(Float.class, "floatValue()");
+        NUMBER_VALUES.put(Double.class, "doubleValue()");
+        NOT_BEAN_CLASSES.add(Iterable.class);
+        NOT_BEAN_CLASSES.add(Map.class);
+        NOT_BEAN_CLASSES.add(Number.class);
+        NOT_BEAN_CLASSES.add(CharSequence.class);
+        NOT_BEAN_CLASSES.add(Date.class);
+        NOT_BEAN_CLASSES.add(Calendar.class);
+    }
+
+    private final ClassMetadataCache metadata;
+    private final Predicate<Class<?>> projectClasses;
+    private final Map<Class<?>, Boolean> entityClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @param projectClasses classes of the project, writers are generated only for them
+     */
+    ResponseEntityWriterGenerator(ClassMetadataCache metadata, Predicate<Class<?>> projectClasses) {
+        this.metadata = metadata;
+        this.projectClasses = projectClasses;
+    }
+
+    /**
+     * Returns binary name of the writer of the entity class.
+     */
+    static String getWriterClassName(Class<?> entityClass) {
+        String packageName = getPackageName(entityClass);
+        String nestedName = entityClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + nestedName.replace('$', '_') + WRITER_CLASS_SUFFIX;
+    }
+
+    /**
+     * Returns classes reachable from the response types which get writers, sorted by name.
+     */
+    List<Class<?>> getEntityClasses(Collection<Type> responseTypes) {
+        Set<Class<?>> found = new LinkedHashSet<>();
+        Deque<Type> types = new ArrayDeque<>(responseTypes);
+        while (!types.isEmpty()) {
+            Type type = types.pop();
+            if (type instanceof ParameterizedType) {
+                types.push(((ParameterizedType) type).getRawType());
+                for (Type typeArgument : ((ParameterizedType) type).getActualTypeArguments()) {
+                    types.push(typeArgument);
+                }
+            } else if (type instanceof GenericArrayType) {
+                types.push(((GenericArrayType) type).getGenericComponentType());
+            } else if (type instanceof Class) {
+                Class<?> clazz = (Class<?>) type;
+                if (clazz.isArray()) {
+                    types.push(clazz.getComponentType());
+                } else if (isEntityClass(clazz) && found.add(clazz)) {
+                    for (BeanProperty property : metadata.getBeanProperties(clazz)) {
+                        types.push(property.getType());
+                    }
+                }
+            }
+        }
+        return found.stream().sorted(Comparator.comparing(Class::getName)).collect(toList());
+    }
+
+    /**
+     * Returns source of the writer of the entity class, one of the {@link #getEntityClasses(Collection) entity
+     * classes}.
+     */
+    String generate(Class<?> entityClass) {
+        String packageName = getPackageName(entityClass);
+        String entityName = entityClass.getCanonicalName();
+        String entityType = declaredType(entityClass);
+        String writerClassName = getWriterClassName(entityClass);
+        String writerSimpleName = writerClassName.substring(writerClassName.lastIndexOf('.') + 1);
+        StringBuilder constants = new StringBuilder();
+        StringBuilder statements = new StringBuilder();
+        Set<String> constantNames = new HashSet<>();
+        int[] variables = {0};
+        for (BeanProperty property : metadata.getBeanProperties(entityClass)) {
+            String constant = CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, property.getName());
+            while (!constantNames.add(constant)) {
+                constant += "_";
+            }
+            constants.append("    private static final SerializableString ").append(constant)
+                    .append(" = new SerializedString(").append(javaString(property.getName())).append(");\n");
+            String variable = "value" + variables[0]++;
+            statements.append("        generator.writeFieldName(").append(constant).append(");\n");
+            appendValue(statements, "        ", packageName, property.getType(), variable,
+                    "value." + property.getReadMethod().getName() + "()", variables);
+        }
+        boolean generic = entityClass.getTypeParameters().length > 0;
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+                .append("import com.fasterxml.jackson.core.SerializableString;\n")
+                .append("import com.fasterxml.jackson.core.io.SerializedString;\n")
+                .append("import pl.ds.websight.openapi.runtime.serialization.ResponseEntityWriter;\n")
+                .append("import pl.ds.websight.openapi.runtime.serialization.ResponseEntityWriters;\n\n")
+                .append("import java.io.IOException;\n\n")
+                .append("/**\n")
+                .append(" * Writer of {@link ").append(entityName).append("} generated by websight-rest-swagger-maven-plugin.\n")
+                .append(" */\n")
+                .append("public final class ").append(writerSimpleName).append(" implements ResponseEntityWriter<")
+                .append(entityType).append("> {\n\n")
+                .append(constants)
+                .append('\n')
+                .append("    @Override\n");
+        if (generic) {
+            source.append("    @SuppressWarnings(\"unchecked\")\n")
+                    .append("    public Class<").append(entityType).append("> getEntityClass() {\n")
+                    .append("        return (Class<").append(entityType).append(">) (Class<?>) ").append(entityName)
+                    .append(".class;\n");
+        } else {
+            source.append("    public Class<").append(entityType).append("> getEntityClass() {\n")
+                    .append("        return ").append(entityName).append(".class;\n");
+        }
+        source.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(JsonGenerator generator, ").append(entityType).append(" entity) throws IOException {\n")
+                .append("        writeValue(generator, entity);\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Writes the entity, or {@code null}. Instances of subclasses are written by their own writers or by Jackson.\n")
+                .append("     */\n")
+                .append("    public static void writeValue(JsonGenerator generator, ").append(entityType).append(" value) throws IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            generator.writeNull();\n")
+                .append("            return;\n")
+                .append("        }\n");
+        if (!Modifier.isFinal(entityClass.getModifiers())) {
+            source.append("        if (value.getClass() != ").append(entityName).append(".class) {\n")
+                    .append("            ").append(WRITERS).append(".writeEntity(generator, value);\n")
+                    .append("            return;\n")
+                    .append("        }\n");
+        }
+        return source.append("        generator.writeStartObject();\n")
+                .append(statements)
+                .append("        generator.writeEndObject();\n")
+                .append("    }\n\n")
+                .append("}\n")
+                .toString();
+    }
+
+    /**
+     * Appends statements writing value of the expression, of the given type, assigned to the variable first.
+     */
+    private void appendValue(StringBuilder statements, String indent, String packageName, Type type, String variable,
+            String expression, int[] variables) {
+        Class<?> clazz = getRawClass(type);
+        if (clazz == null || !isAccessible(clazz, packageName)) {
+            statements.append(indent).append(WRITERS).append(".writeEntity(generator, ").append(expression).append(");\n");
+            return;
+        }
+        if (clazz.isPrimitive()) {
+            statements.append(indent).append(primitiveWrite(clazz, expression)).append(";\n");
+            return;
+        }
+        if (isEntityClass(clazz)) {
+            statements.append(indent).append(getWriterClassName(clazz)).append(".writeValue(generator, ")
+                    .append(expression).append(");\n");
+            return;
+        }
+        String nested = indent + "    ";
+        statements.append(indent).append(declaredType(clazz)).append(' ').append(variable).append(" = ")
+                .append(expression).append(";\n")
+                .append(indent).append("if (").append(variable).append(" == null) {\n")
+                .append(nested).append("generator.writeNull();\n")
+                .append(indent).append("} else {\n");
+        if (clazz == String.class) {
+            statements.append(nested).append("generator.writeString(").append(variable).append(");\n");
+        } else if (clazz == Character.class) {
+            statements.append(nested).append("generator.writeString(").append(variable).append(".toString());\n");
+        } else if (clazz == Boolean.class) {
+            statements.append(nested).append("generator.writeBoolean(").append(variable).append(".booleanValue());\n");
+        } else if (NUMBER_VALUES.containsKey(clazz)) {
+            statements.append(nested).append("generator.writeNumber(").append(variable).append('.')
+                    .append(NUMBER_VALUES.get(clazz)).append(");\n");
+        } else if (clazz == BigDecimal.class || clazz == BigInteger.class) {
+            statements.append(nested).append("generator.writeNumber(").append(variable).append(");\n");
+        } else if (clazz.isEnum() && !isJacksonAnnotated(clazz)) {
+            statements.append(nested).append("generator.writeString(").append(variable).append(".name());\n");
+        } else if (clazz == Date.class) {
+            // subclasses, e.g. java.sql.Time, are written by their own Jackson serializers
+            statements.append(nested).append("if (").append(variable).append(".getClass() == java.util.Date.class) {\n")
+                    .append(nested).append("    generator.writeNumber(").append(variable).append(".getTime());\n")
+                    .append(nested).append("} else {\n")
+                    .append(nested).append("    ").append(WRITERS).append(".writeEntity(generator, ").append(variable).append(");\n")
+                    .append(nested).append("}\n");
+        } else if (Calendar.class.isAssignableFrom(clazz)) {
+            statements.append(nested).append("generator.writeNumber(").append(variable).append(".getTimeInMillis());\n");
+        } else if (clazz == byte[].class) {
+            statements.append(nested).append("generator.writeBinary(").append(variable).append(");\n");
+        } else if (clazz == char[].class) {
+            statements.append(nested).append("generator.writeString(").append(variable).append(", 0, ")
+                    .append(variable).append(".length);\n");
+        } else if (clazz.isArray()) {
+            Type componentType = type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() :
+                    clazz.getComponentType();
+            String element = "element" + variables[0]++;
+            statements.append(nested).append("generator.writeStartArray();\n")
+                    .append(nested).append("for (").append(declaredType(clazz.getComponentType())).append(' ')
+                    .append(element).append(" : ").append(variable).append(") {\n");
+            appendValue(statements, nested + "    ", packageName, componentType, "value" + variables[0]++, element,
+                    variables);
+            statements.append(nested).append("}\n")
+                    .append(nested).append("generator.writeEndArray();\n");
+        } else if (Collection.class.isAssignableFrom(clazz) && isJavaUtilClass(clazz) && getTypeArguments(type, 1) != null) {
+            appendCollection(statements, nested, packageName, getTypeArguments(type, 1)[0], variable, variables);
+        } else if (Map.class.isAssignableFrom(clazz) && isJavaUtilClass(clazz) && getTypeArguments(type, 2) != null &&
+                getKeyExpression(getTypeArguments(type, 2)[0], packageName, "entry.getKey()") != null) {
+            appendMap(statements, nested, packageName, getTypeArguments(type, 2), variable, variables);
+        } else {
+            statements.append(nested).append(WRITERS).append(".writeEntity(generator, ").append(variable).append(");\n");
+        }
+        statements.append(indent).append("}\n");
+    }
+
+    private void appendCollection(StringBuilder statements, String indent, String packageName, Type elementType,
+            String variable, int[] variables) {
+        String element = "element" + variables[0]++;
+        statements.append(indent).append("generator.writeStartArray();\n")
+                .append(indent).append("for (Object ").append(element).append(" : ").append(variable).append(") {\n");
+        appendValue(statements, indent + "    ", packageName, elementType, "value" + variables[0]++,
+                cast(elementType, packageName, element), variables);
+        statements.append(indent).append("}\n")
+                .append(indent).append("generator.writeEndArray();\n");
+    }
+
+    private void appendMap(StringBuilder statements, String indent, String packageName, Type[] keyAndValueTypes,
+            String variable, int[] variables) {
+        String entry = "entry" + variables[0]++;
+        statements.append(indent).append("generator.writeStartObject();\n")
+                .append(indent).append("for (java.util.Map.Entry<?, ?> ").append(entry).append(" : ").append(variable)
+                .append(".entrySet()) {\n")
+                .append(indent).append("    generator.writeFieldName(")
+                .append(getKeyExpression(keyAndValueTypes[0], packageName, entry + ".getKey()")).append(");\n");
+        appendValue(statements, indent + "    ", packageName, keyAndValueTypes[1], "value" + variables[0]++,
+                cast(keyAndValueTypes[1], packageName, entry + ".getValue()"), variables);
+        statements.append(indent).append("}\n")
+                .append(indent).append("generator.writeEndObject();\n");
+    }
+
+    /**
+     * Returns expression of the field name of the map key, {@code null} if Jackson would need a key serializer other
+     * than {@code toString()} or {@code name()}.
+     */
+    private static String getKeyExpression(Type keyType, String packageName, String key) {
+        if (keyType == String.class) {
+            return "(String) " + key;
+        } else if (NUMBER_VALUES.containsKey(keyType)) {
+            return key + ".toString()";
+        } else if (keyType instanceof Class && ((Class<?>) keyType).isEnum() && isAccessible((Class<?>) keyType, packageName) &&
+                !isJacksonAnnotated((Class<?>) keyType)) {
+            return "((" + ((Class<?>) keyType).getCanonicalName() + ") " + key + ").name()";
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} for bean classes of the project written by generated writers.
+     */
+    private boolean isEntityClass(Class<?> clazz) {
+        return entityClasses.computeIfAbsent(clazz, this::canGenerate);
+    }
+
+    private boolean canGenerate(Class<?> clazz) {
+        if (clazz.isPrimitive() || clazz.isArray() || clazz.isEnum() || clazz.isInterface() || clazz.isAnnotation() ||
+                Modifier.isAbstract(clazz.getModifiers()) || clazz.getCanonicalName() == null ||
+                (clazz.isMemberClass() && !Modifier.isStatic(clazz.getModifiers())) ||
+                !isAccessible(clazz, "") || !projectClasses.test(clazz) ||
+                NOT_BEAN_CLASSES.stream().anyMatch(notBeanClass -> notBeanClass.isAssignableFrom(clazz))) {
+            return false;
+        }
+        List<BeanProperty> properties = metadata.getBeanProperties(clazz);
+        if (properties.isEmpty()) {
+            // Jackson fails on beans without properties
+            return false;
+        }
+        for (BeanProperty property : properties) {
+            String name = property.getName();
+            Method readMethod = property.getReadMethod();
+            // Jackson lower cases all leading upper case letters, e.g. of getURL(), bean introspection keeps them
+            if ((name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) ||
+                    !Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) ||
+                    Arrays.stream(readMethod.getExceptionTypes()).anyMatch(exceptionType ->
+                            !RuntimeException.class.isAssignableFrom(exceptionType) && !Error.class.isAssignableFrom(exceptionType))) {
+                return false;
+            }
+        }
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            if (isJacksonAnnotated(type)) {
+                return false;
+            }
+            for (Field field : type.getDeclaredFields()) {
+                if ((Modifier.isPublic(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())) ||
+                        isJacksonAnnotated(field)) {
+                    return false;
+                }
+            }
+        }
+        for (Method method : clazz.getMethods()) {
+            if (isJacksonAnnotated(method)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the class, its supertypes or their members are annotated by Jackson annotations or
+     * implement Jackson interfaces, e.g. {@code JsonSerializable}.
+     */
+    private static boolean isJacksonAnnotated(Class<?> clazz) {
+        Deque<Class<?>> types = new ArrayDeque<>();
+        types.push(clazz);
+        while (!types.isEmpty()) {
+            Class<?> type = types.pop();
+            if (type.getName().startsWith(JACKSON_PACKAGE) || isJacksonAnnotated((AnnotatedElement) type)) {
+                return true;
+            }
+            if (type.isEnum()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (isJacksonAnnotated(field)) {
+                        return true;
+                    }
+                }
+            }
+            if (type.isInterface()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (isJacksonAnnotated(method)) {
+                        return true;
+                    }
+                }
+            }
+            if (type.getSuperclass() != null) {
+                types.push(type.getSuperclass());
+            }
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                types.push(interfaceType);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the element is annotated by Jackson annotations, directly or through annotations
+     * annotated by them.
+     */
+    private static boolean isJacksonAnnotated(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.getName().startsWith(JACKSON_PACKAGE) ||
+                    Arrays.stream(annotationType.getAnnotations())
+                            .anyMatch(meta -> meta.annotationType().getName().startsWith(JACKSON_PACKAGE))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String primitiveWrite(Class<?> clazz, String expression) {
+        if (clazz == boolean.class) {
+            return "generator.writeBoolean(" + expression + ")";
+        } else if (clazz == char.class) {
+            return "generator.writeString(String.valueOf(" + expression + "))";
+        }
+        return "generator.writeNumber(" + expression + ")";
+    }
+
+    /**
+     * Returns the value expression cast to the raw class of the type, if it is accessible.
+     */
+    private static String cast(Type type, String packageName, String expression) {
+        Class<?> clazz = getRawClass(type);
+        if (clazz == null || clazz == Object.class || !isAccessible(clazz, packageName)) {
+            return expression;
+        }
+        return "(" + declaredType(clazz) + ") " + expression;
+    }
+
+    /**
+     * Returns the raw class of class, parameterized and generic array types, {@code null} for type variables and
+     * wildcards.
+     */
+    private static Class<?> getRawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() instanceof Class) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            Class<?> componentClass = getRawClass(((GenericArrayType) type).getGenericComponentType());
+            return componentClass != null ? Array.newInstance(componentClass, 0).getClass() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns type arguments of the parameterized type, {@code null} if it is not parameterized with the given number
+     * of them.
+     */
+    private static Type[] getTypeArguments(Type type, int count) {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getActualTypeArguments().length == count) {
+            return ((ParameterizedType) type).getActualTypeArguments();
+        }
+        return null;
+    }
+
+    private static boolean isJavaUtilClass(Class<?> clazz) {
+        return clazz.getName().startsWith("java.util.");
+    }
+
+    /**
+     * Returns name of the class in declarations, with wildcards of its type parameters.
+     */
+    private static String declaredType(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return declaredType(clazz.getComponentType()) + "[]";
+        }
+        int typeParameters = clazz.getTypeParameters().length;
+        StringBuilder name = new StringBuilder(clazz.getCanonicalName());
+        if (typeParameters > 0) {
+            name.append('<');
+            for (int i = 0; i < typeParameters; i++) {
+                name.append(i > 0 ? ", ?" : "?");
+            }
+            name.append('>');
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns {@code true} if the class and the classes it is nested in can be used by code in the package.
+     */
+    private static boolean isAccessible(Class<?> clazz, String packageName) {
+        Class<?> type = clazz;
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        if (type.getCanonicalName() == null) {
+            return false;
+        }
+        for (Class<?> enclosing = type; enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+            int modifiers = enclosing.getModifiers();
+            if (Modifier.isPrivate(modifiers) || (!Modifier.isPublic(modifiers) && !getPackageName(enclosing).equals(packageName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getPackageName(Class<?> clazz) {
+        String name = clazz.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    private static String javaString(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+}
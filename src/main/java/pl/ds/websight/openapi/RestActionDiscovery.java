@@ -0,0 +1,390 @@
+package pl.ds.websight.openapi;
+
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Finds classes annotated with {@link SlingAction} by reading class files, so no class is loaded unless it is an action.
+ * Classes from the project output directory are always scanned, dependency jars only when they are given explicitly.
+ * Jars are read in parallel.
+ * <p>
+ * A directory or jar containing the index written by the annotation processor of the {@code websight-rest-swagger-processor}
+ * artifact is not scanned, the action classes are taken from the index. The index is used only if it lists all classes
+ * next to it as compiled together with it and class files of all its actions exist, which is checked by listing the
+ * class files without reading them. Otherwise, e.g. after an incremental compilation of only some sources, the index
+ * misses actions of the other classes, so it is ignored and the classes are scanned. Classes listed in the indexes of
+ * binders and writers, which are compiled later by the {@code generate-binders} and {@code generate-response-writers}
+ * goals, are not expected in the index.
+ * <p>
+ * Subclasses of actions are actions too, as if {@link SlingAction} were inherited. They are found when their superclass
+ * chain reaches an action through the scanned classes, including actions read from indexes; a subclass of an action
+ * from a jar which is not scanned is not found.
+ */
+class RestActionDiscovery {
+
+    static final String INDEX_FILE_PATH = "META-INF/websight/sling-actions.index";
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final List<String> GENERATED_CLASSES_INDEX_PATHS = Arrays.asList(
+            RequestModelBinderGenerator.INDEX_RESOURCE, ResponseEntityWriterGenerator.INDEX_RESOURCE);
+
+    private final ClassFileAnnotationScanner scanner = new ClassFileAnnotationScanner(SlingAction.class);
+    private final List<String> packagePrefixes;
+    private final AtomicInteger inspectedClasses = new AtomicInteger();
+    private final AtomicInteger inspectedJars = new AtomicInteger();
+    private final AtomicInteger readIndexes = new AtomicInteger();
+    private final List<String> ignoredIndexes = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param actionPackages packages (including subpackages) to which scanning is limited, all classes are scanned if empty
+     */
+    RestActionDiscovery(Collection<String> actionPackages) {
+        this.packagePrefixes = actionPackages == null ? Collections.emptyList() : actionPackages.stream()
+                .map(actionPackage -> actionPackage.replace('.', '/') + '/')
+                .collect(toList());
+    }
+
+    /**
+     * @param classesDirectory directory of the project classes, {@code null} if only the jars are scanned
+     */
+    Result discover(Path classesDirectory, Collection<File> dependencyJars) throws IOException {
+        long start = System.nanoTime();
+        ScannedClasses scannedClasses = scanDirectory(classesDirectory);
+        try {
+            dependencyJars.parallelStream()
+                    .map(this::scanJar)
+                    .forEachOrdered(scannedClasses::addAll);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        SortedSet<String> classNames = scannedClasses.getActionClassNames();
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(classNames,
+                new Report(durationMillis, inspectedClasses.get(), inspectedJars.get(), readIndexes.get(),
+                        new ArrayList<>(ignoredIndexes), classNames.size()));
+    }
+
+    private ScannedClasses scanDirectory(Path directory) throws IOException {
+        ScannedClasses scannedClasses = new ScannedClasses();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return scannedClasses;
+        }
+        Map<String, Path> classFiles = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.forEach(file -> {
+                String path = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                if (isIncluded(path)) {
+                    classFiles.put(path, file);
+                }
+            });
+        }
+        Path indexFile = directory.resolve(INDEX_FILE_PATH);
+        if (Files.isRegularFile(indexFile)) {
+            ActionIndex index;
+            try (InputStream input = Files.newInputStream(indexFile)) {
+                index = readIndex(input);
+            }
+            for (String generatedClassesIndexPath : GENERATED_CLASSES_INDEX_PATHS) {
+                Path generatedClassesIndexFile = directory.resolve(generatedClassesIndexPath);
+                if (Files.isRegularFile(generatedClassesIndexFile)) {
+                    try (InputStream input = Files.newInputStream(generatedClassesIndexFile)) {
+                        readGeneratedClasses(input, index);
+                    }
+                }
+            }
+            if (index.isComplete(classFiles.keySet())) {
+                scannedClasses.actionClassNames.addAll(index.actionClassNames);
+                return scannedClasses;
+            }
+            ignoredIndexes.add(indexFile.toString());
+        }
+        for (Path classFile : classFiles.values()) {
+            inspectedClasses.incrementAndGet();
+            scannedClasses.add(scanner.scan(Files.readAllBytes(classFile)));
+        }
+        return scannedClasses;
+    }
+
+    private ScannedClasses scanJar(File jar) {
+        ScannedClasses scannedClasses = new ScannedClasses();
+        try (JarFile jarFile = new JarFile(jar)) {
+            inspectedJars.incrementAndGet();
+            Map<String, JarEntry> classEntries = new TreeMap<>();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && isIncluded(entry.getName())) {
+                    classEntries.put(entry.getName(), entry);
+                }
+            }
+            JarEntry indexEntry = jarFile.getJarEntry(INDEX_FILE_PATH);
+            if (indexEntry != null) {
+                ActionIndex index;
+                try (InputStream input = jarFile.getInputStream(indexEntry)) {
+                    index = readIndex(input);
+                }
+                for (String generatedClassesIndexPath : GENERATED_CLASSES_INDEX_PATHS) {
+                    JarEntry generatedClassesIndexEntry = jarFile.getJarEntry(generatedClassesIndexPath);
+                    if (generatedClassesIndexEntry != null) {
+                        try (InputStream input = jarFile.getInputStream(generatedClassesIndexEntry)) {
+                            readGeneratedClasses(input, index);
+                        }
+                    }
+                }
+                if (index.isComplete(classEntries.keySet())) {
+                    scannedClasses.actionClassNames.addAll(index.actionClassNames);
+                    return scannedClasses;
+                }
+                ignoredIndexes.add(jar + "!/" + INDEX_FILE_PATH);
+            }
+            for (JarEntry entry : classEntries.values()) {
+                inspectedClasses.incrementAndGet();
+                try (InputStream input = jarFile.getInputStream(entry)) {
+                    scannedClasses.add(scanner.scan(readFully(input, entry.getSize())));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not scan " + jar, e);
+        }
+        return scannedClasses;
+    }
+
+    /**
+     * Reads lines of action classes with their HTTP methods and lines of compiled top level classes without them.
+     */
+    private ActionIndex readIndex(InputStream input) throws IOException {
+        readIndexes.incrementAndGet();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ActionIndex index = new ActionIndex();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.trim().split(" ", 2);
+            if (parts[0].isEmpty()) {
+                continue;
+            }
+            if (parts.length == 1) {
+                index.compiledClassNames.add(parts[0]);
+            } else if (isIncluded(parts[0].replace('.', '/') + CLASS_FILE_EXTENSION)) {
+                index.actionClassNames.add(parts[0]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads lines {@code <class name>=<generated class name>} of an index of generated classes, which are compiled
+     * after the action index is written.
+     */
+    private static void readGeneratedClasses(InputStream input, ActionIndex index) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int separator = line.indexOf('=');
+            if (separator > 0) {
+                index.generatedClassNames.add(line.substring(separator + 1).trim());
+            }
+        }
+    }
+
+    private boolean isIncluded(String path) {
+        if (!path.endsWith(CLASS_FILE_EXTENSION) || path.startsWith("META-INF/") || path.endsWith("module-info.class") ||
+                path.endsWith("package-info.class")) {
+            return false;
+        }
+        return packagePrefixes.isEmpty() || packagePrefixes.stream().anyMatch(path::startsWith);
+    }
+
+    private static byte[] readFully(InputStream input, long expectedSize) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(expectedSize > 0 ? (int) expectedSize : 4096);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static final class ActionIndex {
+
+        private final List<String> actionClassNames = new ArrayList<>();
+        private final Set<String> compiledClassNames = new HashSet<>();
+        private final Set<String> generatedClassNames = new HashSet<>();
+
+        /**
+         * Checks if the index was written by a compilation of all the given class files, nested classes included with
+         * their top level classes and generated classes excluded, and if none of its actions was removed since.
+         */
+        private boolean isComplete(Set<String> classFilePaths) {
+            for (String classFilePath : classFilePaths) {
+                String className = classFilePath.substring(0, classFilePath.length() - CLASS_FILE_EXTENSION.length())
+                        .replace('/', '.');
+                int nestedClassStart = className.indexOf('$', className.lastIndexOf('.') + 1);
+                String topLevelClassName = nestedClassStart > 0 ? className.substring(0, nestedClassStart) : className;
+                if (!compiledClassNames.contains(topLevelClassName) && !generatedClassNames.contains(topLevelClassName)) {
+                    return false;
+                }
+            }
+            return actionClassNames.stream()
+                    .allMatch(className -> classFilePaths.contains(className.replace('.', '/') + CLASS_FILE_EXTENSION));
+        }
+
+    }
+
+    /**
+     * Actions of a directory or jar and superclasses of its other classes, which are actions too if any of their
+     * superclasses is an action.
+     */
+    private static final class ScannedClasses {
+
+        private final Set<String> actionClassNames = new HashSet<>();
+        private final Map<String, String> superClassNames = new HashMap<>();
+
+        private void add(ClassFileAnnotationScanner.ScannedClass scannedClass) {
+            if (scannedClass == null) {
+                return;
+            }
+            if (scannedClass.isAnnotated()) {
+                actionClassNames.add(scannedClass.getName());
+            } else if (scannedClass.getSuperClassName() != null) {
+                superClassNames.put(scannedClass.getName(), scannedClass.getSuperClassName());
+            }
+        }
+
+        private void addAll(ScannedClasses other) {
+            actionClassNames.addAll(other.actionClassNames);
+            superClassNames.putAll(other.superClassNames);
+        }
+
+        private SortedSet<String> getActionClassNames() {
+            SortedSet<String> classNames = new TreeSet<>(actionClassNames);
+            for (String className : superClassNames.keySet()) {
+                if (extendsAction(className)) {
+                    classNames.add(className);
+                }
+            }
+            return classNames;
+        }
+
+        private boolean extendsAction(String className) {
+            String superClassName = superClassNames.get(className);
+            // the chain is bounded by the number of classes, as class files with cyclic inheritance are not rejected here
+            for (int i = 0; superClassName != null && i < superClassNames.size(); i++) {
+                if (actionClassNames.contains(superClassName)) {
+                    return true;
+                }
+                superClassName = superClassNames.get(superClassName);
+            }
+            return false;
+        }
+
+    }
+
+    static final class Result {
+
+        private final Set<String> classNames;
+        private final Report report;
+
+        private Result(Set<String> classNames, Report report) {
+            this.classNames = Collections.unmodifiableSet(classNames);
+            this.report = report;
+        }
+
+        /**
+         * Binary names of found action classes, sorted.
+         */
+        Set<String> getClassNames() {
+            return classNames;
+        }
+
+        Report getReport() {
+            return report;
+        }
+
+    }
+
+    static final class Report {
+
+        private final long durationMillis;
+        private final int inspectedClasses;
+        private final int inspectedJars;
+        private final int readIndexes;
+        private final List<String> ignoredIndexes;
+        private final int foundActions;
+
+        private Report(long durationMillis, int inspectedClasses, int inspectedJars, int readIndexes,
+                List<String> ignoredIndexes, int foundActions) {
+            this.durationMillis = durationMillis;
+            this.inspectedClasses = inspectedClasses;
+            this.inspectedJars = inspectedJars;
+            this.readIndexes = readIndexes;
+            this.ignoredIndexes = Collections.unmodifiableList(ignoredIndexes);
+            this.foundActions = foundActions;
+        }
+
+        long getDurationMillis() {
+            return durationMillis;
+        }
+
+        int getInspectedClasses() {
+            return inspectedClasses;
+        }
+
+        int getInspectedJars() {
+            return inspectedJars;
+        }
+
+        int getReadIndexes() {
+            return readIndexes;
+        }
+
+        /**
+         * Paths of read indexes which do not list all classes next to them, so the classes were scanned instead.
+         */
+        List<String> getIgnoredIndexes() {
+            return ignoredIndexes;
+        }
+
+        int getFoundActions() {
+            return foundActions;
+        }
+
+        @Override
+        public String toString() {
+            return "found " + foundActions + " actions in " + durationMillis + " ms, inspected " + inspectedClasses +
+                    " classes and " + inspectedJars + " jars, read " + readIndexes + " action indexes (" +
+                    ignoredIndexes.size() + " incomplete)";
+        }
+
+    }
+
+}
@@ -3,7 +3,6 @@ package pl.ds.websight.openapi;
 import com.google.common.base.CaseFormat;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.PathItem;
-import io.swagger.v3.oas.models.media.BinarySchema;
 import io.swagger.v3.oas.models.media.Content;
 import io.swagger.v3.oas.models.media.MediaType;
 import io.swagger.v3.oas.models.media.ObjectSchema;
@@ -15,47 +14,61 @@ import io.swagger.v3.oas.models.responses.ApiResponse;
 import io.swagger.v3.oas.models.responses.ApiResponses;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.maven.plugin.logging.Log;
-import org.reflections.ReflectionUtils;
+import pl.ds.websight.openapi.ClassMetadataCache.RequestField;
 import pl.ds.websight.openapi.model.RestActionErrorResponse;
 import pl.ds.websight.openapi.model.RestActionSuccessResponse;
 import pl.ds.websight.openapi.model.RestActionValidationFailureResponse;
-import pl.ds.websight.request.parameters.support.annotations.RequestParameter;
 import pl.ds.websight.rest.framework.FreeFormResponse;
 import pl.ds.websight.rest.framework.RestAction;
 import pl.ds.websight.rest.framework.annotations.SlingAction;
 import pl.ds.websight.rest.framework.annotations.SlingAction.HttpMethod;
-import ru.vyarus.java.generics.resolver.GenericsResolver;
 
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotEmpty;
-import javax.validation.constraints.NotNull;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Stream;
+import java.util.Map;
 
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 
+/**
+ * Converts action class to OpenAPI path. Instances hold no mutable state other than the thread safe
+ * {@link ComponentsRegistry} and {@link ClassMetadataCache}, so they may be shared by conversion threads.
+ */
 class RestActionToOpenApiPathConverter {
 
     private static final String REST_ACTION_CLASS_SUFFIX = "RestAction";
 
-    private static final Set<Class<? extends Annotation>> REQUIRED_REQUEST_PARAM_ANNOTATIONS =
-            Stream.of(NotBlank.class, NotEmpty.class, NotNull.class).collect(toSet());
+    private static final String VALIDATION_FAILURE_RESPONSE_NAME = "RestActionValidationFailure";
+    private static final String ERROR_RESPONSE_NAME = "RestActionError";
 
-    private final Log log;
+    private final GenerationLog log;
     private final String artifactId;
+    private final ComponentsRegistry registry;
+    private final ClassMetadataCache metadata;
+    private final boolean verbose;
+    private final PayloadCostAnalyzer costAnalyzer;
+
+    /**
+     * @param verbose logs types of each action on info level, on debug level otherwise
+     */
+    RestActionToOpenApiPathConverter(GenerationLog log, String artifactId, ComponentsRegistry registry,
+            ClassMetadataCache metadata, boolean verbose) {
+        this(log, artifactId, registry, metadata, verbose, null);
+    }
 
-    RestActionToOpenApiPathConverter(Log log, String artifactId) {
+    /**
+     * @param verbose      logs types of each action on info level, on debug level otherwise
+     * @param costAnalyzer analyzer of the payload cost added to operations, may be {@code null}
+     */
+    RestActionToOpenApiPathConverter(GenerationLog log, String artifactId, ComponentsRegistry registry,
+            ClassMetadataCache metadata, boolean verbose, PayloadCostAnalyzer costAnalyzer) {
         this.log = log;
         this.artifactId = artifactId;
+        this.registry = registry;
+        this.metadata = metadata;
+        this.verbose = verbose;
+        this.costAnalyzer = costAnalyzer;
     }
 
     Pair<String, PathItem> convert(Class<?> actionClass) {
@@ -63,23 +76,25 @@ class RestActionToOpenApiPathConverter {
         if (actionPath == null) {
             return null;
         }
-        List<Type> actionTypes = GenericsResolver.resolve(actionClass).type(RestAction.class).genericTypes();
+        List<Type> actionTypes = metadata.getTypeArguments(actionClass, RestAction.class);
         if (actionTypes.size() == 2) {
             Type modelType = actionTypes.get(0);
             Type responseType = actionTypes.get(1);
-            log.info("\nProcessing action: " + actionClass.getName() + "\n" +
-                    "  Request model type:   " + typeNameOrNone(modelType) + "\n" +
-                    "  Response entity type: " + typeNameOrNone(responseType));
-            HttpMethod method = actionClass.getAnnotation(SlingAction.class).value();
+            if (verbose) {
+                log.info(describeAction(actionClass, modelType, responseType));
+            } else if (log.isDebugEnabled()) {
+                log.debug(describeAction(actionClass, modelType, responseType));
+            }
+            HttpMethod method = getSlingAction(actionClass).value();
             switch (method) {
                 case GET:
-                    return Pair.of(actionPath, new PathItem().get(new Operation()
+                    return Pair.of(actionPath, new PathItem().get(addPayloadCost(new Operation()
                             .parameters(buildGetParameters(modelType))
-                            .responses(buildApiResponses(responseType))));
+                            .responses(buildApiResponses(responseType)), responseType)));
                 case POST:
-                    return Pair.of(actionPath, new PathItem().post(new Operation()
+                    return Pair.of(actionPath, new PathItem().post(addPayloadCost(new Operation()
                             .requestBody(buildFormRequestBody(modelType))
-                            .responses(buildApiResponses(responseType))));
+                            .responses(buildApiResponses(responseType)), responseType)));
                 default:
                     log.warn("Unsupported method: " + method);
             }
@@ -87,7 +102,14 @@ class RestActionToOpenApiPathConverter {
         return null;
     }
 
-    private String getRestActionPath(Class<?> actionClass) {
+    ComponentsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns path of the action or {@code null} if the class name does not follow action naming convention.
+     */
+    String getRestActionPath(Class<?> actionClass) {
         String simpleName = actionClass.getSimpleName();
         if (StringUtils.isBlank(simpleName) || !simpleName.contains(REST_ACTION_CLASS_SUFFIX)) {
             log.warn(REST_ACTION_CLASS_SUFFIX + " suffix missing in " + actionClass.getName() + ". Skipping class.");
@@ -99,19 +121,38 @@ class RestActionToOpenApiPathConverter {
         return "/apps/" + artifactId + "/bin/" + actionName + ".action";
     }
 
+    /**
+     * Returns annotation of the action or of its nearest annotated superclass, as subclasses of actions are actions too.
+     */
+    private static SlingAction getSlingAction(Class<?> actionClass) {
+        for (Class<?> clazz = actionClass; clazz != null; clazz = clazz.getSuperclass()) {
+            SlingAction slingAction = clazz.getAnnotation(SlingAction.class);
+            if (slingAction != null) {
+                return slingAction;
+            }
+        }
+        throw new IllegalArgumentException(actionClass.getName() + " is not annotated with " + SlingAction.class.getName());
+    }
+
+    private String describeAction(Class<?> actionClass, Type modelType, Type responseType) {
+        return "\nProcessing action: " + actionClass.getName() + "\n" +
+                "  Request model type:   " + typeNameOrNone(modelType) + "\n" +
+                "  Response entity type: " + typeNameOrNone(responseType);
+    }
+
     private String typeNameOrNone(Type type) {
         return type != Void.class ? type.toString() : "<none>";
     }
 
     private List<Parameter> buildGetParameters(Type modelType) {
         List<Parameter> parameters = new ArrayList<>();
-        for (Field modelField : getModelFields(modelType)) {
-            Boolean required = isRequired(modelField);
+        for (RequestField modelField : getModelFields(modelType)) {
+            Boolean required = modelField.getRequired();
             parameters.add(new PathParameter()
                     .in("query")
-                    .name(getParameterName(modelField))
+                    .name(modelField.getParameterName())
                     .required(required)
-                    .schema(TypeUtil.javaTypeToSchema(modelField.getGenericType(), required)));
+                    .schema(TypeUtil.javaTypeToSchema(registry.getInterner(), modelField.getGenericType(), required)));
         }
         return parameters;
     }
@@ -120,13 +161,49 @@ class RestActionToOpenApiPathConverter {
         if (responseType == FreeFormResponse.class) {
             return new ApiResponses()
                     .addApiResponse("200", new ApiResponse().content(new Content().addMediaType("*/*",
-                            new MediaType().schema(new BinarySchema()))));
+                            new MediaType().schema(registry.getInterner().binary()))));
             // TODO: not sure how to specify errors, because free form is unpredictable
         }
         return new ApiResponses()
-                .addApiResponse("200", new RestActionSuccessResponse(TypeUtil.javaResponseTypeToSchema(null, responseType)))
-                .addApiResponse("400", new RestActionValidationFailureResponse())
-                .addApiResponse("500", new RestActionErrorResponse());
+                .addApiResponse("200", new RestActionSuccessResponse(
+                        buildResultSchema("SUCCESS", TypeUtil.javaResponseTypeToSchema(registry, metadata, responseType))))
+                .addApiResponse("400", registry.responseReference(VALIDATION_FAILURE_RESPONSE_NAME,
+                        () -> new RestActionValidationFailureResponse(buildResultSchema("VALIDATION_FAILURE", buildValidationErrorsSchema()))))
+                .addApiResponse("500", registry.responseReference(ERROR_RESPONSE_NAME,
+                        () -> new RestActionErrorResponse(buildResultSchema("ERROR", null))));
+    }
+
+    /**
+     * Returns schema of the action result with the given status, with the entity if its schema is not {@code null}.
+     * Results of actions returning the same entity are shared, as their parts are taken from the interner.
+     */
+    private Schema<?> buildResultSchema(String status, Schema<?> entitySchema) {
+        SchemaInterner interner = registry.getInterner();
+        Map<String, Schema<?>> properties = new LinkedHashMap<>();
+        if (entitySchema != null) {
+            properties.put("entity", entitySchema);
+        }
+        properties.put("status", interner.constant(status));
+        properties.put("message", interner.string());
+        properties.put("messageDetails", interner.string());
+        properties.put("authContext", interner.object(Collections.singletonMap("userId", interner.string())));
+        return interner.object(properties);
+    }
+
+    private Schema<?> buildValidationErrorsSchema() {
+        SchemaInterner interner = registry.getInterner();
+        Map<String, Schema<?>> properties = new LinkedHashMap<>();
+        properties.put("path", interner.string());
+        properties.put("invalidValue", interner.object());
+        properties.put("message", interner.string());
+        return interner.array(interner.object(properties));
+    }
+
+    private Operation addPayloadCost(Operation operation, Type responseType) {
+        if (costAnalyzer != null && responseType != Void.class && responseType != FreeFormResponse.class) {
+            operation.addExtension(PayloadCost.EXTENSION, costAnalyzer.analyze(responseType));
+        }
+        return operation;
     }
 
     private RequestBody buildFormRequestBody(Type modelType) {
@@ -136,13 +213,13 @@ class RestActionToOpenApiPathConverter {
 
     private Schema<?> modelTypeToFormParameters(Type modelType) {
         ObjectSchema schema = new ObjectSchema();
-        for (Field modelField : getModelFields(modelType)) {
-            if (modelField.getType() == org.apache.sling.api.request.RequestParameter.class) {
-                schema.addProperties(modelField.getName(), new BinarySchema());
+        for (RequestField modelField : getModelFields(modelType)) {
+            if (modelField.isFile()) {
+                schema.addProperties(modelField.getName(), registry.getInterner().binary());
             } else {
-                Boolean required = isRequired(modelField);
-                String parameterName = getParameterName(modelField);
-                schema.addProperties(parameterName, TypeUtil.javaTypeToSchema(modelField.getGenericType(), required));
+                Boolean required = modelField.getRequired();
+                String parameterName = modelField.getParameterName();
+                schema.addProperties(parameterName, TypeUtil.javaTypeToSchema(registry.getInterner(), modelField.getGenericType(), required));
                 if (Boolean.TRUE.equals(required)) {
                     schema.addRequiredItem(parameterName);
                 }
@@ -151,29 +228,11 @@ class RestActionToOpenApiPathConverter {
         return schema;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Field> getModelFields(Type modelType) {
+    private List<RequestField> getModelFields(Type modelType) {
         if (modelType instanceof Class<?>) {
-            return ReflectionUtils.getAllFields((Class<?>) modelType).stream()
-                    .filter(field -> field.isAnnotationPresent(RequestParameter.class) ||
-                            field.getType() == org.apache.sling.api.request.RequestParameter.class)
-                    .collect(toList());
+            return metadata.getRequestFields((Class<?>) modelType);
         }
         return Collections.emptyList();
     }
 
-    private Boolean isRequired(Field modelField) {
-        if (REQUIRED_REQUEST_PARAM_ANNOTATIONS.stream().anyMatch(modelField::isAnnotationPresent)) {
-            return true;
-        }
-        return null; // NOSONAR: we don't want 'false' here to not serialize it to YAML result file
-    }
-
-    private String getParameterName(Field modelField) {
-        return Optional.ofNullable(modelField.getAnnotation(RequestParameter.class))
-                .map(RequestParameter::name)
-                .filter(StringUtils::isNotBlank)
-                .orElseGet(modelField::getName);
-    }
-
 }
@@ -0,0 +1,171 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts set of action classes to OpenAPI paths, sequentially or using a bounded pool of threads. Paths are always
+ * passed on sorted by path, so the result does not depend on the parallelism level. If more actions have the same path,
+ * the one with the last class name wins.
+ * <p>
+ * Converted paths are passed to the consumer as soon as all preceding paths are passed, so they do not have to be kept
+ * in memory until all actions are converted. Components referenced by a path are named before it is passed on, in path
+ * order, so also the names do not depend on the parallelism level.
+ */
+class RestActionsToOpenApiPathsConverter {
+
+    private static final int PENDING_CONVERSIONS_PER_THREAD = 4;
+
+    private final RestActionToOpenApiPathConverter converter;
+    private final GenerationLog log;
+    private final int parallelism;
+    private final ClassLoader classLoader;
+    private final GenerationReport report;
+
+    /**
+     * @param classLoader class loader of the project, set as context class loader of conversion threads
+     */
+    RestActionsToOpenApiPathsConverter(RestActionToOpenApiPathConverter converter, GenerationLog log, int parallelism,
+            ClassLoader classLoader) {
+        this(converter, log, parallelism, classLoader, null);
+    }
+
+    /**
+     * @param classLoader class loader of the project, set as context class loader of conversion threads
+     * @param report      report to which conversion time of each action is added, may be {@code null}
+     */
+    RestActionsToOpenApiPathsConverter(RestActionToOpenApiPathConverter converter, GenerationLog log, int parallelism,
+            ClassLoader classLoader, GenerationReport report) {
+        this.converter = converter;
+        this.log = log;
+        this.parallelism = parallelism;
+        this.classLoader = classLoader;
+        this.report = report;
+    }
+
+    Paths convert(Collection<Class<?>> actionClasses) throws InterruptedException, ExecutionException, IOException {
+        Paths paths = new Paths();
+        convert(actionClasses, (actionClass, path, pathItem) -> paths.addPathItem(path, pathItem));
+        return paths;
+    }
+
+    void convert(Collection<Class<?>> actionClasses, PathItemConsumer consumer)
+            throws InterruptedException, ExecutionException, IOException {
+        Collection<Class<?>> sortedActionClasses = sortByPath(actionClasses).values();
+        if (parallelism > 1 && sortedActionClasses.size() > 1) {
+            convertInParallel(sortedActionClasses, consumer);
+        } else {
+            for (Class<?> actionClass : sortedActionClasses) {
+                accept(convert(actionClass), consumer);
+            }
+        }
+    }
+
+    private SortedMap<String, Class<?>> sortByPath(Collection<Class<?>> actionClasses) {
+        SortedMap<String, Class<?>> sortedActionClasses = new TreeMap<>();
+        actionClasses.stream()
+                .sorted(Comparator.comparing(Class::getName))
+                .forEachOrdered(actionClass -> {
+                    String path = converter.getRestActionPath(actionClass);
+                    if (path != null) {
+                        Class<?> overriddenActionClass = sortedActionClasses.put(path, actionClass);
+                        if (overriddenActionClass != null) {
+                            log.warn("Action " + actionClass.getName() + " overrides action " + overriddenActionClass.getName() +
+                                    " with path " + path);
+                        }
+                    }
+                });
+        return sortedActionClasses;
+    }
+
+    private void convertInParallel(Collection<Class<?>> sortedActionClasses, PathItemConsumer consumer)
+            throws InterruptedException, ExecutionException, IOException {
+        int threads = Math.min(parallelism, sortedActionClasses.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ConversionThreadFactory());
+        try {
+            Deque<Future<ConvertedAction>> pendingConversions = new ArrayDeque<>();
+            Iterator<Class<?>> actionClassesIterator = sortedActionClasses.iterator();
+            while (actionClassesIterator.hasNext() || !pendingConversions.isEmpty()) {
+                while (actionClassesIterator.hasNext() && pendingConversions.size() < threads * PENDING_CONVERSIONS_PER_THREAD) {
+                    Class<?> actionClass = actionClassesIterator.next();
+                    pendingConversions.add(executor.submit(() -> convert(actionClass)));
+                }
+                accept(pendingConversions.remove().get(), consumer);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ConvertedAction convert(Class<?> actionClass) {
+        long start = System.nanoTime();
+        Pair<String, PathItem> path = converter.convert(actionClass);
+        return new ConvertedAction(actionClass, path, System.nanoTime() - start);
+    }
+
+    private void accept(ConvertedAction convertedAction, PathItemConsumer consumer) throws IOException {
+        Pair<String, PathItem> path = convertedAction.path;
+        if (path != null) {
+            converter.getRegistry().nameReferences(path.getRight());
+            if (report != null) {
+                report.addAction(convertedAction.actionClass, path.getLeft(), path.getRight(), convertedAction.nanos);
+            }
+            consumer.accept(convertedAction.actionClass, path.getLeft(), path.getRight());
+        }
+    }
+
+    /**
+     * Consumer of converted paths.
+     */
+    @FunctionalInterface
+    interface PathItemConsumer {
+
+        void accept(Class<?> actionClass, String path, PathItem pathItem) throws IOException;
+
+    }
+
+    private static final class ConvertedAction {
+
+        private final Class<?> actionClass;
+        private final Pair<String, PathItem> path;
+        private final long nanos;
+
+        private ConvertedAction(Class<?> actionClass, Pair<String, PathItem> path, long nanos) {
+            this.actionClass = actionClass;
+            this.path = path;
+            this.nanos = nanos;
+        }
+
+    }
+
+    private final class ConversionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "openapi-conversion-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }
+
+    }
+
+}
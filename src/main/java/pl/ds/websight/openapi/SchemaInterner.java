@@ -0,0 +1,224 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.BinarySchema;
+import io.swagger.v3.oas.models.media.BooleanSchema;
+import io.swagger.v3.oas.models.media.IntegerSchema;
+import io.swagger.v3.oas.models.media.NumberSchema;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import pl.ds.websight.openapi.model.EnumSchema;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Source of canonical schema instances, so structurally identical schemas used by many paths and components are kept
+ * in memory only once. Primitive and enum schemas are shared by all runs, enum schemas are cached per enum class and
+ * excluded values. Array, map and object schemas are hash-consed: they are looked up by their kind and already
+ * canonical children, so a whole subtree is shared once its leaves are. References to components are leaves shared by
+ * {@link ComponentsRegistry}, one per referenced type.
+ * <p>
+ * Returned schemas are shared and must not be modified. Their lists and maps are unmodifiable, but the properties of
+ * the schema objects themselves are guarded only by convention, so schemas which are built further, e.g. form
+ * parameters, have to be created with {@code new}. The interner can be used by many threads at once. A disabled
+ * interner returns new instances on every call.
+ */
+final class SchemaInterner {
+
+    private static final Schema<?> STRING = new StringSchema();
+    private static final Schema<?> BOOLEAN = new BooleanSchema();
+    private static final Schema<?> BINARY = new BinarySchema();
+    private static final Schema<?> EMPTY_OBJECT = new ObjectSchema();
+    private static final Schema<?> NUMBER = new NumberSchema();
+    private static final Schema<?> NULLABLE_NUMBER = new NumberSchema().nullable(true);
+    private static final Schema<?> NOT_NULLABLE_NUMBER = new NumberSchema().nullable(false);
+    private static final Schema<?> INTEGER = new IntegerSchema();
+    private static final Schema<?> NULLABLE_INTEGER = new IntegerSchema().nullable(true);
+    private static final Schema<?> NOT_NULLABLE_INTEGER = new IntegerSchema().nullable(false);
+    private static final ClassValue<Map<Set<String>, Schema<?>>> ENUMS = new ClassValue<Map<Set<String>, Schema<?>>>() {
+        @Override
+        protected Map<Set<String>, Schema<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final boolean enabled;
+    private final Map<Key, Schema<?>> schemas = new ConcurrentHashMap<>();
+
+    SchemaInterner(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    Schema<?> string() {
+        return enabled ? STRING : new StringSchema();
+    }
+
+    Schema<?> bool() {
+        return enabled ? BOOLEAN : new BooleanSchema();
+    }
+
+    Schema<?> binary() {
+        return enabled ? BINARY : new BinarySchema();
+    }
+
+    /**
+     * Returns decimal number schema, nullable as given or without {@code nullable} if it is {@code null}.
+     */
+    Schema<?> number(Boolean nullable) {
+        if (!enabled) {
+            return new NumberSchema().nullable(nullable);
+        }
+        return nullable == null ? NUMBER : nullable ? NULLABLE_NUMBER : NOT_NULLABLE_NUMBER;
+    }
+
+    /**
+     * Returns integer number schema, nullable as given or without {@code nullable} if it is {@code null}.
+     */
+    Schema<?> integer(Boolean nullable) {
+        if (!enabled) {
+            return new IntegerSchema().nullable(nullable);
+        }
+        return nullable == null ? INTEGER : nullable ? NULLABLE_INTEGER : NOT_NULLABLE_INTEGER;
+    }
+
+    Schema<?> enumeration(Class<? extends Enum<?>> enumClass, Enum<?>... excludedValues) {
+        if (!enabled) {
+            return new EnumSchema(enumClass, excludedValues);
+        }
+        Set<String> excludedNames = new TreeSet<>();
+        for (Enum<?> excludedValue : excludedValues) {
+            excludedNames.add(excludedValue.name());
+        }
+        return ENUMS.get(enumClass).computeIfAbsent(excludedNames, key -> {
+            EnumSchema schema = new EnumSchema(enumClass, excludedValues);
+            schema.setEnum(Collections.unmodifiableList(schema.getEnum()));
+            return schema;
+        });
+    }
+
+    /**
+     * Returns string schema allowing only the given value.
+     */
+    Schema<?> constant(String value) {
+        if (!enabled) {
+            return new StringSchema()._enum(Collections.singletonList(value));
+        }
+        return intern(new Key("constant", value), () -> new StringSchema()._enum(Collections.singletonList(value)));
+    }
+
+    /**
+     * Returns object schema without properties, used for values of unknown structure.
+     */
+    Schema<?> object() {
+        return enabled ? EMPTY_OBJECT : new ObjectSchema();
+    }
+
+    /**
+     * Returns object schema with the given properties, in the given order.
+     */
+    @SuppressWarnings("rawtypes")
+    Schema<?> object(Map<String, Schema<?>> properties) {
+        if (!enabled) {
+            ObjectSchema schema = new ObjectSchema();
+            properties.forEach(schema::addProperties);
+            return schema;
+        }
+        if (properties.isEmpty()) {
+            // no properties are written at all, the same as for an object of unknown structure
+            return EMPTY_OBJECT;
+        }
+        Object[] parts = new Object[properties.size() * 2];
+        int index = 0;
+        for (Map.Entry<String, Schema<?>> property : properties.entrySet()) {
+            parts[index++] = property.getKey();
+            parts[index++] = property.getValue();
+        }
+        return intern(new Key("object", parts), () -> {
+            ObjectSchema schema = new ObjectSchema();
+            schema.setProperties(Collections.unmodifiableMap(new LinkedHashMap<String, Schema>(properties)));
+            return schema;
+        });
+    }
+
+    /**
+     * Returns array schema of the given items, or without items if they are {@code null}.
+     */
+    Schema<?> array(Schema<?> items) {
+        if (!enabled) {
+            return new ArraySchema().items(items);
+        }
+        return intern(new Key("array", items), () -> new ArraySchema().items(items));
+    }
+
+    /**
+     * Returns object schema of a map with values of the given schema.
+     */
+    Schema<?> map(Schema<?> values) {
+        if (!enabled) {
+            return new ObjectSchema().additionalProperties(values);
+        }
+        return intern(new Key("map", values), () -> new ObjectSchema().additionalProperties(values));
+    }
+
+    private Schema<?> intern(Key key, Supplier<Schema<?>> factory) {
+        return schemas.computeIfAbsent(key, k -> factory.get());
+    }
+
+    /**
+     * Kind of a composite schema with its parts. Names are compared by value and schemas by identity, as they are
+     * canonical already.
+     */
+    private static final class Key {
+
+        private final String kind;
+        private final Object[] parts;
+        private final int hash;
+
+        Key(String kind, Object... parts) {
+            this.kind = kind;
+            this.parts = parts;
+            int result = kind.hashCode();
+            for (Object part : parts) {
+                result = 31 * result + (part instanceof Schema ? System.identityHashCode(part) : Objects.hashCode(part));
+            }
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            if (hash != other.hash || !kind.equals(other.kind) || parts.length != other.parts.length) {
+                return false;
+            }
+            for (int i = 0; i < parts.length; i++) {
+                Object part = parts[i];
+                Object otherPart = other.parts[i];
+                if (part instanceof Schema ? part != otherPart : !Objects.equals(part, otherPart)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts schemas used by paths and depth of their nesting. Root schema of a parameter, request body or response has
+ * depth 1, each property, array item and map value adds one level. References to components are followed, so shared
+ * schemas are counted in every path using them.
+ * <p>
+ * Paths are measured in two steps, because schemas they refer to may still be converted by other threads when a path
+ * is ready: {@link #measure(PathItem)} collects the inline part, {@link #complete(Measurement)} follows the references
+ * once all paths are converted. Depth of cyclic references is cut where the cycle closes.
+ */
+final class SchemaStatistics {
+
+    private final ComponentsRegistry registry;
+    private final Map<String, Integer> componentDepths = new HashMap<>();
+    private final Map<String, Set<String>> componentReferences = new HashMap<>();
+    private final Set<String> measuredComponents = new HashSet<>();
+
+    SchemaStatistics(ComponentsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Measures inline schemas of the path and collects references to components with depth at which they are used.
+     */
+    static Measurement measure(PathItem pathItem) {
+        Measurement measurement = new Measurement();
+        for (Operation operation : pathItem.readOperations()) {
+            if (operation.getParameters() != null) {
+                for (Parameter parameter : operation.getParameters()) {
+                    measurement.depth = Math.max(measurement.depth, walk(parameter.getSchema(), 0, measurement::reference, measurement));
+                }
+            }
+            if (operation.getRequestBody() != null) {
+                measurement.depth = Math.max(measurement.depth,
+                        walk(operation.getRequestBody().getContent(), 0, measurement::reference, measurement));
+            }
+            if (operation.getResponses() != null) {
+                for (ApiResponse response : operation.getResponses().values()) {
+                    measurement.depth = Math.max(measurement.depth, walk(response, measurement::reference, measurement));
+                }
+            }
+        }
+        return measurement;
+    }
+
+    /**
+     * Completes the measurement of a path by following its references. It has to be called after all paths sharing
+     * the registry are converted.
+     */
+    void complete(Measurement measurement) {
+        Set<String> reachableSchemas = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(measurement.references.keySet());
+        while (!pending.isEmpty()) {
+            String reference = pending.remove();
+            if (visited.add(reference)) {
+                if (registry.getComponent(reference) instanceof Schema) {
+                    reachableSchemas.add(reference);
+                }
+                pending.addAll(getComponentReferences(reference));
+            }
+        }
+        measurement.schemas += reachableSchemas.size();
+        measurement.references.forEach((reference, depth) ->
+                measurement.depth = Math.max(measurement.depth, depth + getComponentDepth(reference)));
+        measurement.references.clear();
+    }
+
+    private Set<String> getComponentReferences(String reference) {
+        getComponentDepth(reference);
+        return componentReferences.getOrDefault(reference, Collections.emptySet());
+    }
+
+    private int getComponentDepth(String reference) {
+        Integer depth = componentDepths.get(reference);
+        if (depth != null) {
+            return depth;
+        }
+        if (!measuredComponents.add(reference)) {
+            return 0; // cycle
+        }
+        Set<String> references = new HashSet<>();
+        ReferenceHandler handler = (nestedReference, parentDepth) -> {
+            references.add(nestedReference);
+            return parentDepth + getComponentDepth(nestedReference);
+        };
+        Object component = registry.getComponent(reference);
+        int componentDepth = 0;
+        if (component instanceof Schema) {
+            componentDepth = walk((Schema<?>) component, 0, handler, null);
+        } else if (component instanceof ApiResponse) {
+            componentDepth = walk((ApiResponse) component, handler, null);
+        }
+        componentDepths.put(reference, componentDepth);
+        componentReferences.put(reference, references);
+        return componentDepth;
+    }
+
+    private static int walk(ApiResponse response, ReferenceHandler handler, Measurement measurement) {
+        if (response.get$ref() != null) {
+            return handler.handle(response.get$ref(), 0);
+        }
+        return walk(response.getContent(), 0, handler, measurement);
+    }
+
+    private static int walk(Content content, int parentDepth, ReferenceHandler handler, Measurement measurement) {
+        int depth = parentDepth;
+        if (content != null) {
+            for (MediaType mediaType : content.values()) {
+                depth = Math.max(depth, walk(mediaType.getSchema(), parentDepth, handler, measurement));
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the deepest level reached from the schema.
+     */
+    private static int walk(Schema<?> schema, int parentDepth, ReferenceHandler handler, Measurement measurement) {
+        if (schema == null) {
+            return parentDepth;
+        }
+        if (schema.get$ref() != null) {
+            return handler.handle(schema.get$ref(), parentDepth);
+        }
+        if (measurement != null) {
+            measurement.schemas++;
+        }
+        int depth = parentDepth + 1;
+        int maxDepth = depth;
+        if (schema.getProperties() != null) {
+            for (Schema<?> property : schema.getProperties().values()) {
+                maxDepth = Math.max(maxDepth, walk(property, depth, handler, measurement));
+            }
+        }
+        if (schema instanceof ArraySchema) {
+            maxDepth = Math.max(maxDepth, walk(((ArraySchema) schema).getItems(), depth, handler, measurement));
+        }
+        if (schema.getAdditionalProperties() instanceof Schema) {
+            maxDepth = Math.max(maxDepth, walk((Schema<?>) schema.getAdditionalProperties(), depth, handler, measurement));
+        }
+        return maxDepth;
+    }
+
+    @FunctionalInterface
+    private interface ReferenceHandler {
+
+        /**
+         * Handles reference used at the given depth and returns the deepest level reached through it.
+         */
+        int handle(String reference, int parentDepth);
+
+    }
+
+    /**
+     * Number of schemas used by a path and the deepest level of their nesting.
+     */
+    static final class Measurement {
+
+        private final Map<String, Integer> references = new HashMap<>();
+        private int schemas;
+        private int depth;
+
+        private int reference(String reference, int parentDepth) {
+            references.merge(reference, parentDepth, Math::max);
+            return parentDepth;
+        }
+
+        int getSchemas() {
+            return schemas;
+        }
+
+        int getDepth() {
+            return depth;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Writes files which allow to serve the specification cheaply: a copy of each specification file named by hash of its
+ * content, which can be cached by browsers indefinitely, gzip variants of both and a manifest with ETag and size of
+ * the files. Copies with hashes of previous contents are removed.
+ * <p>
+ * Gzip variants are written without modification time, so they are the same for the same content.
+ */
+final class SpecificationArtifacts {
+
+    static final String MANIFEST_FILE_NAME = "api-manifest.json";
+
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int HASH_LENGTH = 16;
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path directory;
+    private final String baseName;
+    private final boolean gzip;
+
+    /**
+     * @param directory directory of the specification files
+     * @param baseName  name of the specification files, without extension
+     * @param gzip      writes gzip variants of the files
+     */
+    SpecificationArtifacts(Path directory, String baseName, boolean gzip) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Writes artifacts of the specification files of the given formats.
+     *
+     * @return names of the content hashed copies by format
+     */
+    Map<OutputFormat, String> write(List<OutputFormat> formats) throws IOException {
+        Map<OutputFormat, String> hashedFileNames = new LinkedHashMap<>();
+        ObjectNode manifest = MAPPER.createObjectNode();
+        ObjectNode files = manifest.putObject("files");
+        for (OutputFormat format : formats) {
+            String fileName = baseName + "." + format.getExtension();
+            byte[] content = Files.readAllBytes(directory.resolve(fileName));
+            String hash = hash(content);
+            String hashedFileName = baseName + "." + hash + "." + format.getExtension();
+            removeOutdatedCopies(format, hashedFileName);
+            OutputFiles.writeIfChanged(directory.resolve(hashedFileName), content);
+            ObjectNode file = files.putObject(fileName)
+                    .put("hashedName", hashedFileName)
+                    .put("etag", "\"" + hash + "\"")
+                    .put("size", content.length);
+            if (gzip) {
+                byte[] compressedContent = OutputFiles.gzip(content);
+                OutputFiles.writeIfChanged(directory.resolve(fileName + GZIP_EXTENSION), compressedContent);
+                OutputFiles.writeIfChanged(directory.resolve(hashedFileName + GZIP_EXTENSION), compressedContent);
+                file.put("gzipSize", compressedContent.length);
+            } else {
+                Files.deleteIfExists(directory.resolve(fileName + GZIP_EXTENSION));
+                Files.deleteIfExists(directory.resolve(hashedFileName + GZIP_EXTENSION));
+            }
+            hashedFileNames.put(format, hashedFileName);
+        }
+        OutputFiles.writeIfChanged(directory.resolve(MANIFEST_FILE_NAME), MAPPER.writeValueAsBytes(manifest));
+        return hashedFileNames;
+    }
+
+    /**
+     * Returns names of all files listed in the manifest in the directory: the specification files, their content hashed
+     * copies and gzip variants of both, if written. Returns an empty list if there is no manifest.
+     */
+    static List<String> readManifestFileNames(Path directory) throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST_FILE_NAME);
+        List<String> fileNames = new ArrayList<>();
+        if (!Files.isRegularFile(manifestFile)) {
+            return fileNames;
+        }
+        JsonNode files = MAPPER.readTree(manifestFile.toFile()).path("files");
+        Iterator<Map.Entry<String, JsonNode>> entries = files.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            String hashedFileName = entry.getValue().path("hashedName").asText();
+            fileNames.add(entry.getKey());
+            fileNames.add(hashedFileName);
+            if (entry.getValue().has("gzipSize")) {
+                fileNames.add(entry.getKey() + GZIP_EXTENSION);
+                fileNames.add(hashedFileName + GZIP_EXTENSION);
+            }
+        }
+        return fileNames;
+    }
+
+    private void removeOutdatedCopies(OutputFormat format, String hashedFileName) throws IOException {
+        Pattern hashedFileNamePattern = Pattern.compile(Pattern.quote(baseName) + "\\.[0-9a-f]{" + HASH_LENGTH + "}\\." +
+                Pattern.quote(format.getExtension()) + "(" + Pattern.quote(GZIP_EXTENSION) + ")?");
+        List<Path> outdatedCopies = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (hashedFileNamePattern.matcher(name).matches() && !name.startsWith(hashedFileName)) {
+                    outdatedCopies.add(file);
+                }
+            }
+        }
+        for (Path outdatedCopy : outdatedCopies) {
+            Files.deleteIfExists(outdatedCopy);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return String.format("%064x", new BigInteger(1, digest)).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+}
@@ -0,0 +1,523 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
+import org.apache.commons.lang3.StringUtils;
+import pl.ds.websight.openapi.GenerationReport.Phase;
+import pl.ds.websight.openapi.RestActionsToOpenApiPathsConverter.PathItemConsumer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Generation of OpenAPI specification independent of Maven: discovery of the actions of a module, their conversion and
+ * writing of the specification files, their artifacts and the API HTML page. The mojos configure it from their
+ * parameters and {@link OpenApiCli} from its options.
+ * <p>
+ * Once configured, the generator may generate specifications of many modules at once from different threads, each
+ * module is converted with its own components registry and class metadata cache.
+ */
+final class SpecificationGenerator {
+
+    static final String API_SPECIFICATION_FILE_BASE_NAME = "api";
+    static final String API_HTML_PAGE_FILE_NAME = "api.html";
+    static final String API_HTML_PAGE_TEMPLATE = "/api.html";
+    static final String SHARDED_API_HTML_PAGE_TEMPLATE = "/api-sharded.html";
+    static final String API_REPORT_FILE_NAME = "api-report.json";
+    static final String API_PAYLOAD_COST_FILE_NAME = "api-payload-cost.json";
+
+    private static final Pattern TEMPLATE_VARIABLE = Pattern.compile("\\$\\{(\\w+)}");
+
+    private final GenerationLog log;
+    private Set<String> actionPackages;
+    private List<OutputFormat> outputFormats = Collections.singletonList(OutputFormat.YAML);
+    private int conversionParallelism = 1;
+    private boolean gzip = true;
+    private boolean verbose = true;
+    private boolean payloadCost = true;
+    private int assumedCollectionSize = 100;
+    private SwaggerUi.Mode swaggerUi = SwaggerUi.Mode.CDN;
+    private boolean inlineSpecification;
+    private String latencyOverlayUrl;
+    private SpecificationShards.Grouping sharding;
+    private PayloadBudget payloadBudget = new PayloadBudget(null, null, null, null);
+    private boolean failOnBudgetViolation;
+    private int reportSlowestActions = 10;
+
+    SpecificationGenerator(GenerationLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Packages (including subpackages) to which discovery of actions is limited, all classes are scanned if empty.
+     */
+    SpecificationGenerator actionPackages(Set<String> actionPackages) {
+        this.actionPackages = actionPackages;
+        return this;
+    }
+
+    /**
+     * Formats of the specification files, at least one of them has to be textual.
+     */
+    SpecificationGenerator outputFormats(List<OutputFormat> outputFormats) {
+        this.outputFormats = outputFormats;
+        return this;
+    }
+
+    SpecificationGenerator conversionParallelism(int conversionParallelism) {
+        this.conversionParallelism = conversionParallelism;
+        return this;
+    }
+
+    SpecificationGenerator gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    SpecificationGenerator verbose(boolean verbose) {
+        this.verbose = verbose;
+        return this;
+    }
+
+    SpecificationGenerator payloadCost(boolean payloadCost) {
+        this.payloadCost = payloadCost;
+        return this;
+    }
+
+    SpecificationGenerator assumedCollectionSize(int assumedCollectionSize) {
+        this.assumedCollectionSize = assumedCollectionSize;
+        return this;
+    }
+
+    SpecificationGenerator swaggerUi(SwaggerUi.Mode swaggerUi) {
+        this.swaggerUi = swaggerUi;
+        return this;
+    }
+
+    SpecificationGenerator inlineSpecification(boolean inlineSpecification) {
+        this.inlineSpecification = inlineSpecification;
+        return this;
+    }
+
+    SpecificationGenerator latencyOverlayUrl(String latencyOverlayUrl) {
+        this.latencyOverlayUrl = latencyOverlayUrl;
+        return this;
+    }
+
+    /**
+     * Grouping of the shards of the specification, {@code null} to write no shards.
+     */
+    SpecificationGenerator sharding(SpecificationShards.Grouping sharding) {
+        this.sharding = sharding;
+        return this;
+    }
+
+    SpecificationGenerator payloadBudget(PayloadBudget payloadBudget, boolean failOnBudgetViolation) {
+        this.payloadBudget = payloadBudget;
+        this.failOnBudgetViolation = failOnBudgetViolation;
+        return this;
+    }
+
+    SpecificationGenerator reportSlowestActions(int reportSlowestActions) {
+        this.reportSlowestActions = reportSlowestActions;
+        return this;
+    }
+
+    List<OutputFormat> getOutputFormats() {
+        return outputFormats;
+    }
+
+    /**
+     * Parses comma separated formats of the specification files, of which at least one has to be {@code yaml} or
+     * {@code json}, as the API HTML page uses the first of them.
+     */
+    static List<OutputFormat> parseOutputFormats(String outputFormats) throws GenerationException {
+        List<OutputFormat> formats;
+        try {
+            formats = Arrays.stream(outputFormats.split(","))
+                    .filter(StringUtils::isNotBlank)
+                    .map(OutputFormat::of)
+                    .distinct()
+                    .collect(toList());
+        } catch (IllegalArgumentException e) {
+            throw new GenerationException(e.getMessage(), e);
+        }
+        if (formats.stream().noneMatch(OutputFormat::isTextual)) {
+            throw new GenerationException("The 'outputFormats' configuration must contain 'yaml' or 'json'");
+        }
+        return formats;
+    }
+
+    static String getSpecificationFileName(OutputFormat format) {
+        return API_SPECIFICATION_FILE_BASE_NAME + "." + format.getExtension();
+    }
+
+    /**
+     * Returns format of the specification files loaded by the API HTML page.
+     */
+    static OutputFormat getHtmlPageFormat(List<OutputFormat> formats) {
+        return formats.stream()
+                .filter(OutputFormat::isTextual)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    static OpenAPI createOpenApi(String title, String version) {
+        return new OpenAPI().info(new Info().title(title).version(version));
+    }
+
+    static void createDirectory(File directory) throws GenerationException {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            throw new GenerationException("Could not create output directory: " + directory.getPath(), e);
+        }
+    }
+
+    /**
+     * Generates specification of the module and its API HTML page to the directory, together with the payload cost
+     * report checked against the budget.
+     *
+     * @return report of the generation
+     */
+    GenerationReport generate(Module module, File directory) throws GenerationException {
+        SpecificationShards shards = sharding != null ? new SpecificationShards(sharding) : null;
+        GenerationReport generationReport = new GenerationReport();
+        PayloadCostReport costReport = payloadCost ? new PayloadCostReport(payloadBudget) : null;
+        long start = System.nanoTime();
+        Set<String> restActionClassNames = discover(module);
+        generationReport.addPhaseTime(Phase.DISCOVERY, System.nanoTime() - start);
+        createDirectory(directory);
+        ComponentsRegistry registry = new ComponentsRegistry();
+        generateAndSaveApiSpecification(module, directory, restActionClassNames, registry, shards, generationReport,
+                costReport);
+        start = System.nanoTime();
+        String htmlPageSpecificationFileName = saveSpecificationArtifacts(directory);
+        if (shards != null) {
+            saveShards(module, directory, shards, registry);
+        }
+        generationReport.addPhaseTime(Phase.SERIALIZATION, System.nanoTime() - start);
+        start = System.nanoTime();
+        if (shards != null) {
+            saveApiHtmlPage(directory, SHARDED_API_HTML_PAGE_TEMPLATE, module.title, SpecificationShards.INDEX_FILE_NAME);
+        } else {
+            saveApiHtmlPage(directory, API_HTML_PAGE_TEMPLATE, module.title, htmlPageSpecificationFileName);
+        }
+        generationReport.addPhaseTime(Phase.HTML_PAGE, System.nanoTime() - start);
+        generationReport.complete(registry);
+        log.info(generationReport.getSummary(reportSlowestActions));
+        if (costReport != null) {
+            savePayloadCostReport(directory, costReport);
+            checkPayloadBudget(costReport);
+        }
+        return generationReport;
+    }
+
+    /**
+     * Saves timing report of the generation next to the specification.
+     */
+    void saveReport(File directory, GenerationReport generationReport) throws GenerationException {
+        File reportFile = new File(directory, API_REPORT_FILE_NAME);
+        try {
+            generationReport.save(reportFile.toPath());
+        } catch (IOException e) {
+            throw new GenerationException("Could not save generation report: " + reportFile, e);
+        }
+    }
+
+    private Set<String> discover(Module module) throws GenerationException {
+        RestActionDiscovery.Result result;
+        try {
+            result = new RestActionDiscovery(actionPackages).discover(module.classesDirectory, module.scannedJars);
+        } catch (IOException e) {
+            throw new GenerationException("Could not scan classes for actions", e);
+        }
+        log.info("Actions discovery: " + result.getReport());
+        for (String index : result.getReport().getIgnoredIndexes()) {
+            log.warn("Action index " + index + " does not list all classes next to it, they were scanned instead. " +
+                    "Compile all sources of the module with the annotation processor to use the index again.");
+        }
+        return result.getClassNames();
+    }
+
+    private void generateAndSaveApiSpecification(Module module, File directory, Set<String> restActionClassNames,
+            ComponentsRegistry registry, SpecificationShards shards, GenerationReport generationReport,
+            PayloadCostReport costReport) throws GenerationException {
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(directory.toPath(), API_SPECIFICATION_FILE_BASE_NAME, outputFormats)) {
+            long start = System.nanoTime();
+            writer.writeStart(createOpenApi(module.title, module.version));
+            generationReport.addPhaseTime(Phase.SERIALIZATION, System.nanoTime() - start);
+            if (!restActionClassNames.isEmpty()) {
+                start = System.nanoTime();
+                log.debug("Extending class loader by module dependencies classes");
+                ClassLoaderCache.Lease classLoaderLease = module.classLoaderProvider.acquire();
+                generationReport.addPhaseTime(Phase.CLASS_LOADER, System.nanoTime() - start);
+                try {
+                    ClassLoader classLoader = classLoaderLease.getClassLoader();
+                    ClassMetadataCache metadata = new ClassMetadataCache();
+                    start = System.nanoTime();
+                    long serializationStart = generationReport.getPhaseTime(Phase.SERIALIZATION);
+                    convertRestActions(loadRestActionClasses(restActionClassNames, classLoader), module.artifactId,
+                            registry, metadata, classLoader, generationReport, (actionClass, path, pathItem) -> {
+                                long writeStart = System.nanoTime();
+                                writer.writePath(path, pathItem);
+                                if (shards != null) {
+                                    shards.add(actionClass, path, pathItem);
+                                }
+                                if (costReport != null) {
+                                    costReport.addAction(actionClass, path, pathItem);
+                                }
+                                generationReport.addPhaseTime(Phase.SERIALIZATION, System.nanoTime() - writeStart);
+                            });
+                    long serialization = generationReport.getPhaseTime(Phase.SERIALIZATION) - serializationStart;
+                    generationReport.addPhaseTime(Phase.CONVERSION, System.nanoTime() - start - serialization);
+                    log.debug("Class metadata cache: " + metadata.getHits() + " hits, " + metadata.getMisses() + " misses");
+                } finally {
+                    releaseClassLoader(classLoaderLease);
+                }
+            }
+            start = System.nanoTime();
+            writer.writeEnd(registry.toComponents());
+            commitSpecification(writer, directory);
+            generationReport.addPhaseTime(Phase.SERIALIZATION, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new GenerationException("Error while saving OpenAPI specification file", e);
+        }
+    }
+
+    private void saveShards(Module module, File directory, SpecificationShards shards, ComponentsRegistry registry)
+            throws GenerationException {
+        try {
+            shards.write(directory.toPath(), createOpenApi(module.title, module.version), registry,
+                    getHtmlPageFormat(outputFormats));
+        } catch (IOException e) {
+            throw new GenerationException("Could not save OpenAPI specification shards", e);
+        }
+        log.info("OpenAPI specification shards saved to " +
+                new File(directory, SpecificationShards.SHARDS_DIRECTORY_NAME).getAbsolutePath());
+    }
+
+    private void savePayloadCostReport(File directory, PayloadCostReport costReport) throws GenerationException {
+        File costReportFile = new File(directory, API_PAYLOAD_COST_FILE_NAME);
+        try {
+            costReport.save(costReportFile.toPath());
+        } catch (IOException e) {
+            throw new GenerationException("Could not save payload cost report: " + costReportFile, e);
+        }
+    }
+
+    private void checkPayloadBudget(PayloadCostReport costReport) throws GenerationException {
+        List<String> violations = costReport.getViolations();
+        if (violations.isEmpty()) {
+            return;
+        }
+        String message = "Payload budget exceeded by " + violations.size() + " operations:\n  " +
+                String.join("\n  ", violations);
+        if (failOnBudgetViolation) {
+            throw new GenerationException(message);
+        }
+        log.warn(message);
+    }
+
+    /**
+     * Writes content hashed copies, gzip variants and manifest of the specification files.
+     *
+     * @return name of the content hashed specification file loaded by the API HTML page
+     */
+    String saveSpecificationArtifacts(File outputDirectory) throws GenerationException {
+        Map<OutputFormat, String> hashedFileNames;
+        try {
+            hashedFileNames = new SpecificationArtifacts(outputDirectory.toPath(), API_SPECIFICATION_FILE_BASE_NAME, gzip)
+                    .write(outputFormats);
+        } catch (IOException e) {
+            throw new GenerationException("Could not save OpenAPI specification artifacts", e);
+        }
+        return hashedFileNames.get(getHtmlPageFormat(outputFormats));
+    }
+
+    Set<Class<?>> loadRestActionClasses(Collection<String> classNames, ClassLoader classLoader)
+            throws GenerationException {
+        Set<Class<?>> restActionClasses = new LinkedHashSet<>();
+        for (String className : classNames) {
+            try {
+                restActionClasses.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new GenerationException("Could not load action class " + className, e);
+            }
+        }
+        return restActionClasses;
+    }
+
+    /**
+     * Converts actions of the module with the given artifact ID, passing converted paths to the consumer in path order.
+     *
+     * @param report report to which conversion time of each action is added, may be {@code null}
+     */
+    void convertRestActions(Set<Class<?>> restActionClasses, String artifactId, ComponentsRegistry registry,
+            ClassMetadataCache metadata, ClassLoader classLoader, GenerationReport report, PathItemConsumer consumer)
+            throws GenerationException, IOException {
+        PayloadCostAnalyzer costAnalyzer = payloadCost ? new PayloadCostAnalyzer(metadata, assumedCollectionSize) : null;
+        RestActionToOpenApiPathConverter converter =
+                new RestActionToOpenApiPathConverter(log, artifactId, registry, metadata, verbose, costAnalyzer);
+        try {
+            new RestActionsToOpenApiPathsConverter(converter, log, conversionParallelism, classLoader, report)
+                    .convert(restActionClasses, consumer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenerationException("Actions conversion interrupted", e);
+        } catch (ExecutionException e) {
+            throw new GenerationException("Could not convert actions", e.getCause());
+        }
+    }
+
+    /**
+     * Finishes the specification files of the writer and logs which of them changed.
+     */
+    void commitSpecification(OpenApiStreamWriter writer, File outputDirectory) throws IOException {
+        List<Path> replacedFiles = writer.commit();
+        for (OutputFormat format : outputFormats) {
+            File file = new File(outputDirectory, getSpecificationFileName(format));
+            if (replacedFiles.contains(file.toPath())) {
+                log.info("OpenAPI specification saved to " + file.getAbsolutePath());
+            } else {
+                log.info("OpenAPI specification is unchanged: " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    void releaseClassLoader(ClassLoaderCache.Lease lease) {
+        try {
+            lease.release();
+        } catch (IOException e) {
+            log.debug("Could not close class loader", e);
+        }
+    }
+
+    /**
+     * Saves the API HTML page from the template, together with Swagger UI files if they are loaded from the output
+     * directory.
+     *
+     * @param specificationFileName name of the file loaded by the page, the specification or the index of its shards
+     */
+    void saveApiHtmlPage(File outputDirectory, String template, String title, String specificationFileName)
+            throws GenerationException {
+        try {
+            SwaggerUi ui = new SwaggerUi(swaggerUi);
+            ui.writeAssets(outputDirectory.toPath(), gzip);
+            Map<String, String> variables = new HashMap<>();
+            variables.put("title", title);
+            variables.put("specificationFileName", specificationFileName);
+            variables.put("swaggerUiStyles", ui.getStyles());
+            variables.put("swaggerUiScripts", ui.getScripts());
+            boolean sharded = SHARDED_API_HTML_PAGE_TEMPLATE.equals(template);
+            if (StringUtils.isNotBlank(latencyOverlayUrl) && !sharded) {
+                variables.put("specification",
+                        "url: " + new ObjectMapper().writeValueAsString(latencyOverlayUrl).replace("</", "<\\/"));
+            } else if (inlineSpecification && !sharded) {
+                variables.put("specification",
+                        "spec: " + readSpecificationAsJson(new File(outputDirectory, specificationFileName)));
+            } else {
+                variables.put("specification", "url: \"./" + specificationFileName + "\"");
+            }
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(getClass().getResourceAsStream(template), StandardCharsets.UTF_8));
+            String pageHtml = replaceVariables(reader.lines().collect(joining()), variables);
+            byte[] content = pageHtml.getBytes(StandardCharsets.UTF_8);
+            Path pageFile = new File(outputDirectory, API_HTML_PAGE_FILE_NAME).toPath();
+            OutputFiles.writeIfChanged(pageFile, content);
+            Path compressedPageFile = pageFile.resolveSibling(API_HTML_PAGE_FILE_NAME + ".gz");
+            if (gzip) {
+                OutputFiles.writeIfChanged(compressedPageFile, OutputFiles.gzip(content));
+            } else {
+                Files.deleteIfExists(compressedPageFile);
+            }
+        } catch (IOException e) {
+            throw new GenerationException("Could not save API HTML file", e);
+        }
+    }
+
+    /**
+     * Replaces {@code ${name}} variables of the template in a single pass, so values are never scanned for variables.
+     */
+    static String replaceVariables(String template, Map<String, String> variables) {
+        Matcher matcher = TEMPLATE_VARIABLE.matcher(template);
+        StringBuffer result = new StringBuffer(template.length());
+        while (matcher.find()) {
+            String value = variables.getOrDefault(matcher.group(1), matcher.group());
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        return matcher.appendTail(result).toString();
+    }
+
+    private static String readSpecificationAsJson(File specificationFile) throws IOException {
+        String fileName = specificationFile.getName();
+        OutputFormat format = OutputFormat.of(fileName.substring(fileName.lastIndexOf('.') + 1));
+        JsonNode specification = new ObjectMapper(format.createFactory()).readTree(specificationFile);
+        return new ObjectMapper().writeValueAsString(specification).replace("</", "<\\/");
+    }
+
+    /**
+     * Provides class loader of the module classes and their dependencies. It is acquired only if the module has
+     * actions and released as soon as they are converted.
+     */
+    @FunctionalInterface
+    interface ClassLoaderProvider {
+
+        ClassLoaderCache.Lease acquire() throws GenerationException;
+
+    }
+
+    /**
+     * Module which specification is generated: its classes directory and jars scanned for actions, the class loader
+     * of the actions and their dependencies, and the artifact ID prefixing paths of the actions.
+     */
+    static final class Module {
+
+        private final String artifactId;
+        private final String title;
+        private final String version;
+        private final Path classesDirectory;
+        private final Collection<File> scannedJars;
+        private final ClassLoaderProvider classLoaderProvider;
+
+        /**
+         * @param classesDirectory directory of the module classes, {@code null} if the actions are in the jars
+         */
+        Module(String artifactId, String title, String version, Path classesDirectory, Collection<File> scannedJars,
+                ClassLoaderProvider classLoaderProvider) {
+            this.artifactId = artifactId;
+            this.title = title;
+            this.version = version;
+            this.classesDirectory = classesDirectory;
+            this.scannedJars = scannedJars;
+            this.classLoaderProvider = classLoaderProvider;
+        }
+
+        String getArtifactId() {
+            return artifactId;
+        }
+
+    }
+
+}
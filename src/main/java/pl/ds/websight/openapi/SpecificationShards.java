@@ -0,0 +1,153 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Specification split into shards, each with paths of one group of actions and components they refer to, and an index
+ * listing the shards. It allows the API HTML page to load only the index first and fetch each shard when its section is
+ * opened.
+ * <p>
+ * Paths are collected in memory while actions are converted, shards are written in parallel once all of them are
+ * converted.
+ */
+class SpecificationShards {
+
+    static final String INDEX_FILE_NAME = "api-index.json";
+    static final String SHARDS_DIRECTORY_NAME = "api-shards";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Ways of grouping actions into shards.
+     */
+    enum Grouping {
+
+        /**
+         * Actions are grouped by the first word of the action name, e.g. {@code user} for {@code user-details.action}.
+         */
+        PREFIX,
+        /**
+         * Actions are grouped by the last segment of their package name.
+         */
+        PACKAGE;
+
+        static Grouping of(String name) {
+            for (Grouping grouping : values()) {
+                if (grouping.name().equalsIgnoreCase(name)) {
+                    return grouping;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sharding: " + name);
+        }
+
+    }
+
+    private final Grouping grouping;
+    private final SortedMap<String, Map<String, PathItem>> shards = new TreeMap<>();
+
+    SpecificationShards(Grouping grouping) {
+        this.grouping = grouping;
+    }
+
+    void add(Class<?> actionClass, String path, PathItem pathItem) {
+        shards.computeIfAbsent(getShardName(actionClass, path), name -> new LinkedHashMap<>()).put(path, pathItem);
+    }
+
+    /**
+     * Writes shards and their index to the directory, removing shards of the previous generation which are gone.
+     */
+    void write(Path directory, OpenAPI openApi, ComponentsRegistry registry, OutputFormat format) throws IOException {
+        Path shardsDirectory = directory.resolve(SHARDS_DIRECTORY_NAME);
+        Files.createDirectories(shardsDirectory);
+        removeOutdatedShards(shardsDirectory, format);
+        try {
+            shards.entrySet().parallelStream().forEach(shard -> {
+                try {
+                    writeShard(shardsDirectory, shard.getKey(), shard.getValue(), openApi, registry, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write shard " + shard.getKey(), e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        ObjectNode index = MAPPER.createObjectNode();
+        index.put("title", openApi.getInfo().getTitle());
+        index.put("version", openApi.getInfo().getVersion());
+        ArrayNode shardsNode = index.putArray("shards");
+        shards.forEach((name, paths) -> shardsNode.addObject()
+                .put("name", name)
+                .put("url", SHARDS_DIRECTORY_NAME + "/" + name + "." + format.getExtension())
+                .put("paths", paths.size()));
+        OutputFiles.writeIfChanged(directory.resolve(INDEX_FILE_NAME), MAPPER.writeValueAsBytes(index));
+    }
+
+    private static void writeShard(Path shardsDirectory, String name, Map<String, PathItem> paths, OpenAPI openApi,
+            ComponentsRegistry registry, OutputFormat format) throws IOException {
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(shardsDirectory, name, Collections.singletonList(format))) {
+            writer.writeStart(openApi);
+            Set<String> references = new HashSet<>();
+            for (Map.Entry<String, PathItem> path : paths.entrySet()) {
+                writer.writePath(path.getKey(), path.getValue());
+                references.addAll(ComponentsRegistry.findReferences(path.getValue()));
+            }
+            writer.writeEnd(registry.toComponents(references));
+            writer.commit();
+        }
+    }
+
+    private void removeOutdatedShards(Path shardsDirectory, OutputFormat format) throws IOException {
+        List<Path> outdatedShards;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardsDirectory)) {
+            outdatedShards = StreamSupport.stream(files.spliterator(), false)
+                    .filter(file -> !shards.containsKey(getBaseName(file, format)))
+                    .collect(toList());
+        }
+        for (Path outdatedShard : outdatedShards) {
+            Files.deleteIfExists(outdatedShard);
+        }
+    }
+
+    private static String getBaseName(Path file, OutputFormat format) {
+        String fileName = file.getFileName().toString();
+        String extension = "." + format.getExtension();
+        return fileName.endsWith(extension) ? fileName.substring(0, fileName.length() - extension.length()) : fileName;
+    }
+
+    private String getShardName(Class<?> actionClass, String path) {
+        String name;
+        if (grouping == Grouping.PACKAGE) {
+            String packageName = actionClass.getPackage() != null ? actionClass.getPackage().getName() : "";
+            name = packageName.substring(packageName.lastIndexOf('.') + 1);
+        } else {
+            String actionName = path.substring(path.lastIndexOf('/') + 1);
+            name = actionName.split("[-.]", 2)[0];
+        }
+        name = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_");
+        return name.isEmpty() ? "default" : name;
+    }
+
+}
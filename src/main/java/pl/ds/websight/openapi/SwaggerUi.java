@@ -0,0 +1,171 @@
+package pl.ds.websight.openapi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Swagger UI used by the API HTML page. The distribution is shipped with the plugin as the {@code org.webjars:swagger-ui}
+ * dependency, so the page can be served without access to the internet. Its files are already minified.
+ */
+final class SwaggerUi {
+
+    static final String ASSETS_DIRECTORY_NAME = "swagger-ui";
+
+    private static final String WEBJAR_PROPERTIES = "/META-INF/maven/org.webjars/swagger-ui/pom.properties";
+    private static final String WEBJAR_RESOURCES = "/META-INF/resources/webjars/swagger-ui/";
+    private static final String CDN_URL = "https://cdnjs.cloudflare.com/ajax/libs/swagger-ui/";
+    private static final String FONTS_URL =
+            "https://fonts.googleapis.com/css?family=Open+Sans:400,700|Source+Code+Pro:300,600|Titillium+Web:400,600,700";
+    private static final String STYLES = "swagger-ui.css";
+    private static final String[] SCRIPTS = {"swagger-ui-bundle.js", "swagger-ui-standalone-preset.js"};
+    private static final Pattern SOURCE_MAP_COMMENT = Pattern.compile("\\n?/[*/]# sourceMappingURL=[^\\n]*");
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * Ways of loading Swagger UI by the API HTML page.
+     */
+    enum Mode {
+
+        /**
+         * Swagger UI and fonts are loaded from public CDNs.
+         */
+        CDN,
+        /**
+         * Swagger UI is loaded from its files written next to the specification.
+         */
+        BUNDLED,
+        /**
+         * Swagger UI is embedded in the page.
+         */
+        INLINED;
+
+        static Mode of(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown Swagger UI mode: " + name);
+        }
+
+    }
+
+    private final Mode mode;
+    private final String version;
+
+    SwaggerUi(Mode mode) throws IOException {
+        this.mode = mode;
+        this.version = readVersion();
+    }
+
+    /**
+     * Returns HTML elements loading Swagger UI styles.
+     */
+    String getStyles() throws IOException {
+        switch (mode) {
+            case CDN:
+                return "<link href=\"" + FONTS_URL + "\" rel=\"stylesheet\">" +
+                        "<link rel=\"stylesheet\" type=\"text/css\" href=\"" + CDN_URL + version + "/" + STYLES + "\">";
+            case BUNDLED:
+                return "<link rel=\"stylesheet\" type=\"text/css\" href=\"./" + ASSETS_DIRECTORY_NAME + "/" + STYLES + "\">";
+            default:
+                return "<style>" + readAsset(STYLES).replace("</style", "<\\/style") + "</style>";
+        }
+    }
+
+    /**
+     * Returns HTML elements loading Swagger UI scripts.
+     */
+    String getScripts() throws IOException {
+        StringBuilder scripts = new StringBuilder();
+        for (String script : SCRIPTS) {
+            switch (mode) {
+                case CDN:
+                    scripts.append("<script src=\"").append(CDN_URL).append(version).append('/').append(script)
+                            .append("\"> </script>");
+                    break;
+                case BUNDLED:
+                    scripts.append("<script src=\"./").append(ASSETS_DIRECTORY_NAME).append('/').append(script)
+                            .append("\"> </script>");
+                    break;
+                default:
+                    scripts.append("<script>").append(readAsset(script).replace("</script", "<\\/script"))
+                            .append("</script>");
+            }
+        }
+        return scripts.toString();
+    }
+
+    /**
+     * Writes Swagger UI files to the {@code swagger-ui} subdirectory when they are loaded from there, and removes them
+     * otherwise.
+     *
+     * @param gzip writes gzip variants of the files
+     */
+    void writeAssets(Path directory, boolean gzip) throws IOException {
+        Path assetsDirectory = directory.resolve(ASSETS_DIRECTORY_NAME);
+        if (mode != Mode.BUNDLED) {
+            if (Files.isDirectory(assetsDirectory)) {
+                for (String asset : getAssets()) {
+                    Files.deleteIfExists(assetsDirectory.resolve(asset));
+                    Files.deleteIfExists(assetsDirectory.resolve(asset + GZIP_EXTENSION));
+                }
+                Files.deleteIfExists(assetsDirectory);
+            }
+            return;
+        }
+        Files.createDirectories(assetsDirectory);
+        for (String asset : getAssets()) {
+            byte[] content = readAsset(asset).getBytes(StandardCharsets.UTF_8);
+            OutputFiles.writeIfChanged(assetsDirectory.resolve(asset), content);
+            if (gzip) {
+                OutputFiles.writeIfChanged(assetsDirectory.resolve(asset + GZIP_EXTENSION), OutputFiles.gzip(content));
+            } else {
+                Files.deleteIfExists(assetsDirectory.resolve(asset + GZIP_EXTENSION));
+            }
+        }
+    }
+
+    private static String[] getAssets() {
+        String[] assets = new String[SCRIPTS.length + 1];
+        assets[0] = STYLES;
+        System.arraycopy(SCRIPTS, 0, assets, 1, SCRIPTS.length);
+        return assets;
+    }
+
+    /**
+     * Reads the file of the distribution, without the source map reference, as source maps are not shipped.
+     */
+    private String readAsset(String name) throws IOException {
+        try (InputStream input = SwaggerUi.class.getResourceAsStream(WEBJAR_RESOURCES + version + "/" + name)) {
+            if (input == null) {
+                throw new IOException("Swagger UI file not found: " + name);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return SOURCE_MAP_COMMENT.matcher(new String(content.toByteArray(), StandardCharsets.UTF_8)).replaceAll("");
+        }
+    }
+
+    private static String readVersion() throws IOException {
+        try (InputStream input = SwaggerUi.class.getResourceAsStream(WEBJAR_PROPERTIES)) {
+            if (input == null) {
+                throw new IOException("Swagger UI distribution not found: " + WEBJAR_PROPERTIES);
+            }
+            Properties properties = new Properties();
+            properties.load(input);
+            return properties.getProperty("version");
+        }
+    }
+
+}
@@ -1,32 +1,36 @@
 package pl.ds.websight.openapi;
 
-import io.swagger.v3.oas.models.media.ArraySchema;
-import io.swagger.v3.oas.models.media.BooleanSchema;
-import io.swagger.v3.oas.models.media.IntegerSchema;
-import io.swagger.v3.oas.models.media.NumberSchema;
-import io.swagger.v3.oas.models.media.ObjectSchema;
 import io.swagger.v3.oas.models.media.Schema;
-import io.swagger.v3.oas.models.media.StringSchema;
-import pl.ds.websight.openapi.model.EnumSchema;
+import pl.ds.websight.openapi.ClassMetadataCache.BeanProperty;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Method;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toSet;
 
+/**
+ * Conversion of Java types to OpenAPI schemas. It is stateless, so it can be used by many threads at once. Response
+ * classes are converted once per run and referenced from {@link ComponentsRegistry}, their properties are taken from
+ * {@link ClassMetadataCache}. Schemas are taken from {@link SchemaInterner}, so they are shared and must not be modified.
+ * <p>
+ * Type variables of generic response classes are resolved through nested beans, collections and maps, so each
+ * parameterization of a generic class, e.g. {@code Page<UserDto>}, is converted to a schema with properties of the
+ * actual types. Parameterizations with type arguments nested deeper than {@value #MAX_TYPE_ARGUMENT_DEPTH} levels are
+ * converted as their raw classes, as a class may reference its own parameterization with a nested type argument, e.g.
+ * {@code Node<List<T>>} in {@code Node<T>}, so each of its parameterizations would reference a new one.
+ */
 class TypeUtil {
 
-    private static final Set<Class<?>> JAVA_LANG_CLASSES = Stream.of(Object.class, Enum.class).collect(toSet());
+    private static final int MAX_TYPE_ARGUMENT_DEPTH = 5;
     private static final Set<Class<?>> INTEGER_NUMBER_CLASSES = Stream.of(byte.class, short.class, int.class, long.class).collect(toSet());
     private static final Set<Class<?>> DECIMAL_NUMBER_CLASSES =
             Stream.of(Double.class, double.class, Float.class, float.class).collect(toSet());
@@ -35,152 +39,146 @@ class TypeUtil {
         // no instances
     }
 
-    static Schema<?> javaTypeToSchema(Type type, Boolean required) {
+    static Schema<?> javaTypeToSchema(SchemaInterner interner, Type type, Boolean required) {
         if (type instanceof ParameterizedType) {
             Type rawType = ((ParameterizedType) type).getRawType();
             if (rawType instanceof Class && Collection.class.isAssignableFrom(((Class<?>) rawType))) {
-                ArraySchema arraySchema = new ArraySchema();
                 Type[] actualTypeArguments = ((ParameterizedType) type).getActualTypeArguments();
-                if (actualTypeArguments.length == 1) {
-                    arraySchema.setItems(javaTypeToSchema(actualTypeArguments[0], required));
-                }
-                return arraySchema;
+                return interner.array(actualTypeArguments.length == 1
+                        ? javaTypeToSchema(interner, actualTypeArguments[0], required)
+                        : null);
             }
         } else if (type instanceof Class) {
             Class<?> clazz = (Class<?>) type;
             if (clazz == String.class || clazz == char.class) {
-                return new StringSchema();
+                return interner.string();
             } else if (clazz == Boolean.class || clazz == boolean.class) {
-                return new BooleanSchema();
+                return interner.bool();
             } else if (clazz.isEnum()) {
                 @SuppressWarnings("unchecked")
                 Class<? extends Enum<?>> enumClass = (Class<? extends Enum<?>>) clazz;
-                return new EnumSchema(enumClass);
+                return interner.enumeration(enumClass);
             } else if (DECIMAL_NUMBER_CLASSES.contains(clazz)) {
-                return new NumberSchema().nullable(required);
+                return interner.number(required);
             } else if (Number.class.isAssignableFrom(clazz) || INTEGER_NUMBER_CLASSES.contains(clazz)) {
-                return new IntegerSchema().nullable(required);
+                return interner.integer(required);
             } else if (Date.class.isAssignableFrom(clazz) || Calendar.class.isAssignableFrom(clazz)) {
-                return new StringSchema();
+                return interner.string();
             } else if (Collection.class.isAssignableFrom(clazz)) { // raw collection or list
-                return new ArraySchema().items(new ObjectSchema());
+                return interner.array(interner.object());
             } else if (clazz.isArray()) {
-                ArraySchema arraySchema = new ArraySchema();
-                arraySchema.setItems(javaTypeToSchema(clazz.getComponentType(), required));
-                return arraySchema;
+                return interner.array(javaTypeToSchema(interner, clazz.getComponentType(), required));
             }
         }
-        return new ObjectSchema();
+        return interner.object();
     }
 
-    static Schema<?> javaResponseTypeToSchema(Type containingClassType, Type type) {
+    static Schema<?> javaResponseTypeToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, Type type) {
         if (type == Void.class) {
             return null;
         }
         if (type instanceof ParameterizedType) {
-            return parameterizedTypeToSchema(containingClassType, type);
+            return parameterizedTypeToSchema(registry, metadata, (ParameterizedType) type);
         }
         if (type instanceof Class) {
-            return rawClassToSchema(containingClassType, type);
+            return rawClassToSchema(registry, metadata, (Class<?>) type);
         }
-        return new ObjectSchema();
+        return registry.getInterner().object();
     }
 
-    private static Schema<Object> parameterizedTypeToSchema(Type containingClassType, Type type) {
-        Type rawType = ((ParameterizedType) type).getRawType();
+    private static Schema<?> parameterizedTypeToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, ParameterizedType type) {
+        Type rawType = type.getRawType();
         if (rawType instanceof Class) {
             Class<?> rawClass = (Class<?>) rawType;
             if (Collection.class.isAssignableFrom(rawClass)) {
-                return collectionClassToSchema(containingClassType, type);
+                return collectionClassToSchema(registry, metadata, type);
             } else if (Map.class.isAssignableFrom(rawClass)) {
-                return mapClassToSchema(containingClassType, type);
+                return mapClassToSchema(registry, metadata, type);
             }
+            if (getTypeArgumentDepth(type) > MAX_TYPE_ARGUMENT_DEPTH) {
+                return rawClassToSchema(registry, metadata, rawClass);
+            }
+            // parameterization of a generic bean, e.g. a page of DTOs, is a component of its own
+            return registry.schemaReference(type, () -> customObjectToSchema(registry, metadata, type));
         }
-        return new ObjectSchema();
+        return registry.getInterner().object();
     }
 
-    private static ArraySchema collectionClassToSchema(Type containingClassType, Type type) {
-        ArraySchema arraySchema = new ArraySchema();
-        Type[] actualTypeArguments = ((ParameterizedType) type).getActualTypeArguments();
-        if (actualTypeArguments.length == 1) {
-            if (containingClassType == actualTypeArguments[0]) {
-                // type embedded in itself, prevent recursion | TODO better idea? maybe components and $ref?
-                arraySchema.setItems(new ObjectSchema());
-            } else {
-                arraySchema.setItems(javaResponseTypeToSchema(type, actualTypeArguments[0]));
+    /**
+     * Returns how deep type arguments of the type are nested, e.g. 1 for {@code Page<UserDto>} and 2 for
+     * {@code Page<List<UserDto>>}.
+     */
+    private static int getTypeArgumentDepth(Type type) {
+        if (type instanceof ParameterizedType) {
+            int depth = 0;
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                depth = Math.max(depth, getTypeArgumentDepth(argument));
+            }
+            return depth + 1;
+        } else if (type instanceof GenericArrayType) {
+            return getTypeArgumentDepth(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            int depth = 0;
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                depth = Math.max(depth, getTypeArgumentDepth(bound));
             }
+            for (Type bound : ((WildcardType) type).getLowerBounds()) {
+                depth = Math.max(depth, getTypeArgumentDepth(bound));
+            }
+            return depth;
         }
-        return arraySchema;
+        return 0;
+    }
+
+    private static Schema<?> collectionClassToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, ParameterizedType type) {
+        Type[] actualTypeArguments = type.getActualTypeArguments();
+        return registry.getInterner().array(actualTypeArguments.length == 1
+                ? javaResponseTypeToSchema(registry, metadata, actualTypeArguments[0])
+                : null);
     }
 
-    private static ObjectSchema mapClassToSchema(Type containingClassType, Type type) {
-        ObjectSchema objectSchema = new ObjectSchema();
-        Type[] actualTypeArguments = ((ParameterizedType) type).getActualTypeArguments();
+    private static Schema<?> mapClassToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, ParameterizedType type) {
+        Type[] actualTypeArguments = type.getActualTypeArguments();
         if (actualTypeArguments.length == 2) {
-            if (containingClassType == actualTypeArguments[1]) {
-                // type embedded in itself, prevent recursion
-                objectSchema.additionalProperties(new ObjectSchema());
-            } else {
-                objectSchema.additionalProperties(javaResponseTypeToSchema(type, actualTypeArguments[1]));
-            }
+            return registry.getInterner().map(javaResponseTypeToSchema(registry, metadata, actualTypeArguments[1]));
         }
-        return objectSchema;
+        return registry.getInterner().object();
     }
 
-    private static Schema<?> rawClassToSchema(Type containingClassType, Type type) {
-        Class<?> clazz = (Class<?>) type;
+    private static Schema<?> rawClassToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, Class<?> clazz) {
+        SchemaInterner interner = registry.getInterner();
         if (clazz == String.class || clazz == char.class) {
-            return new StringSchema();
+            return interner.string();
         } else if (clazz == Boolean.class || clazz == boolean.class) {
-            return new BooleanSchema();
+            return interner.bool();
         } else if (clazz.isEnum()) {
             @SuppressWarnings("unchecked")
             Class<? extends Enum<?>> enumClass = (Class<? extends Enum<?>>) clazz;
-            return new EnumSchema(enumClass);
+            return interner.enumeration(enumClass);
         } else if (DECIMAL_NUMBER_CLASSES.contains(clazz)) {
-            return new NumberSchema();
+            return interner.number(null);
         } else if (Number.class.isAssignableFrom(clazz) || INTEGER_NUMBER_CLASSES.contains(clazz)) {
-            return new IntegerSchema();
+            return interner.integer(null);
         } else if (Date.class.isAssignableFrom(clazz) || Calendar.class.isAssignableFrom(clazz)) {
-            return new StringSchema();
+            return interner.string();
         } else if (Collection.class.isAssignableFrom(clazz)) {
             // raw collection or list, parameterized is handled above
-            return new ArraySchema().items(new ObjectSchema());
+            return interner.array(interner.object());
         } else if (clazz.isArray()) {
-            return arrayTypeToSchema(containingClassType, type, clazz);
+            return interner.array(javaResponseTypeToSchema(registry, metadata, clazz.getComponentType()));
         } else if (Map.class.isAssignableFrom(clazz)) {
-            return new ObjectSchema();
-        } else {
-            return customObjectToSchema(clazz);
-        }
-    }
-
-    private static ArraySchema arrayTypeToSchema(Type containingClassType, Type type, Class<?> clazz) {
-        ArraySchema arraySchema = new ArraySchema();
-        Class<?> componentType = clazz.getComponentType();
-        if (containingClassType == componentType) {
-            // type embedded in itself, prevent recursion
-            arraySchema.setItems(new ObjectSchema());
+            return interner.object();
         } else {
-            arraySchema.setItems(javaResponseTypeToSchema(type, componentType));
+            return registry.schemaReference(clazz, () -> customObjectToSchema(registry, metadata, clazz));
         }
-        return arraySchema;
     }
 
-    private static ObjectSchema customObjectToSchema(Class<?> clazz) {
-        ObjectSchema schema = new ObjectSchema();
-        try {
-            for (PropertyDescriptor property : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
-                Method readMethod = property.getReadMethod();
-                if (JAVA_LANG_CLASSES.contains(readMethod.getDeclaringClass())) {
-                    continue;
-                }
-                schema.addProperties(property.getName(), javaResponseTypeToSchema(clazz, readMethod.getGenericReturnType()));
-            }
-        } catch (IntrospectionException e) {
-            e.printStackTrace();
+    private static Schema<?> customObjectToSchema(ComponentsRegistry registry, ClassMetadataCache metadata, Type beanType) {
+        Map<String, Schema<?>> properties = new LinkedHashMap<>();
+        for (BeanProperty property : metadata.getResolvedBeanProperties(beanType)) {
+            properties.put(property.getName(), javaResponseTypeToSchema(registry, metadata, property.getType()));
         }
-        return schema;
+        return registry.getInterner().object(properties);
     }
 
 }
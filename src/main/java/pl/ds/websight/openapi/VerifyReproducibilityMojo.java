@@ -0,0 +1,112 @@
+package pl.ds.websight.openapi;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Maven mojo to verify that generation in the reproducible mode is reproducible for the project. It generates the
+ * specification twice, each time with a new class loader, and fails if any of the generated files differ.
+ */
+@Mojo(
+        name = "verify-reproducibility",
+        defaultPhase = LifecyclePhase.VERIFY,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
+)
+public class VerifyReproducibilityMojo extends GenerateMojo {
+
+    /**
+     * Directory to which the specification is generated by each run, in {@code run-1} and {@code run-2} subdirectories.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/openapi-reproducibility")
+    private File reproducibilityDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        getOutputFormats();
+        reproducible = true;
+        classLoaderCacheSize = 0;
+        List<Path> runDirectories = new ArrayList<>();
+        for (int run = 1; run <= 2; run++) {
+            File runDirectory = new File(reproducibilityDirectory, "run-" + run);
+            getLog().info("Generating OpenAPI specification to " + runDirectory);
+            deleteDirectory(runDirectory.toPath());
+            generate(runDirectory);
+            runDirectories.add(runDirectory.toPath());
+        }
+        List<String> differences;
+        try {
+            differences = compare(runDirectories.get(0), runDirectories.get(1));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not compare generated files", e);
+        }
+        if (!differences.isEmpty()) {
+            throw new MojoExecutionException("OpenAPI specification is not reproducible, generated files differ: " +
+                    differences);
+        }
+        getLog().info("OpenAPI specification is reproducible");
+    }
+
+    /**
+     * Returns relative paths of the files which differ between the directories or exist in only one of them.
+     */
+    private static List<String> compare(Path first, Path second) throws IOException {
+        SortedSet<String> files = listFiles(first);
+        files.addAll(listFiles(second));
+        List<String> differences = new ArrayList<>();
+        for (String file : files) {
+            Path firstFile = first.resolve(file);
+            Path secondFile = second.resolve(file);
+            if (!Files.isRegularFile(firstFile) || !Files.isRegularFile(secondFile) ||
+                    !Arrays.equals(Files.readAllBytes(firstFile), Files.readAllBytes(secondFile))) {
+                differences.add(file);
+            }
+        }
+        return differences;
+    }
+
+    private static SortedSet<String> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .map(file -> directory.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .collect(toCollection(TreeSet::new));
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws MojoExecutionException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(directory)) {
+                files = paths.sorted(Comparator.reverseOrder()).collect(toList());
+            }
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not delete directory: " + directory, e);
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.PathItem;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Maven mojo to keep OpenAPI specification up to date while the project is developed. It generates the specification
+ * and then watches the project classes directory. When class files change, it converts again only the actions using
+ * the changed classes, patches their paths into the specification kept in memory and rewrites the specification files.
+ * It runs until the build is stopped.
+ */
+@Mojo(
+        name = "watch",
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        threadSafe = true
+)
+public class WatchMojo extends AbstractOpenApiMojo {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    /**
+     * Time without further changes of class files after which the specification is regenerated, so classes written by
+     * a single compilation are handled at once.
+     */
+    private static final long QUIET_PERIOD_MILLIS = 50;
+
+    @Parameter(defaultValue = "${project.build.directory}/classes/apps/${project.artifactId}/docs")
+    private File outputDirectory;
+
+    @Component
+    private MavenProject project;
+
+    private final ComponentsRegistry registry = new ComponentsRegistry();
+    private final SortedMap<String, PathItem> paths = new TreeMap<>();
+    private final Map<String, Set<String>> pathReferences = new HashMap<>();
+    private final Map<String, String> actionPaths = new HashMap<>();
+    private ActionDependencies dependencies;
+    private boolean fullRegenerationRequired;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<OutputFormat> formats = getOutputFormats();
+        Path classesDirectory = Paths.get(project.getBuild().getOutputDirectory());
+        if (!Files.isDirectory(classesDirectory)) {
+            throw new MojoExecutionException("Project classes not found, compile the project first: " + classesDirectory);
+        }
+        dependencies = new ActionDependencies(classesDirectory);
+        createDirectory(outputDirectory);
+        regenerate(classesDirectory, null, formats);
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            registerDirectories(watchService, classesDirectory);
+            getLog().info("Watching " + classesDirectory + " for changes, stop the build to finish");
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> changedClassNames = awaitChanges(watchService, classesDirectory);
+                if (changedClassNames == null || !changedClassNames.isEmpty()) {
+                    try {
+                        regenerate(classesDirectory, changedClassNames, formats);
+                    } catch (MojoExecutionException e) {
+                        fullRegenerationRequired = true;
+                        getLog().warn("Could not regenerate OpenAPI specification, waiting for further changes", e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not watch project classes: " + classesDirectory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        getLog().info("Watching stopped");
+    }
+
+    /**
+     * Converts again the actions affected by the changed classes, or all actions if the changes are unknown, and saves
+     * the specification.
+     *
+     * @param changedClassNames names of the classes which changed, {@code null} if all classes may have changed
+     */
+    private void regenerate(Path classesDirectory, Set<String> changedClassNames, List<OutputFormat> formats)
+            throws MojoExecutionException {
+        long start = System.nanoTime();
+        if (fullRegenerationRequired) {
+            changedClassNames = null;
+            fullRegenerationRequired = false;
+        }
+        Set<String> actionClassNames = discoverRestActionClassNames(classesDirectory);
+        List<String> removedActions = actionPaths.keySet().stream()
+                .filter(actionClassName -> !actionClassNames.contains(actionClassName))
+                .collect(toList());
+        removedActions.forEach(this::removeAction);
+        Set<String> affectedActions = new TreeSet<>();
+        for (String actionClassName : actionClassNames) {
+            if (changedClassNames == null || changedClassNames.contains(actionClassName) ||
+                    !actionPaths.containsKey(actionClassName)) {
+                affectedActions.add(actionClassName);
+            }
+        }
+        if (changedClassNames != null) {
+            dependencies.getDependentActions(changedClassNames).stream()
+                    .filter(actionClassNames::contains)
+                    .forEach(affectedActions::add);
+        }
+        if (affectedActions.isEmpty() && removedActions.isEmpty()) {
+            getLog().debug("Changed classes are not used by any action: " + changedClassNames);
+            return;
+        }
+        Set<String> outdatedClassNames = new HashSet<>();
+        if (changedClassNames != null) {
+            outdatedClassNames.addAll(changedClassNames);
+        }
+        affectedActions.forEach(actionClassName -> outdatedClassNames.addAll(dependencies.getDependencies(actionClassName)));
+        if (!affectedActions.isEmpty()) {
+            convertActions(affectedActions, outdatedClassNames);
+        }
+        saveSpecification(formats);
+        getLog().info("OpenAPI specification regenerated in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) +
+                " ms: " + affectedActions.size() + " actions converted, " + removedActions.size() + " removed, " +
+                actionPaths.size() + " in total");
+    }
+
+    @Override
+    protected Collection<Path> getOutputDirectories(Collection<MavenProject> projects) {
+        Collection<Path> directories = super.getOutputDirectories(projects);
+        directories.add(outputDirectory.toPath());
+        return directories;
+    }
+
+    private Set<String> discoverRestActionClassNames(Path classesDirectory) throws MojoExecutionException {
+        try {
+            return new RestActionDiscovery(actionPackages).discover(classesDirectory, Collections.emptyList()).getClassNames();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not scan classes for actions", e);
+        }
+    }
+
+    private void convertActions(Set<String> actionClassNames, Set<String> outdatedClassNames) throws MojoExecutionException {
+        ClassLoaderCache.Lease classLoaderLease = acquireClassLoader(Collections.singletonList(project), getClass().getClassLoader());
+        try {
+            ClassLoader classLoader = classLoaderLease.getClassLoader();
+            Set<Class<?>> actionClasses = loadRestActionClasses(actionClassNames, classLoader);
+            actionClassNames.forEach(this::removeAction);
+            registry.invalidate(outdatedClassNames);
+            convertRestActions(actionClasses, project.getArtifactId(), registry, new ClassMetadataCache(), classLoader,
+                    null, (actionClass, path, pathItem) -> addAction(actionClass, path, pathItem));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not convert actions", e);
+        } finally {
+            releaseClassLoader(classLoaderLease);
+        }
+    }
+
+    private void addAction(Class<?> actionClass, String path, PathItem pathItem) {
+        paths.put(path, pathItem);
+        pathReferences.put(path, ComponentsRegistry.findReferences(pathItem));
+        actionPaths.put(actionClass.getName(), path);
+        dependencies.update(actionClass);
+    }
+
+    private void removeAction(String actionClassName) {
+        String path = actionPaths.remove(actionClassName);
+        if (path != null) {
+            paths.remove(path);
+            pathReferences.remove(path);
+        }
+        dependencies.remove(actionClassName);
+    }
+
+    private void saveSpecification(List<OutputFormat> formats) throws MojoExecutionException {
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(outputDirectory.toPath(),
+                SpecificationGenerator.API_SPECIFICATION_FILE_BASE_NAME, formats)) {
+            writer.writeStart(SpecificationGenerator.createOpenApi(title, version));
+            Set<String> references = new HashSet<>();
+            for (Map.Entry<String, PathItem> path : paths.entrySet()) {
+                writer.writePath(path.getKey(), path.getValue());
+                references.addAll(pathReferences.get(path.getKey()));
+            }
+            writer.writeEnd(registry.toComponents(references));
+            commitSpecification(writer, outputDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while saving OpenAPI specification file", e);
+        }
+        saveApiHtmlPage(outputDirectory, SpecificationGenerator.API_HTML_PAGE_TEMPLATE, title,
+                saveSpecificationArtifacts(outputDirectory));
+    }
+
+    /**
+     * Waits for changes of class files and returns names of the changed classes, or {@code null} if some changes were
+     * lost. Newly created directories are watched too.
+     */
+    private static Set<String> awaitChanges(WatchService watchService, Path classesDirectory)
+            throws IOException, InterruptedException {
+        Set<String> changedClassNames = new HashSet<>();
+        boolean overflow = false;
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                    continue;
+                }
+                Path file = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                    changedClassNames.addAll(registerDirectories(watchService, file).stream()
+                            .map(classFile -> toClassName(classesDirectory, classFile))
+                            .collect(toList()));
+                } else if (file.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+                    changedClassNames.add(toClassName(classesDirectory, file));
+                }
+            }
+            key.reset();
+            key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return overflow ? null : changedClassNames;
+    }
+
+    /**
+     * Watches the directory and its subdirectories.
+     *
+     * @return class files found in the directories
+     */
+    private static List<Path> registerDirectories(WatchService watchService, Path root) throws IOException {
+        List<Path> directories;
+        List<Path> classFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            directories = files
+                    .filter(file -> {
+                        if (file.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+                            classFiles.add(file);
+                        }
+                        return Files.isDirectory(file);
+                    })
+                    .collect(toList());
+        }
+        for (Path directory : directories) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        return classFiles;
+    }
+
+    private static String toClassName(Path classesDirectory, Path classFile) {
+        String relativePath = classesDirectory.relativize(classFile).toString().replace(File.separatorChar, '/');
+        return relativePath.substring(0, relativePath.length() - CLASS_FILE_EXTENSION.length()).replace('/', '.');
+    }
+
+}
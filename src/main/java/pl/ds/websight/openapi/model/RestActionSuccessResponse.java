@@ -7,12 +7,12 @@ import io.swagger.v3.oas.models.responses.ApiResponse;
 
 public class RestActionSuccessResponse extends ApiResponse {
 
-    public RestActionSuccessResponse(Schema<?> entitySchema) {
+    public RestActionSuccessResponse(Schema<?> resultSchema) {
         super();
         setDescription("OK");
         setContent(new Content()
                 .addMediaType("application/json", new MediaType()
-                        .schema(new RestActionResultSchema("SUCCESS", entitySchema)))
+                        .schema(resultSchema))
         );
     }
 
@@ -0,0 +1,83 @@
+package pl.ds.websight.openapi;
+
+import org.junit.Test;
+import pl.ds.websight.openapi.discovery.ActionsHolder;
+import pl.ds.websight.openapi.discovery.ExtendedGetItemsRestAction;
+import pl.ds.websight.openapi.discovery.GetItemsRestAction;
+import pl.ds.websight.openapi.discovery.Marker;
+import pl.ds.websight.openapi.discovery.NotAnnotatedRestAction;
+import pl.ds.websight.openapi.discovery.SaveItemRestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ClassFileAnnotationScannerTest {
+
+    private final ClassFileAnnotationScanner scanner = new ClassFileAnnotationScanner(SlingAction.class);
+
+    @Test
+    public void findsActionWithFieldsMethodsAndInterfaces() throws IOException {
+        assertEquals(GetItemsRestAction.class.getName(), scanner.getAnnotatedClassName(readClassFile(GetItemsRestAction.class)));
+    }
+
+    @Test
+    public void findsActionAfterOtherAnnotationsAndLongConstants() throws IOException {
+        assertEquals(SaveItemRestAction.class.getName(), scanner.getAnnotatedClassName(readClassFile(SaveItemRestAction.class)));
+    }
+
+    @Test
+    public void findsNestedActionByBinaryName() throws IOException {
+        assertEquals(ActionsHolder.class.getName() + "$NestedRestAction",
+                scanner.getAnnotatedClassName(readClassFile(ActionsHolder.NestedRestAction.class)));
+    }
+
+    @Test
+    public void rejectsClassReferencingAnnotationWithoutBeingAnnotated() throws IOException {
+        assertNull(scanner.getAnnotatedClassName(readClassFile(NotAnnotatedRestAction.class)));
+    }
+
+    @Test
+    public void rejectsClassesWithoutAnnotation() throws IOException {
+        assertNull(scanner.getAnnotatedClassName(readClassFile(ActionsHolder.class)));
+        assertNull(scanner.getAnnotatedClassName(readClassFile(Marker.class)));
+    }
+
+    @Test
+    public void readsSuperclassOfClassWithoutAnnotation() throws IOException {
+        ClassFileAnnotationScanner.ScannedClass scannedClass =
+                scanner.scan(readClassFile(ExtendedGetItemsRestAction.class));
+
+        assertEquals(ExtendedGetItemsRestAction.class.getName(), scannedClass.getName());
+        assertEquals(GetItemsRestAction.class.getName(), scannedClass.getSuperClassName());
+        assertFalse(scannedClass.isAnnotated());
+        assertNull(scanner.scan(readClassFile(Object.class)).getSuperClassName());
+    }
+
+    @Test
+    public void rejectsDataWhichIsNotClassFile() throws IOException {
+        assertNull(scanner.getAnnotatedClassName("not a class file".getBytes(StandardCharsets.UTF_8)));
+        byte[] classFile = readClassFile(GetItemsRestAction.class);
+        assertNull(scanner.getAnnotatedClassName(Arrays.copyOf(classFile, classFile.length / 2)));
+    }
+
+    static byte[] readClassFile(Class<?> clazz) throws IOException {
+        try (InputStream input = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+}
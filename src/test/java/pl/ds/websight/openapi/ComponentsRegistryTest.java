@@ -0,0 +1,87 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class ComponentsRegistryTest {
+
+    @Test
+    public void namesReferencesInOrderOfPathsRegardlessOfOrderOfConversion() {
+        ComponentsRegistry registry = new ComponentsRegistry();
+        Schema<?> utilDate = registry.schemaReference(java.util.Date.class, ObjectSchema::new);
+        Schema<?> sqlDate = registry.schemaReference(java.sql.Date.class, ObjectSchema::new);
+        ComponentsRegistry reversedRegistry = new ComponentsRegistry();
+        Schema<?> reversedSqlDate = reversedRegistry.schemaReference(java.sql.Date.class, ObjectSchema::new);
+        Schema<?> reversedUtilDate = reversedRegistry.schemaReference(java.util.Date.class, ObjectSchema::new);
+
+        registry.nameReferences(Arrays.asList(sqlDate, utilDate));
+        reversedRegistry.nameReferences(Arrays.asList(reversedSqlDate, reversedUtilDate));
+
+        assertEquals("#/components/schemas/Date", sqlDate.get$ref());
+        assertEquals("#/components/schemas/java.util.Date", utilDate.get$ref());
+        assertEquals("#/components/schemas/Date", reversedSqlDate.get$ref());
+        assertEquals("#/components/schemas/java.util.Date", reversedUtilDate.get$ref());
+    }
+
+    @Test
+    public void namesReferencesOfComponentsInOrderOfTheirTypes() {
+        ComponentsRegistry registry = new ComponentsRegistry();
+        Schema<?> utilDate = registry.schemaReference(java.util.Date.class, ObjectSchema::new);
+        Schema<?> sqlDate = registry.schemaReference(java.sql.Date.class, ObjectSchema::new);
+
+        assertEquals(Arrays.asList("Date", "java.util.Date"),
+                Arrays.asList(registry.toComponents().getSchemas().keySet().toArray()));
+        assertEquals("#/components/schemas/Date", sqlDate.get$ref());
+        assertEquals("#/components/schemas/java.util.Date", utilDate.get$ref());
+        assertSame(utilDate, registry.schemaReference(java.util.Date.class, ObjectSchema::new));
+    }
+
+    @Test
+    public void convertsTypeOnceAlsoWhenItReferencesItself() {
+        ComponentsRegistry registry = new ComponentsRegistry();
+        AtomicInteger conversions = new AtomicInteger();
+        Schema<?>[] nestedReference = new Schema<?>[1];
+
+        Schema<?> reference = registry.schemaReference(Node.class, () -> {
+            conversions.incrementAndGet();
+            nestedReference[0] = registry.schemaReference(Node.class, ObjectSchema::new);
+            return new ObjectSchema();
+        });
+        registry.toComponents();
+
+        assertEquals(1, conversions.get());
+        assertSame(reference, nestedReference[0]);
+        assertEquals("#/components/schemas/ComponentsRegistryTest.Node", reference.get$ref());
+    }
+
+    @Test
+    public void forgetsTypeWhoseConversionFailed() {
+        ComponentsRegistry registry = new ComponentsRegistry();
+
+        assertThrows(IllegalStateException.class, () -> registry.schemaReference(Node.class, () -> {
+            throw new IllegalStateException("conversion failed");
+        }));
+
+        assertNull(registry.toComponents());
+        AtomicInteger conversions = new AtomicInteger();
+        registry.schemaReference(Node.class, () -> {
+            conversions.incrementAndGet();
+            return new ObjectSchema();
+        });
+        assertEquals(1, conversions.get());
+        assertEquals(1, registry.toComponents().getSchemas().size());
+    }
+
+    private static final class Node {
+    }
+
+}
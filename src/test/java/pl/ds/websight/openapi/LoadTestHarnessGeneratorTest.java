@@ -0,0 +1,98 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class LoadTestHarnessGeneratorTest {
+
+    private static final String SPECIFICATION = "load-test-specification.json";
+    private static final String PACKAGE_NAME = "test.load";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void harnessSendsValidRequestsToStubServer() throws Exception {
+        Path project = temporaryFolder.newFolder("harness").toPath();
+        File report = temporaryFolder.newFile("report.json");
+
+        int actions = writeHarness(project);
+        int status = runHarness(project, "--stub", "--requests", "20", "--warmup", "5", "--concurrency", "4",
+                "--report", report.getPath());
+
+        assertEquals(3, actions);
+        assertEquals(0, status);
+        JsonNode results = new ObjectMapper().readTree(report).path("actions");
+        assertEquals(actions, results.size());
+        for (JsonNode result : results) {
+            assertEquals(result.path("path").asText(), 20, result.path("requests").asInt());
+            assertEquals(result.path("path").asText(), 0, result.path("errors").asInt());
+        }
+    }
+
+    @Test
+    public void harnessRejectsInvalidOptions() throws Exception {
+        Path project = temporaryFolder.newFolder("harness").toPath();
+
+        writeHarness(project);
+
+        assertEquals(2, runHarness(project, "--requests"));
+    }
+
+    private static int writeHarness(Path project) throws Exception {
+        JsonNode specification;
+        try (InputStream input = LoadTestHarnessGeneratorTest.class.getResourceAsStream(SPECIFICATION)) {
+            assertNotNull(SPECIFICATION, input);
+            specification = new ObjectMapper().readTree(input);
+        }
+        return new LoadTestHarnessGenerator(specification).write(project, "test", "load-test", "1.0", PACKAGE_NAME);
+    }
+
+    /**
+     * Compiles the harness against the test class path, which has its dependencies, and runs it in this JVM.
+     */
+    private static int runHarness(Path project, String... args) throws Exception {
+        Path classes = Files.createDirectories(project.resolve("target/classes"));
+        List<String> compilerArgs = new ArrayList<>();
+        compilerArgs.add("-classpath");
+        compilerArgs.add(System.getProperty("java.class.path"));
+        compilerArgs.add("-d");
+        compilerArgs.add(classes.toString());
+        try (Stream<Path> files = Files.walk(project.resolve("src/main/java"))) {
+            compilerArgs.addAll(files.filter(file -> file.toString().endsWith(".java")).map(Path::toString)
+                    .collect(toList()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests have to be run by JDK", compiler);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int compilationStatus = compiler.run(null, null, errors, compilerArgs.toArray(new String[0]));
+        assertEquals(new String(errors.toByteArray(), StandardCharsets.UTF_8), 0, compilationStatus);
+        URL[] urls = {classes.toUri().toURL(), project.resolve("src/main/resources").toUri().toURL()};
+        try (URLClassLoader classLoader = new URLClassLoader(urls, LoadTestHarnessGeneratorTest.class.getClassLoader())) {
+            Class<?> loadTest = classLoader.loadClass(PACKAGE_NAME + ".LoadTest");
+            return (int) loadTest.getMethod("run", String[].class).invoke(null, (Object) args);
+        }
+    }
+
+}
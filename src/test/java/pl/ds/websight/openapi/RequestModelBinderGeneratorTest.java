@@ -0,0 +1,240 @@
+package pl.ds.websight.openapi;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ds.websight.openapi.binders.BindingSamples;
+import pl.ds.websight.openapi.binders.SearchModel;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trip of the generated binders: they are compiled and bind parameters to the fixture models in a class loader
+ * of their own.
+ */
+public class RequestModelBinderGeneratorTest {
+
+    private static final List<Class<?>> MODEL_CLASSES = Arrays.asList(SearchModel.class, SearchModel.Sorting.class);
+    private static final Map<Class<?>, String> SOURCES = new HashMap<>();
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static URLClassLoader classLoader;
+
+    @BeforeClass
+    public static void generateBinders() throws Exception {
+        RequestModelBinderGenerator generator = new RequestModelBinderGenerator(new ClassMetadataCache());
+        Path directory = temporaryFolder.newFolder("binders").toPath();
+        List<String> compilerArgs = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                "-d", directory.toString()));
+        StringBuilder index = new StringBuilder();
+        for (Class<?> modelClass : MODEL_CLASSES) {
+            String binderClassName = RequestModelBinderGenerator.getBinderClassName(modelClass);
+            Path source = directory.resolve(binderClassName.replace('.', '/') + ".java");
+            Files.createDirectories(source.getParent());
+            SOURCES.put(modelClass, generator.generate(modelClass));
+            Files.write(source, SOURCES.get(modelClass).getBytes(StandardCharsets.UTF_8));
+            compilerArgs.add(source.toString());
+            index.append(modelClass.getName()).append('=').append(binderClassName).append('\n');
+        }
+        Path indexFile = directory.resolve(RequestModelBinderGenerator.INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+        Files.write(indexFile, index.toString().getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests have to be run by JDK", compiler);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, compilerArgs.toArray(new String[0]));
+        assertEquals(new String(errors.toByteArray(), StandardCharsets.UTF_8), 0, status);
+        classLoader = createClassLoader(directory);
+    }
+
+    /**
+     * Returns class loader of the test class path and the binders, not delegating to the class loader of the tests, so
+     * the binders are in the same runtime packages as their models and are found through their class loader.
+     */
+    private static URLClassLoader createClassLoader(Path bindersDirectory) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        urls.add(bindersDirectory.toUri().toURL());
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        return new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    @AfterClass
+    public static void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @Test
+    public void namesBindersOfNestedModelsAfterTheirEnclosingClasses() {
+        assertEquals("pl.ds.websight.openapi.binders.SearchModel_SortingRequestModelBinder",
+                RequestModelBinderGenerator.getBinderClassName(SearchModel.Sorting.class));
+    }
+
+    @Test
+    public void assignsPrivateFieldsBySettersOrMethodHandles() {
+        String source = SOURCES.get(SearchModel.class);
+
+        assertTrue(source, source.contains("model.query = "));
+        assertTrue(source, source.contains("model.setOffset("));
+        assertTrue(source, source.contains("SET_RECURSIVE.invokeExact(model, "));
+        assertTrue(source, source.contains("SET_KINDS.invokeExact(model, "));
+        assertTrue(source, SOURCES.get(SearchModel.Sorting.class).contains("CONSTRUCTOR.invokeExact()"));
+    }
+
+    @Test
+    public void bindsFieldsOfAllSupportedTypes() throws Exception {
+        Map<String, String[]> parameters = requiredParameters();
+        parameters.put("limit", new String[]{" 25 "});
+        parameters.put("offset", new String[]{"10"});
+        parameters.put("recursive", new String[]{"true"});
+        parameters.put("sizes", new String[]{"1", "2"});
+        parameters.put("kinds", new String[]{"ASSET", "PAGE", "ASSET"});
+        parameters.put("ids", new String[]{"3", "4"});
+        parameters.put("separator", new String[]{","});
+        parameters.put("quote", new String[]{"'"});
+        parameters.put("kind", new String[]{" PAGE "});
+        parameters.put("threshold", new String[]{"0.75"});
+        parameters.put("upload", new String[]{"content"});
+        parameters.put("notBound", new String[]{"ignored"});
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("query", "text");
+        expected.put("limit", 25);
+        expected.put("offset", 10);
+        expected.put("recursive", true);
+        expected.put("names", Arrays.asList("first", "second"));
+        expected.put("sizes", Arrays.asList(1, 2));
+        expected.put("kinds", new LinkedHashSet<>(Arrays.asList("ASSET", "PAGE")));
+        expected.put("ids", Arrays.asList(3L, 4L));
+        expected.put("separator", ',');
+        expected.put("quote", '\'');
+        expected.put("kind", "PAGE");
+        expected.put("threshold", new BigDecimal("0.75"));
+        expected.put("ratio", 0.5);
+        expected.put("upload", "content");
+        expected.put("notBound", null);
+        expected.put("offsetSetBySetter", true);
+        assertEquals(expected, bind(SearchModel.class, parameters));
+    }
+
+    @Test
+    public void bindsNestedModelWithPrivateConstructor() throws Exception {
+        assertEquals(Collections.singletonMap("order", "desc"),
+                bind(SearchModel.Sorting.class, Collections.singletonMap("order", new String[]{"desc"})));
+        assertEquals(Collections.singletonMap("order", null), bind(SearchModel.Sorting.class, Collections.emptyMap()));
+    }
+
+    @Test
+    public void reportsMissingRequiredParametersInOrderOfFields() throws Exception {
+        Map<String, String> violations = getViolations(new HashMap<>());
+
+        assertEquals(Arrays.asList("names", "q", "ratio"), new ArrayList<>(violations.keySet()));
+        assertEquals("must not be empty", violations.get("names"));
+        assertEquals("must not be blank", violations.get("q"));
+        assertEquals("must not be null", violations.get("ratio"));
+    }
+
+    @Test
+    public void reportsBlankString() throws Exception {
+        Map<String, String[]> parameters = requiredParameters();
+        parameters.put("q", new String[]{" \t"});
+
+        assertEquals(Collections.singletonMap("q", "must not be blank"), getViolations(parameters));
+    }
+
+    @Test
+    public void treatsEmptyValuesAsMissing() throws Exception {
+        Map<String, String[]> parameters = requiredParameters();
+        parameters.put("limit", new String[]{""});
+        parameters.put("offset", new String[]{""});
+        parameters.put("kind", new String[]{""});
+        parameters.put("threshold", new String[]{""});
+        parameters.put("sizes", new String[0]);
+
+        Map<String, Object> model = bind(SearchModel.class, parameters);
+
+        assertEquals(0, model.get("limit"));
+        assertNull(model.get("offset"));
+        assertFalse((Boolean) model.get("offsetSetBySetter"));
+        assertNull(model.get("kind"));
+        assertNull(model.get("threshold"));
+        assertNull(model.get("sizes"));
+        parameters.put("ratio", new String[]{""});
+        assertEquals(Collections.singletonMap("ratio", "must not be null"), getViolations(parameters));
+    }
+
+    @Test
+    public void reportsInvalidValues() throws Exception {
+        Map<String, String[]> parameters = requiredParameters();
+        parameters.put("limit", new String[]{"ten"});
+        parameters.put("kind", new String[]{"UNKNOWN"});
+        parameters.put("separator", new String[]{"ab"});
+        parameters.put("sizes", new String[]{"1", "x"});
+        parameters.put("ids", new String[]{"3", ""});
+        parameters.put("offset", new String[]{"1"});
+
+        Map<String, String> violations = getViolations(parameters);
+
+        assertEquals(Arrays.asList("ids", "kind", "limit", "separator", "sizes"), new ArrayList<>(violations.keySet()));
+        assertTrue(violations.toString(), violations.values().stream().allMatch("has invalid value"::equals));
+    }
+
+    private static Map<String, String[]> requiredParameters() {
+        Map<String, String[]> parameters = new HashMap<>();
+        parameters.put("q", new String[]{"text"});
+        parameters.put("names", new String[]{"first", "second"});
+        parameters.put("ratio", new String[]{"0.5"});
+        return parameters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> bind(Class<?> modelClass, Map<String, String[]> parameters) throws Exception {
+        return (Map<String, Object>) invoke("bind", modelClass, parameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getViolations(Map<String, String[]> parameters) throws Exception {
+        return (Map<String, String>) invoke("getViolations", SearchModel.class, parameters);
+    }
+
+    private static Object invoke(String methodName, Class<?> modelClass, Map<String, String[]> parameters)
+            throws Exception {
+        try {
+            return classLoader.loadClass(BindingSamples.class.getName()).getMethod(methodName, String.class, Map.class)
+                    .invoke(null, modelClass.getName(), parameters);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package pl.ds.websight.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ds.websight.openapi.writers.Detail;
+import pl.ds.websight.openapi.writers.Item;
+import pl.ds.websight.openapi.writers.Page;
+import pl.ds.websight.openapi.writers.ResponseSamples;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trip of the generated writers: they are compiled and the results they write are compared with the JSON written
+ * by Jackson reflectively.
+ */
+public class ResponseEntityWriterGeneratorTest {
+
+    private static final String FIXTURES_PACKAGE = Item.class.getPackage().getName();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static URLClassLoader classLoader;
+
+    @BeforeClass
+    public static void generateWriters() throws Exception {
+        ResponseEntityWriterGenerator generator = new ResponseEntityWriterGenerator(new ClassMetadataCache(),
+                clazz -> clazz.getName().startsWith(FIXTURES_PACKAGE + "."));
+        Type responseType = ResponseSamples.class.getMethod("page").getGenericReturnType();
+        List<Class<?>> entityClasses = generator.getEntityClasses(Collections.singletonList(responseType));
+        assertEquals(Arrays.asList(Detail.class, Item.class, Page.class), entityClasses);
+        Path directory = temporaryFolder.newFolder("writers").toPath();
+        List<String> compilerArgs = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                "-d", directory.toString()));
+        StringBuilder index = new StringBuilder();
+        for (Class<?> entityClass : entityClasses) {
+            String writerClassName = ResponseEntityWriterGenerator.getWriterClassName(entityClass);
+            Path source = directory.resolve(writerClassName.replace('.', '/') + ".java");
+            Files.createDirectories(source.getParent());
+            Files.write(source, generator.generate(entityClass).getBytes(StandardCharsets.UTF_8));
+            compilerArgs.add(source.toString());
+            index.append(entityClass.getName()).append('=').append(writerClassName).append('\n');
+        }
+        Path indexFile = directory.resolve(ResponseEntityWriterGenerator.INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+        Files.write(indexFile, index.toString().getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests have to be run by JDK", compiler);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, compilerArgs.toArray(new String[0]));
+        assertEquals(new String(errors.toByteArray(), StandardCharsets.UTF_8), 0, status);
+        classLoader = createClassLoader(directory);
+    }
+
+    /**
+     * Returns class loader of the test class path and the writers, not delegating to the class loader of the tests, so
+     * the entity classes it loads find the writers in their class loader.
+     */
+    private static URLClassLoader createClassLoader(Path writersDirectory) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        urls.add(writersDirectory.toUri().toURL());
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        return new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    @AfterClass
+    public static void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @Test
+    public void findsWritersOfEntityClasses() throws Exception {
+        for (Class<?> entityClass : Arrays.asList(Item.class, Detail.class, Page.class)) {
+            assertTrue(entityClass.getName(), (Boolean) invoke("hasWriter", entityClass.getName()));
+        }
+    }
+
+    @Test
+    public void writesNestedBeansWithCollectionsMapsAndEnums() throws Exception {
+        assertSameAsJackson("item");
+    }
+
+    @Test
+    public void writesNullProperties() throws Exception {
+        assertSameAsJackson("emptyItem");
+    }
+
+    @Test
+    public void writesCollectionsOfBeans() throws Exception {
+        assertSameAsJackson("items");
+    }
+
+    @Test
+    public void writesGenericBeans() throws Exception {
+        assertSameAsJackson("page");
+    }
+
+    @Test
+    public void writesMapsAndNullEntitiesByJackson() throws Exception {
+        assertSameAsJackson("map");
+        assertSameAsJackson("null");
+    }
+
+    @Test
+    public void writesResultWithAuthContext() throws Exception {
+        JsonNode result = MAPPER.readTree((String) invoke("writeGeneratedResult", "admin"));
+
+        List<String> fieldNames = new ArrayList<>();
+        result.fieldNames().forEachRemaining(fieldNames::add);
+        assertEquals(Arrays.asList("status", "message", "messageDetails", "authContext", "entity"), fieldNames);
+        assertEquals("SUCCESS", result.path("status").asText());
+        assertEquals("Found", result.path("message").asText());
+        assertEquals("Details", result.path("messageDetails").asText());
+        assertEquals("admin", result.path("authContext").path("userId").asText());
+        assertEquals(1, result.path("authContext").size());
+        assertEquals(MAPPER.readTree((String) invoke("writeReflectively", "item")).path("entity"), result.path("entity"));
+    }
+
+    @Test
+    public void writesResultWithoutAuthContextOfUnknownUser() throws Exception {
+        JsonNode result = MAPPER.readTree((String) invoke("writeGeneratedResult", null));
+
+        assertFalse(result.has("authContext"));
+        assertTrue(result.path("messageDetails").isTextual());
+        assertTrue(result.path("entity").isObject());
+    }
+
+    private static void assertSameAsJackson(String sample) throws Exception {
+        String generated = (String) invoke("writeGenerated", sample);
+        String reflective = (String) invoke("writeReflectively", sample);
+        assertEquals(generated, MAPPER.readTree(reflective), MAPPER.readTree(generated));
+    }
+
+    private static Object invoke(String methodName, String argument) throws Exception {
+        try {
+            return classLoader.loadClass(ResponseSamples.class.getName()).getMethod(methodName, String.class)
+                    .invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+}
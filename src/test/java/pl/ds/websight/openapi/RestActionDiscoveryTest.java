@@ -0,0 +1,236 @@
+package pl.ds.websight.openapi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ds.websight.openapi.discovery.ActionsHolder;
+import pl.ds.websight.openapi.discovery.ExtendedGetItemsRestAction;
+import pl.ds.websight.openapi.discovery.GetItemsRestAction;
+import pl.ds.websight.openapi.discovery.Marker;
+import pl.ds.websight.openapi.discovery.NotAnnotatedRestAction;
+import pl.ds.websight.openapi.discovery.SaveItemRestAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class RestActionDiscoveryTest {
+
+    private static final List<Class<?>> FIXTURE_CLASSES = Arrays.asList(GetItemsRestAction.class,
+            ExtendedGetItemsRestAction.class, SaveItemRestAction.class, ActionsHolder.class,
+            ActionsHolder.NestedRestAction.class, NotAnnotatedRestAction.class, Marker.class);
+    private static final List<String> ACTION_CLASS_NAMES = Arrays.asList(ActionsHolder.NestedRestAction.class.getName(),
+            ExtendedGetItemsRestAction.class.getName(), GetItemsRestAction.class.getName(),
+            SaveItemRestAction.class.getName());
+    private static final String FIXTURES_PACKAGE = GetItemsRestAction.class.getPackage().getName();
+    private static final List<String> COMPILED_CLASSES_INDEX = Arrays.asList(ActionsHolder.class.getName(),
+            ExtendedGetItemsRestAction.class.getName(), GetItemsRestAction.class.getName(), Marker.class.getName(), NotAnnotatedRestAction.class.getName(),
+            SaveItemRestAction.class.getName());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void findsActionsInClassesDirectory() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(FIXTURE_CLASSES.size(), result.getReport().getInspectedClasses());
+    }
+
+    @Test
+    public void findsActionsInJars() throws IOException {
+        File jar = writeJar();
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(null, Collections.singletonList(jar));
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(1, result.getReport().getInspectedJars());
+    }
+
+    @Test
+    public void findsSubclassesOfActionsInOtherScannedJars() throws IOException {
+        File jar = writeJar(null, Collections.singletonList(GetItemsRestAction.class));
+        Path classesDirectory = temporaryFolder.newFolder("classes").toPath();
+        writeClass(classesDirectory, ExtendedGetItemsRestAction.class);
+
+        assertEquals(Arrays.asList(ExtendedGetItemsRestAction.class.getName(), GetItemsRestAction.class.getName()),
+                Arrays.asList(new RestActionDiscovery(null).discover(classesDirectory, Collections.singletonList(jar))
+                        .getClassNames().toArray()));
+        // the annotated superclass is not scanned
+        assertEquals(Collections.emptyList(), Arrays.asList(new RestActionDiscovery(null)
+                .discover(classesDirectory, Collections.emptyList()).getClassNames().toArray()));
+    }
+
+    @Test
+    public void findsSubclassesOfIndexedActions() throws IOException {
+        File jar = writeJar(GetItemsRestAction.class.getName() + " GET\n" + GetItemsRestAction.class.getName() + "\n",
+                Collections.singletonList(GetItemsRestAction.class));
+        Path classesDirectory = temporaryFolder.newFolder("classes").toPath();
+        writeClass(classesDirectory, ExtendedGetItemsRestAction.class);
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null)
+                .discover(classesDirectory, Collections.singletonList(jar));
+
+        assertEquals(Arrays.asList(ExtendedGetItemsRestAction.class.getName(), GetItemsRestAction.class.getName()),
+                Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(1, result.getReport().getInspectedClasses());
+        assertEquals(Collections.emptyList(), result.getReport().getIgnoredIndexes());
+    }
+
+    @Test
+    public void limitsScanningToActionPackages() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(new RestActionDiscovery(Collections.singletonList(FIXTURES_PACKAGE))
+                .discover(classesDirectory, Collections.emptyList()).getClassNames().toArray()));
+        assertEquals(Collections.emptyList(), Arrays.asList(new RestActionDiscovery(Collections.singletonList("com.example"))
+                .discover(classesDirectory, Collections.emptyList()).getClassNames().toArray()));
+    }
+
+    @Test
+    public void readsActionsFromCompleteIndex() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+        // the index is trusted, so an action missing in it is not found
+        writeIndex(classesDirectory, GetItemsRestAction.class.getName() + " GET", COMPILED_CLASSES_INDEX);
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+
+        assertEquals(Collections.singletonList(GetItemsRestAction.class.getName()),
+                Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(0, result.getReport().getInspectedClasses());
+        assertEquals(1, result.getReport().getReadIndexes());
+        assertEquals(Collections.emptyList(), result.getReport().getIgnoredIndexes());
+    }
+
+    @Test
+    public void readsActionsFromIndexWithoutGeneratedClasses() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+        writeIndex(classesDirectory, GetItemsRestAction.class.getName() + " GET", COMPILED_CLASSES_INDEX);
+        // compiled after the action index by the generate-binders and generate-response-writers goals
+        String binderClassName = FIXTURES_PACKAGE + ".SaveItemRestActionModelBinder";
+        String writerClassName = FIXTURES_PACKAGE + ".MarkerWriter";
+        writeGeneratedClass(classesDirectory, binderClassName, RequestModelBinderGenerator.INDEX_RESOURCE,
+                FIXTURES_PACKAGE + ".SaveItemRestActionModel=" + binderClassName);
+        writeGeneratedClass(classesDirectory, writerClassName + "$1", ResponseEntityWriterGenerator.INDEX_RESOURCE,
+                Marker.class.getName() + "=" + writerClassName);
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+
+        assertEquals(Collections.singletonList(GetItemsRestAction.class.getName()),
+                Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(0, result.getReport().getInspectedClasses());
+        assertEquals(Collections.emptyList(), result.getReport().getIgnoredIndexes());
+    }
+
+    @Test
+    public void scansClassesNotListedInIndex() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+        // written by an incremental compilation of one of the classes
+        writeIndex(classesDirectory, GetItemsRestAction.class.getName() + " GET",
+                Collections.singletonList(GetItemsRestAction.class.getName()));
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(FIXTURE_CLASSES.size(), result.getReport().getInspectedClasses());
+        assertEquals(1, result.getReport().getIgnoredIndexes().size());
+    }
+
+    @Test
+    public void scansClassesWhenIndexedActionIsRemoved() throws IOException {
+        Path classesDirectory = writeClassesDirectory();
+        writeIndex(classesDirectory, FIXTURES_PACKAGE + ".RemovedRestAction GET", COMPILED_CLASSES_INDEX);
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(classesDirectory, Collections.emptyList());
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(1, result.getReport().getIgnoredIndexes().size());
+    }
+
+    @Test
+    public void scansJarsWithIncompleteIndex() throws IOException {
+        File jar = writeJar(GetItemsRestAction.class.getName() + " GET\n" + GetItemsRestAction.class.getName() + "\n");
+
+        RestActionDiscovery.Result result = new RestActionDiscovery(null).discover(null, Collections.singletonList(jar));
+
+        assertEquals(ACTION_CLASS_NAMES, Arrays.asList(result.getClassNames().toArray()));
+        assertEquals(1, result.getReport().getIgnoredIndexes().size());
+    }
+
+    private Path writeClassesDirectory() throws IOException {
+        Path classesDirectory = temporaryFolder.newFolder("classes").toPath();
+        for (Class<?> clazz : FIXTURE_CLASSES) {
+            writeClass(classesDirectory, clazz);
+        }
+        Files.createDirectories(classesDirectory.resolve("META-INF"));
+        Files.write(classesDirectory.resolve("META-INF/MANIFEST.MF"), new byte[0]);
+        return classesDirectory;
+    }
+
+    private static void writeClass(Path classesDirectory, Class<?> clazz) throws IOException {
+        Path classFile = classesDirectory.resolve(getClassFilePath(clazz));
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, ClassFileAnnotationScannerTest.readClassFile(clazz));
+    }
+
+    private static void writeIndex(Path classesDirectory, String action, List<String> compiledClasses) throws IOException {
+        Path index = classesDirectory.resolve(RestActionDiscovery.INDEX_FILE_PATH);
+        Files.createDirectories(index.getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add(action);
+        lines.addAll(compiledClasses);
+        Files.write(index, lines, StandardCharsets.UTF_8);
+    }
+
+    private static void writeGeneratedClass(Path classesDirectory, String className, String indexResource,
+            String indexLine) throws IOException {
+        Path classFile = classesDirectory.resolve(className.replace('.', '/') + ".class");
+        Files.write(classFile, ClassFileAnnotationScannerTest.readClassFile(Marker.class));
+        Path index = classesDirectory.resolve(indexResource);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Collections.singletonList(indexLine), StandardCharsets.UTF_8);
+    }
+
+    private File writeJar() throws IOException {
+        return writeJar(null);
+    }
+
+    private File writeJar(String index) throws IOException {
+        return writeJar(index, FIXTURE_CLASSES);
+    }
+
+    private File writeJar(String index, List<Class<?>> classes) throws IOException {
+        File jar = temporaryFolder.newFile("actions.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            for (Class<?> clazz : classes) {
+                output.putNextEntry(new JarEntry(getClassFilePath(clazz)));
+                output.write(ClassFileAnnotationScannerTest.readClassFile(clazz));
+                output.closeEntry();
+            }
+            if (index != null) {
+                output.putNextEntry(new JarEntry(RestActionDiscovery.INDEX_FILE_PATH));
+                output.write(index.getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static String getClassFilePath(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+}
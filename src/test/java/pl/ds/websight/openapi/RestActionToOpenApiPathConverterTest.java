@@ -0,0 +1,56 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Schema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import pl.ds.websight.openapi.schemas.ListUsersRestAction;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class RestActionToOpenApiPathConverterTest {
+
+    private static final String SCHEMAS_REF_PREFIX = "#/components/schemas/";
+
+    private final ComponentsRegistry registry = new ComponentsRegistry();
+    private final RestActionToOpenApiPathConverter converter = new RestActionToOpenApiPathConverter(SilentLog.INSTANCE,
+            "test", registry, new ClassMetadataCache(), false);
+
+    @Test
+    public void convertsGenericResponseTypeThroughNestedBeansCollectionsAndMaps() {
+        Pair<String, PathItem> path = converter.convert(ListUsersRestAction.class);
+        assertNotNull(path);
+        registry.nameReferences(path.getRight());
+
+        Schema<?> result = path.getRight().getGet().getResponses().get("200").getContent().get("application/json")
+                .getSchema();
+        assertEquals(SCHEMAS_REF_PREFIX + "Page_UserDto", getProperty(result, "entity").get$ref());
+        @SuppressWarnings("rawtypes") Map<String, Schema> schemas = registry.toComponents().getSchemas();
+        Schema<?> page = schemas.get("Page_UserDto");
+        assertNotNull(schemas.keySet().toString(), page);
+        assertEquals(Arrays.asList("first", "groups", "items", "total"), Arrays.asList(page.getProperties().keySet().toArray()));
+        Schema<?> items = getProperty(page, "items");
+        assertEquals("array", items.getType());
+        assertEquals(SCHEMAS_REF_PREFIX + "UserDto", getItems(items).get$ref());
+        Schema<?> groups = (Schema<?>) getProperty(page, "groups").getAdditionalProperties();
+        assertEquals(SCHEMAS_REF_PREFIX + "UserDto", getItems(groups).get$ref());
+        assertEquals(SCHEMAS_REF_PREFIX + "Section_UserDto", getProperty(page, "first").get$ref());
+        assertEquals(SCHEMAS_REF_PREFIX + "UserDto", getProperty(schemas.get("Section_UserDto"), "item").get$ref());
+        assertEquals(Arrays.asList("groups", "name"),
+                Arrays.asList(schemas.get("UserDto").getProperties().keySet().toArray()));
+    }
+
+    private static Schema<?> getProperty(Schema<?> schema, String name) {
+        return schema.getProperties().get(name);
+    }
+
+    private static Schema<?> getItems(Schema<?> arraySchema) {
+        return ((ArraySchema) arraySchema).getItems();
+    }
+
+}
@@ -0,0 +1,91 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.PathItem;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openjdk.jol.info.GraphLayout;
+import pl.ds.websight.openapi.schemas.FindUsersRestAction;
+import pl.ds.websight.openapi.schemas.GetUserRestAction;
+import pl.ds.websight.openapi.schemas.ListUserGroupsRestAction;
+import pl.ds.websight.openapi.schemas.ListUsersRestAction;
+import pl.ds.websight.openapi.schemas.SaveUserRestAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Heap retained by the paths and components of the fixture actions, converted with and without interning of the
+ * schemas, measured by JOL like {@code SchemaFootprintBenchmark} does for large corpora.
+ */
+public class SchemaFootprintTest {
+
+    private static final List<Class<?>> ACTION_CLASSES = Arrays.asList(GetUserRestAction.class,
+            SaveUserRestAction.class, FindUsersRestAction.class, ListUsersRestAction.class,
+            ListUserGroupsRestAction.class);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void internedSchemasRetainLessHeapAndWriteTheSameSpecification() throws IOException {
+        Specification interned = convert(true);
+        Specification notInterned = convert(false);
+
+        long internedSize = GraphLayout.parseInstance(interned.paths, interned.components).totalSize();
+        long notInternedSize = GraphLayout.parseInstance(notInterned.paths, notInterned.components).totalSize();
+        assertTrue(internedSize + " bytes interned, " + notInternedSize + " bytes not interned",
+                internedSize < notInternedSize);
+        assertEquals(writeSpecification(notInterned), writeSpecification(interned));
+    }
+
+    private static Specification convert(boolean interning) {
+        ComponentsRegistry registry = new ComponentsRegistry(interning);
+        RestActionToOpenApiPathConverter converter =
+                new RestActionToOpenApiPathConverter(SilentLog.INSTANCE, "test", registry, new ClassMetadataCache(), false);
+        Map<String, PathItem> paths = new LinkedHashMap<>();
+        for (Class<?> actionClass : ACTION_CLASSES) {
+            Pair<String, PathItem> path = converter.convert(actionClass);
+            paths.put(path.getKey(), path.getValue());
+        }
+        return new Specification(paths, registry.toComponents());
+    }
+
+    private String writeSpecification(Specification specification) throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        try (OpenApiStreamWriter writer = new OpenApiStreamWriter(directory, "api",
+                Collections.singletonList(OutputFormat.YAML))) {
+            writer.writeStart(SpecificationGenerator.createOpenApi("test", "1.0"));
+            for (Map.Entry<String, PathItem> path : specification.paths.entrySet()) {
+                writer.writePath(path.getKey(), path.getValue());
+            }
+            writer.writeEnd(specification.components);
+            return new String(Files.readAllBytes(writer.commit().get(0)), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Specification {
+
+        private final Map<String, PathItem> paths;
+        private final Components components;
+
+        private Specification(Map<String, PathItem> paths, Components components) {
+            this.paths = paths;
+            this.components = components;
+        }
+
+    }
+
+}
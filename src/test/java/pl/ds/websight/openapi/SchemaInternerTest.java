@@ -0,0 +1,90 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.media.Schema;
+import org.junit.Test;
+
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class SchemaInternerTest {
+
+    @Test
+    public void sharesPrimitiveAndEnumSchemas() {
+        SchemaInterner interner = new SchemaInterner(true);
+
+        assertSame(interner.string(), new SchemaInterner(true).string());
+        assertSame(interner.integer(true), interner.integer(true));
+        assertNotSame(interner.integer(true), interner.integer(null));
+        assertSame(interner.enumeration(RetentionPolicy.class), interner.enumeration(RetentionPolicy.class));
+        assertSame(interner.enumeration(RetentionPolicy.class, RetentionPolicy.SOURCE),
+                interner.enumeration(RetentionPolicy.class, RetentionPolicy.SOURCE));
+        assertNotSame(interner.enumeration(RetentionPolicy.class),
+                interner.enumeration(RetentionPolicy.class, RetentionPolicy.SOURCE));
+    }
+
+    @Test
+    public void sharesCompositeSchemasWithIdenticalParts() {
+        SchemaInterner interner = new SchemaInterner(true);
+
+        assertSame(interner.array(interner.string()), interner.array(interner.string()));
+        assertNotSame(interner.array(interner.string()), interner.array(interner.bool()));
+        assertSame(interner.map(interner.bool()), interner.map(interner.bool()));
+        assertSame(interner.object(item(interner)), interner.object(item(interner)));
+        assertSame(interner.array(interner.object(item(interner))), interner.array(interner.object(item(interner))));
+        assertSame(interner.object(), interner.object(Collections.emptyMap()));
+    }
+
+    @Test
+    public void sharesConstantsWithinRunOnly() {
+        SchemaInterner interner = new SchemaInterner(true);
+
+        assertSame(interner.constant("SUCCESS"), interner.constant("SUCCESS"));
+        assertNotSame(interner.constant("SUCCESS"), interner.constant("ERROR"));
+        assertEquals(Collections.singletonList("ERROR"), interner.constant("ERROR").getEnum());
+        assertNotSame(interner.constant("SUCCESS"), new SchemaInterner(true).constant("SUCCESS"));
+    }
+
+    @Test
+    public void distinguishesObjectsByOrderOfProperties() {
+        SchemaInterner interner = new SchemaInterner(true);
+        Map<String, Schema<?>> reversed = new LinkedHashMap<>();
+        reversed.put("name", interner.string());
+        reversed.put("id", interner.integer(null));
+
+        assertNotSame(interner.object(item(interner)), interner.object(reversed));
+    }
+
+    @Test
+    public void sharedObjectsCannotBeModified() {
+        SchemaInterner interner = new SchemaInterner(true);
+        Schema<?> object = interner.object(item(interner));
+
+        assertThrows(UnsupportedOperationException.class, () -> object.addProperties("other", interner.string()));
+    }
+
+    @Test
+    public void createsNewSchemasWhenDisabled() {
+        SchemaInterner interner = new SchemaInterner(false);
+
+        assertNotSame(interner.string(), interner.string());
+        assertNotSame(interner.constant("SUCCESS"), interner.constant("SUCCESS"));
+        assertNotSame(interner.enumeration(RetentionPolicy.class), interner.enumeration(RetentionPolicy.class));
+        assertNotSame(interner.object(item(interner)), interner.object(item(interner)));
+        assertNotSame(interner.array(interner.string()), interner.array(interner.string()));
+    }
+
+    private static Map<String, Schema<?>> item(SchemaInterner interner) {
+        Map<String, Schema<?>> properties = new LinkedHashMap<>();
+        properties.put("id", interner.integer(null));
+        properties.put("name", interner.string());
+        return properties;
+    }
+
+}
@@ -0,0 +1,49 @@
+package pl.ds.websight.openapi;
+
+/**
+ * Log discarding all messages, so tests do not clutter the build output.
+ */
+final class SilentLog implements GenerationLog {
+
+    static final GenerationLog INSTANCE = new SilentLog();
+
+    private SilentLog() {
+        // single instance
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug(String message) {
+        // discarded
+    }
+
+    @Override
+    public void debug(String message, Throwable error) {
+        // discarded
+    }
+
+    @Override
+    public void info(String message) {
+        // discarded
+    }
+
+    @Override
+    public void warn(String message) {
+        // discarded
+    }
+
+    @Override
+    public void error(String message) {
+        // discarded
+    }
+
+    @Override
+    public void error(String message, Throwable error) {
+        // discarded
+    }
+
+}
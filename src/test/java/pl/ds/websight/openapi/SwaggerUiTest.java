@@ -0,0 +1,78 @@
+package pl.ds.websight.openapi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SwaggerUiTest {
+
+    // attributes and CSS loading a resource from another host
+    private static final Pattern EXTERNAL_RESOURCE = Pattern.compile(
+            "(?:src|href)\\s*=\\s*[\"']?(?:https?:)?//|@import\\s+[\"']?(?:https?:)?//|url\\(\\s*[\"']?(?:https?:)?//");
+    // inlined scripts mention URLs in strings, which are not loaded by the page
+    private static final Pattern INLINE_SCRIPT = Pattern.compile("(?s)<script>.*?</script>");
+    private static final String GOOGLE_FONTS_HOST = "fonts.googleapis.com";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void bundledPageLoadsNothingFromOtherHosts() throws Exception {
+        File directory = temporaryFolder.newFolder();
+
+        String page = renderPage(SwaggerUi.Mode.BUNDLED, directory);
+
+        assertNoExternalResources(page);
+        assertTrue(page.contains("src=\"./" + SwaggerUi.ASSETS_DIRECTORY_NAME + "/swagger-ui-bundle.js\""));
+        assertTrue(new File(directory, SwaggerUi.ASSETS_DIRECTORY_NAME + "/swagger-ui-bundle.js").isFile());
+        assertTrue(new File(directory, SwaggerUi.ASSETS_DIRECTORY_NAME + "/swagger-ui.css").isFile());
+    }
+
+    @Test
+    public void inlinedPageLoadsNothingFromOtherHosts() throws Exception {
+        File directory = temporaryFolder.newFolder();
+
+        String page = renderPage(SwaggerUi.Mode.INLINED, directory);
+
+        assertNoExternalResources(page);
+        assertFalse(page.contains("src=\"./" + SwaggerUi.ASSETS_DIRECTORY_NAME));
+        assertFalse(new File(directory, SwaggerUi.ASSETS_DIRECTORY_NAME).exists());
+    }
+
+    @Test
+    public void cdnPageLoadsSwaggerUiAndFontsFromOtherHosts() throws Exception {
+        String page = renderPage(SwaggerUi.Mode.CDN, temporaryFolder.newFolder());
+
+        assertTrue(EXTERNAL_RESOURCE.matcher(page).find());
+        assertTrue(page.contains(GOOGLE_FONTS_HOST));
+    }
+
+    private static String renderPage(SwaggerUi.Mode mode, File directory) throws GenerationException, IOException {
+        new SpecificationGenerator(SilentLog.INSTANCE)
+                .swaggerUi(mode)
+                .gzip(false)
+                .saveApiHtmlPage(directory, SpecificationGenerator.API_HTML_PAGE_TEMPLATE, "Test", "api.yaml");
+        return new String(Files.readAllBytes(new File(directory, SpecificationGenerator.API_HTML_PAGE_FILE_NAME).toPath()),
+                StandardCharsets.UTF_8);
+    }
+
+    private static void assertNoExternalResources(String page) {
+        Matcher matcher = EXTERNAL_RESOURCE.matcher(INLINE_SCRIPT.matcher(page).replaceAll("<script></script>"));
+        if (matcher.find()) {
+            fail("Page loads resource from another host: " + matcher.group() + "...");
+        }
+        assertFalse(page.contains(GOOGLE_FONTS_HOST));
+    }
+
+}
@@ -0,0 +1,44 @@
+package pl.ds.websight.openapi;
+
+import io.swagger.v3.oas.models.media.Schema;
+import org.junit.Test;
+import pl.ds.websight.openapi.schemas.Node;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TypeUtilTest {
+
+    private final ComponentsRegistry registry = new ComponentsRegistry();
+    private final ClassMetadataCache metadata = new ClassMetadataCache();
+
+    @Test
+    public void convertsSelfExpandingGenericBeanAsRawClassBeyondMaxDepth() throws NoSuchMethodException {
+        Schema<?> reference = TypeUtil.javaResponseTypeToSchema(registry, metadata, getReturnType("stringNode"));
+        registry.nameReferences(reference);
+
+        @SuppressWarnings("rawtypes") Map<String, Schema> schemas = registry.toComponents().getSchemas();
+        assertEquals("#/components/schemas/Node_String", reference.get$ref());
+        assertEquals("#/components/schemas/Node_List_List_String",
+                getProperty(schemas.get("Node_List_String"), "children").get$ref());
+        assertTrue(schemas.keySet().toString(), schemas.containsKey("Node"));
+        assertTrue(schemas.keySet().toString(), schemas.size() < 20);
+    }
+
+    private static Schema<?> getProperty(Schema<?> schema, String name) {
+        return schema.getProperties().get(name);
+    }
+
+    private static Type getReturnType(String methodName) throws NoSuchMethodException {
+        return TypeUtilTest.class.getDeclaredMethod(methodName).getGenericReturnType();
+    }
+
+    @SuppressWarnings("unused")
+    private static Node<String> stringNode() {
+        return null;
+    }
+
+}
@@ -0,0 +1,139 @@
+package pl.ds.websight.openapi.binders;
+
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestParameterMap;
+import pl.ds.websight.openapi.runtime.binding.RequestModelBinder;
+import pl.ds.websight.openapi.runtime.binding.RequestModelBinders;
+import pl.ds.websight.openapi.runtime.binding.RequestModelBindingException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binding of parameters by the generated binders. Methods are called by name in a class loader with the generated
+ * binders, as the binders assign fields of their models directly and are found through the class loader of the models.
+ * Values are returned as classes of the JDK, e.g. enums by their names, so they can be compared outside of it.
+ */
+public final class BindingSamples {
+
+    private BindingSamples() {
+        // no instances
+    }
+
+    /**
+     * Binds the parameters to the model and returns values of all its fields by their names.
+     */
+    public static Map<String, Object> bind(String modelClassName, Map<String, String[]> parameters) throws Exception {
+        return describe(findBinder(modelClassName).bind(parameterMap(parameters)));
+    }
+
+    /**
+     * Binds the parameters to the model and returns the violations, empty if the parameters are valid.
+     */
+    public static Map<String, String> getViolations(String modelClassName, Map<String, String[]> parameters)
+            throws Exception {
+        try {
+            findBinder(modelClassName).bind(parameterMap(parameters));
+            return Collections.emptyMap();
+        } catch (RequestModelBindingException e) {
+            return new LinkedHashMap<>(e.getViolations());
+        }
+    }
+
+    private static RequestModelBinder<?> findBinder(String modelClassName) throws ClassNotFoundException {
+        RequestModelBinder<?> binder = RequestModelBinders.find(Class.forName(modelClassName));
+        if (binder == null) {
+            throw new IllegalStateException("Binder of " + modelClassName + " not found");
+        }
+        return binder;
+    }
+
+    private static Map<String, Object> describe(Object model) throws IllegalAccessException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Field field : model.getClass().getDeclaredFields()) {
+            if (!field.isSynthetic()) {
+                field.setAccessible(true);
+                values.put(field.getName(), toJdkValue(field.get(model)));
+            }
+        }
+        return values;
+    }
+
+    private static Object toJdkValue(Object value) {
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        } else if (value instanceof RequestParameter) {
+            return ((RequestParameter) value).getString();
+        } else if (value != null && value.getClass().isArray()) {
+            List<Object> elements = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                elements.add(toJdkValue(Array.get(value, i)));
+            }
+            return elements;
+        } else if (value instanceof Collection) {
+            Collection<Object> elements = value instanceof List ? new ArrayList<>() : new LinkedHashSet<>();
+            for (Object element : (Collection<?>) value) {
+                elements.add(toJdkValue(element));
+            }
+            return elements;
+        }
+        return value;
+    }
+
+    /**
+     * Returns stand-in of the parameters of a request, implementing only the methods the binders use.
+     */
+    private static RequestParameterMap parameterMap(Map<String, String[]> parameters) {
+        Map<String, RequestParameter[]> values = new HashMap<>();
+        parameters.forEach((name, strings) -> {
+            RequestParameter[] parameterValues = new RequestParameter[strings.length];
+            for (int i = 0; i < strings.length; i++) {
+                parameterValues[i] = parameter(name, strings[i]);
+            }
+            values.put(name, parameterValues);
+        });
+        return (RequestParameterMap) Proxy.newProxyInstance(BindingSamples.class.getClassLoader(),
+                new Class<?>[]{RequestParameterMap.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getValues":
+                            return values.get((String) args[0]);
+                        case "getValue":
+                            RequestParameter[] parameterValues = values.get((String) args[0]);
+                            return parameterValues != null && parameterValues.length > 0 ? parameterValues[0] : null;
+                        default:
+                            try {
+                                return method.invoke(values, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static RequestParameter parameter(String name, String value) {
+        return (RequestParameter) Proxy.newProxyInstance(BindingSamples.class.getClassLoader(),
+                new Class<?>[]{RequestParameter.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getString":
+                            return value;
+                        case "toString":
+                            return name + "=" + value;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,8 @@
+package pl.ds.websight.openapi.binders;
+
+public enum Kind {
+
+    PAGE,
+    ASSET
+
+}
@@ -0,0 +1,84 @@
+package pl.ds.websight.openapi.binders;
+
+import pl.ds.websight.request.parameters.support.annotations.RequestParameter;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Request model with fields of all supported kinds, assigned directly, by setters and by method handles.
+ */
+public class SearchModel {
+
+    @NotBlank
+    @RequestParameter(name = "q")
+    String query;
+
+    @RequestParameter
+    int limit;
+
+    @RequestParameter
+    private Integer offset;
+
+    @RequestParameter
+    private Boolean recursive;
+
+    @NotEmpty
+    @RequestParameter
+    List<String> names;
+
+    @RequestParameter
+    int[] sizes;
+
+    @RequestParameter
+    private Set<Kind> kinds;
+
+    @RequestParameter
+    List<Long> ids;
+
+    @RequestParameter
+    char separator;
+
+    @RequestParameter
+    Character quote;
+
+    @RequestParameter
+    Kind kind;
+
+    @RequestParameter
+    BigDecimal threshold;
+
+    @NotNull
+    @RequestParameter
+    Double ratio;
+
+    org.apache.sling.api.request.RequestParameter upload;
+
+    String notBound;
+
+    private boolean offsetSetBySetter;
+
+    public void setOffset(Integer offset) {
+        this.offset = offset;
+        this.offsetSetBySetter = true;
+    }
+
+    /**
+     * Model with a private constructor and a private field without setter, nested in another class.
+     */
+    public static class Sorting {
+
+        @RequestParameter
+        private String order;
+
+        private Sorting() {
+            // created by the binder through a method handle
+        }
+
+    }
+
+}
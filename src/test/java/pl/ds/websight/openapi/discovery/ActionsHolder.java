@@ -0,0 +1,16 @@
+package pl.ds.websight.openapi.discovery;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+public final class ActionsHolder {
+
+    private ActionsHolder() {
+        // no instances
+    }
+
+    @SlingAction(SlingAction.HttpMethod.GET)
+    public abstract static class NestedRestAction implements RestAction<String, String> {
+    }
+
+}
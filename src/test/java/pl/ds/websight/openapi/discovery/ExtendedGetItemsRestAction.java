@@ -0,0 +1,7 @@
+package pl.ds.websight.openapi.discovery;
+
+public abstract class ExtendedGetItemsRestAction extends GetItemsRestAction {
+
+    private static final long serialVersionUID = 1L;
+
+}
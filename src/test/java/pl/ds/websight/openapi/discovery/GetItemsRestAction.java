@@ -0,0 +1,26 @@
+package pl.ds.websight.openapi.discovery;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.io.Serializable;
+import java.util.List;
+
+@SlingAction(SlingAction.HttpMethod.GET)
+public abstract class GetItemsRestAction implements RestAction<String, List<String>>, Serializable, Comparable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Deprecated
+    private final transient List<String> items = null;
+
+    protected List<String> getItems() {
+        return items;
+    }
+
+    @Override
+    public int compareTo(String other) {
+        return other.length();
+    }
+
+}
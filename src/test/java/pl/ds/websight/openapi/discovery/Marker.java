@@ -0,0 +1,20 @@
+package pl.ds.websight.openapi.discovery;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation with element values of all kinds, which are skipped before the action annotation is found.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Marker {
+
+    String[] value();
+
+    RetentionPolicy policy();
+
+    Class<?> type();
+
+    Deprecated nested();
+
+}
@@ -0,0 +1,20 @@
+package pl.ds.websight.openapi.discovery;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * References the action annotation in its constant pool, but is not annotated with it.
+ */
+@Marker(value = "other", policy = RetentionPolicy.RUNTIME, type = SlingAction.class, nested = @Deprecated)
+public abstract class NotAnnotatedRestAction implements RestAction<String, String> {
+
+    private SlingAction annotation;
+
+    SlingAction getAnnotation() {
+        return annotation;
+    }
+
+}
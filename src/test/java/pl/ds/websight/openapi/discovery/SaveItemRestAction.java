@@ -0,0 +1,16 @@
+package pl.ds.websight.openapi.discovery;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.lang.annotation.RetentionPolicy;
+
+@Marker(value = {"first", "second"}, policy = RetentionPolicy.CLASS, type = String.class, nested = @Deprecated)
+@SlingAction
+public abstract class SaveItemRestAction implements RestAction<String, Void> {
+
+    static final long MAX_SIZE = 1L << 40;
+    static final double RATIO = 0.75;
+    static final String NAME = "save";
+
+}
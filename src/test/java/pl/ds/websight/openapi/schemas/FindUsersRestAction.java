@@ -0,0 +1,10 @@
+package pl.ds.websight.openapi.schemas;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.util.List;
+
+@SlingAction(SlingAction.HttpMethod.GET)
+public abstract class FindUsersRestAction implements RestAction<UserModel, List<UserDto>> {
+}
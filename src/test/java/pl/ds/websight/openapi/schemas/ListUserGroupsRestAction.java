@@ -0,0 +1,11 @@
+package pl.ds.websight.openapi.schemas;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+import java.util.List;
+import java.util.Map;
+
+@SlingAction(SlingAction.HttpMethod.GET)
+public abstract class ListUserGroupsRestAction implements RestAction<Void, Map<String, List<UserDto>>> {
+}
@@ -0,0 +1,8 @@
+package pl.ds.websight.openapi.schemas;
+
+import pl.ds.websight.rest.framework.RestAction;
+import pl.ds.websight.rest.framework.annotations.SlingAction;
+
+@SlingAction(SlingAction.HttpMethod.GET)
+public abstract class ListUsersRestAction implements RestAction<Void, Page<UserDto>> {
+}
@@ -0,0 +1,22 @@
+package pl.ds.websight.openapi.schemas;
+
+import java.util.List;
+
+/**
+ * Generic bean referencing its own parameterization with a nested type argument, so each parameterization references
+ * a new one.
+ */
+public class Node<T> {
+
+    private T value;
+    private Node<List<T>> children;
+
+    public T getValue() {
+        return value;
+    }
+
+    public Node<List<T>> getChildren() {
+        return children;
+    }
+
+}
@@ -0,0 +1,29 @@
+package pl.ds.websight.openapi.schemas;
+
+import java.util.List;
+import java.util.Map;
+
+public class Page<T> {
+
+    private List<T> items;
+    private Map<String, List<T>> groups;
+    private Section<T> first;
+    private long total;
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Map<String, List<T>> getGroups() {
+        return groups;
+    }
+
+    public Section<T> getFirst() {
+        return first;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+}
@@ -0,0 +1,16 @@
+package pl.ds.websight.openapi.schemas;
+
+public class Section<T> {
+
+    private T item;
+    private String title;
+
+    public T getItem() {
+        return item;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+}
@@ -0,0 +1,18 @@
+package pl.ds.websight.openapi.schemas;
+
+import java.util.List;
+
+public class UserDto {
+
+    private String name;
+    private List<String> groups;
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getGroups() {
+        return groups;
+    }
+
+}
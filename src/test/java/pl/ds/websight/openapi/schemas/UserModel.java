@@ -0,0 +1,20 @@
+package pl.ds.websight.openapi.schemas;
+
+import pl.ds.websight.request.parameters.support.annotations.RequestParameter;
+
+import javax.validation.constraints.NotBlank;
+import java.util.List;
+
+public class UserModel {
+
+    @NotBlank
+    @RequestParameter
+    private String name;
+
+    @RequestParameter
+    private Integer limit;
+
+    @RequestParameter
+    private List<String> groups;
+
+}
@@ -0,0 +1,42 @@
+package pl.ds.websight.openapi.writers;
+
+public class Detail {
+
+    private String value;
+    private Double ratio;
+    private boolean enabled;
+    private long[] versions;
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(Double ratio) {
+        this.ratio = ratio;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long[] getVersions() {
+        return versions;
+    }
+
+    public void setVersions(long[] versions) {
+        this.versions = versions;
+    }
+
+}
@@ -0,0 +1,26 @@
+package pl.ds.websight.openapi.writers;
+
+import java.util.List;
+
+public class Page<T> {
+
+    private List<T> items;
+    private long total;
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+}
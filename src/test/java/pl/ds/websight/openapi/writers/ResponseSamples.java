@@ -0,0 +1,136 @@
+package pl.ds.websight.openapi.writers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pl.ds.websight.openapi.runtime.serialization.ResponseEntityWriters;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of actions written by the generated writers and by Jackson. Methods are called by name in a class loader
+ * with the generated writers, as the writers are found through the class loader of the entity classes.
+ */
+public final class ResponseSamples {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ResponseSamples() {
+        // no instances
+    }
+
+    /**
+     * Returns page of items, its return type is the response type of listing actions.
+     */
+    public static Page<Item> page() {
+        Page<Item> page = new Page<>();
+        page.setItems(Arrays.asList(item(), new Item(), item()));
+        page.setTotal(1L << 40);
+        return page;
+    }
+
+    /**
+     * Returns item with all properties set, nested items and details included.
+     */
+    public static Item item() {
+        Item parent = new Item();
+        parent.setName("parent \"quoted\" \u00e9");
+        parent.setStatus(Status.ARCHIVED);
+        Item item = new Item();
+        item.setName("item");
+        item.setCount(-3);
+        item.setLimit(100);
+        item.setStatus(Status.ACTIVE);
+        item.setCreated(new Date(1_600_000_000_000L));
+        item.setParent(parent);
+        item.setTags(Arrays.asList("first", null, "third"));
+        item.setDetails(new LinkedHashSet<>(Arrays.asList(detail("a", 0.25), detail("b", null), null)));
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        scores.put("one", 1);
+        scores.put("none", null);
+        item.setScores(scores);
+        Map<Status, List<Detail>> history = new EnumMap<>(Status.class);
+        history.put(Status.ACTIVE, Collections.singletonList(detail("c", 1e-9)));
+        history.put(Status.ARCHIVED, new ArrayList<>());
+        item.setHistory(history);
+        return item;
+    }
+
+    private static Detail detail(String value, Double ratio) {
+        Detail detail = new Detail();
+        detail.setValue(value);
+        detail.setRatio(ratio);
+        detail.setEnabled(ratio != null);
+        detail.setVersions(new long[]{1, Long.MAX_VALUE});
+        return detail;
+    }
+
+    /**
+     * Returns the sample entity with the given name.
+     */
+    public static Object sample(String name) {
+        switch (name) {
+            case "item":
+                return item();
+            case "emptyItem":
+                return new Item();
+            case "items":
+                return Arrays.asList(item(), null, new Item());
+            case "page":
+                return page();
+            case "map":
+                return Collections.singletonMap("item", item());
+            case "null":
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown sample " + name);
+        }
+    }
+
+    public static String writeGenerated(String sample) throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            ResponseEntityWriters.writeResult(generator, "SUCCESS", "Found", null, sample(sample));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Writes result with the item and with {@code authContext} of the user.
+     */
+    public static String writeGeneratedResult(String userId) throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            ResponseEntityWriters.writeResult(generator, "SUCCESS", "Found", "Details", userId, item());
+        }
+        return output.toString();
+    }
+
+    public static String writeReflectively(String sample) throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeStringField("status", "SUCCESS");
+            generator.writeStringField("message", "Found");
+            generator.writeStringField("messageDetails", null);
+            generator.writeFieldName("entity");
+            generator.writeObject(sample(sample));
+            generator.writeEndObject();
+        }
+        return output.toString();
+    }
+
+    public static boolean hasWriter(String className) throws ClassNotFoundException {
+        return ResponseEntityWriters.find(Class.forName(className)) != null;
+    }
+
+}
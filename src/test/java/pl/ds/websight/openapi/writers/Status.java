@@ -0,0 +1,7 @@
+package pl.ds.websight.openapi.writers;
+
+public enum Status {
+
+    ACTIVE, ARCHIVED
+
+}